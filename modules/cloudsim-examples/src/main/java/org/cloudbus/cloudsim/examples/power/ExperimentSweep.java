@@ -0,0 +1,276 @@
+package org.cloudbus.cloudsim.examples.power;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.Simulation;
+
+/**
+ * Runs a sweep of experiments: every combination of a set of workloads and a set of policy
+ * configurations (a VM allocation policy, a VM selection policy and the parameter of the allocation
+ * policy). The experiments run concurrently on a bounded pool of threads, each one in its own
+ * {@link Simulation}, so they don't share any simulation state.
+ *
+ * As soon as an experiment finishes, the row of results computed by
+ * {@link Helper#printResults(org.cloudbus.cloudsim.power.PowerDatacenter, List, double, String, boolean, String)}
+ * is appended to a single table, the file results.csv of the output folder. The per-experiment
+ * stats and metrics are written next to it, as done by {@link RunnerAbstract} when
+ * {@link Constants#OUTPUT_CSV} is set. The experiments already in the table are skipped, so an
+ * interrupted sweep is resumed by running it again with the same output folder.
+ *
+ * If you are using any algorithms, policies or workload included in the power package please cite
+ * the following paper:
+ *
+ * Anton Beloglazov, and Rajkumar Buyya, "Optimal Online Deterministic Algorithms and Adaptive
+ * Heuristics for Energy and Performance Efficient Dynamic Consolidation of Virtual Machines in
+ * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
+ * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class ExperimentSweep {
+
+	/** The name of the file with the results of all the experiments. */
+	public static final String RESULTS_FILE = "results.csv";
+
+	/** The class of the runner that creates the entities of each experiment. */
+	private final Class<? extends RunnerAbstract> runnerClass;
+
+	/** The input folder. */
+	private final String inputFolder;
+
+	/** The output folder. */
+	private final String outputFolder;
+
+	/** The workloads. */
+	private final List<String> workloads = new ArrayList<String>();
+
+	/** The policy configurations: the vm allocation policy, vm selection policy and parameter. */
+	private final List<String[]> policies = new ArrayList<String[]>();
+
+	/**
+	 * Instantiates a new experiment sweep.
+	 *
+	 * @param runnerClass the class of the runner that creates the entities of each experiment, which
+	 *            must have a public constructor without arguments
+	 * @param inputFolder the input folder, containing a folder for each workload
+	 * @param outputFolder the output folder
+	 */
+	public ExperimentSweep(Class<? extends RunnerAbstract> runnerClass, String inputFolder, String outputFolder) {
+		this.runnerClass = runnerClass;
+		this.inputFolder = inputFolder;
+		this.outputFolder = outputFolder;
+	}
+
+	/**
+	 * Adds a workload to the sweep.
+	 *
+	 * @param workload the workload
+	 */
+	public void addWorkload(String workload) {
+		workloads.add(workload);
+	}
+
+	/**
+	 * Adds a policy configuration to the sweep for each of the given parameters.
+	 *
+	 * @param vmAllocationPolicy the vm allocation policy
+	 * @param vmSelectionPolicy the vm selection policy, or an empty string if the allocation policy
+	 *            doesn't migrate VMs
+	 * @param parameters the parameters of the allocation policy; none if it doesn't take any
+	 */
+	public void addPolicy(String vmAllocationPolicy, String vmSelectionPolicy, String... parameters) {
+		if (parameters.length == 0) {
+			parameters = new String[] { "" };
+		}
+		for (String parameter : parameters) {
+			policies.add(new String[] { vmAllocationPolicy, vmSelectionPolicy, parameter });
+		}
+	}
+
+	/**
+	 * Adds the policy configurations of the examples: the DVFS policy and each of the IQR, MAD, LR,
+	 * LRR and THR allocation policies, with the parameter used by the examples, combined with each
+	 * of the MC, MMT, MU and RS selection policies.
+	 */
+	public void addExamplePolicies() {
+		addPolicy("dvfs", "");
+		String[][] allocationPolicies = {
+				{ "iqr", "1.5" },
+				{ "lr", "1.2" },
+				{ "lrr", "1.2" },
+				{ "mad", "2.5" },
+				{ "thr", "0.8" } };
+		String[] selectionPolicies = { "mc", "mmt", "mu", "rs" };
+		for (String[] allocationPolicy : allocationPolicies) {
+			for (String selectionPolicy : selectionPolicies) {
+				addPolicy(allocationPolicy[0], selectionPolicy, allocationPolicy[1]);
+			}
+		}
+	}
+
+	/**
+	 * Runs the experiments that are not in the results table yet, appending their results to it as
+	 * they finish. An experiment that fails is reported and left out of the table, so it is run
+	 * again the next time.
+	 *
+	 * @param threads the maximum number of experiments run at the same time
+	 * @return the number of experiments that failed
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws InterruptedException if the thread is interrupted while waiting for the experiments
+	 */
+	public int run(int threads) throws IOException, InterruptedException {
+		File folder = new File(outputFolder);
+		if (!folder.exists()) {
+			folder.mkdirs();
+		}
+		File table = new File(folder, RESULTS_FILE);
+		Set<String> finished = readFinishedExperiments(table);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CompletionService<String> completionService = new ExecutorCompletionService<String>(executor);
+		Map<Future<String>, String> experiments = new HashMap<Future<String>, String>();
+		int failed = 0;
+		BufferedWriter writer = new BufferedWriter(new FileWriter(table, true));
+		try {
+			for (String workload : workloads) {
+				for (String[] policy : policies) {
+					RunnerAbstract runner = createRunner();
+					String experimentName = runner.getExperimentName(workload, policy[0], policy[1], policy[2]);
+					if (!finished.contains(experimentName)) {
+						experiments.put(
+								completionService.submit(createExperiment(runner, experimentName, workload, policy)),
+								experimentName);
+					}
+				}
+			}
+			System.out.println("Running " + experiments.size() + " experiments, "
+					+ (workloads.size() * policies.size() - experiments.size()) + " already finished");
+
+			for (int i = 0; i < experiments.size(); i++) {
+				Future<String> result = completionService.take();
+				String experimentName = experiments.get(result);
+				try {
+					writer.write(result.get());
+					writer.flush();
+					System.out.println("Finished " + experimentName);
+				} catch (ExecutionException e) {
+					failed++;
+					e.getCause().printStackTrace();
+					System.out.println("Failed " + experimentName);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			writer.close();
+		}
+		return failed;
+	}
+
+	/**
+	 * Creates the task that runs an experiment in a new simulation.
+	 *
+	 * @param runner the runner of the experiment
+	 * @param experimentName the experiment name
+	 * @param workload the workload
+	 * @param policy the vm allocation policy, vm selection policy and parameter
+	 * @return the task, which returns the row of results of the experiment
+	 */
+	private Callable<String> createExperiment(
+			final RunnerAbstract runner,
+			final String experimentName,
+			final String workload,
+			final String[] policy) {
+		final Callable<String> experiment = new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				Log.setDisabled(true);
+				runner.init(inputFolder + "/" + workload);
+				return runner.simulate(
+						experimentName,
+						outputFolder,
+						runner.getVmAllocationPolicy(policy[0], policy[1], policy[2]),
+						true);
+			}
+
+		};
+		return new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				return new Simulation().call(experiment);
+			}
+
+		};
+	}
+
+	/**
+	 * Creates a runner.
+	 *
+	 * @return the runner
+	 */
+	private RunnerAbstract createRunner() {
+		try {
+			return runnerClass.getConstructor().newInstance();
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Cannot instantiate " + runnerClass.getName(), e);
+		}
+	}
+
+	/**
+	 * Reads the names of the experiments in the results table. A last row cut short by an
+	 * interrupted sweep is removed from the table, so that experiment is run again.
+	 *
+	 * @param table the results table
+	 * @return the names of the experiments
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static Set<String> readFinishedExperiments(File table) throws IOException {
+		Set<String> finished = new HashSet<String>();
+		if (!table.exists()) {
+			return finished;
+		}
+
+		byte[] content = Files.readAllBytes(table.toPath());
+		int end = content.length;
+		while (end > 0 && content[end - 1] != '\n') {
+			end--;
+		}
+		if (end < content.length) {
+			RandomAccessFile file = new RandomAccessFile(table, "rw");
+			try {
+				file.setLength(end);
+			} finally {
+				file.close();
+			}
+		}
+
+		for (String row : new String(content, 0, end, "UTF-8").split("\n")) {
+			int delimiter = row.indexOf(',');
+			if (delimiter > 0) {
+				finished.add(row.substring(0, delimiter));
+			}
+		}
+		return finished;
+	}
+
+}
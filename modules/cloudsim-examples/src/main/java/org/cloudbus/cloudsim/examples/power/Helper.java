@@ -241,8 +241,9 @@ public class Helper {
 	 * @param experimentName the experiment name
 	 * @param outputInCsv the output in csv
 	 * @param outputFolder the output folder
+	 * @return the results as a row of comma separated values, as written to the stats file
 	 */
-	public static void printResults(
+	public static String printResults(
 			PowerDatacenter datacenter,
 			List<Vm> vms,
 			double lastClock,
@@ -291,6 +292,63 @@ public class Helper {
 			stDevTimeBeforeVmMigration = MathUtil.stDev(timeBeforeVmMigration);
 		}
 
+		StringBuilder data = new StringBuilder();
+		String delimeter = ",";
+
+		data.append(experimentName + delimeter);
+		data.append(parseExperimentName(experimentName));
+		data.append(String.format("%d", numberOfHosts) + delimeter);
+		data.append(String.format("%d", numberOfVms) + delimeter);
+		data.append(String.format("%.2f", totalSimulationTime) + delimeter);
+		data.append(String.format("%.5f", energy) + delimeter);
+		data.append(String.format("%d", numberOfMigrations) + delimeter);
+		data.append(String.format("%.10f", sla) + delimeter);
+		data.append(String.format("%.10f", slaTimePerActiveHost) + delimeter);
+		data.append(String.format("%.10f", slaDegradationDueToMigration) + delimeter);
+		data.append(String.format("%.10f", slaOverall) + delimeter);
+		data.append(String.format("%.10f", slaAverage) + delimeter);
+		// data.append(String.format("%.5f", slaTimePerVmWithMigration) + delimeter);
+		// data.append(String.format("%.5f", slaTimePerVmWithoutMigration) + delimeter);
+		// data.append(String.format("%.5f", slaTimePerHost) + delimeter);
+		data.append(String.format("%d", numberOfHostShutdowns) + delimeter);
+		data.append(String.format("%.2f", meanTimeBeforeHostShutdown) + delimeter);
+		data.append(String.format("%.2f", stDevTimeBeforeHostShutdown) + delimeter);
+		data.append(String.format("%.2f", meanTimeBeforeVmMigration) + delimeter);
+		data.append(String.format("%.2f", stDevTimeBeforeVmMigration) + delimeter);
+
+		if (datacenter.getVmAllocationPolicy() instanceof PowerVmAllocationPolicyMigrationAbstract) {
+			PowerVmAllocationPolicyMigrationAbstract vmAllocationPolicy = (PowerVmAllocationPolicyMigrationAbstract) datacenter
+					.getVmAllocationPolicy();
+
+			double executionTimeVmSelectionMean = MathUtil.mean(vmAllocationPolicy
+					.getExecutionTimeHistoryVmSelection());
+			double executionTimeVmSelectionStDev = MathUtil.stDev(vmAllocationPolicy
+					.getExecutionTimeHistoryVmSelection());
+			double executionTimeHostSelectionMean = MathUtil.mean(vmAllocationPolicy
+					.getExecutionTimeHistoryHostSelection());
+			double executionTimeHostSelectionStDev = MathUtil.stDev(vmAllocationPolicy
+					.getExecutionTimeHistoryHostSelection());
+			double executionTimeVmReallocationMean = MathUtil.mean(vmAllocationPolicy
+					.getExecutionTimeHistoryVmReallocation());
+			double executionTimeVmReallocationStDev = MathUtil.stDev(vmAllocationPolicy
+					.getExecutionTimeHistoryVmReallocation());
+			double executionTimeTotalMean = MathUtil.mean(vmAllocationPolicy
+					.getExecutionTimeHistoryTotal());
+			double executionTimeTotalStDev = MathUtil.stDev(vmAllocationPolicy
+					.getExecutionTimeHistoryTotal());
+
+			data.append(String.format("%.5f", executionTimeVmSelectionMean) + delimeter);
+			data.append(String.format("%.5f", executionTimeVmSelectionStDev) + delimeter);
+			data.append(String.format("%.5f", executionTimeHostSelectionMean) + delimeter);
+			data.append(String.format("%.5f", executionTimeHostSelectionStDev) + delimeter);
+			data.append(String.format("%.5f", executionTimeVmReallocationMean) + delimeter);
+			data.append(String.format("%.5f", executionTimeVmReallocationStDev) + delimeter);
+			data.append(String.format("%.5f", executionTimeTotalMean) + delimeter);
+			data.append(String.format("%.5f", executionTimeTotalStDev) + delimeter);
+		}
+
+		data.append("\n");
+
 		if (outputInCsv) {
 			File folder = new File(outputFolder);
 			if (!folder.exists()) {
@@ -313,66 +371,13 @@ public class Helper {
 				folder4.mkdir();
 			}
 
-			StringBuilder data = new StringBuilder();
-			String delimeter = ",";
-
-			data.append(experimentName + delimeter);
-			data.append(parseExperimentName(experimentName));
-			data.append(String.format("%d", numberOfHosts) + delimeter);
-			data.append(String.format("%d", numberOfVms) + delimeter);
-			data.append(String.format("%.2f", totalSimulationTime) + delimeter);
-			data.append(String.format("%.5f", energy) + delimeter);
-			data.append(String.format("%d", numberOfMigrations) + delimeter);
-			data.append(String.format("%.10f", sla) + delimeter);
-			data.append(String.format("%.10f", slaTimePerActiveHost) + delimeter);
-			data.append(String.format("%.10f", slaDegradationDueToMigration) + delimeter);
-			data.append(String.format("%.10f", slaOverall) + delimeter);
-			data.append(String.format("%.10f", slaAverage) + delimeter);
-			// data.append(String.format("%.5f", slaTimePerVmWithMigration) + delimeter);
-			// data.append(String.format("%.5f", slaTimePerVmWithoutMigration) + delimeter);
-			// data.append(String.format("%.5f", slaTimePerHost) + delimeter);
-			data.append(String.format("%d", numberOfHostShutdowns) + delimeter);
-			data.append(String.format("%.2f", meanTimeBeforeHostShutdown) + delimeter);
-			data.append(String.format("%.2f", stDevTimeBeforeHostShutdown) + delimeter);
-			data.append(String.format("%.2f", meanTimeBeforeVmMigration) + delimeter);
-			data.append(String.format("%.2f", stDevTimeBeforeVmMigration) + delimeter);
-
 			if (datacenter.getVmAllocationPolicy() instanceof PowerVmAllocationPolicyMigrationAbstract) {
-				PowerVmAllocationPolicyMigrationAbstract vmAllocationPolicy = (PowerVmAllocationPolicyMigrationAbstract) datacenter
-						.getVmAllocationPolicy();
-
-				double executionTimeVmSelectionMean = MathUtil.mean(vmAllocationPolicy
-						.getExecutionTimeHistoryVmSelection());
-				double executionTimeVmSelectionStDev = MathUtil.stDev(vmAllocationPolicy
-						.getExecutionTimeHistoryVmSelection());
-				double executionTimeHostSelectionMean = MathUtil.mean(vmAllocationPolicy
-						.getExecutionTimeHistoryHostSelection());
-				double executionTimeHostSelectionStDev = MathUtil.stDev(vmAllocationPolicy
-						.getExecutionTimeHistoryHostSelection());
-				double executionTimeVmReallocationMean = MathUtil.mean(vmAllocationPolicy
-						.getExecutionTimeHistoryVmReallocation());
-				double executionTimeVmReallocationStDev = MathUtil.stDev(vmAllocationPolicy
-						.getExecutionTimeHistoryVmReallocation());
-				double executionTimeTotalMean = MathUtil.mean(vmAllocationPolicy
-						.getExecutionTimeHistoryTotal());
-				double executionTimeTotalStDev = MathUtil.stDev(vmAllocationPolicy
-						.getExecutionTimeHistoryTotal());
-
-				data.append(String.format("%.5f", executionTimeVmSelectionMean) + delimeter);
-				data.append(String.format("%.5f", executionTimeVmSelectionStDev) + delimeter);
-				data.append(String.format("%.5f", executionTimeHostSelectionMean) + delimeter);
-				data.append(String.format("%.5f", executionTimeHostSelectionStDev) + delimeter);
-				data.append(String.format("%.5f", executionTimeVmReallocationMean) + delimeter);
-				data.append(String.format("%.5f", executionTimeVmReallocationStDev) + delimeter);
-				data.append(String.format("%.5f", executionTimeTotalMean) + delimeter);
-				data.append(String.format("%.5f", executionTimeTotalStDev) + delimeter);
-
-				writeMetricHistory(hosts, vmAllocationPolicy, outputFolder + "/metrics/" + experimentName
-						+ "_metric");
+				writeMetricHistory(
+						hosts,
+						(PowerVmAllocationPolicyMigrationAbstract) datacenter.getVmAllocationPolicy(),
+						outputFolder + "/metrics/" + experimentName + "_metric");
 			}
 
-			data.append("\n");
-
 			writeDataRow(data.toString(), outputFolder + "/stats/" + experimentName + "_stats.csv");
 			writeDataColumn(timeBeforeHostShutdown, outputFolder + "/time_before_host_shutdown/"
 					+ experimentName + "_time_before_host_shutdown.csv");
@@ -461,6 +466,7 @@ public class Helper {
 		}
 
 		Log.setDisabled(true);
+		return data.toString();
 	}
 
 	/**
@@ -43,19 +43,27 @@ import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyRandomSelection;
 public abstract class RunnerAbstract {
 
 	/** The enable output. */
-	private static boolean enableOutput;
+	private boolean enableOutput;
 
 	/** The broker. */
-	protected static DatacenterBroker broker;
+	protected DatacenterBroker broker;
 
 	/** The cloudlet list. */
-	protected static List<Cloudlet> cloudletList;
+	protected List<Cloudlet> cloudletList;
 
 	/** The vm list. */
-	protected static List<Vm> vmList;
+	protected List<Vm> vmList;
 
 	/** The host list. */
-	protected static List<PowerHost> hostList;
+	protected List<PowerHost> hostList;
+
+	/**
+	 * Instantiates a runner that doesn't run any simulation by itself. The simulations are run
+	 * through {@link #init(String)} and {@link #simulate(String, String, VmAllocationPolicy, boolean)},
+	 * as done by {@link ExperimentSweep}.
+	 */
+	protected RunnerAbstract() {
+	}
 
 	/**
 	 * Run.
@@ -92,11 +100,19 @@ public abstract class RunnerAbstract {
 			System.exit(0);
 		}
 
-		init(inputFolder + "/" + workload);
+		VmAllocationPolicy policy = null;
+		try {
+			init(inputFolder + "/" + workload);
+			policy = getVmAllocationPolicy(vmAllocationPolicy, vmSelectionPolicy, parameter);
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("The simulation has been terminated due to an unexpected error");
+			System.exit(0);
+		}
 		start(
 				getExperimentName(workload, vmAllocationPolicy, vmSelectionPolicy, parameter),
 				outputFolder,
-				getVmAllocationPolicy(vmAllocationPolicy, vmSelectionPolicy, parameter));
+				policy);
 	}
 
 	/**
@@ -144,8 +160,9 @@ public abstract class RunnerAbstract {
 	 * Inits the simulation.
 	 * 
 	 * @param inputFolder the input folder
+	 * @throws Exception if the workload cannot be loaded
 	 */
-	protected abstract void init(String inputFolder);
+	protected abstract void init(String inputFolder) throws Exception;
 
 	/**
 	 * Starts the simulation.
@@ -158,40 +175,58 @@ public abstract class RunnerAbstract {
 		System.out.println("Starting " + experimentName);
 
 		try {
-			PowerDatacenter datacenter = (PowerDatacenter) Helper.createDatacenter(
-					"Datacenter",
-					PowerDatacenter.class,
-					hostList,
-					vmAllocationPolicy);
+			simulate(experimentName, outputFolder, vmAllocationPolicy, Constants.OUTPUT_CSV);
+		} catch (Exception e) {
+			e.printStackTrace();
+			Log.printLine("The simulation has been terminated due to an unexpected error");
+			System.exit(0);
+		}
 
-			datacenter.setDisableMigrations(false);
+		Log.printLine("Finished " + experimentName);
+	}
 
-			broker.submitVmList(vmList);
-			broker.submitCloudletList(cloudletList);
+	/**
+	 * Runs the simulation of the entities created by {@link #init(String)} and prints its results.
+	 * Unlike {@link #start(String, String, VmAllocationPolicy)}, errors are thrown to the caller.
+	 * 
+	 * @param experimentName the experiment name
+	 * @param outputFolder the output folder
+	 * @param vmAllocationPolicy the vm allocation policy
+	 * @param outputInCsv the output in csv
+	 * @return the results as a row of comma separated values
+	 * @throws Exception if the simulation fails
+	 */
+	protected String simulate(
+			String experimentName,
+			String outputFolder,
+			VmAllocationPolicy vmAllocationPolicy,
+			boolean outputInCsv) throws Exception {
+		PowerDatacenter datacenter = (PowerDatacenter) Helper.createDatacenter(
+				"Datacenter",
+				PowerDatacenter.class,
+				hostList,
+				vmAllocationPolicy);
 
-			CloudSim.terminateSimulation(Constants.SIMULATION_LIMIT);
-			double lastClock = CloudSim.startSimulation();
+		datacenter.setDisableMigrations(false);
 
-			List<Cloudlet> newList = broker.getCloudletReceivedList();
-			Log.printLine("Received " + newList.size() + " cloudlets");
+		broker.submitVmList(vmList);
+		broker.submitCloudletList(cloudletList);
 
-			CloudSim.stopSimulation();
+		CloudSim.terminateSimulation(Constants.SIMULATION_LIMIT);
+		double lastClock = CloudSim.startSimulation();
 
-			Helper.printResults(
-					datacenter,
-					vmList,
-					lastClock,
-					experimentName,
-					Constants.OUTPUT_CSV,
-					outputFolder);
+		List<Cloudlet> newList = broker.getCloudletReceivedList();
+		Log.printLine("Received " + newList.size() + " cloudlets");
 
-		} catch (Exception e) {
-			e.printStackTrace();
-			Log.printLine("The simulation has been terminated due to an unexpected error");
-			System.exit(0);
-		}
+		CloudSim.stopSimulation();
 
-		Log.printLine("Finished " + experimentName);
+		return Helper.printResults(
+				datacenter,
+				vmList,
+				lastClock,
+				experimentName,
+				outputInCsv,
+				outputFolder);
 	}
 
 	/**
@@ -221,6 +256,7 @@ public abstract class RunnerAbstract {
 	 * @param vmSelectionPolicyName the vm selection policy name
 	 * @param parameterName the parameter name
 	 * @return the vm allocation policy
+	 * @throws IllegalArgumentException if any of the policy names is unknown
 	 */
 	protected VmAllocationPolicy getVmAllocationPolicy(
 			String vmAllocationPolicyName,
@@ -285,8 +321,7 @@ public abstract class RunnerAbstract {
 		} else if (vmAllocationPolicyName.equals("dvfs")) {
 			vmAllocationPolicy = new PowerVmAllocationPolicySimple(hostList);
 		} else {
-			System.out.println("Unknown VM allocation policy: " + vmAllocationPolicyName);
-			System.exit(0);
+			throw new IllegalArgumentException("Unknown VM allocation policy: " + vmAllocationPolicyName);
 		}
 		return vmAllocationPolicy;
 	}
@@ -296,6 +331,7 @@ public abstract class RunnerAbstract {
 	 * 
 	 * @param vmSelectionPolicyName the vm selection policy name
 	 * @return the vm selection policy
+	 * @throws IllegalArgumentException if the policy name is unknown
 	 */
 	protected PowerVmSelectionPolicy getVmSelectionPolicy(String vmSelectionPolicyName) {
 		PowerVmSelectionPolicy vmSelectionPolicy = null;
@@ -309,8 +345,7 @@ public abstract class RunnerAbstract {
 		} else if (vmSelectionPolicyName.equals("rs")) {
 			vmSelectionPolicy = new PowerVmSelectionPolicyRandomSelection();
 		} else {
-			System.out.println("Unknown VM selection policy: " + vmSelectionPolicyName);
-			System.exit(0);
+			throw new IllegalArgumentException("Unknown VM selection policy: " + vmSelectionPolicyName);
 		}
 		return vmSelectionPolicy;
 	}
@@ -321,7 +356,7 @@ public abstract class RunnerAbstract {
 	 * @param enableOutput the new enable output
 	 */
 	public void setEnableOutput(boolean enableOutput) {
-		RunnerAbstract.enableOutput = enableOutput;
+		this.enableOutput = enableOutput;
 	}
 
 	/**
@@ -0,0 +1,64 @@
+package org.cloudbus.cloudsim.examples.power.planetlab;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.cloudbus.cloudsim.examples.power.ExperimentSweep;
+
+/**
+ * Runs the policies of the PlanetLab examples over several PlanetLab workloads, running the
+ * experiments concurrently. The results of all the experiments are gathered in the results.csv
+ * file of the output folder; running the sweep again skips the experiments already there.
+ * 
+ * The arguments are all optional: the number of experiments run at the same time (by default, the
+ * number of processors), the output folder (by default, "output") and the workloads (by default,
+ * all the PlanetLab workloads).
+ * 
+ * If you are using any algorithms, policies or workload included in the power package please cite
+ * the following paper:
+ * 
+ * Anton Beloglazov, and Rajkumar Buyya, "Optimal Online Deterministic Algorithms and Adaptive
+ * Heuristics for Energy and Performance Efficient Dynamic Consolidation of Virtual Machines in
+ * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
+ * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
+ * 
+ * @since CloudSim Toolkit 4.0
+ */
+public class PlanetLabSweep {
+
+	/**
+	 * The main method.
+	 * 
+	 * @param args the arguments
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws InterruptedException if the sweep is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length >= 1) {
+			threads = Integer.parseInt(args[0]);
+		}
+		String outputFolder = "output";
+		if (args.length >= 2) {
+			outputFolder = args[1];
+		}
+		String inputFolder = PlanetLabSweep.class.getClassLoader().getResource("workload/planetlab").getPath();
+
+		String[] workloads;
+		if (args.length >= 3) {
+			workloads = Arrays.copyOfRange(args, 2, args.length);
+		} else {
+			workloads = new File(inputFolder).list();
+			Arrays.sort(workloads);
+		}
+
+		ExperimentSweep sweep = new ExperimentSweep(PlanetLabRunner.class, inputFolder, outputFolder);
+		for (String workload : workloads) {
+			sweep.addWorkload(workload);
+		}
+		sweep.addExamplePolicies();
+		sweep.run(threads);
+	}
+
+}
@@ -2,7 +2,6 @@ package org.cloudbus.cloudsim.examples.power.random;
 
 import java.util.Calendar;
 
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.examples.power.Helper;
 import org.cloudbus.cloudsim.examples.power.RunnerAbstract;
@@ -53,27 +52,28 @@ public class RandomRunner extends RunnerAbstract {
 				parameter);
 	}
 
+	/**
+	 * Instantiates a new random runner that runs simulations through an
+	 * {@link org.cloudbus.cloudsim.examples.power.ExperimentSweep}.
+	 */
+	public RandomRunner() {
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see org.cloudbus.cloudsim.examples.power.RunnerAbstract#init(java.lang.String)
 	 */
 	@Override
-	protected void init(String inputFolder) {
-		try {
-			CloudSim.init(1, Calendar.getInstance(), false);
+	protected void init(String inputFolder) throws Exception {
+		CloudSim.init(1, Calendar.getInstance(), false);
 
-			broker = Helper.createBroker();
-			int brokerId = broker.getId();
+		broker = Helper.createBroker();
+		int brokerId = broker.getId();
 
-			cloudletList = RandomHelper.createCloudletList(brokerId, RandomConstants.NUMBER_OF_VMS);
-			vmList = Helper.createVmList(brokerId, cloudletList.size());
-			hostList = Helper.createHostList(RandomConstants.NUMBER_OF_HOSTS);
-		} catch (Exception e) {
-			e.printStackTrace();
-			Log.printLine("The simulation has been terminated due to an unexpected error");
-			System.exit(0);
-		}
+		cloudletList = RandomHelper.createCloudletList(brokerId, RandomConstants.NUMBER_OF_VMS);
+		vmList = Helper.createVmList(brokerId, cloudletList.size());
+		hostList = Helper.createHostList(RandomConstants.NUMBER_OF_HOSTS);
 	}
 
 }
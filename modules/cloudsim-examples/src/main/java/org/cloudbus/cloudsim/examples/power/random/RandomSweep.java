@@ -0,0 +1,50 @@
+package org.cloudbus.cloudsim.examples.power.random;
+
+import java.io.IOException;
+
+import org.cloudbus.cloudsim.examples.power.ExperimentSweep;
+
+/**
+ * Runs the policies of the random workload examples, running the experiments concurrently. The
+ * results of all the experiments are gathered in the results.csv file of the output folder;
+ * running the sweep again skips the experiments already there.
+ * 
+ * The arguments are all optional: the number of experiments run at the same time (by default, the
+ * number of processors) and the output folder (by default, "output").
+ * 
+ * If you are using any algorithms, policies or workload included in the power package please cite
+ * the following paper:
+ * 
+ * Anton Beloglazov, and Rajkumar Buyya, "Optimal Online Deterministic Algorithms and Adaptive
+ * Heuristics for Energy and Performance Efficient Dynamic Consolidation of Virtual Machines in
+ * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
+ * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
+ * 
+ * @since CloudSim Toolkit 4.0
+ */
+public class RandomSweep {
+
+	/**
+	 * The main method.
+	 * 
+	 * @param args the arguments
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws InterruptedException if the sweep is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length >= 1) {
+			threads = Integer.parseInt(args[0]);
+		}
+		String outputFolder = "output";
+		if (args.length >= 2) {
+			outputFolder = args[1];
+		}
+
+		ExperimentSweep sweep = new ExperimentSweep(RandomRunner.class, "", outputFolder);
+		sweep.addWorkload("random");
+		sweep.addExamplePolicies();
+		sweep.run(threads);
+	}
+
+}
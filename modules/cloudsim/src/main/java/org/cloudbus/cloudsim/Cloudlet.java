@@ -94,6 +94,13 @@ public class Cloudlet {
      */
     private double finishTime;
 
+    /**
+     * The time, since the start of the simulation, before which the broker
+     * doesn't submit this Cloudlet, such as the submit time of a job in a
+     * workload trace.
+     */
+    private double submissionDelay;
+
     /**
      * The ID of a reservation made for this cloudlet.
      *
@@ -1333,6 +1340,37 @@ public class Cloudlet {
         return finishTime;
     }
 
+    /**
+     * Gets the time, since the start of the simulation, before which the
+     * broker doesn't submit this Cloudlet.
+     *
+     * @return the submission delay
+     * @pre $none
+     * @post $result >= 0.0
+     */
+    public double getSubmissionDelay() {
+        return submissionDelay;
+    }
+
+    /**
+     * Sets the time, since the start of the simulation, before which the
+     * broker doesn't submit this Cloudlet. A Cloudlet without delay is
+     * submitted as soon as the VMs of the broker are created.
+     *
+     * @param submissionDelay the submission delay
+     * @return <tt>true</tt> if it is successful, <tt>false</tt> otherwise
+     * @pre submissionDelay >= 0.0
+     * @post $none
+     */
+    public boolean setSubmissionDelay(final double submissionDelay) {
+        if (submissionDelay < 0) {
+            return false;
+        }
+
+        this.submissionDelay = submissionDelay;
+        return true;
+    }
+
 	// //////////////////////// PROTECTED METHODS //////////////////////////////
     /**
      * Writes this particular history transaction of this Cloudlet into a log.
@@ -8,9 +8,11 @@
 
 package org.cloudbus.cloudsim;
 
-import java.util.LinkedList;
 import java.util.List;
+
+import org.cloudbus.cloudsim.lists.ResCloudletIndexedList;
 import org.cloudbus.cloudsim.network.datacenter.NetworkCloudletSpaceSharedScheduler;
+import org.cloudbus.cloudsim.util.CloudletCompletionQueue;
 
 
 /**
@@ -47,20 +49,42 @@ public abstract class CloudletScheduler {
 	/** The list of failed cloudlets. */
 	protected List<? extends ResCloudlet> cloudletFailedList;
 
+	/** The queue the VM using the scheduler is added to when a cloudlet finishes, if any. */
+	private CloudletCompletionQueue<Vm> completionQueue;
+
+	/** The VM using the scheduler, as added to the {@link #completionQueue}. */
+	private Vm completionVm;
+
+	/** The finished list created by the scheduler, which calls {@link #notifyCloudletFinished()}
+	 * whenever a cloudlet is added to it. */
+	private final List<? extends ResCloudlet> notifyingFinishedList;
+
+	/** Whether {@link #notifyCloudletFinished()} has been called. */
+	private boolean cloudletFinishedNotified;
+
 	/**
 	 * Creates a new CloudletScheduler object. 
          * A CloudletScheduler must be created before starting the actual simulation.
+	 * The lists of cloudlets are {@link ResCloudletIndexedList indexed by cloudlet id}.
 	 * 
 	 * @pre $none
 	 * @post $none
 	 */
 	public CloudletScheduler() {
 		setPreviousTime(0.0);
-		cloudletWaitingList = new LinkedList<ResCloudlet>();
-		cloudletExecList = new LinkedList<ResCloudlet>();
-		cloudletPausedList = new LinkedList<ResCloudlet>();
-		cloudletFinishedList = new LinkedList<ResCloudlet>();
-		cloudletFailedList = new LinkedList<ResCloudlet>();
+		cloudletWaitingList = new ResCloudletIndexedList<ResCloudlet>();
+		cloudletExecList = new ResCloudletIndexedList<ResCloudlet>();
+		cloudletPausedList = new ResCloudletIndexedList<ResCloudlet>();
+		cloudletFinishedList = new ResCloudletIndexedList<ResCloudlet>() {
+
+			@Override
+			protected void added(ResCloudlet rcl) {
+				notifyCloudletFinished();
+			}
+
+		};
+		notifyingFinishedList = cloudletFinishedList;
+		cloudletFailedList = new ResCloudletIndexedList<ResCloudlet>();
 	}
 
 	/**
@@ -135,6 +159,58 @@ public abstract class CloudletScheduler {
 	 */
 	public abstract void cloudletFinish(ResCloudlet rcl);
 
+	/**
+	 * Adds the VM using the scheduler to the completion queue, if any. It is called whenever a
+	 * cloudlet is added to the finished list created by the scheduler, so it only has to be
+	 * called by the subclasses that {@link #setCloudletFinishedList(List) set another finished
+	 * list}, whenever they add a cloudlet to it.
+	 * 
+	 * @see #setCompletionQueue(CloudletCompletionQueue, Vm)
+	 */
+	protected void notifyCloudletFinished() {
+		cloudletFinishedNotified = true;
+		if (completionQueue != null) {
+			completionQueue.add(completionVm);
+		}
+	}
+
+	/**
+	 * Checks if the scheduler is known to add its VM to the completion queue whenever a cloudlet
+	 * finishes. It is the case if the scheduler keeps the finished list it creates, or if it has
+	 * ever called {@link #notifyCloudletFinished()}. The datacenter checks the VMs of the rest of
+	 * the schedulers for finished cloudlets as they may never be queued.
+	 * 
+	 * @return true if the VM is queued whenever a cloudlet finishes
+	 */
+	public boolean isNotifyingCloudletFinished() {
+		return cloudletFinishedList == notifyingFinishedList || cloudletFinishedNotified;
+	}
+
+	/**
+	 * Gets the queue the VM using the scheduler is added to when a cloudlet finishes.
+	 * 
+	 * @return the completion queue, or null if there is none
+	 */
+	public CloudletCompletionQueue<Vm> getCompletionQueue() {
+		return completionQueue;
+	}
+
+	/**
+	 * Sets the queue the VM using the scheduler is added to when a cloudlet finishes, so that
+	 * the datacenter of the VM doesn't have to check all its VMs for finished cloudlets. The VM
+	 * is added right away if some cloudlet has already finished.
+	 * 
+	 * @param completionQueue the completion queue, or null to stop notifying it
+	 * @param vm the VM using the scheduler
+	 */
+	public void setCompletionQueue(CloudletCompletionQueue<Vm> completionQueue, Vm vm) {
+		this.completionQueue = completionQueue;
+		completionVm = vm;
+		if (completionQueue != null && isFinishedCloudlets()) {
+			completionQueue.add(completionVm);
+		}
+	}
+
 	/**
 	 * Gets the status of a cloudlet.
 	 * 
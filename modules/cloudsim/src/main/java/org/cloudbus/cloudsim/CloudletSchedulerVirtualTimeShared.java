@@ -0,0 +1,472 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.ResCloudletList;
+
+/**
+ * CloudletSchedulerVirtualTimeShared is a {@link CloudletSchedulerTimeShared time-shared}
+ * scheduler that finds the finished cloudlets without updating each of them at every update of
+ * the VM processing.
+ * <p>
+ * In the time-shared policy, every running cloudlet receives the same capacity per PE, so every
+ * cloudlet using the same number of PEs progresses by the same amount of instructions at each
+ * update. The scheduler keeps, for each number of PEs, the instructions served so far to each of
+ * the cloudlets (the virtual time of the group) and tags each cloudlet with the virtual time at
+ * which it will finish. The tags are kept in a heap, so an update only costs O(log n) for each
+ * finished cloudlet instead of O(n), and the progress of the rest of the cloudlets is only
+ * accounted when they leave the execution or the list of running cloudlets is accessed.
+ * <p>
+ * As the instructions served at each update are truncated the same way
+ * {@link CloudletSchedulerTimeShared} does for each cloudlet, the progress of the cloudlets, and
+ * therefore their completion times, are the same as with that scheduler.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class CloudletSchedulerVirtualTimeShared extends CloudletSchedulerTimeShared {
+
+	/** Orders the progresses by the position of their cloudlets in the cloudlet exec list. */
+	private static final Comparator<Progress> SEQUENCE_ORDER = new Comparator<Progress>() {
+
+		@Override
+		public int compare(Progress p1, Progress p2) {
+			return Long.compare(p1.sequence, p2.sequence);
+		}
+
+	};
+
+	/** Orders the progresses by finish tag and then by position in the cloudlet exec list. */
+	private static final Comparator<Progress> FINISH_TAG_ORDER = new Comparator<Progress>() {
+
+		@Override
+		public int compare(Progress p1, Progress p2) {
+			int result = Long.compare(p1.finishTag, p2.finishTag);
+			return result != 0 ? result : Long.compare(p1.sequence, p2.sequence);
+		}
+
+	};
+
+	/** The progress of the cloudlets being executed or paused. */
+	private final Map<ResCloudlet, Progress> progresses = new IdentityHashMap<ResCloudlet, Progress>();
+
+	/** The groups of cloudlets being executed, by number of PEs. */
+	private final Map<Integer, Group> groups = new HashMap<Integer, Group>();
+
+	/** The number of cloudlets being executed. */
+	private int running;
+
+	/** The number of PEs used by the cloudlets being executed. */
+	private int pesInUse;
+
+	/** The sequence number given to the next cloudlet added to the cloudlet exec list. */
+	private long nextSequence;
+
+	/**
+	 * Creates a new CloudletSchedulerVirtualTimeShared object. This method must be invoked before
+	 * starting the actual simulation.
+	 *
+	 * @pre $none
+	 * @post $none
+	 */
+	public CloudletSchedulerVirtualTimeShared() {
+		super();
+	}
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+		double timeSpam = currentTime - getPreviousTime();
+
+		double capacity = getCapacity(mipsShare);
+		for (Group group : groups.values()) {
+			group.served += (long) (capacity * timeSpam * group.pes * Consts.MILLION);
+		}
+
+		if (running == 0) {
+			setPreviousTime(currentTime);
+			return 0.0;
+		}
+
+		// check finished cloudlets, in the order of the exec list
+		List<Progress> finished = new ArrayList<Progress>();
+		for (Group group : groups.values()) {
+			Progress progress = group.peek();
+			while (progress != null && group.served >= progress.finishTag) {
+				group.heap.poll();
+				finished.add(progress);
+				progress = group.peek();
+			}
+		}
+		Collections.sort(finished, SEQUENCE_ORDER);
+		for (Progress progress : finished) {
+			stop(progress);
+			progresses.remove(progress.rcl);
+			super.getCloudletExecList().remove(progress.rcl);
+			cloudletFinish(progress.rcl);
+		}
+
+		// estimate finish time of cloudlets, the first cloudlet of each group being the earliest
+		double nextEvent = Double.MAX_VALUE;
+		capacity = getCapacity(mipsShare);
+		for (Group group : groups.values()) {
+			Progress progress = group.peek();
+			double estimatedFinishTime = currentTime
+					+ (progress.getRemainingLength() / (capacity * group.pes));
+			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+				estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+			}
+
+			if (estimatedFinishTime < nextEvent) {
+				nextEvent = estimatedFinishTime;
+			}
+		}
+
+		setPreviousTime(currentTime);
+		return nextEvent;
+	}
+
+	@Override
+	protected double getCapacity(List<Double> mipsShare) {
+		double capacity = 0.0;
+		int cpus = 0;
+		for (Double mips : mipsShare) {
+			capacity += mips;
+			if (mips > 0.0) {
+				cpus++;
+			}
+		}
+		currentCPUs = cpus;
+
+		if (pesInUse > currentCPUs) {
+			capacity /= pesInUse;
+		} else {
+			capacity /= currentCPUs;
+		}
+		return capacity;
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		// First, looks in the finished queue
+		ResCloudlet rcl = ResCloudletList.getById(getCloudletFinishedList(), cloudletId);
+		if (rcl != null) {
+			getCloudletFinishedList().remove(rcl);
+			return rcl.getCloudlet();
+		}
+
+		// Then searches in the exec list
+		rcl = ResCloudletList.getById(super.getCloudletExecList(), cloudletId);
+		if (rcl != null) {
+			super.getCloudletExecList().remove(rcl);
+			unschedule(progresses.remove(rcl));
+			if (rcl.getRemainingCloudletLength() == 0) {
+				cloudletFinish(rcl);
+			} else {
+				rcl.setCloudletStatus(Cloudlet.CANCELED);
+			}
+			return rcl.getCloudlet();
+		}
+
+		// Now, looks in the paused queue
+		rcl = ResCloudletList.getById(getCloudletPausedList(), cloudletId);
+		if (rcl != null) {
+			getCloudletPausedList().remove(rcl);
+			progresses.remove(rcl);
+			rcl.setCloudletStatus(Cloudlet.CANCELED);
+			return rcl.getCloudlet();
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		ResCloudlet rcl = ResCloudletList.getById(super.getCloudletExecList(), cloudletId);
+		if (rcl != null) {
+			// remove cloudlet from the exec list and put it in the paused list
+			super.getCloudletExecList().remove(rcl);
+			unschedule(progresses.get(rcl));
+			if (rcl.getRemainingCloudletLength() == 0) {
+				progresses.remove(rcl);
+				cloudletFinish(rcl);
+			} else {
+				rcl.setCloudletStatus(Cloudlet.PAUSED);
+				getCloudletPausedList().add(rcl);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		// look for the cloudlet in the paused list
+		ResCloudlet rgl = ResCloudletList.getById(getCloudletPausedList(), cloudletId);
+		if (rgl != null) {
+			getCloudletPausedList().remove(rgl);
+			rgl.setCloudletStatus(Cloudlet.INEXEC);
+			Progress progress = progresses.get(rgl);
+			start(progress);
+			schedule(progress);
+
+			// calculate the expected time for cloudlet completion
+			double remainingLength = rgl.getRemainingCloudletLength();
+			double estimatedFinishTime = CloudSim.clock()
+					+ (remainingLength / (getCapacity(getCurrentMipsShare()) * rgl.getNumberOfPes()));
+
+			return estimatedFinishTime;
+		}
+
+		return 0.0;
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		ResCloudlet rcl = new ResCloudlet(cloudlet);
+		rcl.setCloudletStatus(Cloudlet.INEXEC);
+		for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
+			rcl.setMachineAndPeId(0, i);
+		}
+
+		Progress progress = new Progress(rcl);
+		progresses.put(rcl, progress);
+		start(progress);
+
+		// use the current capacity to estimate the extra amount of
+		// time to file transferring. It must be added to the cloudlet length
+		double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
+		long length = (long) (cloudlet.getCloudletLength() + extraSize);
+		cloudlet.setCloudletLength(length);
+
+		schedule(progress);
+
+		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
+	}
+
+	@Override
+	public int runningCloudlets() {
+		return running;
+	}
+
+	@Override
+	public Cloudlet migrateCloudlet() {
+		ResCloudlet rgl = super.<ResCloudlet> getCloudletExecList().remove(0);
+		unschedule(progresses.remove(rgl));
+		rgl.finalizeCloudlet();
+		return rgl.getCloudlet();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The progress of the cloudlets being executed is accounted before returning the list.
+	 */
+	@Override
+	public <T extends ResCloudlet> List<T> getCloudletExecList() {
+		for (Progress progress : progresses.values()) {
+			if (progress.group != null) {
+				progress.account();
+			}
+		}
+		return super.getCloudletExecList();
+	}
+
+	@Override
+	public int getCloudletStatus(int cloudletId) {
+		ResCloudlet rcl = ResCloudletList.getById(super.getCloudletExecList(), cloudletId);
+		if (rcl == null) {
+			rcl = ResCloudletList.getById(getCloudletPausedList(), cloudletId);
+		}
+		return rcl == null ? -1 : rcl.getCloudletStatus();
+	}
+
+	@Override
+	public double getTotalUtilizationOfCpu(double time) {
+		double totalUtilization = 0;
+		for (ResCloudlet gl : super.getCloudletExecList()) {
+			totalUtilization += gl.getCloudlet().getUtilizationOfCpu(time);
+		}
+		return totalUtilization;
+	}
+
+	@Override
+	public double getCurrentRequestedUtilizationOfRam() {
+		double ram = 0;
+		for (ResCloudlet cloudlet : super.getCloudletExecList()) {
+			ram += cloudlet.getCloudlet().getUtilizationOfRam(CloudSim.clock());
+		}
+		return ram;
+	}
+
+	@Override
+	public double getCurrentRequestedUtilizationOfBw() {
+		double bw = 0;
+		for (ResCloudlet cloudlet : super.getCloudletExecList()) {
+			bw += cloudlet.getCloudlet().getUtilizationOfBw(CloudSim.clock());
+		}
+		return bw;
+	}
+
+	/**
+	 * Adds a cloudlet to the end of the cloudlet exec list. The cloudlet has to be
+	 * {@link #schedule(Progress) scheduled} once its length is known.
+	 *
+	 * @param progress the progress of the cloudlet
+	 */
+	private void start(Progress progress) {
+		ResCloudlet rcl = progress.rcl;
+		super.<ResCloudlet> getCloudletExecList().add(rcl);
+		running++;
+		pesInUse += rcl.getNumberOfPes();
+
+		Group group = groups.get(rcl.getNumberOfPes());
+		if (group == null) {
+			group = new Group(rcl.getNumberOfPes());
+			groups.put(rcl.getNumberOfPes(), group);
+		}
+		progress.group = group;
+		progress.sequence = nextSequence++;
+		progress.base = group.served - progress.accounted;
+	}
+
+	/**
+	 * Tags a started cloudlet with the virtual time at which it will finish.
+	 *
+	 * @param progress the progress of the cloudlet
+	 */
+	private void schedule(Progress progress) {
+		progress.totalLength = progress.rcl.getCloudletTotalLength();
+		// the cloudlet is finished when less than one MI remains
+		progress.finishTag = progress.base + (progress.totalLength - 1) * Consts.MILLION + 1;
+		progress.group.heap.add(progress);
+	}
+
+	/**
+	 * Stops a cloudlet that leaves the execution before finishing. The cloudlet must have been
+	 * removed from the cloudlet exec list.
+	 *
+	 * @param progress the progress of the cloudlet
+	 */
+	private void unschedule(Progress progress) {
+		progress.group.heap.remove(progress);
+		stop(progress);
+	}
+
+	/**
+	 * Accounts the progress of a cloudlet that leaves the execution, once it has been removed
+	 * from the heap of its group.
+	 *
+	 * @param progress the progress of the cloudlet
+	 */
+	private void stop(Progress progress) {
+		progress.account();
+		Group group = progress.group;
+		progress.group = null;
+		running--;
+		pesInUse -= group.pes;
+		if (group.heap.isEmpty()) {
+			groups.remove(group.pes);
+		}
+	}
+
+	/**
+	 * The cloudlets being executed that use the same number of PEs.
+	 */
+	private static class Group {
+
+		/** The number of PEs of each cloudlet. */
+		private final int pes;
+
+		/** The instructions served so far to each cloudlet of the group, i.e. its virtual time. */
+		private long served;
+
+		/** The cloudlets, by finish tag. */
+		private final PriorityQueue<Progress> heap = new PriorityQueue<Progress>(11, FINISH_TAG_ORDER);
+
+		Group(int pes) {
+			this.pes = pes;
+		}
+
+		/**
+		 * Gets the cloudlet of the group that finishes first.
+		 *
+		 * @return the cloudlet, or null if the group is empty
+		 */
+		Progress peek() {
+			return heap.peek();
+		}
+
+	}
+
+	/**
+	 * The progress of a cloudlet, relative to the virtual time of its group.
+	 */
+	private static class Progress {
+
+		/** The cloudlet. */
+		private final ResCloudlet rcl;
+
+		/** The group of the cloudlet while it is being executed, or null. */
+		private Group group;
+
+		/** The position of the cloudlet in the cloudlet exec list, as a sequence number. */
+		private long sequence;
+
+		/** The total length of the cloudlet, in MI. */
+		private long totalLength;
+
+		/** The virtual time of the group when the cloudlet would have started from scratch. */
+		private long base;
+
+		/** The virtual time of the group at which the cloudlet finishes. */
+		private long finishTag;
+
+		/** The instructions already accounted in the cloudlet. */
+		private long accounted;
+
+		Progress(ResCloudlet rcl) {
+			this.rcl = rcl;
+		}
+
+		/**
+		 * Accounts the instructions served to the cloudlet since the last time.
+		 */
+		void account() {
+			long finishedSoFar = group.served - base;
+			rcl.updateCloudletFinishedSoFar(finishedSoFar - accounted);
+			accounted = finishedSoFar;
+		}
+
+		/**
+		 * Gets the remaining length of the cloudlet, as {@link ResCloudlet#getRemainingCloudletLength()}
+		 * would after accounting its progress.
+		 *
+		 * @return the remaining length, in MI
+		 */
+		long getRemainingLength() {
+			long length = totalLength * Consts.MILLION - (group.served - base);
+			if (length < 0) {
+				return 0;
+			}
+			return length / Consts.MILLION;
+		}
+
+	}
+
+}
@@ -8,15 +8,24 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.util.CloudletCompletionQueue;
+import org.cloudbus.cloudsim.util.ParallelHostUpdater;
 
 /**
  * Datacenter class is a CloudResource whose hostList are virtualized. It deals with processing of
@@ -36,6 +45,24 @@ import org.cloudbus.cloudsim.core.SimEvent;
  */
 public class Datacenter extends SimEntity {
 
+	/** Updates the processing of the hosts, optionally in parallel. */
+	private static final ParallelHostUpdater<Host> HOST_UPDATER = new ParallelHostUpdater<Host>() {
+
+		@Override
+		protected double updateVmsProcessing(Host host, double currentTime) {
+			return host.updateVmsProcessing(currentTime);
+		}
+
+		@Override
+		protected void addMigratingHosts(Host host, Set<Host> migrating) {
+			for (Vm vm : host.getVmsMigratingIn()) {
+				migrating.add(host);
+				migrating.add(vm.getHost());
+			}
+		}
+
+	};
+
 	/** The characteristics. */
 	private DatacenterCharacteristics characteristics;
 
@@ -59,6 +86,47 @@ public class Datacenter extends SimEntity {
 	/** The scheduling delay to process each datacenter received event. */
 	private double schedulingInterval;
 
+	/** Indicates if the processing of the hosts is updated in parallel. */
+	private boolean parallelHostUpdate;
+
+	/** Indicates if only the hosts whose VMs have changed or have cloudlets finishing are updated. */
+	private boolean incrementalProcessing;
+
+	/** The index of the hosts by next completion time, while processing incrementally. */
+	private HostCompletionIndex completionIndex;
+
+	/** The ids of the users that submit cloudlets in batches, if any. */
+	private Set<Integer> batchUserIds;
+
+	/** The finished cloudlets to be returned in batches, by user id. */
+	private Map<Integer, List<Cloudlet>> returnedCloudlets;
+
+	/** The queue of the VMs where some cloudlet has finished. */
+	private final CloudletCompletionQueue<Vm> completionQueue = new CloudletCompletionQueue<Vm>();
+
+	/** The VMs whose schedulers are not known to add them to the {@link #completionQueue}, which
+	 * are checked for finished cloudlets every time. */
+	private final Set<Vm> unnotifiedVms = new LinkedHashSet<Vm>();
+
+	/** The VMs checked for finished cloudlets, reused by {@link #checkCloudletCompletion()}. */
+	private Vm[] completedVms = new Vm[0];
+
+	/** Compares VMs by their {@link #getPosition(Vm) positions}. */
+	private final Comparator<Vm> vmPositionComparator = new Comparator<Vm>() {
+
+		@Override
+		public int compare(Vm vm1, Vm vm2) {
+			return Long.compare(getPosition(vm1), getPosition(vm2));
+		}
+
+	};
+
+	/** The positions of the hosts of this datacenter, by host. */
+	private Map<Host, Integer> hostPositions;
+
+	/** The list of hosts whose positions are in {@link #hostPositions}. */
+	private List<? extends Host> hostPositionsList;
+
 	/**
 	 * Allocates a new Datacenter object.
 	 * 
@@ -130,6 +198,9 @@ public class Datacenter extends SimEntity {
 	public void processEvent(SimEvent ev) {
 		int srcId = -1;
 
+		// the hosts affected by the event have to be updated before and after processing it
+		invalidateHosts(ev);
+
 		switch (ev.getTag()) {
 		// Resource characteristics inquiry
 			case CloudSimTags.RESOURCE_CHARACTERISTICS:
@@ -165,6 +236,11 @@ public class Datacenter extends SimEntity {
 				processCloudletSubmit(ev, true);
 				break;
 
+			// A list of new Cloudlets arrives
+			case CloudSimTags.CLOUDLET_SUBMIT_BATCH:
+				processCloudletSubmitBatch(ev);
+				break;
+
 			// Cancels a previously submitted Cloudlet
 			case CloudSimTags.CLOUDLET_CANCEL:
 				processCloudlet(ev, CloudSimTags.CLOUDLET_CANCEL);
@@ -220,6 +296,10 @@ public class Datacenter extends SimEntity {
 				processVmCreate(ev, true);
 				break;
 
+			case CloudSimTags.VM_CREATE_BATCH:
+				processVmCreateBatch(ev);
+				break;
+
 			case CloudSimTags.VM_DESTROY:
 				processVmDestroy(ev, false);
 				break;
@@ -262,6 +342,69 @@ public class Datacenter extends SimEntity {
 				processOtherEvent(ev);
 				break;
 		}
+
+		invalidateHosts(ev);
+	}
+
+	/**
+	 * Marks the hosts whose VMs may be changed by an event to be updated, when
+	 * {@link #isIncrementalProcessing() processing incrementally}. A cloudlet submission only
+	 * affects the hosts of the cloudlets' VMs, while the events that just query the datacenter
+	 * don't affect any host. Any other event may change any host.
+	 * 
+	 * @param ev the event
+	 */
+	private void invalidateHosts(SimEvent ev) {
+		if (completionIndex == null || !isIncrementalProcessing()) {
+			return;
+		}
+		switch (ev.getTag()) {
+			case CloudSimTags.VM_DATACENTER_EVENT:
+			case CloudSimTags.RESOURCE_CHARACTERISTICS:
+			case CloudSimTags.RESOURCE_DYNAMICS:
+			case CloudSimTags.RESOURCE_NUM_PE:
+			case CloudSimTags.RESOURCE_NUM_FREE_PE:
+			case CloudSimTags.CLOUDLET_STATUS:
+			case CloudSimTags.INFOPKT_SUBMIT:
+				break;
+
+			case CloudSimTags.CLOUDLET_SUBMIT:
+			case CloudSimTags.CLOUDLET_SUBMIT_ACK:
+				if (ev.getData() instanceof Cloudlet) {
+					Cloudlet cl = (Cloudlet) ev.getData();
+					Host host = getVmAllocationPolicy().getHost(cl.getVmId(), cl.getUserId());
+					if (host != null) {
+						completionIndex.invalidate(host);
+						break;
+					}
+				}
+				completionIndex.invalidateAll();
+				break;
+
+			case CloudSimTags.CLOUDLET_SUBMIT_BATCH:
+				if (ev.getData() instanceof List) {
+					for (Object data : (List<?>) ev.getData()) {
+						if (!(data instanceof Cloudlet)) {
+							completionIndex.invalidateAll();
+							break;
+						}
+						Cloudlet cl = (Cloudlet) data;
+						Host host = getVmAllocationPolicy().getHost(cl.getVmId(), cl.getUserId());
+						if (host == null) {
+							completionIndex.invalidateAll();
+							break;
+						}
+						completionIndex.invalidate(host);
+					}
+					break;
+				}
+				completionIndex.invalidateAll();
+				break;
+
+			default:
+				completionIndex.invalidateAll();
+				break;
+		}
 	}
 
 	/**
@@ -447,29 +590,73 @@ public class Datacenter extends SimEntity {
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
+			send(vm.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudSimTags.VM_CREATE_ACK,
+					getVmCreateAck(vm, result));
+		}
+
+		if (result) {
+			startVm(vm);
+		}
+
+	}
 
+	/**
+	 * Process the event for an User/Broker who wants to create a list of VMs in this Datacenter.
+	 * The VMs are created in the order of the list, and the status of all of them is sent back to
+	 * the User/Broker in a single {@link CloudSimTags#VM_CREATE_BATCH} event.
+	 *
+	 * @param ev information about the event just happened, whose data is the list of VMs
+	 * @see #processVmCreate(SimEvent, boolean)
+	 */
+	protected void processVmCreateBatch(SimEvent ev) {
+		List<?> vms = (List<?>) ev.getData();
+		List<int[]> acks = new ArrayList<int[]>(vms.size());
+		for (Object data : vms) {
+			Vm vm = (Vm) data;
+			boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
+			acks.add(getVmCreateAck(vm, result));
 			if (result) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
+				startVm(vm);
 			}
-			send(vm.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudSimTags.VM_CREATE_ACK, data);
 		}
+		send(ev.getSource(), CloudSim.getMinTimeBetweenEvents(), CloudSimTags.VM_CREATE_BATCH, acks);
+	}
+
+	/**
+	 * Gets the acknowledgement of the creation of a VM.
+	 *
+	 * @param vm the VM
+	 * @param result true if the VM was created
+	 * @return the id of this datacenter, the id of the VM and {@link CloudSimTags#TRUE} or
+	 *         {@link CloudSimTags#FALSE}
+	 */
+	private int[] getVmCreateAck(Vm vm, boolean result) {
+		int[] data = new int[3];
+		data[0] = getId();
+		data[1] = vm.getId();
 
 		if (result) {
-			getVmList().add(vm);
+			data[2] = CloudSimTags.TRUE;
+		} else {
+			data[2] = CloudSimTags.FALSE;
+		}
+		return data;
+	}
 
-			if (vm.isBeingInstantiated()) {
-				vm.setBeingInstantiated(false);
-			}
+	/**
+	 * Starts a VM just allocated to a host.
+	 *
+	 * @param vm the VM
+	 */
+	private void startVm(Vm vm) {
+		getVmList().add(vm);
 
-			vm.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(vm).getVmScheduler()
-					.getAllocatedMipsForVm(vm));
+		if (vm.isBeingInstantiated()) {
+			vm.setBeingInstantiated(false);
 		}
 
+		vm.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(vm).getVmScheduler()
+				.getAllocatedMipsForVm(vm));
 	}
 
 	/**
@@ -669,6 +856,7 @@ public class Datacenter extends SimEntity {
 				} else {
 					// time to transfer the files
 					double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
+					watchCloudletCompletion(vm);
 					vm.getCloudletScheduler().cloudletSubmit(cl, fileTransferTime);
 				}
 			} else {// the cloudlet will migrate from one resource to another
@@ -708,76 +896,121 @@ public class Datacenter extends SimEntity {
 			// gets the Cloudlet object
 			Cloudlet cl = (Cloudlet) ev.getData();
 
-			// checks whether this Cloudlet has finished or not
-			if (cl.isFinished()) {
-				String name = CloudSim.getEntityName(cl.getUserId());
-				Log.printConcatLine(getName(), ": Warning - Cloudlet #", cl.getCloudletId(), " owned by ", name,
-						" is already completed/finished.");
-				Log.printLine("Therefore, it is not being executed again");
-				Log.printLine();
-
-				// NOTE: If a Cloudlet has finished, then it won't be processed.
-				// So, if ack is required, this method sends back a result.
-				// If ack is not required, this method don't send back a result.
-				// Hence, this might cause CloudSim to be hanged since waiting
-				// for this Cloudlet back.
-				if (ack) {
-					int[] data = new int[3];
-					data[0] = getId();
-					data[1] = cl.getCloudletId();
-					data[2] = CloudSimTags.FALSE;
-
-					// unique tag = operation tag
-					int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-					sendNow(cl.getUserId(), tag, data);
-				}
-
-				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-
+			if (!submitCloudlet(cl, ack)) {
 				return;
 			}
+		} catch (ClassCastException c) {
+			Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
+			c.printStackTrace();
+		} catch (Exception e) {
+			Log.printLine(getName() + ".processCloudletSubmit(): " + "Exception error.");
+			e.printStackTrace();
+		}
 
-			// process this Cloudlet to this CloudResource
-			cl.setResourceParameter(
-                                getId(), getCharacteristics().getCostPerSecond(), 
-                                getCharacteristics().getCostPerBw());
-
-			int userId = cl.getUserId();
-			int vmId = cl.getVmId();
-
-			// time to transfer the files
-			double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
+		checkCloudletCompletion();
+	}
 
-			Host host = getVmAllocationPolicy().getHost(vmId, userId);
-			Vm vm = host.getVm(vmId, userId);
-			CloudletScheduler scheduler = vm.getCloudletScheduler();
-			double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
+	/**
+	 * Processes the submission of a list of Cloudlets. The processing of the hosts is updated
+	 * once for the whole list, instead of once per Cloudlet, and from then on the finished
+	 * Cloudlets of the sender are returned in {@link CloudSimTags#CLOUDLET_RETURN_BATCH} events.
+	 * 
+	 * @param ev information about the event just happened, whose data is the list of Cloudlets
+	 * @see #processCloudletSubmit(SimEvent, boolean)
+	 */
+	protected void processCloudletSubmitBatch(SimEvent ev) {
+		updateCloudletProcessing();
 
-			// if this cloudlet is in the exec queue
-			if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
-				estimatedFinishTime += fileTransferTime;
-				send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+		for (Object data : (List<?>) ev.getData()) {
+			try {
+				Cloudlet cl = (Cloudlet) data;
+				getBatchUserIds().add(cl.getUserId());
+				submitCloudlet(cl, false);
+			} catch (ClassCastException c) {
+				Log.printLine(getName() + ".processCloudletSubmitBatch(): " + "ClassCastException error.");
+				c.printStackTrace();
+			} catch (Exception e) {
+				Log.printLine(getName() + ".processCloudletSubmitBatch(): " + "Exception error.");
+				e.printStackTrace();
 			}
+		}
 
+		checkCloudletCompletion();
+	}
+
+	/**
+	 * Submits a Cloudlet to its VM, after the processing of the hosts was updated.
+	 * 
+	 * @param cl the Cloudlet
+	 * @param ack indicates if the Cloudlet's owner expects to receive 
+	 *        an acknowledge message when the Cloudlet is submitted
+	 * @return false if the Cloudlet was already finished, so it was returned without being
+	 *         executed again
+	 */
+	protected boolean submitCloudlet(Cloudlet cl, boolean ack) {
+		// checks whether this Cloudlet has finished or not
+		if (cl.isFinished()) {
+			String name = CloudSim.getEntityName(cl.getUserId());
+			Log.printConcatLine(getName(), ": Warning - Cloudlet #", cl.getCloudletId(), " owned by ", name,
+					" is already completed/finished.");
+			Log.printLine("Therefore, it is not being executed again");
+			Log.printLine();
+
+			// NOTE: If a Cloudlet has finished, then it won't be processed.
+			// So, if ack is required, this method sends back a result.
+			// If ack is not required, this method don't send back a result.
+			// Hence, this might cause CloudSim to be hanged since waiting
+			// for this Cloudlet back.
 			if (ack) {
 				int[] data = new int[3];
 				data[0] = getId();
 				data[1] = cl.getCloudletId();
-				data[2] = CloudSimTags.TRUE;
+				data[2] = CloudSimTags.FALSE;
 
 				// unique tag = operation tag
 				int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
 				sendNow(cl.getUserId(), tag, data);
 			}
-		} catch (ClassCastException c) {
-			Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
-			c.printStackTrace();
-		} catch (Exception e) {
-			Log.printLine(getName() + ".processCloudletSubmit(): " + "Exception error.");
-			e.printStackTrace();
+
+			sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+
+			return false;
 		}
 
-		checkCloudletCompletion();
+		// process this Cloudlet to this CloudResource
+		cl.setResourceParameter(
+                        getId(), getCharacteristics().getCostPerSecond(), 
+                        getCharacteristics().getCostPerBw());
+
+		int userId = cl.getUserId();
+		int vmId = cl.getVmId();
+
+		// time to transfer the files
+		double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
+
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		Vm vm = host.getVm(vmId, userId);
+		watchCloudletCompletion(vm);
+		CloudletScheduler scheduler = vm.getCloudletScheduler();
+		double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
+
+		// if this cloudlet is in the exec queue
+		if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
+			estimatedFinishTime += fileTransferTime;
+			send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+		}
+
+		if (ack) {
+			int[] data = new int[3];
+			data[0] = getId();
+			data[1] = cl.getCloudletId();
+			data[2] = CloudSimTags.TRUE;
+
+			// unique tag = operation tag
+			int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
+			sendNow(cl.getUserId(), tag, data);
+		}
+		return true;
 	}
 
 	/**
@@ -899,17 +1132,13 @@ public class Datacenter extends SimEntity {
 		// R: for term is to allow loop at simulation start. Otherwise, one initial
 		// simulation step is skipped and schedulers are not properly initialized
 		if (CloudSim.clock() < 0.111 || CloudSim.clock() >= getLastProcessTime() + CloudSim.getMinTimeBetweenEvents()) {
-			List<? extends Host> list = getVmAllocationPolicy().getHostList();
-			double smallerTime = Double.MAX_VALUE;
-			// for each host...
-			for (int i = 0; i < list.size(); i++) {
-				Host host = list.get(i);
-				// inform VMs to update processing
-				double time = host.updateVmsProcessing(CloudSim.clock());
-				// what time do we expect that the next cloudlet will finish?
-				if (time < smallerTime) {
-					smallerTime = time;
-				}
+			// inform VMs of each host to update processing, and get the time
+			// we expect the next cloudlet will finish
+			double smallerTime;
+			if (isIncrementalProcessing()) {
+				smallerTime = getCompletionIndex().update(CloudSim.clock());
+			} else {
+				smallerTime = updateHostsProcessing(getVmAllocationPolicy().getHostList(), CloudSim.clock());
 			}
 			// gurantees a minimal interval before scheduling the event
 			if (smallerTime < CloudSim.clock() + CloudSim.getMinTimeBetweenEvents() + 0.01) {
@@ -922,6 +1151,33 @@ public class Datacenter extends SimEntity {
 		}
 	}
 
+	/**
+	 * Updates the processing of the VMs of a list of hosts, in parallel if
+	 * {@link #isParallelHostUpdate() enabled}.
+	 * 
+	 * @param hosts the hosts
+	 * @param currentTime the current time
+	 * @return expected time of completion of the next cloudlet in all VMs of the hosts or
+	 *         {@link Double#MAX_VALUE} if there is no future events expected in them
+	 * @see ParallelHostUpdater
+	 */
+	protected double updateHostsProcessing(List<? extends Host> hosts, double currentTime) {
+		return HOST_UPDATER.update(hosts, currentTime, isParallelHostUpdate());
+	}
+
+	/**
+	 * Gets the index of the hosts by next completion time, creating it if needed.
+	 * 
+	 * @return the index
+	 */
+	private HostCompletionIndex getCompletionIndex() {
+		List<? extends Host> hosts = getVmAllocationPolicy().getHostList();
+		if (completionIndex == null || !completionIndex.isIndexOf(hosts)) {
+			completionIndex = new HostCompletionIndex(hosts);
+		}
+		return completionIndex;
+	}
+
 	/**
 	 * Verifies if some cloudlet inside this Datacenter already finished. 
          * If yes, send it to the User/Broker
@@ -930,18 +1186,191 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void checkCloudletCompletion() {
-		List<? extends Host> list = getVmAllocationPolicy().getHostList();
-		for (int i = 0; i < list.size(); i++) {
-			Host host = list.get(i);
-			for (Vm vm : host.getVmList()) {
-				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-					if (cl != null) {
-						sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+		List<Vm> queued = getCompletionQueue().poll();
+		if (queued.isEmpty() && unnotifiedVms.isEmpty()) {
+			return;
+		}
+
+		// only the VMs whose schedulers notified a finished cloudlet are checked, in the order
+		// of their positions, that is, of their hosts and of the VMs in each host
+		int size = queued.size() + unnotifiedVms.size();
+		if (completedVms.length < size) {
+			completedVms = new Vm[Math.max(size, 2 * completedVms.length)];
+		}
+		updateHostPositions();
+		Vm[] vms = completedVms;
+		int count = 0;
+		for (Vm vm : queued) {
+			if (getPosition(vm) >= 0) {
+				vms[count++] = vm;
+			}
+		}
+		// along with the VMs whose schedulers may never notify
+		Iterator<Vm> iterator = unnotifiedVms.iterator();
+		while (iterator.hasNext()) {
+			Vm vm = iterator.next();
+			CloudletScheduler scheduler = vm.getCloudletScheduler();
+			if (scheduler.isNotifyingCloudletFinished()) {
+				iterator.remove();
+			} else if (scheduler.isFinishedCloudlets() && getPosition(vm) >= 0) {
+				vms[count++] = vm;
+			}
+		}
+		if (count == 0) {
+			return;
+		}
+
+		Arrays.sort(vms, 0, count, vmPositionComparator);
+		for (int i = 0; i < count; i++) {
+			Vm vm = vms[i];
+			vms[i] = null;
+			while (vm.getCloudletScheduler().isFinishedCloudlets()) {
+				Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
+				if (cl != null) {
+					returnCloudlet(cl);
+				}
+			}
+		}
+		sendReturnedCloudlets();
+	}
+
+	/**
+	 * Gets the queue of the VMs where some cloudlet has finished.
+	 * 
+	 * @return the completion queue
+	 * @see #watchCloudletCompletion(Vm)
+	 */
+	protected CloudletCompletionQueue<Vm> getCompletionQueue() {
+		return completionQueue;
+	}
+
+	/**
+	 * Makes the scheduler of a VM add the VM to the {@link #getCompletionQueue() completion queue}
+	 * of this datacenter when a cloudlet finishes. It is done when the VM is created in a host of
+	 * this datacenter and for the VM of each cloudlet submitted. If the scheduler is not
+	 * {@link CloudletScheduler#isNotifyingCloudletFinished() known to do it}, the VM is checked
+	 * for finished cloudlets every time instead.
+	 * 
+	 * @param vm the VM
+	 */
+	protected void watchCloudletCompletion(Vm vm) {
+		CloudletScheduler scheduler = vm.getCloudletScheduler();
+		if (scheduler.getCompletionQueue() != getCompletionQueue()) {
+			scheduler.setCompletionQueue(getCompletionQueue(), vm);
+		}
+		if (!scheduler.isNotifyingCloudletFinished()) {
+			unnotifiedVms.add(vm);
+		}
+	}
+
+	/**
+	 * Updates the {@link #hostPositions positions of the hosts} if the hosts of this datacenter
+	 * changed.
+	 */
+	private void updateHostPositions() {
+		List<? extends Host> hosts = getVmAllocationPolicy().getHostList();
+		if (hostPositions == null || hostPositionsList != hosts || hostPositions.size() != hosts.size()) {
+			hostPositions = new IdentityHashMap<Host, Integer>();
+			hostPositionsList = hosts;
+			for (int i = 0; i < hosts.size(); i++) {
+				hostPositions.put(hosts.get(i), i);
+			}
+		}
+	}
+
+	/**
+	 * Gets the position of the first host of this datacenter that has a VM, along with the
+	 * {@link Host#getVmOrder(Vm) order} of the VM in that host, so that sorting VMs by position
+	 * sorts them as they are in the hosts, without searching the VM lists.
+	 * 
+	 * @param vm the VM
+	 * @return the position of the host in the high 32 bits and the order of the VM in the low
+	 *         ones, or -1 if no host has the VM
+	 */
+	private long getPosition(Vm vm) {
+		Host host = vm.getHost();
+		if (host == null) {
+			return -1;
+		}
+		long position = getPosition(host, vm);
+		if (vm.isInMigration()) {
+			// a migrating VM is also in the VM list of its destination host
+			List<? extends Host> hosts = getVmAllocationPolicy().getHostList();
+			for (int i = 0; i < hosts.size() && (position < 0 || i < position >>> 32); i++) {
+				if (hosts.get(i).getVmsMigratingIn().contains(vm)) {
+					long destinationPosition = getPosition(hosts.get(i), vm);
+					if (destinationPosition >= 0) {
+						position = destinationPosition;
 					}
 				}
 			}
 		}
+		return position;
+	}
+
+	/**
+	 * Gets the position of a host of this datacenter along with the order of a VM in the host.
+	 * 
+	 * @param host the host
+	 * @param vm the VM
+	 * @return the position of the host in the high 32 bits and the order of the VM in the low
+	 *         ones, or -1 if the host is not in this datacenter or doesn't have the VM
+	 */
+	private long getPosition(Host host, Vm vm) {
+		Integer hostPosition = hostPositions.get(host);
+		int vmOrder = hostPosition == null ? -1 : host.getVmOrder(vm);
+		return vmOrder < 0 ? -1 : ((long) hostPosition << 32) | vmOrder;
+	}
+
+	/**
+	 * Returns a finished cloudlet to its owner, right away or, if the owner submits cloudlets in
+	 * batches, along with the other cloudlets of the owner returned by
+	 * {@link #sendReturnedCloudlets()}.
+	 * 
+	 * @param cl the cloudlet
+	 */
+	protected void returnCloudlet(Cloudlet cl) {
+		if (batchUserIds == null || !batchUserIds.contains(cl.getUserId())) {
+			sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+			return;
+		}
+		if (returnedCloudlets == null) {
+			returnedCloudlets = new LinkedHashMap<Integer, List<Cloudlet>>();
+		}
+		List<Cloudlet> list = returnedCloudlets.get(cl.getUserId());
+		if (list == null) {
+			list = new ArrayList<Cloudlet>();
+			returnedCloudlets.put(cl.getUserId(), list);
+		}
+		list.add(cl);
+	}
+
+	/**
+	 * Sends the cloudlets returned in batches, in a {@link CloudSimTags#CLOUDLET_RETURN_BATCH}
+	 * event per owner.
+	 * 
+	 * @see #returnCloudlet(Cloudlet)
+	 */
+	protected void sendReturnedCloudlets() {
+		if (returnedCloudlets == null || returnedCloudlets.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<Integer, List<Cloudlet>> entry : returnedCloudlets.entrySet()) {
+			sendNow(entry.getKey(), CloudSimTags.CLOUDLET_RETURN_BATCH, entry.getValue());
+		}
+		returnedCloudlets.clear();
+	}
+
+	/**
+	 * Gets the ids of the users that submit cloudlets in batches.
+	 * 
+	 * @return the user ids
+	 */
+	protected Set<Integer> getBatchUserIds() {
+		if (batchUserIds == null) {
+			batchUserIds = new HashSet<Integer>();
+		}
+		return batchUserIds;
 	}
 
 	/**
@@ -1203,4 +1632,59 @@ public class Datacenter extends SimEntity {
 		this.schedulingInterval = schedulingInterval;
 	}
 
+	/**
+	 * Checks if the processing of the hosts is updated in parallel.
+	 * 
+	 * @return true if the hosts are updated in parallel
+	 */
+	public boolean isParallelHostUpdate() {
+		return parallelHostUpdate;
+	}
+
+	/**
+	 * Sets if the processing of the hosts is updated in parallel, using the common
+	 * {@link java.util.concurrent.ForkJoinPool}. It speeds up the datacenters with many hosts, as
+	 * long as the hosts don't share any mutable state, such as cloudlets or utilization models.
+	 * The hosts are only updated in parallel while the {@link Log} is disabled, so the results are
+	 * the same ones of updating them sequentially.
+	 * 
+	 * @param parallelHostUpdate true to update the hosts in parallel
+	 * @see ParallelHostUpdater
+	 */
+	public void setParallelHostUpdate(boolean parallelHostUpdate) {
+		this.parallelHostUpdate = parallelHostUpdate;
+	}
+
+	/**
+	 * Checks if the processing of the hosts is updated incrementally.
+	 * 
+	 * @return true if only the hosts that need it are updated
+	 */
+	public boolean isIncrementalProcessing() {
+		return incrementalProcessing;
+	}
+
+	/**
+	 * Sets if the processing of the hosts is updated incrementally. By default, every host is
+	 * updated whenever a cloudlet is submitted or expected to finish, which costs O(hosts x VMs)
+	 * per event. Processing incrementally, the datacenter keeps the hosts indexed by the time the
+	 * next cloudlet running in them is expected to finish, and it only updates the hosts that are
+	 * due and the hosts affected by the events it processes, such as the host of the VM a cloudlet
+	 * is submitted to.
+	 * <p>
+	 * This relies on the VMs running their cloudlets at a constant rate between the events of
+	 * the datacenter, as it happens with the utilization models that don't vary over time. The
+	 * hosts with a cloudlet expected to finish before the next event the datacenter can schedule
+	 * are due as well, so the cloudlets finish at the same events as updating all the hosts. As
+	 * each host is updated less often, the progress of the cloudlets is accumulated in fewer
+	 * steps, so the finish times may only differ by the rounding of the progress.
+	 * 
+	 * @param incrementalProcessing true to update the hosts incrementally
+	 * @see HostCompletionIndex
+	 */
+	public void setIncrementalProcessing(boolean incrementalProcessing) {
+		this.incrementalProcessing = incrementalProcessing;
+		completionIndex = null;
+	}
+
 }
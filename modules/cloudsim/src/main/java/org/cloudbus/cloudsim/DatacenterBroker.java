@@ -10,16 +10,22 @@ package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.lists.CloudletList;
+import org.cloudbus.cloudsim.lists.VmIndexedList;
 import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.util.CloudletSink;
+import org.cloudbus.cloudsim.util.CloudletSource;
 
 /**
  * DatacentreBroker represents a broker acting on behalf of a user. It hides VM management, as vm
@@ -77,6 +83,29 @@ public class DatacenterBroker extends SimEntity {
          * is a datacenter id and each value is its characteristics.. */
 	protected Map<Integer, DatacenterCharacteristics> datacenterCharacteristicsList;
 
+	/** Indicates if the VMs and cloudlets are sent to each datacenter in a single event. */
+	private boolean batchSubmission;
+
+	/** The source of the cloudlets that arrive along the simulation, or null if there is none. */
+	private CloudletSource cloudletSource;
+
+	/** Where the returned cloudlets are handed over, or null to keep them in the received list. */
+	private CloudletSink cloudletSink;
+
+	/**
+	 * The cloudlets of the cloudlet list that wait for their submission delay, where each key is
+	 * a submission delay and each value is the list of cloudlets with that delay.
+	 * 
+	 * @see Cloudlet#getSubmissionDelay()
+	 */
+	private final TreeMap<Double, List<Cloudlet>> waitingCloudlets = new TreeMap<Double, List<Cloudlet>>();
+
+	/** The index of the VM to receive the next arrived cloudlet that isn't bound to a VM. */
+	private int arrivalVmIndex;
+
+	/** The time of the scheduled {@link CloudSimTags#CLOUDLET_ARRIVAL} event, or -1 if there is none. */
+	private double arrivalEventTime = -1;
+
 	/**
 	 * Created a new DatacenterBroker object.
 	 * 
@@ -88,8 +117,8 @@ public class DatacenterBroker extends SimEntity {
 	public DatacenterBroker(String name) throws Exception {
 		super(name);
 
-		setVmList(new ArrayList<Vm>());
-		setVmsCreatedList(new ArrayList<Vm>());
+		setVmList(new VmIndexedList<Vm>());
+		setVmsCreatedList(new VmIndexedList<Vm>());
 		setCloudletList(new ArrayList<Cloudlet>());
 		setCloudletSubmittedList(new ArrayList<Cloudlet>());
 		setCloudletReceivedList(new ArrayList<Cloudlet>());
@@ -163,10 +192,22 @@ public class DatacenterBroker extends SimEntity {
 			case CloudSimTags.VM_CREATE_ACK:
 				processVmCreate(ev);
 				break;
+			// VM Creation answers for a list of VMs
+			case CloudSimTags.VM_CREATE_BATCH:
+				processVmCreateBatch(ev);
+				break;
 			// A finished cloudlet returned
 			case CloudSimTags.CLOUDLET_RETURN:
 				processCloudletReturn(ev);
 				break;
+			// A list of finished cloudlets returned
+			case CloudSimTags.CLOUDLET_RETURN_BATCH:
+				processCloudletReturnBatch(ev);
+				break;
+			// The next cloudlets of the source arrived
+			case CloudSimTags.CLOUDLET_ARRIVAL:
+				processCloudletArrival(ev);
+				break;
 			// if the simulation finishes
 			case CloudSimTags.END_OF_SIMULATION:
 				shutdownEntity();
@@ -222,7 +263,28 @@ public class DatacenterBroker extends SimEntity {
 	 * @post $none
 	 */
 	protected void processVmCreate(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
+		processVmCreate((int[]) ev.getData());
+	}
+
+	/**
+	 * Process the acks received due to a request for the creation of a list of VMs.
+	 * 
+	 * @param ev a SimEvent object, whose data is the list of acks
+	 * @see #processVmCreate(int[])
+	 */
+	protected void processVmCreateBatch(SimEvent ev) {
+		for (Object data : (List<?>) ev.getData()) {
+			processVmCreate((int[]) data);
+		}
+	}
+
+	/**
+	 * Process the ack received due to a request for VM creation.
+	 * 
+	 * @param data the id of the datacenter, the id of the VM and {@link CloudSimTags#TRUE} if the
+	 *        VM was created
+	 */
+	protected void processVmCreate(int[] data) {
 		int datacenterId = data[0];
 		int vmId = data[1];
 		int result = data[2];
@@ -274,12 +336,36 @@ public class DatacenterBroker extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletReturn(SimEvent ev) {
-		Cloudlet cloudlet = (Cloudlet) ev.getData();
-		getCloudletReceivedList().add(cloudlet);
+		processCloudletReturn((Cloudlet) ev.getData());
+	}
+
+	/**
+	 * Process a cloudlet return event for a list of cloudlets.
+	 * 
+	 * @param ev a SimEvent object, whose data is the list of cloudlets
+	 * @see #processCloudletReturn(Cloudlet)
+	 */
+	protected void processCloudletReturnBatch(SimEvent ev) {
+		for (Object data : (List<?>) ev.getData()) {
+			processCloudletReturn((Cloudlet) data);
+		}
+	}
+
+	/**
+	 * Process the return of a finished cloudlet.
+	 * 
+	 * @param cloudlet the cloudlet
+	 */
+	protected void processCloudletReturn(Cloudlet cloudlet) {
+		if (getCloudletSink() != null) {
+			getCloudletSink().cloudletReturned(cloudlet);
+		} else {
+			getCloudletReceivedList().add(cloudlet);
+		}
 		Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Cloudlet ", cloudlet.getCloudletId(),
 				" received");
 		cloudletsSubmitted--;
-		if (getCloudletList().size() == 0 && cloudletsSubmitted == 0) { // all cloudlets executed
+		if (getCloudletList().size() == 0 && cloudletsSubmitted == 0 && !hasCloudletsToArrive()) { // all cloudlets executed
 			Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": All Cloudlets executed. Finishing...");
 			clearDatacenters();
 			finishExecution();
@@ -294,6 +380,21 @@ public class DatacenterBroker extends SimEntity {
 		}
 	}
 
+	/**
+	 * Process the arrival of the next cloudlets, either cloudlets of the cloudlet list submitted
+	 * with a delay or cloudlets of the {@link #getCloudletSource() source}.
+	 * 
+	 * @param ev a SimEvent object, whose data is the arrival time of the cloudlets
+	 * @see #submitArrivedCloudlets(double)
+	 */
+	protected void processCloudletArrival(SimEvent ev) {
+		double arrivalTime = (Double) ev.getData();
+		if (arrivalTime == arrivalEventTime) {
+			arrivalEventTime = -1;
+		}
+		submitArrivedCloudlets(Math.max(CloudSim.clock(), arrivalTime));
+	}
+
 	/**
 	 * Process non-default received events that aren't processed by
          * the {@link #processEvent(org.cloudbus.cloudsim.core.SimEvent)} method.
@@ -327,14 +428,22 @@ public class DatacenterBroker extends SimEntity {
 		// send as much vms as possible for this datacenter before trying the next one
 		int requestedVms = 0;
 		String datacenterName = CloudSim.getEntityName(datacenterId);
+		List<Vm> batch = new ArrayList<Vm>();
 		for (Vm vm : getVmList()) {
 			if (!getVmsToDatacentersMap().containsKey(vm.getId())) {
 				Log.printLine(CloudSim.clock() + ": " + getName() + ": Trying to Create VM #" + vm.getId()
 						+ " in " + datacenterName);
-				sendNow(datacenterId, CloudSimTags.VM_CREATE_ACK, vm);
+				if (isBatchSubmission()) {
+					batch.add(vm);
+				} else {
+					sendNow(datacenterId, CloudSimTags.VM_CREATE_ACK, vm);
+				}
 				requestedVms++;
 			}
 		}
+		if (!batch.isEmpty()) {
+			sendNow(datacenterId, CloudSimTags.VM_CREATE_BATCH, batch);
+		}
 
 		getDatacenterRequestedIdsList().add(datacenterId);
 
@@ -352,7 +461,20 @@ public class DatacenterBroker extends SimEntity {
 	protected void submitCloudlets() {
 		int vmIndex = 0;
 		List<Cloudlet> successfullySubmitted = new ArrayList<Cloudlet>();
+		Map<Integer, List<Cloudlet>> batches = new LinkedHashMap<Integer, List<Cloudlet>>();
 		for (Cloudlet cloudlet : getCloudletList()) {
+			// the cloudlet has to wait for its submission delay
+			if (cloudlet.getSubmissionDelay() > CloudSim.clock()) {
+				List<Cloudlet> waiting = waitingCloudlets.get(cloudlet.getSubmissionDelay());
+				if (waiting == null) {
+					waiting = new ArrayList<Cloudlet>();
+					waitingCloudlets.put(cloudlet.getSubmissionDelay(), waiting);
+				}
+				waiting.add(cloudlet);
+				successfullySubmitted.add(cloudlet);
+				continue;
+			}
+
 			Vm vm;
 			// if user didn't bind this cloudlet and it has not been executed yet
 			if (cloudlet.getVmId() == -1) {
@@ -368,21 +490,152 @@ public class DatacenterBroker extends SimEntity {
 				}
 			}
 
-			if (!Log.isDisabled()) {
-			    Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Sending cloudlet ",
-					cloudlet.getCloudletId(), " to VM #", vm.getId());
-			}
-			
-			cloudlet.setVmId(vm.getId());
-			sendNow(getVmsToDatacentersMap().get(vm.getId()), CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
-			cloudletsSubmitted++;
+			sendCloudlet(cloudlet, vm, batches);
 			vmIndex = (vmIndex + 1) % getVmsCreatedList().size();
 			getCloudletSubmittedList().add(cloudlet);
 			successfullySubmitted.add(cloudlet);
 		}
+		sendCloudletBatches(batches);
+
+		// remove submitted and delayed cloudlets from waiting list
+		if (!successfullySubmitted.isEmpty()) {
+			getCloudletList().removeAll(new HashSet<Cloudlet>(successfullySubmitted));
+		}
+
+		submitArrivedCloudlets(CloudSim.clock());
+	}
+
+	/**
+	 * Submit to the created VMs the cloudlets that arrived until a given time, and schedule a
+	 * {@link CloudSimTags#CLOUDLET_ARRIVAL} event for the arrival of the next ones. The cloudlets
+	 * arrive at the end of their {@link Cloudlet#getSubmissionDelay() submission delay}, if they
+	 * were submitted in the cloudlet list, or at the time given by the
+	 * {@link #getCloudletSource() source}. A single event is scheduled for all the cloudlets that
+	 * arrive at the same time.
+	 * <p>
+	 * As in {@link #submitCloudlets()}, the cloudlets not bound to a VM are spread over the VMs in
+	 * round robin. The cloudlets of the source are not kept in the list of submitted cloudlets.
+	 * The cloudlets bound to a VM that was not created are postponed to the cloudlet list.
+	 * 
+	 * @param time the time until which the cloudlets arrived
+	 */
+	protected void submitArrivedCloudlets(double time) {
+		if (getVmsCreatedList().isEmpty()) {
+			return;
+		}
+
+		Map<Integer, List<Cloudlet>> batches = new LinkedHashMap<Integer, List<Cloudlet>>();
+		while (!waitingCloudlets.isEmpty() && waitingCloudlets.firstKey() <= time) {
+			for (Cloudlet cloudlet : waitingCloudlets.pollFirstEntry().getValue()) {
+				if (submitArrivedCloudlet(cloudlet, batches)) {
+					getCloudletSubmittedList().add(cloudlet);
+				}
+			}
+		}
+
+		CloudletSource source = getCloudletSource();
+		while (source != null && source.hasNext() && source.getNextArrivalTime() <= time) {
+			submitArrivedCloudlet(source.next(), batches);
+		}
+		sendCloudletBatches(batches);
 
-		// remove submitted cloudlets from waiting list
-		getCloudletList().removeAll(successfullySubmitted);
+		// schedule the arrival of the next cloudlets, unless it is already scheduled
+		double nextArrivalTime = Double.MAX_VALUE;
+		if (!waitingCloudlets.isEmpty()) {
+			nextArrivalTime = waitingCloudlets.firstKey();
+		}
+		if (source != null && source.hasNext()) {
+			nextArrivalTime = Math.min(nextArrivalTime, source.getNextArrivalTime());
+		}
+		if (nextArrivalTime < Double.MAX_VALUE
+				&& (arrivalEventTime == -1 || nextArrivalTime < arrivalEventTime)) {
+			schedule(getId(), Math.max(0, nextArrivalTime - CloudSim.clock()), CloudSimTags.CLOUDLET_ARRIVAL,
+					nextArrivalTime);
+			arrivalEventTime = nextArrivalTime;
+		}
+	}
+
+	/**
+	 * Submit an arrived cloudlet to its VM or, if it isn't bound to a VM, to the next VM in round
+	 * robin.
+	 * 
+	 * @param cloudlet the arrived cloudlet
+	 * @param batches the batches of cloudlets to send to each datacenter
+	 * @return true if the cloudlet was submitted, false if it was postponed to the cloudlet list
+	 *         because its VM was not created
+	 */
+	protected boolean submitArrivedCloudlet(Cloudlet cloudlet, Map<Integer, List<Cloudlet>> batches) {
+		Vm vm;
+		if (cloudlet.getVmId() == -1) {
+			if (arrivalVmIndex >= getVmsCreatedList().size()) {
+				arrivalVmIndex = 0;
+			}
+			vm = getVmsCreatedList().get(arrivalVmIndex);
+			arrivalVmIndex++;
+		} else {
+			vm = VmList.getById(getVmsCreatedList(), cloudlet.getVmId());
+			if (vm == null) {
+				if (!Log.isDisabled()) {
+					Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Postponing execution of cloudlet ",
+							cloudlet.getCloudletId(), ": bount VM not available");
+				}
+				getCloudletList().add(cloudlet);
+				return false;
+			}
+		}
+		sendCloudlet(cloudlet, vm, batches);
+		return true;
+	}
+
+	/**
+	 * Checks if there are cloudlets that have not arrived yet, either cloudlets of the cloudlet
+	 * list submitted with a delay or cloudlets of the {@link #getCloudletSource() source}.
+	 * 
+	 * @return true if there are cloudlets to arrive
+	 */
+	protected boolean hasCloudletsToArrive() {
+		return !waitingCloudlets.isEmpty() || getCloudletSource() != null && getCloudletSource().hasNext();
+	}
+
+	/**
+	 * Send a cloudlet to a VM, or add it to the batch of the datacenter of the VM if the
+	 * cloudlets are sent in batches.
+	 * 
+	 * @param cloudlet the cloudlet
+	 * @param vm the VM to run the cloudlet
+	 * @param batches the batches of cloudlets to send to each datacenter
+	 * @see #sendCloudletBatches(Map)
+	 */
+	protected void sendCloudlet(Cloudlet cloudlet, Vm vm, Map<Integer, List<Cloudlet>> batches) {
+		if (!Log.isDisabled()) {
+		    Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Sending cloudlet ",
+				cloudlet.getCloudletId(), " to VM #", vm.getId());
+		}
+
+		cloudlet.setVmId(vm.getId());
+		int datacenterId = getVmsToDatacentersMap().get(vm.getId());
+		if (isBatchSubmission()) {
+			List<Cloudlet> batch = batches.get(datacenterId);
+			if (batch == null) {
+				batch = new ArrayList<Cloudlet>();
+				batches.put(datacenterId, batch);
+			}
+			batch.add(cloudlet);
+		} else {
+			sendNow(datacenterId, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
+		}
+		cloudletsSubmitted++;
+	}
+
+	/**
+	 * Send the batches of cloudlets to their datacenters.
+	 * 
+	 * @param batches the batches of cloudlets to send to each datacenter
+	 */
+	protected void sendCloudletBatches(Map<Integer, List<Cloudlet>> batches) {
+		for (Map.Entry<Integer, List<Cloudlet>> batch : batches.entrySet()) {
+			sendNow(batch.getKey(), CloudSimTags.CLOUDLET_SUBMIT_BATCH, batch.getValue());
+		}
 	}
 
 	/**
@@ -661,4 +914,72 @@ public class DatacenterBroker extends SimEntity {
 		this.datacenterRequestedIdsList = datacenterRequestedIdsList;
 	}
 
+	/**
+	 * Checks if the VMs and cloudlets are sent to each datacenter in a single event.
+	 * 
+	 * @return true if the VMs and cloudlets are sent in batches
+	 */
+	public boolean isBatchSubmission() {
+		return batchSubmission;
+	}
+
+	/**
+	 * Sets if the VMs and cloudlets are sent to each datacenter in a single event. By default,
+	 * the broker sends an event per VM and per cloudlet, and the datacenter updates the
+	 * processing of all its hosts for each cloudlet it receives. Submitting in batches, the
+	 * broker sends a {@link CloudSimTags#VM_CREATE_BATCH} event with all the VMs and a
+	 * {@link CloudSimTags#CLOUDLET_SUBMIT_BATCH} event with all the cloudlets for each
+	 * datacenter, and the datacenter returns the cloudlets that finish together in a
+	 * {@link CloudSimTags#CLOUDLET_RETURN_BATCH} event. The VMs and cloudlets are placed and run
+	 * in the same way, so just the order of the events that happen at the same time may differ.
+	 * 
+	 * @param batchSubmission true to send the VMs and cloudlets in batches
+	 */
+	public void setBatchSubmission(boolean batchSubmission) {
+		this.batchSubmission = batchSubmission;
+	}
+
+	/**
+	 * Gets the source of the cloudlets that arrive along the simulation.
+	 * 
+	 * @return the cloudlet source, or null if there is none
+	 */
+	public CloudletSource getCloudletSource() {
+		return cloudletSource;
+	}
+
+	/**
+	 * Sets a source of cloudlets that arrive along the simulation, besides the cloudlets of the
+	 * {@link #submitCloudletList(List) cloudlet list}. Once the VMs are created, the broker
+	 * pulls the cloudlets from the source as the simulation clock reaches their arrival times,
+	 * instead of keeping all of them from the start, so the source can provide more cloudlets
+	 * than would fit in memory. The broker finishes when the source has no more cloudlets and
+	 * all the cloudlets have returned.
+	 * 
+	 * @param cloudletSource the cloudlet source
+	 * @see #setCloudletSink(CloudletSink)
+	 */
+	public void setCloudletSource(CloudletSource cloudletSource) {
+		this.cloudletSource = cloudletSource;
+	}
+
+	/**
+	 * Gets where the returned cloudlets are handed over.
+	 * 
+	 * @return the cloudlet sink, or null if the cloudlets are kept in the received list
+	 */
+	public CloudletSink getCloudletSink() {
+		return cloudletSink;
+	}
+
+	/**
+	 * Sets where the returned cloudlets are handed over, instead of keeping them in the
+	 * {@link #getCloudletReceivedList() received list}.
+	 * 
+	 * @param cloudletSink the cloudlet sink, or null to keep the cloudlets in the received list
+	 */
+	public void setCloudletSink(CloudletSink cloudletSink) {
+		this.cloudletSink = cloudletSink;
+	}
+
 }
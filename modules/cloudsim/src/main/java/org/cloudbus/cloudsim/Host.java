@@ -11,7 +11,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.OrderedList;
 import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.lists.VmIndexedList;
+import org.cloudbus.cloudsim.lists.VmList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
 
@@ -43,7 +46,7 @@ public class Host {
 	private VmScheduler vmScheduler;
 
 	/** The list of VMs assigned to the host. */
-	private final List<? extends Vm> vmList = new ArrayList<Vm>();
+	private final VmIndexedList<? extends Vm> vmList = new VmIndexedList<Vm>();
 
 	/** The Processing Elements (PEs) of the host, that
          * represent the CPU cores of it, and thus, its processing capacity. */
@@ -242,6 +245,9 @@ public class Host {
 		setStorage(getStorage() - vm.getSize());
 		getVmList().add(vm);
 		vm.setHost(this);
+		if (getDatacenter() != null) {
+			getDatacenter().watchCloudletCompletion(vm);
+		}
 		return true;
 	}
 
@@ -306,12 +312,7 @@ public class Host {
 	 * @post $none
 	 */
 	public Vm getVm(int vmId, int userId) {
-		for (Vm vm : getVmList()) {
-			if (vm.getId() == vmId && vm.getUserId() == userId) {
-				return vm;
-			}
-		}
-		return null;
+		return VmList.getByIdAndUserId(getVmList(), vmId, userId);
 	}
 
 	/**
@@ -542,6 +543,18 @@ public class Host {
 		return (List<T>) vmList;
 	}
 
+	/**
+	 * Gets a number that orders a VM among the other VMs of the host, as they are in the
+	 * {@link #getVmList() VM list}, in constant time.
+	 * 
+	 * @param vm the VM
+	 * @return the order of the VM, or -1 if the VM is not in the host
+	 * @see OrderedList#getOrder(Object)
+	 */
+	public int getVmOrder(Vm vm) {
+		return vmList.getOrder(vm);
+	}
+
 	/**
 	 * Sets the storage.
 	 * 
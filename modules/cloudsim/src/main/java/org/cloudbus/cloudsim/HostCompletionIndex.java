@@ -0,0 +1,222 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * An index of the hosts of a {@link Datacenter} by the time at which the next cloudlet running in
+ * them is expected to finish, used to update the processing of the hosts incrementally. Instead
+ * of updating every host whenever the datacenter processes its cloudlets, only the hosts that
+ * are due, because a cloudlet is expected to finish, and the hosts that have been
+ * {@link #invalidate(Host) invalidated}, because the state of their VMs has changed, are updated.
+ * The rest of the hosts keep running their cloudlets at the same rate, so their next completion
+ * time doesn't change.
+ * <p>
+ * The hosts are kept in a binary heap of host indexes, ordered by the completion times, so
+ * finding the due hosts costs O(log n) per host.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see Datacenter#setIncrementalProcessing(boolean)
+ */
+class HostCompletionIndex {
+
+	/** The hosts. */
+	private final List<? extends Host> hosts;
+
+	/** The index of each host in {@link #hosts}. */
+	private final Map<Host, Integer> indexes = new IdentityHashMap<Host, Integer>();
+
+	/** The next completion time of each host, by host index. */
+	private final double[] times;
+
+	/** The binary heap of the host indexes, ordered by {@link #times}. */
+	private final int[] heap;
+
+	/** The position of each host in {@link #heap}, by host index, or -1 if it is not in the heap. */
+	private final int[] positions;
+
+	/** The number of hosts in the heap. */
+	private int heapSize;
+
+	/** Indicates, by host index, if the host has to be updated in the next update. */
+	private final boolean[] invalid;
+
+	/** The indexes of the hosts to update in the next update. */
+	private final int[] invalidHosts;
+
+	/** The number of hosts in {@link #invalidHosts}. */
+	private int invalidCount;
+
+	/**
+	 * Instantiates a new index, where every host has to be updated.
+	 *
+	 * @param hosts the hosts of the datacenter
+	 */
+	HostCompletionIndex(List<? extends Host> hosts) {
+		this.hosts = hosts;
+		int size = hosts.size();
+		times = new double[size];
+		heap = new int[size];
+		positions = new int[size];
+		invalid = new boolean[size];
+		invalidHosts = new int[size];
+		Arrays.fill(positions, -1);
+		for (int i = 0; i < size; i++) {
+			indexes.put(hosts.get(i), i);
+		}
+		invalidateAll();
+	}
+
+	/**
+	 * Checks if the index still corresponds to a list of hosts.
+	 *
+	 * @param hosts the hosts of the datacenter
+	 * @return true if the index has been created for the same hosts
+	 */
+	boolean isIndexOf(List<? extends Host> hosts) {
+		return this.hosts == hosts && times.length == hosts.size();
+	}
+
+	/**
+	 * Marks a host to be updated in the next update.
+	 *
+	 * @param host the host
+	 */
+	void invalidate(Host host) {
+		Integer index = indexes.get(host);
+		if (index == null) {
+			invalidateAll();
+		} else {
+			invalidate(index);
+		}
+	}
+
+	/**
+	 * Marks all the hosts to be updated in the next update.
+	 */
+	void invalidateAll() {
+		for (int i = 0; i < times.length; i++) {
+			invalidate(i);
+		}
+	}
+
+	/**
+	 * Updates the processing of the hosts that are due or have been invalidated, in the order of
+	 * the list of hosts. A host is due when its next cloudlet is expected to finish before the
+	 * next event the datacenter can schedule, which is at least
+	 * {@link CloudSim#getMinTimeBetweenEvents()} + 0.01 after the current time, as
+	 * {@link Datacenter#updateCloudletProcessing()} does. Otherwise the cloudlet would only
+	 * finish at a later event, while updating all the hosts finishes it at the current one.
+	 *
+	 * @param currentTime the current time
+	 * @return the next completion time of all the hosts, or {@link Double#MAX_VALUE} if no
+	 *         cloudlet is running
+	 */
+	double update(double currentTime) {
+		double dueTime = currentTime + CloudSim.getMinTimeBetweenEvents() + 0.01;
+		while (heapSize > 0 && times[heap[0]] <= dueTime) {
+			invalidate(heap[0]);
+		}
+
+		Arrays.sort(invalidHosts, 0, invalidCount);
+		for (int i = 0; i < invalidCount; i++) {
+			int index = invalidHosts[i];
+			invalid[index] = false;
+			times[index] = hosts.get(index).updateVmsProcessing(currentTime);
+			add(index);
+		}
+		invalidCount = 0;
+
+		return heapSize > 0 ? times[heap[0]] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * Marks a host to be updated in the next update, taking it out of the heap.
+	 *
+	 * @param index the index of the host
+	 */
+	private void invalidate(int index) {
+		if (positions[index] >= 0) {
+			remove(positions[index]);
+		}
+		if (!invalid[index]) {
+			invalid[index] = true;
+			invalidHosts[invalidCount++] = index;
+		}
+	}
+
+	/**
+	 * Adds a host to the heap.
+	 *
+	 * @param index the index of the host
+	 */
+	private void add(int index) {
+		heap[heapSize] = index;
+		positions[index] = heapSize;
+		siftUp(heapSize++);
+	}
+
+	/**
+	 * Removes the host at a position of the heap.
+	 *
+	 * @param position the position
+	 */
+	private void remove(int position) {
+		int index = heap[position];
+		positions[index] = -1;
+		heapSize--;
+		if (position < heapSize) {
+			heap[position] = heap[heapSize];
+			positions[heap[position]] = position;
+			siftDown(position);
+			siftUp(position);
+		}
+	}
+
+	private void siftUp(int position) {
+		int index = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (times[heap[parent]] <= times[index]) {
+				break;
+			}
+			heap[position] = heap[parent];
+			positions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = index;
+		positions[index] = position;
+	}
+
+	private void siftDown(int position) {
+		int index = heap[position];
+		int half = heapSize >>> 1;
+		while (position < half) {
+			int child = 2 * position + 1;
+			if (child + 1 < heapSize && times[heap[child + 1]] < times[heap[child]]) {
+				child++;
+			}
+			if (times[index] <= times[heap[child]]) {
+				break;
+			}
+			heap[position] = heap[child];
+			positions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = index;
+		positions[index] = position;
+	}
+
+}
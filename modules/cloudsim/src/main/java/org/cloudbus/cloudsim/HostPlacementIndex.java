@@ -0,0 +1,357 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * HostPlacementIndex keeps the free PEs, RAM and bandwidth of the hosts of a VM allocation
+ * policy, by host position in the host list of the policy, so that the policy can find a host for
+ * a VM without scanning all the hosts. The hosts suitable for a VM are enumerated in the order of
+ * a {@link Fit} policy, each in O(log H) time for H hosts when the hosts fit the RAM and bandwidth
+ * of the VM.
+ * <p>
+ * The free PEs of a host are given by its allocation policy and may be negative, as a time-shared
+ * VM scheduler may accept a VM with more PEs than the host has free.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see VmAllocationPolicySimple
+ */
+public class HostPlacementIndex {
+
+	/**
+	 * The order in which the suitable hosts for a VM are enumerated.
+	 */
+	public enum Fit {
+		/** In order of position in the host list. */
+		FIRST_FIT,
+		/** In increasing order of free PEs, then of position. */
+		BEST_FIT,
+		/** In decreasing order of free PEs, then increasing order of position. */
+		WORST_FIT
+	}
+
+	/** The free PEs of each host. */
+	private final int[] freePes;
+
+	/** The free RAM of each host. */
+	private final int[] freeRam;
+
+	/** The free bandwidth of each host. */
+	private final long[] freeBw;
+
+	/** The hosts, as {@link #key(int, int) keys} of their free PEs and positions. */
+	private final TreeSet<Long> byFreePes = new TreeSet<Long>();
+
+	/** The number of leaves of {@link #maxFreePes}, a power of two. */
+	private final int capacity;
+
+	/**
+	 * A segment tree of the maximum free PEs of the hosts, with the root at index 1, the children
+	 * of node i at 2i and 2i + 1, and the host at position p at leaf capacity + p.
+	 */
+	private final int[] maxFreePes;
+
+	/**
+	 * Creates an index of hosts with no free resources.
+	 *
+	 * @param size the number of hosts
+	 */
+	public HostPlacementIndex(int size) {
+		freePes = new int[size];
+		freeRam = new int[size];
+		freeBw = new long[size];
+		int leaves = 1;
+		while (leaves < size) {
+			leaves *= 2;
+		}
+		capacity = leaves;
+		maxFreePes = new int[2 * capacity];
+		Arrays.fill(maxFreePes, Integer.MIN_VALUE);
+		for (int position = 0; position < size; position++) {
+			byFreePes.add(key(0, position));
+			setMaxFreePes(position, 0);
+		}
+	}
+
+	/**
+	 * Gets the number of hosts.
+	 *
+	 * @return the number of hosts
+	 */
+	public int size() {
+		return freePes.length;
+	}
+
+	/**
+	 * Updates the free resources of a host.
+	 *
+	 * @param position the position of the host
+	 * @param pes the free PEs
+	 * @param ram the free RAM
+	 * @param bw the free bandwidth
+	 */
+	public void update(int position, int pes, int ram, long bw) {
+		if (freePes[position] != pes) {
+			byFreePes.remove(key(freePes[position], position));
+			byFreePes.add(key(pes, position));
+			setMaxFreePes(position, pes);
+			freePes[position] = pes;
+		}
+		freeRam[position] = ram;
+		freeBw[position] = bw;
+	}
+
+	/**
+	 * Gets the free PEs of a host.
+	 *
+	 * @param position the position of the host
+	 * @return the free PEs
+	 */
+	public int getFreePes(int position) {
+		return freePes[position];
+	}
+
+	/**
+	 * Enumerates the hosts with at least some free resources, in the order of a fit policy.
+	 *
+	 * @param fit the fit policy
+	 * @param pes the minimum free PEs
+	 * @param ram the minimum free RAM
+	 * @param bw the minimum free bandwidth
+	 * @return the positions of the hosts
+	 */
+	public Iterator<Integer> iterator(Fit fit, int pes, int ram, long bw) {
+		switch (fit) {
+			case FIRST_FIT:
+				return new FirstFitIterator(pes, ram, bw);
+			case BEST_FIT:
+				return new BestFitIterator(pes, ram, bw);
+			default:
+				return new WorstFitIterator(pes, ram, bw);
+		}
+	}
+
+	/**
+	 * Sets the free PEs of a host in the segment tree and updates its ancestors.
+	 *
+	 * @param position the position of the host
+	 * @param pes the free PEs
+	 */
+	private void setMaxFreePes(int position, int pes) {
+		int node = capacity + position;
+		maxFreePes[node] = pes;
+		for (node /= 2; node > 0; node /= 2) {
+			maxFreePes[node] = Math.max(maxFreePes[2 * node], maxFreePes[2 * node + 1]);
+		}
+	}
+
+	/**
+	 * Finds the first host from a position with at least some free PEs.
+	 *
+	 * @param from the first position to consider
+	 * @param pes the minimum free PEs
+	 * @return the position of the host, or -1 if there is none
+	 */
+	private int findFirst(int from, int pes) {
+		return findFirst(1, 0, capacity, from, pes);
+	}
+
+	private int findFirst(int node, int low, int high, int from, int pes) {
+		if (high <= from || maxFreePes[node] < pes) {
+			return -1;
+		}
+		if (high - low == 1) {
+			return low;
+		}
+		int middle = (low + high) >>> 1;
+		int position = findFirst(2 * node, low, middle, from, pes);
+		return position >= 0 ? position : findFirst(2 * node + 1, middle, high, from, pes);
+	}
+
+	/**
+	 * Gets the key of a host in {@link #byFreePes}, ordering the hosts by free PEs, then by
+	 * position.
+	 *
+	 * @param pes the free PEs
+	 * @param position the position
+	 * @return the key
+	 */
+	private static long key(int pes, int position) {
+		return ((long) pes << 32) + position;
+	}
+
+	/**
+	 * Gets the position of a host from its key.
+	 *
+	 * @param key the key
+	 * @return the position
+	 */
+	private static int position(long key) {
+		return (int) (key & 0xffffffffL);
+	}
+
+	/**
+	 * Gets the free PEs of a host from its key.
+	 *
+	 * @param key the key
+	 * @return the free PEs
+	 */
+	private static int pes(long key) {
+		return (int) (key >> 32);
+	}
+
+	/**
+	 * An enumeration of the hosts with enough free PEs, which skips those without enough free
+	 * RAM or bandwidth.
+	 */
+	private abstract class HostIterator implements Iterator<Integer> {
+
+		private final int ram;
+
+		private final long bw;
+
+		/** The position of the next host, or -1 if there is none, once computed. */
+		private int next;
+
+		private boolean computed;
+
+		HostIterator(int ram, long bw) {
+			this.ram = ram;
+			this.bw = bw;
+		}
+
+		/**
+		 * Gets the next host with enough free PEs.
+		 *
+		 * @return the position of the host, or -1 if there is none
+		 */
+		protected abstract int advance();
+
+		@Override
+		public boolean hasNext() {
+			if (!computed) {
+				do {
+					next = advance();
+				} while (next >= 0 && (freeRam[next] < ram || freeBw[next] < bw));
+				computed = true;
+			}
+			return next >= 0;
+		}
+
+		@Override
+		public Integer next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			computed = false;
+			return next;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	private class FirstFitIterator extends HostIterator {
+
+		private final int pes;
+
+		private int from;
+
+		FirstFitIterator(int pes, int ram, long bw) {
+			super(ram, bw);
+			this.pes = pes;
+		}
+
+		@Override
+		protected int advance() {
+			if (from >= size()) {
+				return -1;
+			}
+			int position = findFirst(from, pes);
+			if (position < 0 || position >= size()) {
+				from = size();
+				return -1;
+			}
+			from = position + 1;
+			return position;
+		}
+
+	}
+
+	private class BestFitIterator extends HostIterator {
+
+		private final Iterator<Long> keys;
+
+		BestFitIterator(int pes, int ram, long bw) {
+			super(ram, bw);
+			keys = byFreePes.tailSet(key(pes, 0)).iterator();
+		}
+
+		@Override
+		protected int advance() {
+			return keys.hasNext() ? position(keys.next()) : -1;
+		}
+
+	}
+
+	private class WorstFitIterator extends HostIterator {
+
+		private final int pes;
+
+		/** The hosts with the free PEs being enumerated, in order of position. */
+		private Iterator<Long> keys;
+
+		/** The free PEs being enumerated. */
+		private int current;
+
+		WorstFitIterator(int pes, int ram, long bw) {
+			super(ram, bw);
+			this.pes = pes;
+			if (!byFreePes.isEmpty()) {
+				select(pes(byFreePes.last()));
+			}
+		}
+
+		/**
+		 * Starts enumerating the hosts with some free PEs.
+		 *
+		 * @param freePes the free PEs
+		 */
+		private void select(int freePes) {
+			current = freePes;
+			keys = byFreePes.subSet(key(freePes, 0), true, key(freePes, Integer.MAX_VALUE), true)
+					.iterator();
+		}
+
+		@Override
+		protected int advance() {
+			while (keys != null && current >= pes) {
+				if (keys.hasNext()) {
+					return position(keys.next());
+				}
+				Long lower = byFreePes.lower(key(current, 0));
+				if (lower == null) {
+					break;
+				}
+				select(pes(lower));
+			}
+			keys = null;
+			return -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * HostUtilizationIndex orders the hosts of a VM allocation policy, by position in the host list of
+ * the policy, in increasing order of CPU utilization, then of position. A migration policy uses it
+ * to enumerate the least utilized hosts, removing the hosts it excludes along the way, in O(log H)
+ * time per host for H hosts, instead of scanning all the hosts for each under-utilized host.
+ * <p>
+ * The utilizations are compared as by {@link Double#compare(double, double)}, so that the hosts
+ * with the same utilization are in the same order as in the host list.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see HostPlacementIndex
+ */
+public class HostUtilizationIndex {
+
+	/** The CPU utilization of each host. */
+	private final double[] utilization;
+
+	/** The positions of the indexed hosts, in increasing order of utilization, then position. */
+	private final TreeSet<Integer> byUtilization;
+
+	/**
+	 * Creates an empty index.
+	 *
+	 * @param size the number of hosts
+	 */
+	public HostUtilizationIndex(int size) {
+		utilization = new double[size];
+		byUtilization = new TreeSet<Integer>(new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer a, Integer b) {
+				int result = Double.compare(utilization[a], utilization[b]);
+				return result != 0 ? result : a.compareTo(b);
+			}
+
+		});
+	}
+
+	/**
+	 * Gets the number of hosts the index was created for.
+	 *
+	 * @return the number of hosts
+	 */
+	public int size() {
+		return utilization.length;
+	}
+
+	/**
+	 * Sets the CPU utilization of a host, adding the host to the index if it isn't indexed.
+	 *
+	 * @param position the position of the host
+	 * @param utilization the CPU utilization of the host
+	 */
+	public void update(int position, double utilization) {
+		byUtilization.remove(position);
+		this.utilization[position] = utilization;
+		byUtilization.add(position);
+	}
+
+	/**
+	 * Removes a host from the index.
+	 *
+	 * @param position the position of the host
+	 */
+	public void remove(int position) {
+		byUtilization.remove(position);
+	}
+
+	/**
+	 * Checks if a host is indexed.
+	 *
+	 * @param position the position of the host
+	 * @return true if the host is indexed
+	 */
+	public boolean contains(int position) {
+		return byUtilization.contains(position);
+	}
+
+	/**
+	 * Gets the last CPU utilization set for a host.
+	 *
+	 * @param position the position of the host
+	 * @return the CPU utilization of the host
+	 */
+	public double getUtilization(int position) {
+		return utilization[position];
+	}
+
+	/**
+	 * Gets the indexed host with the least CPU utilization.
+	 *
+	 * @return the position of the host, or -1 if no host is indexed
+	 */
+	public int first() {
+		return byUtilization.isEmpty() ? -1 : byUtilization.first();
+	}
+
+	/**
+	 * Gets the indexed host following a host, in increasing order of CPU utilization. The given
+	 * host may have been removed from the index.
+	 *
+	 * @param position the position of the host
+	 * @return the position of the next host, or -1 if there is none
+	 */
+	public int next(int position) {
+		Integer next = byUtilization.higher(position);
+		return next == null ? -1 : next;
+	}
+
+}
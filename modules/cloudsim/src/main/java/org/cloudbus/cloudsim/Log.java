@@ -11,9 +11,15 @@ package org.cloudbus.cloudsim;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.cloudbus.cloudsim.core.SimulationLocal;
+
 /**
  * Logger used for performing logging of the simulation process. It provides the ability to
  * substitute the output stream by any OutputStream subclass.
+ * <p>
+ * The output stream and the disabled flag are kept for each simulation, so that simulations
+ * running in parallel through {@link org.cloudbus.cloudsim.core.Simulation} can log to different
+ * streams. A new simulation logs to the standard output until it is configured otherwise.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
@@ -25,15 +31,15 @@ public class Log {
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-	/** The stream where the log will the outputted. */
-	private static OutputStream output;
+	/** The settings of the logger, which are kept separately for each simulation. */
+	private static final SimulationLocal<Settings> settings = new SimulationLocal<Settings>() {
 
-	/** Indicates if the logger is disabled or not. If set to true,
-         the call for any print method has no effect. */
-	private static boolean disabled;
-	
-	/** Buffer to avoid creating new string builder upon every print. */
-	private static StringBuilder buffer = new StringBuilder();		    
+		@Override
+		protected Settings initialValue() {
+			return new Settings();
+		}
+
+	};
 
 	/**
 	 * Prints a message.
@@ -89,11 +95,14 @@ public class Log {
 	 */
 	public static void printConcat(Object... messages) {
 		if (!isDisabled()) {
-			buffer.setLength(0); // Clear the buffer		    
-			for(int i = 0 ; i < messages.length ; i ++) {
-				buffer.append(String.valueOf(messages[i]));
+			StringBuilder buffer = settings.get().buffer;
+			synchronized (buffer) {
+				buffer.setLength(0); // Clear the buffer
+				for(int i = 0 ; i < messages.length ; i ++) {
+					buffer.append(String.valueOf(messages[i]));
+				}
+				print(buffer);
 			}
-			print(buffer);
 		}
 	}
 	
@@ -104,11 +113,14 @@ public class Log {
 	 */
 	public static void printConcatLine(Object... messages) {
 		if (!isDisabled()) {
-			buffer.setLength(0); // Clear the buffer		    
-			for(int i = 0 ; i < messages.length ; i ++) {
-				buffer.append(String.valueOf(messages[i]));
+			StringBuilder buffer = settings.get().buffer;
+			synchronized (buffer) {
+				buffer.setLength(0); // Clear the buffer
+				for(int i = 0 ; i < messages.length ; i ++) {
+					buffer.append(String.valueOf(messages[i]));
+				}
+				printLine(buffer);
 			}
-			printLine(buffer);
 		}
 	}
 
@@ -157,7 +169,7 @@ public class Log {
 	 * @param _output the new output
 	 */
 	public static void setOutput(OutputStream _output) {
-		output = _output;
+		settings.get().output = _output;
 	}
 
 	/**
@@ -166,10 +178,11 @@ public class Log {
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
-		if (output == null) {
-			setOutput(System.out);
+		Settings current = settings.get();
+		if (current.output == null) {
+			current.output = System.out;
 		}
-		return output;
+		return current.output;
 	}
 
 	/**
@@ -178,7 +191,7 @@ public class Log {
 	 * @param _disabled the new disabled
 	 */
 	public static void setDisabled(boolean _disabled) {
-		disabled = _disabled;
+		settings.get().disabled = _disabled;
 	}
 
 	/**
@@ -187,7 +200,7 @@ public class Log {
 	 * @return true, if is disable
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return settings.get().disabled;
 	}
 
 	/**
@@ -204,4 +217,26 @@ public class Log {
 		setDisabled(false);
 	}
 
+	/**
+	 * The settings of the logger in a simulation.
+	 */
+	private static class Settings {
+
+		/** The stream where the log will the outputted. */
+		private OutputStream output;
+
+		/**
+		 * Indicates if the logger is disabled or not. If set to true, the call for any print method
+		 * has no effect.
+		 */
+		private boolean disabled;
+
+		/**
+		 * Buffer to avoid creating new string builder upon every print. It is locked while in use,
+		 * since the partitions of a parallel simulation share it.
+		 */
+		private final StringBuilder buffer = new StringBuilder();
+
+	}
+
 }
@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.SimulationLocal;
 import org.cloudbus.cloudsim.network.DelayMatrix_Float;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
 import org.cloudbus.cloudsim.network.TopologicalGraph;
@@ -30,6 +31,8 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p/>
+ * Each {@link org.cloudbus.cloudsim.core.Simulation} has its own network topology.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -40,34 +43,15 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * A private default constructor would be created to avoid instantiation.
  */
 public class NetworkTopology {
-        /**
-         * The BRITE id to use for the next node to be created in the network.
-         */
-	protected static int nextIdx = 0;
-
-	private static boolean networkEnabled = false;
-
-        /**
-         * A matrix containing the delay between every pair of nodes in the network.
-         */
-	protected static DelayMatrix_Float delayMatrix = null;
+	/** The network topology of each simulation. */
+	private static final SimulationLocal<Topology> topology = new SimulationLocal<Topology>() {
 
-        /**
-         * A matrix containing the bandwidth between every pair of nodes in the network.
-         */
-	protected static double[][] bwMatrix = null;
-
-        /**
-         * The Topological Graph of the network.
-         */
-	protected static TopologicalGraph graph = null;
+		@Override
+		protected Topology initialValue() {
+			return new Topology();
+		}
 
-	/**
-         * The map between CloudSim entities and BRITE entities.
-         * Each key is a CloudSim entity ID and each value the corresponding
-         * BRITE entity ID.
-         */
-        protected static Map<Integer, Integer> map = null;
+	};
 
 	/**
 	 * Creates the network topology if the file exists and can be successfully parsed. File is
@@ -78,15 +62,16 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void buildNetworkTopology(String fileName) {
+		Topology t = topology.get();
 		Log.printConcatLine("Topology file: ", fileName);
 
 		// try to find the file
 		GraphReaderBrite reader = new GraphReaderBrite();
 
 		try {
-			graph = reader.readGraphFile(fileName);
-			map = new HashMap<Integer, Integer>();
-			generateMatrices();
+			t.graph = reader.readGraphFile(fileName);
+			t.map = new HashMap<Integer, Integer>();
+			generateMatrices(t);
 		} catch (IOException e) {
 			// problem with the file. Does not simulate network
 			Log.printLine("Problem in processing BRITE file. Network simulation is disabled. Error: "
@@ -97,15 +82,17 @@ public class NetworkTopology {
 
 	/**
 	 * Generates the matrices used internally to set latency and bandwidth between elements.
+	 * 
+	 * @param t the network topology
 	 */
-	private static void generateMatrices() {
+	private static void generateMatrices(Topology t) {
 		// creates the delay matrix
-		delayMatrix = new DelayMatrix_Float(graph, false);
+		t.delayMatrix = new DelayMatrix_Float(t.graph, false);
 
 		// creates the bw matrix
-		bwMatrix = createBwMatrix(graph, false);
+		t.bwMatrix = createBwMatrix(t.graph, false);
 
-		networkEnabled = true;
+		t.networkEnabled = true;
 	}
 
 	/**
@@ -122,32 +109,32 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void addLink(int srcId, int destId, double bw, double lat) {
-
-		if (graph == null) {
-			graph = new TopologicalGraph();
+		Topology t = topology.get();
+		if (t.graph == null) {
+			t.graph = new TopologicalGraph();
 		}
 
-		if (map == null) {
-			map = new HashMap<Integer, Integer>();
+		if (t.map == null) {
+			t.map = new HashMap<Integer, Integer>();
 		}
 
 		// maybe add the nodes
-		if (!map.containsKey(srcId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(srcId, nextIdx);
-			nextIdx++;
+		if (!t.map.containsKey(srcId)) {
+			t.graph.addNode(new TopologicalNode(t.nextIdx));
+			t.map.put(srcId, t.nextIdx);
+			t.nextIdx++;
 		}
 
-		if (!map.containsKey(destId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(destId, nextIdx);
-			nextIdx++;
+		if (!t.map.containsKey(destId)) {
+			t.graph.addNode(new TopologicalNode(t.nextIdx));
+			t.map.put(destId, t.nextIdx);
+			t.nextIdx++;
 		}
 
 		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
+		t.graph.addLink(new TopologicalLink(t.map.get(srcId), t.map.get(destId), (float) lat, (float) bw));
 
-		generateMatrices();
+		generateMatrices(t);
 
 	}
 
@@ -194,12 +181,13 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void mapNode(int cloudSimEntityID, int briteID) {
-		if (networkEnabled) {
+		Topology t = topology.get();
+		if (t.networkEnabled) {
 			try {
 				// this CloudSim entity was already mapped?
-				if (!map.containsKey(cloudSimEntityID)) {
-					if (!map.containsValue(briteID)) { // this BRITE node was already mapped?
-						map.put(cloudSimEntityID, briteID);
+				if (!t.map.containsKey(cloudSimEntityID)) {
+					if (!t.map.containsValue(briteID)) { // this BRITE node was already mapped?
+						t.map.put(cloudSimEntityID, briteID);
 					} else {
 						Log.printConcatLine("Error in network mapping. BRITE node ", briteID, " already in use.");
 					}
@@ -222,9 +210,10 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void unmapNode(int cloudSimEntityID) {
-		if (networkEnabled) {
+		Topology t = topology.get();
+		if (t.networkEnabled) {
 			try {
-				map.remove(cloudSimEntityID);
+				t.map.remove(cloudSimEntityID);
 			} catch (Exception e) {
 				Log.printConcatLine("Error in network unmapping. CloudSim node: ", cloudSimEntityID);
 			}
@@ -242,10 +231,11 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static double getDelay(int srcID, int destID) {
-		if (networkEnabled) {
+		Topology t = topology.get();
+		if (t.networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay = t.delayMatrix.getDelay(t.map.get(srcID), t.map.get(destID));
 
 				return delay;
 			} catch (Exception e) {
@@ -265,7 +255,35 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static boolean isNetworkEnabled() {
-		return networkEnabled;
+		return topology.get().networkEnabled;
+	}
+
+	/**
+	 * The network topology of a simulation.
+	 */
+	private static class Topology {
+
+		/** The BRITE id to use for the next node to be created in the network. */
+		private int nextIdx;
+
+		/** Indicates if the network simulation is working. */
+		private boolean networkEnabled;
+
+		/** A matrix containing the delay between every pair of nodes in the network. */
+		private DelayMatrix_Float delayMatrix;
+
+		/** A matrix containing the bandwidth between every pair of nodes in the network. */
+		private double[][] bwMatrix;
+
+		/** The Topological Graph of the network. */
+		private TopologicalGraph graph;
+
+		/**
+		 * The map between CloudSim entities and BRITE entities. Each key is a CloudSim entity ID
+		 * and each value the corresponding BRITE entity ID.
+		 */
+		private Map<Integer, Integer> map;
+
 	}
 
 }
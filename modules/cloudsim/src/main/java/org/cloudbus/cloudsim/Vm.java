@@ -275,6 +275,28 @@ public class Vm {
 		return userId + "-" + vmId;
 	}
 
+	/**
+	 * Gets the numeric key of the VM, which identifies it like its {@link #getUid() uid} without
+	 * building a string.
+	 *
+	 * @return the key
+	 * @see #getKey(int, int)
+	 */
+	public long getKey() {
+		return getKey(getUserId(), getId());
+	}
+
+	/**
+	 * Generates the numeric key of a VM, combining its user id and its id in a long value.
+	 *
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the key
+	 */
+	public static long getKey(int userId, int vmId) {
+		return ((long) userId << 32) | (vmId & 0xffffffffL);
+	}
+
 	/**
 	 * Gets the VM id.
 	 * 
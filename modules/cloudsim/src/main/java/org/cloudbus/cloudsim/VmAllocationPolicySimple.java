@@ -10,15 +10,19 @@ package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.VmUidMap;
 
 /**
  * VmAllocationPolicySimple is an VmAllocationPolicy that chooses, as the host for a VM, the host
  * with less PEs in use. It is therefore a Worst Fit policy, allocating VMs into the 
- * host with most available PE.
+ * host with most available PE. Other fit policies can be given to the constructor; the hosts are
+ * found through a {@link HostPlacementIndex}, without scanning them unless none of them is found
+ * suitable for a VM.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -37,6 +41,15 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	/** The number of free Pes for each host from {@link #getHostList() }. */
 	private List<Integer> freePes;
 
+	/** The free resources of each host from {@link #getHostList() }, by position. */
+	private final HostPlacementIndex placementIndex;
+
+	/** The position of each host in {@link #getHostList() }. */
+	private final Map<Host, Integer> hostPositions = new HashMap<Host, Integer>();
+
+	/** The order in which the hosts are tried for a VM. */
+	private final HostPlacementIndex.Fit fit;
+
 	/**
 	 * Creates a new VmAllocationPolicySimple object.
 	 * 
@@ -45,15 +58,32 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 * @post $none
 	 */
 	public VmAllocationPolicySimple(List<? extends Host> list) {
+		this(list, HostPlacementIndex.Fit.WORST_FIT);
+	}
+
+	/**
+	 * Creates a new VmAllocationPolicySimple object that tries the hosts for a VM in the order of
+	 * a given fit policy. With the worst fit, every host is tried, from the one with most free PEs,
+	 * as a time-shared VM scheduler may accept a VM on a host with less free PEs than the VM
+	 * requires. With the best and first fits, only the hosts with enough free PEs, RAM and
+	 * bandwidth are tried.
+	 * 
+	 * @param list the list of hosts
+	 * @param fit the fit policy
+	 */
+	public VmAllocationPolicySimple(List<? extends Host> list, HostPlacementIndex.Fit fit) {
 		super(list);
+		this.fit = fit;
 
 		setFreePes(new ArrayList<Integer>());
+		placementIndex = new HostPlacementIndex(getHostList().size());
 		for (Host host : getHostList()) {
+			hostPositions.put(host, getFreePes().size());
 			getFreePes().add(host.getNumberOfPes());
-
+			updatePlacementIndex(hostPositions.get(host));
 		}
 
-		setVmTable(new HashMap<String, Host>());
+		setVmTable(new VmUidMap<Host>());
 		setUsedPes(new HashMap<String, Integer>());
 	}
 
@@ -67,57 +97,74 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public boolean allocateHostForVm(Vm vm) {
-		int requiredPes = vm.getNumberOfPes();
-		boolean result = false;
-		int tries = 0;
-		List<Integer> freePesTmp = new ArrayList<Integer>();
-		for (Integer freePes : getFreePes()) {
-			freePesTmp.add(freePes);
+		if (getVmTable().containsKey(vm.getUid())) { // if this vm was already created
+			return false;
 		}
 
-		if (!getVmTable().containsKey(vm.getUid())) { // if this vm was not created
-			do {// we still trying until we find a host or until we try all of them
-				int moreFree = Integer.MIN_VALUE;
-				int idx = -1;
-
-				// we want the host with less pes in use
-				for (int i = 0; i < freePesTmp.size(); i++) {
-					if (freePesTmp.get(i) > moreFree) {
-						moreFree = freePesTmp.get(i);
-						idx = i;
-					}
-				}
-
-				Host host = getHostList().get(idx);
-				result = host.vmCreate(vm);
-
-				if (result) { // if vm were succesfully created in the host
-					getVmTable().put(vm.getUid(), host);
-					getUsedPes().put(vm.getUid(), requiredPes);
-					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
-					result = true;
-					break;
-				} else {
-					freePesTmp.set(idx, Integer.MIN_VALUE);
-				}
-				tries++;
-			} while (!result && tries < getFreePes().size());
+		int requiredPes = vm.getNumberOfPes();
+		Iterator<Integer> positions;
+		if (getFit() == HostPlacementIndex.Fit.WORST_FIT) {
+			positions = placementIndex.iterator(getFit(), Integer.MIN_VALUE, 0, 0);
+		} else {
+			positions = placementIndex.iterator(getFit(), requiredPes, vm.getRam(), vm.getBw());
+		}
 
+		if (tryHosts(vm, positions)) {
+			return true;
+		}
+		if (getFit() == HostPlacementIndex.Fit.WORST_FIT) {
+			return false;
 		}
 
-		return result;
+		// a host may have freed RAM or bandwidth outside this policy, so the hosts are tried again
+		// with their free resources read from the hosts
+		for (int idx = 0; idx < getHostList().size(); idx++) {
+			updatePlacementIndex(idx);
+		}
+		return tryHosts(vm, placementIndex.iterator(getFit(), requiredPes, vm.getRam(), vm.getBw()));
 	}
 
+	/**
+	 * Tries the hosts at some positions for a VM, in order, until one creates it. With the best and
+	 * first fits, a host is tried only if it is still suitable for the VM, as VMs may have been
+	 * created in or destroyed from it outside this policy, such as by a migration; otherwise its
+	 * free resources in the placement index are refreshed and it is skipped.
+	 * 
+	 * @param vm the VM
+	 * @param positions the positions of the hosts
+	 * @return true if the VM was created in a host, false otherwise
+	 */
+	private boolean tryHosts(Vm vm, Iterator<Integer> positions) {
+		// we still trying until we find a host or until we try all of them
+		while (positions.hasNext()) {
+			int idx = positions.next();
+			Host host = getHostList().get(idx);
+			if (getFit() != HostPlacementIndex.Fit.WORST_FIT && !host.isSuitableForVm(vm)) {
+				updatePlacementIndex(idx);
+				continue;
+			}
+			if (host.vmCreate(vm)) { // if vm were succesfully created in the host
+				int requiredPes = vm.getNumberOfPes();
+				getVmTable().put(vm.getUid(), host);
+				getUsedPes().put(vm.getUid(), requiredPes);
+				getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
+				updatePlacementIndex(idx);
+				return true;
+			}
+		}
 
+		return false;
+	}
 
 	@Override
 	public void deallocateHostForVm(Vm vm) {
 		Host host = getVmTable().remove(vm.getUid());
-		int idx = getHostList().indexOf(host);
 		int pes = getUsedPes().remove(vm.getUid());
 		if (host != null) {
+			int idx = hostPositions.get(host);
 			host.vmDestroy(vm);
 			getFreePes().set(idx, getFreePes().get(idx) + pes);
+			updatePlacementIndex(idx);
 		}
 	}
 
@@ -128,7 +175,27 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return VmUidMap.get(getVmTable(), userId, vmId);
+	}
+
+	/**
+	 * Updates the free resources of a host in the placement index.
+	 * 
+	 * @param idx the position of the host
+	 */
+	protected void updatePlacementIndex(int idx) {
+		Host host = getHostList().get(idx);
+		placementIndex.update(idx, getFreePes().get(idx), host.getRamProvisioner().getAvailableRam(),
+				host.getBwProvisioner().getAvailableBw());
+	}
+
+	/**
+	 * Gets the order in which the hosts are tried for a VM.
+	 * 
+	 * @return the fit policy
+	 */
+	public HostPlacementIndex.Fit getFit() {
+		return fit;
 	}
 
 	/**
@@ -197,9 +264,10 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 			getVmTable().put(vm.getUid(), host);
 
 			int requiredPes = vm.getNumberOfPes();
-			int idx = getHostList().indexOf(host);
+			int idx = hostPositions.get(host);
 			getUsedPes().put(vm.getUid(), requiredPes);
 			getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
+			updatePlacementIndex(idx);
 
 			Log.formatLine(
 					"%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
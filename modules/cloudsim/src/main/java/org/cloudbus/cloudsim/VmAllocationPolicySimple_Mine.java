@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.VmUidMap;
 
 /**
  * VmAllocationPolicySimple is an VmAllocationPolicy that chooses, as the host for a VM, the host
@@ -53,7 +54,7 @@ public class VmAllocationPolicySimple_Mine extends VmAllocationPolicy {
 
 		}
 
-		setVmTable(new HashMap<String, Host>());
+		setVmTable(new VmUidMap<Host>());
 		setUsedPes(new HashMap<String, Integer>());
 	}
 
@@ -132,7 +133,7 @@ public class VmAllocationPolicySimple_Mine extends VmAllocationPolicy {
 
 	@Override
 	public Host getHost(int vmId, int userId) {
-		return getVmTable().get(Vm.getUid(userId, vmId));
+		return VmUidMap.get(getVmTable(), userId, vmId);
 	}
 
 	/**
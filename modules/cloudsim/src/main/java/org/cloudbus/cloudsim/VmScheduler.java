@@ -7,11 +7,11 @@
 
 package org.cloudbus.cloudsim;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.lists.HashedList;
 import org.cloudbus.cloudsim.lists.PeList;
 
 /**
@@ -67,8 +67,8 @@ public abstract class VmScheduler {
 		setPeMap(new HashMap<String, List<Pe>>());
 		setMipsMap(new HashMap<String, List<Double>>());
 		setAvailableMips(PeList.getTotalMips(getPeList()));
-		setVmsMigratingIn(new ArrayList<String>());
-		setVmsMigratingOut(new ArrayList<String>());
+		setVmsMigratingIn(new HashedList<String>());
+		setVmsMigratingOut(new HashedList<String>());
 	}
 
 	/**
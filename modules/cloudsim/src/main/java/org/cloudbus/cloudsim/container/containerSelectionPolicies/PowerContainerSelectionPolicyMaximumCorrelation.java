@@ -5,6 +5,7 @@ import org.cloudbus.cloudsim.container.core.PowerContainer;
 import org.cloudbus.cloudsim.container.core.PowerContainerHost;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.UtilizationHistory;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -70,10 +71,8 @@ public class PowerContainerSelectionPolicyMaximumCorrelation extends PowerContai
         int m = getMinUtilizationHistorySize(powerContainers);
         double[][] utilization = new double[n][m];
         for (int i = 0; i < n; i++) {
-            List<Double> vmUtilization = powerContainers.get(i).getUtilizationHistory();
-            for (int j = 0; j < vmUtilization.size(); j++) {
-                utilization[i][j] = vmUtilization.get(j);
-            }
+            UtilizationHistory vmUtilization = powerContainers.get(i).getUtilizationHistoryBuffer();
+            System.arraycopy(vmUtilization.getValues(), vmUtilization.getOffset(), utilization[i], 0, m);
         }
         return utilization;
     }
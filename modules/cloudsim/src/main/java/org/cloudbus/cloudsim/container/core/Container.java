@@ -2,7 +2,7 @@ package org.cloudbus.cloudsim.container.core;
 
 import org.cloudbus.cloudsim.container.schedulers.ContainerCloudletScheduler;
 import org.cloudbus.cloudsim.*;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.UtilizationHistory;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -117,7 +117,7 @@ public class Container {
     /**
      * The utilization history.
      */
-    private final List<Double> utilizationHistory = new LinkedList<Double>();
+    private final UtilizationHistory utilizationHistory = new UtilizationHistory(HISTORY_LENGTH);
 
     /**
      * The previous time.
@@ -653,20 +653,7 @@ public class Container {
      * @return the utilization mean in MIPS
      */
     public double getUtilizationMad() {
-        double mad = 0;
-        if (!getUtilizationHistory().isEmpty()) {
-            int n = HISTORY_LENGTH;
-            if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-                n = getUtilizationHistory().size();
-            }
-            double median = MathUtil.median(getUtilizationHistory());
-            double[] deviationSum = new double[n];
-            for (int i = 0; i < n; i++) {
-                deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-            }
-            mad = MathUtil.median(deviationSum);
-        }
-        return mad;
+        return getUtilizationHistoryBuffer().getMad();
     }
 
     /**
@@ -675,18 +662,7 @@ public class Container {
      * @return the utilization mean in MIPS
      */
     public double getUtilizationMean() {
-        double mean = 0;
-        if (!getUtilizationHistory().isEmpty()) {
-            int n = HISTORY_LENGTH;
-            if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-                n = getUtilizationHistory().size();
-            }
-            for (int i = 0; i < n; i++) {
-                mean += getUtilizationHistory().get(i);
-            }
-            mean /= n;
-        }
-        return mean * getMips();
+        return getUtilizationHistoryBuffer().getMean() * getMips();
     }
 
     /**
@@ -695,20 +671,7 @@ public class Container {
      * @return the utilization variance in MIPS
      */
     public double getUtilizationVariance() {
-        double mean = getUtilizationMean();
-        double variance = 0;
-        if (!getUtilizationHistory().isEmpty()) {
-            int n = HISTORY_LENGTH;
-            if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-                n = getUtilizationHistory().size();
-            }
-            for (int i = 0; i < n; i++) {
-                double tmp = getUtilizationHistory().get(i) * getMips() - mean;
-                variance += tmp * tmp;
-            }
-            variance /= n;
-        }
-        return variance;
+        return getUtilizationHistoryBuffer().getVariance() * getMips() * getMips();
     }
 
     /**
@@ -717,19 +680,26 @@ public class Container {
      * @param utilization the utilization
      */
     public void addUtilizationHistoryValue(final double utilization) {
-        getUtilizationHistory().add(0, utilization);
-        if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-            getUtilizationHistory().remove(HISTORY_LENGTH);
-        }
+        getUtilizationHistoryBuffer().add(utilization);
     }
 
 
     /**
-     * Gets the utilization history.
+     * Gets the utilization history, from the most recent value to the oldest one, as a read-only
+     * view of the {@link #getUtilizationHistoryBuffer() buffer}.
      *
      * @return the utilization history
      */
     protected List<Double> getUtilizationHistory() {
+        return utilizationHistory.asList();
+    }
+
+    /**
+     * Gets the utilization history, kept in a buffer of primitive values.
+     *
+     * @return the utilization history
+     */
+    protected UtilizationHistory getUtilizationHistoryBuffer() {
         return utilizationHistory;
     }
 
@@ -8,18 +8,55 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.container.schedulers.ContainerCloudletScheduler;
+import org.cloudbus.cloudsim.util.CloudletCompletionQueue;
+import org.cloudbus.cloudsim.util.ParallelHostUpdater;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by sareh on 10/07/15.
  */
 public class ContainerDatacenter extends SimEntity {
 
+    /**
+     * Updates the processing of the hosts, optionally in parallel.
+     */
+    private static final ParallelHostUpdater<ContainerHost> HOST_UPDATER = new ParallelHostUpdater<ContainerHost>() {
+
+        @Override
+        protected double updateVmsProcessing(ContainerHost host, double currentTime) {
+            return host.updateContainerVmsProcessing(currentTime);
+        }
+
+        @Override
+        protected void addMigratingHosts(ContainerHost host, Set<ContainerHost> migrating) {
+            for (ContainerVm containerVm : host.getVmsMigratingIn()) {
+                migrating.add(host);
+                migrating.add(containerVm.getHost());
+            }
+            // containers migrating between VMs of different hosts are shared as well
+            for (ContainerVm containerVm : host.<ContainerVm>getVmList()) {
+                for (Container container : containerVm.getContainersMigratingIn()) {
+                    migrating.add(host);
+                    if (container.getVm() != null && container.getVm().getHost() != null) {
+                        migrating.add(container.getVm().getHost());
+                    }
+                }
+            }
+        }
+
+    };
+
     /**
      * The characteristics.
      */
@@ -71,6 +108,26 @@ public class ContainerDatacenter extends SimEntity {
      */
     private String logAddress;
 
+    /**
+     * Indicates if the processing of the hosts is updated in parallel.
+     */
+    private boolean parallelHostUpdate;
+
+    /**
+     * The queue of the containers where some cloudlet has finished.
+     */
+    private final CloudletCompletionQueue<Container> completionQueue = new CloudletCompletionQueue<Container>();
+
+    /** The containers whose schedulers are not known to add them to the {@link #completionQueue},
+     * which are checked for finished cloudlets every time. */
+    private final Set<Container> unnotifiedContainers = new LinkedHashSet<Container>();
+
+    /** The positions of the hosts of this datacenter, by host. */
+    private Map<ContainerHost, Integer> hostPositions;
+
+    /** The list of hosts whose positions are in {@link #hostPositions}. */
+    private List<? extends ContainerHost> hostPositionsList;
+
 
     /**
      * Allocates a new PowerDatacenter object.
@@ -303,6 +360,7 @@ public class ContainerDatacenter extends SimEntity {
                     }
 //                    Log.printConcatLine("Assigning the container#" + container.getUid() + "to VM #" + containerVm.getUid());
                     getContainerList().add(container);
+                    watchCloudletCompletion(container);
                     if (container.isBeingInstantiated()) {
                         container.setBeingInstantiated(false);
                     }
@@ -850,6 +908,7 @@ public class ContainerDatacenter extends SimEntity {
             ContainerHost host = getVmAllocationPolicy().getHost(vmId, userId);
             ContainerVm vm = host.getContainerVm(vmId, userId);
             Container container = vm.getContainer(containerId, userId);
+            watchCloudletCompletion(container);
             double estimatedFinishTime = container.getContainerCloudletScheduler().cloudletSubmit(cl, fileTransferTime);
 
             // if this cloudlet is in the exec queue
@@ -978,6 +1037,20 @@ public class ContainerDatacenter extends SimEntity {
         sendNow(userId, CloudSimTags.CLOUDLET_CANCEL, cl);
     }
 
+    /**
+     * Updates the processing of the VMs of a list of hosts, in parallel if
+     * {@link #isParallelHostUpdate() enabled}.
+     *
+     * @param hosts       the hosts
+     * @param currentTime the current time
+     * @return expected time of completion of the next cloudlet in all VMs of the hosts or
+     * {@link Double#MAX_VALUE} if there is no future events expected in them
+     * @see ParallelHostUpdater
+     */
+    protected double updateHostsProcessing(List<? extends ContainerHost> hosts, double currentTime) {
+        return HOST_UPDATER.update(hosts, currentTime, isParallelHostUpdate());
+    }
+
     /**
      * Updates processing of each cloudlet running in this PowerDatacenter. It is necessary because
      * Hosts and VirtualMachines are simple objects, not entities. So, they don't receive events and
@@ -991,18 +1064,9 @@ public class ContainerDatacenter extends SimEntity {
         // R: for term is to allow loop at simulation start. Otherwise, one initial
         // simulation step is skipped and schedulers are not properly initialized
         if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + CloudSim.getMinTimeBetweenEvents()) {
-            List<? extends ContainerHost> list = getVmAllocationPolicy().getContainerHostList();
-            double smallerTime = Double.MAX_VALUE;
-            // for each host...
-            for (int i = 0; i < list.size(); i++) {
-                ContainerHost host = list.get(i);
-                // inform VMs to update processing
-                double time = host.updateContainerVmsProcessing(CloudSim.clock());
-                // what time do we expect that the next cloudlet will finish?
-                if (time < smallerTime) {
-                    smallerTime = time;
-                }
-            }
+            // inform VMs of each host to update processing, and get the time
+            // we expect the next cloudlet will finish
+            double smallerTime = updateHostsProcessing(getVmAllocationPolicy().getContainerHostList(), CloudSim.clock());
             // gurantees a minimal interval before scheduling the event
             if (smallerTime < CloudSim.clock() + CloudSim.getMinTimeBetweenEvents() + 0.01) {
                 smallerTime = CloudSim.clock() + CloudSim.getMinTimeBetweenEvents() + 0.01;
@@ -1022,22 +1086,143 @@ public class ContainerDatacenter extends SimEntity {
      * @post $none
      */
     protected void checkCloudletCompletion() {
-        List<? extends ContainerHost> list = getVmAllocationPolicy().getContainerHostList();
-        for (int i = 0; i < list.size(); i++) {
-            ContainerHost host = list.get(i);
-            for (ContainerVm vm : host.getVmList()) {
-                for (Container container : vm.getContainerList()) {
-                    while (container.getContainerCloudletScheduler().isFinishedCloudlets()) {
-                        Cloudlet cl = container.getContainerCloudletScheduler().getNextFinishedCloudlet();
-                        if (cl != null) {
-                            sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+        List<Container> queued = getCompletionQueue().poll();
+        if (queued.isEmpty() && unnotifiedContainers.isEmpty()) {
+            return;
+        }
+
+        // only the containers whose schedulers notified a finished cloudlet are checked, in the
+        // order of their hosts, of the VMs in each host and of the containers in each VM
+        updateHostPositions();
+        final Map<Container, int[]> positions = new IdentityHashMap<Container, int[]>();
+        for (Container container : queued) {
+            int[] position = getPosition(container);
+            if (position != null) {
+                positions.put(container, position);
+            }
+        }
+        // along with the containers whose schedulers may never notify
+        Iterator<Container> iterator = unnotifiedContainers.iterator();
+        while (iterator.hasNext()) {
+            Container container = iterator.next();
+            ContainerCloudletScheduler scheduler = container.getContainerCloudletScheduler();
+            if (scheduler.isNotifyingCloudletFinished()) {
+                iterator.remove();
+            } else if (scheduler.isFinishedCloudlets()) {
+                int[] position = getPosition(container);
+                if (position != null) {
+                    positions.put(container, position);
+                }
+            }
+        }
+        List<Container> list = new ArrayList<Container>(positions.keySet());
+        if (list.size() > 1) {
+            Collections.sort(list, new Comparator<Container>() {
+
+                @Override
+                public int compare(Container container1, Container container2) {
+                    int[] position1 = positions.get(container1);
+                    int[] position2 = positions.get(container2);
+                    for (int i = 0; i < position1.length; i++) {
+                        if (position1[i] != position2[i]) {
+                            return position1[i] < position2[i] ? -1 : 1;
                         }
                     }
+                    return 0;
+                }
+
+            });
+        }
+        for (Container container : list) {
+            while (container.getContainerCloudletScheduler().isFinishedCloudlets()) {
+                Cloudlet cl = container.getContainerCloudletScheduler().getNextFinishedCloudlet();
+                if (cl != null) {
+                    sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
                 }
             }
         }
     }
 
+    /**
+     * Gets the queue of the containers where some cloudlet has finished.
+     *
+     * @return the completion queue
+     * @see #watchCloudletCompletion(Container)
+     */
+    protected CloudletCompletionQueue<Container> getCompletionQueue() {
+        return completionQueue;
+    }
+
+    /**
+     * Makes the scheduler of a container add the container to the
+     * {@link #getCompletionQueue() completion queue} of this datacenter when a cloudlet finishes.
+     * It is done when the container is created and for the container of each cloudlet submitted.
+     * If the scheduler is not {@link ContainerCloudletScheduler#isNotifyingCloudletFinished()
+     * known to do it}, the container is checked for finished cloudlets every time instead.
+     *
+     * @param container the container
+     */
+    protected void watchCloudletCompletion(Container container) {
+        ContainerCloudletScheduler scheduler = container.getContainerCloudletScheduler();
+        if (scheduler.getCompletionQueue() != getCompletionQueue()) {
+            scheduler.setCompletionQueue(getCompletionQueue(), container);
+        }
+        if (!scheduler.isNotifyingCloudletFinished()) {
+            unnotifiedContainers.add(container);
+        }
+    }
+
+    /**
+     * Gets the position of the first host of this datacenter that has a container in one of its
+     * VMs, along with the {@link ContainerHost#getVmOrder(ContainerVm) order} of the VM in the host
+     * and the {@link ContainerVm#getContainerOrder(Container) order} of the container in the VM,
+     * so that sorting containers by position sorts them as they are in the lists. Only the
+     * containers that migrate, or whose VMs do, are searched for.
+     *
+     * @param container the container
+     * @return the positions of the host and the orders of the VM and the container, or null if
+     *         no host has the container
+     */
+    private int[] getPosition(Container container) {
+        ContainerVm vm = container.getVm();
+        if (vm != null && vm.getHost() != null && !container.isInMigration() && !vm.isInMigration()) {
+            ContainerHost host = vm.getHost();
+            Integer hostPosition = hostPositions.get(host);
+            int vmOrder = hostPosition == null ? -1 : host.getVmOrder(vm);
+            int containerOrder = vmOrder < 0 ? -1 : vm.getContainerOrder(container);
+            if (containerOrder >= 0) {
+                return new int[] {hostPosition, vmOrder, containerOrder};
+            }
+        }
+        // a migrating container or VM is also in the list of its destination
+        List<? extends ContainerHost> hosts = getVmAllocationPolicy().getContainerHostList();
+        for (int i = 0; i < hosts.size(); i++) {
+            ContainerHost host = hosts.get(i);
+            for (ContainerVm hostVm : host.getVmList()) {
+                int containerOrder = hostVm.getContainerOrder(container);
+                if (containerOrder >= 0) {
+                    return new int[] {i, host.getVmOrder(hostVm), containerOrder};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Updates the {@link #hostPositions positions of the hosts} if the hosts of this datacenter
+     * changed.
+     */
+    private void updateHostPositions() {
+        List<? extends ContainerHost> hosts = getVmAllocationPolicy().getContainerHostList();
+        if (hostPositions == null || hostPositionsList != hosts || hostPositions.size() != hosts.size()) {
+            hostPositions = new IdentityHashMap<ContainerHost, Integer>();
+            hostPositionsList = hosts;
+            for (int i = 0; i < hosts.size(); i++) {
+                hostPositions.put(hosts.get(i), i);
+            }
+        }
+    }
+
     /**
      * Adds a file into the resource's storage before the experiment starts. If the file is a master
      * file, then it will be registered to the RC when the experiment begins.
@@ -1336,6 +1521,27 @@ public class ContainerDatacenter extends SimEntity {
     public void setLogAddress(String logAddress) {
         this.logAddress = logAddress;
     }
+
+    /**
+     * Checks if the processing of the hosts is updated in parallel.
+     *
+     * @return true if the hosts are updated in parallel
+     */
+    public boolean isParallelHostUpdate() {
+        return parallelHostUpdate;
+    }
+
+    /**
+     * Sets if the processing of the hosts is updated in parallel, using the common
+     * {@link java.util.concurrent.ForkJoinPool}. The hosts must not share any mutable state, and
+     * they are only updated in parallel while the {@link Log} is disabled.
+     *
+     * @param parallelHostUpdate true to update the hosts in parallel
+     * @see org.cloudbus.cloudsim.Datacenter#setParallelHostUpdate(boolean)
+     */
+    public void setParallelHostUpdate(boolean parallelHostUpdate) {
+        this.parallelHostUpdate = parallelHostUpdate;
+    }
 }
 
 
@@ -7,6 +7,7 @@ import org.cloudbus.cloudsim.container.containerVmProvisioners.ContainerVmPe;
 import org.cloudbus.cloudsim.container.lists.ContainerVmPeList;
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.OrderedList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,7 +45,7 @@ public class ContainerHost {
     /**
      * The vm list.
      */
-    private final List<? extends ContainerVm> vmList = new ArrayList<>();
+    private final OrderedList<? extends ContainerVm> vmList = new OrderedList<>();
     /**
      * The vm list.
      */
@@ -564,6 +565,18 @@ public class ContainerHost {
         return (List<T>) vmList;
     }
 
+    /**
+     * Gets a number that orders a VM among the other VMs of the host, as they are in the
+     * {@link #getVmList() VM list}, in constant time.
+     *
+     * @param vm the VM
+     * @return the order of the VM, or -1 if the VM is not in the host
+     * @see OrderedList#getOrder(Object)
+     */
+    public int getVmOrder(ContainerVm vm) {
+        return vmList.getOrder(vm);
+    }
+
     /**
      * Sets the storage.
      *
@@ -8,6 +8,7 @@ import org.cloudbus.cloudsim.container.schedulers.ContainerScheduler;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.VmStateHistoryEntry;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.OrderedList;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -145,7 +146,7 @@ public class ContainerVm {
     /**
      * The vm list.
      */
-    private final List<? extends Container> containerList = new ArrayList<>();
+    private final OrderedList<? extends Container> containerList = new OrderedList<>();
 
     /**
      * The pe list.
@@ -1101,6 +1102,18 @@ public class ContainerVm {
         return (List<T>) containerList;
     }
 
+    /**
+     * Gets a number that orders a container among the other containers of the VM, as they are in
+     * the {@link #getContainerList() container list}, in constant time.
+     *
+     * @param container the container
+     * @return the order of the container, or -1 if the container is not in the VM
+     * @see OrderedList#getOrder(Object)
+     */
+    public int getContainerOrder(Container container) {
+        return containerList.getOrder(container);
+    }
+
 
     /**
      * Checks if is failed.
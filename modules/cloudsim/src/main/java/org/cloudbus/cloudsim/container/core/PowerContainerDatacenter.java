@@ -209,19 +209,24 @@ public class PowerContainerDatacenter extends ContainerDatacenter {
         Log.printLine("\n\n--------------------------------------------------------------\n\n");
         Log.formatLine("Power data center: New resource usage for the time frame starting at %.2f:", currentTime);
 
-        for (PowerContainerHost host : this.<PowerContainerHost>getHostList()) {
-            Log.printLine();
+        if (Log.isDisabled()) {
+            // nothing to log between the hosts, so they can be updated in parallel
+            minTime = updateHostsProcessing(this.<PowerContainerHost>getHostList(), currentTime);
+        } else {
+            for (PowerContainerHost host : this.<PowerContainerHost>getHostList()) {
+                Log.printLine();
 
-            double time = host.updateContainerVmsProcessing(currentTime); // inform VMs to update processing
-            if (time < minTime) {
-                minTime = time;
-            }
+                double time = host.updateContainerVmsProcessing(currentTime); // inform VMs to update processing
+                if (time < minTime) {
+                    minTime = time;
+                }
 
-            Log.formatLine(
-                    "%.2f: [Host #%d] utilization is %.2f%%",
-                    currentTime,
-                    host.getId(),
-                    host.getUtilizationOfCpu() * 100);
+                Log.formatLine(
+                        "%.2f: [Host #%d] utilization is %.2f%%",
+                        currentTime,
+                        host.getId(),
+                        host.getUtilizationOfCpu() * 100);
+            }
         }
 
         if (timeDiff > 0) {
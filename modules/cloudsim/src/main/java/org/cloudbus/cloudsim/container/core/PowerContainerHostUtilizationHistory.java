@@ -5,7 +5,7 @@ import org.cloudbus.cloudsim.container.containerVmProvisioners.ContainerVmPe;
 import org.cloudbus.cloudsim.container.containerVmProvisioners.ContainerVmRamProvisioner;
 import org.cloudbus.cloudsim.container.schedulers.ContainerVmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.UtilizationHistorySum;
 
 import java.util.List;
 
@@ -14,6 +14,13 @@ import java.util.List;
  */
 public class PowerContainerHostUtilizationHistory extends PowerContainerHost {
 
+    /**
+     * The host utilization history, summed from the VMs' histories and updated with their new
+     * values on each read.
+     */
+    private final UtilizationHistorySum utilizationHistory =
+            new UtilizationHistorySum(PowerContainerVm.HISTORY_LENGTH);
+
     /**
      * Instantiates a new power host utilization history.
      *
@@ -42,14 +49,11 @@ public class PowerContainerHostUtilizationHistory extends PowerContainerHost {
      * @return the host utilization history
      */
     public double[] getUtilizationHistory() {
-        double[] utilizationHistory = new double[PowerContainerVm.HISTORY_LENGTH];
-        double hostMips = getTotalMips();
+        utilizationHistory.startUpdate(getTotalMips());
         for (PowerContainerVm vm : this.<PowerContainerVm>getVmList()) {
-            for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-                utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
-            }
+            utilizationHistory.addPart(vm.getUtilizationHistoryBuffer(), vm.getMips());
         }
-        return MathUtil.trimZeroTail(utilizationHistory);
+        return utilizationHistory.finishUpdate();
     }
 
 }
@@ -6,8 +6,8 @@ import org.cloudbus.cloudsim.container.containerProvisioners.ContainerRamProvisi
 import org.cloudbus.cloudsim.container.schedulers.ContainerScheduler;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.UtilizationHistory;
 
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -23,7 +23,7 @@ public class PowerContainerVm extends ContainerVm {
     /**
      * The utilization history.
      */
-    private final List<Double> utilizationHistory = new LinkedList<Double>();
+    private final UtilizationHistory utilizationHistory = new UtilizationHistory(HISTORY_LENGTH);
 
     /**
      * The previous time.
@@ -107,20 +107,7 @@ public class PowerContainerVm extends ContainerVm {
      * @return the utilization mean in MIPS
      */
     public double getUtilizationMad() {
-        double mad = 0;
-        if (!getUtilizationHistory().isEmpty()) {
-            int n = HISTORY_LENGTH;
-            if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-                n = getUtilizationHistory().size();
-            }
-            double median = MathUtil.median(getUtilizationHistory());
-            double[] deviationSum = new double[n];
-            for (int i = 0; i < n; i++) {
-                deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-            }
-            mad = MathUtil.median(deviationSum);
-        }
-        return mad;
+        return getUtilizationHistoryBuffer().getMad();
     }
 
     /**
@@ -129,18 +116,7 @@ public class PowerContainerVm extends ContainerVm {
      * @return the utilization mean in MIPS
      */
     public double getUtilizationMean() {
-        double mean = 0;
-        if (!getUtilizationHistory().isEmpty()) {
-            int n = HISTORY_LENGTH;
-            if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-                n = getUtilizationHistory().size();
-            }
-            for (int i = 0; i < n; i++) {
-                mean += getUtilizationHistory().get(i);
-            }
-            mean /= n;
-        }
-        return mean * getMips();
+        return getUtilizationHistoryBuffer().getMean() * getMips();
     }
 
     /**
@@ -149,20 +125,7 @@ public class PowerContainerVm extends ContainerVm {
      * @return the utilization variance in MIPS
      */
     public double getUtilizationVariance() {
-        double mean = getUtilizationMean();
-        double variance = 0;
-        if (!getUtilizationHistory().isEmpty()) {
-            int n = HISTORY_LENGTH;
-            if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-                n = getUtilizationHistory().size();
-            }
-            for (int i = 0; i < n; i++) {
-                double tmp = getUtilizationHistory().get(i) * getMips() - mean;
-                variance += tmp * tmp;
-            }
-            variance /= n;
-        }
-        return variance;
+        return getUtilizationHistoryBuffer().getVariance() * getMips() * getMips();
     }
 
     /**
@@ -171,18 +134,25 @@ public class PowerContainerVm extends ContainerVm {
      * @param utilization the utilization
      */
     public void addUtilizationHistoryValue(final double utilization) {
-        getUtilizationHistory().add(0, utilization);
-        if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-            getUtilizationHistory().remove(HISTORY_LENGTH);
-        }
+        getUtilizationHistoryBuffer().add(utilization);
     }
 
     /**
-     * Gets the utilization history.
+     * Gets the utilization history, from the most recent value to the oldest one, as a read-only
+     * view of the {@link #getUtilizationHistoryBuffer() buffer}.
      *
      * @return the utilization history
      */
     public List<Double> getUtilizationHistory() {
+        return utilizationHistory.asList();
+    }
+
+    /**
+     * Gets the utilization history, kept in a buffer of primitive values.
+     *
+     * @return the utilization history
+     */
+    public UtilizationHistory getUtilizationHistoryBuffer() {
         return utilizationHistory;
     }
 
@@ -225,8 +195,8 @@ public class PowerContainerVm extends ContainerVm {
     public double[] getUtilizationHistoryList(){
         double[] utilizationHistoryList = new double[PowerContainerVm.HISTORY_LENGTH];
 //            if any thing happens check if you need to have mips and the trim
-        for (int i = 0; i < getUtilizationHistory().size(); i++) {
-            utilizationHistoryList[i] += getUtilizationHistory().get(i) * getMips();
+        for (int i = 0; i < getUtilizationHistoryBuffer().size(); i++) {
+            utilizationHistoryList[i] += getUtilizationHistoryBuffer().get(i) * getMips();
         }
 
         return MathUtil.trimZeroTail(utilizationHistoryList);
@@ -4,6 +4,7 @@ import org.cloudbus.cloudsim.container.resourceAllocators.PowerContainerVmAlloca
 import org.cloudbus.cloudsim.container.vmSelectionPolicies.PowerContainerVmSelectionPolicy;
 import org.cloudbus.cloudsim.container.core.*;
 import org.cloudbus.cloudsim.container.lists.PowerContainerVmList;
+import org.cloudbus.cloudsim.HostUtilizationIndex;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
@@ -21,9 +22,22 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
     private PowerContainerVmSelectionPolicy vmSelectionPolicy;
 
     /**
-     * The saved allocation.
+     * The hosts whose allocation was changed while planning the migrations, each one mapped to
+     * the VMs it had before the first change, in order. Only these hosts are restored.
      */
-    private final List<Map<String, Object>> savedAllocation = new ArrayList<Map<String, Object>>();
+    private final Map<ContainerHost, List<ContainerVm>> savedAllocation =
+            new LinkedHashMap<ContainerHost, List<ContainerVm>>();
+
+    /**
+     * Whether the changes of the allocation are being saved.
+     */
+    private boolean allocationSaved;
+
+    /**
+     * The hosts not yet excluded in the search of under-utilized hosts, by CPU utilization,
+     * while the migration map from under-utilized hosts is built; null otherwise.
+     */
+    private HostUtilizationIndex underUtilizedHostIndex;
 
     /**
      * The utilization history.
@@ -138,6 +152,9 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
 
         int numberOfHosts = getContainerHostList().size();
 
+        // the utilization of the hosts only changes when their VMs are processed, so the hosts
+        // are indexed once and removed from the index as they are excluded
+        setUnderUtilizedHostIndex(createHostUtilizationIndex());
         while (true) {
             if (numberOfHosts == excludedHostsForFindingUnderUtilizedHost.size()) {
                 break;
@@ -175,6 +192,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
             migrationMap.addAll(newVmPlacement);
             Log.printLine();
         }
+        setUnderUtilizedHostIndex(null);
 
         excludedHostsForFindingUnderUtilizedHost.clear();
         excludedHostsForFindingNewVmPlacement.clear();
@@ -241,9 +259,9 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      */
     protected boolean isHostOverUtilizedAfterAllocation(PowerContainerHost host, ContainerVm vm) {
         boolean isHostOverUtilizedAfterAllocation = true;
-        if (host.containerVmCreate(vm)) {
+        if (containerVmCreateTentatively(host, vm)) {
             isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
-            host.containerVmDestroy(vm);
+            containerVmDestroyTentatively(host, vm);
         }
         return isHostOverUtilizedAfterAllocation;
     }
@@ -296,7 +314,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
         for (ContainerVm vm : vmsToMigrate) {
             PowerContainerHost allocatedHost = findHostForVm(vm, excludedHosts);
             if (allocatedHost != null) {
-                allocatedHost.containerVmCreate(vm);
+                containerVmCreateTentatively(allocatedHost, vm);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
                 Map<String, Object> migrate = new HashMap<String, Object>();
@@ -323,7 +341,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
         for (ContainerVm vm : vmsToMigrate) {
             PowerContainerHost allocatedHost = findHostForVm(vm, excludedHosts);
             if (allocatedHost != null) {
-                allocatedHost.containerVmCreate(vm);
+                containerVmCreateTentatively(allocatedHost, vm);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
                 Map<String, Object> migrate = new HashMap<String, Object>();
@@ -333,7 +351,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
             } else {
                 Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
                 for (Map<String, Object> map : migrationMap) {
-                    ((ContainerHost) map.get("host")).containerVmDestroy((ContainerVm) map.get("vm"));
+                    containerVmDestroyTentatively((ContainerHost) map.get("host"), (ContainerVm) map.get("vm"));
                 }
                 migrationMap.clear();
                 break;
@@ -357,7 +375,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
                     break;
                 }
                 vmsToMigrate.add(vm);
-                host.containerVmDestroy(vm);
+                containerVmDestroyTentatively(host, vm);
                 if (!isHostOverUtilized(host)) {
                     break;
                 }
@@ -389,7 +407,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      * @return the over utilized hosts
      */
     protected List<PowerContainerHostUtilizationHistory> getOverUtilizedHosts() {
-        List<PowerContainerHostUtilizationHistory> overUtilizedHosts = new LinkedList<PowerContainerHostUtilizationHistory>();
+        List<PowerContainerHostUtilizationHistory> overUtilizedHosts = new ArrayList<PowerContainerHostUtilizationHistory>();
         for (PowerContainerHostUtilizationHistory host : this.<PowerContainerHostUtilizationHistory>getContainerHostList()) {
             if (isHostOverUtilized(host)) {
                 overUtilizedHosts.add(host);
@@ -404,7 +422,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      * @return the switched off host
      */
     protected List<PowerContainerHost> getSwitchedOffHosts() {
-        List<PowerContainerHost> switchedOffHosts = new LinkedList<PowerContainerHost>();
+        List<PowerContainerHost> switchedOffHosts = new ArrayList<PowerContainerHost>();
         for (PowerContainerHost host : this.<PowerContainerHost>getContainerHostList()) {
             if (host.getUtilizationOfCpu() == 0) {
                 switchedOffHosts.add(host);
@@ -420,6 +438,9 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      * @return the under utilized host
      */
     protected PowerContainerHost getUnderUtilizedHost(Set<? extends ContainerHost> excludedHosts) {
+        if (getUnderUtilizedHostIndex() != null) {
+            return getUnderUtilizedHost(getUnderUtilizedHostIndex(), excludedHosts, 1, false);
+        }
         double minUtilization = 1;
         PowerContainerHost underUtilizedHost = null;
         for (PowerContainerHost host : this.<PowerContainerHost>getContainerHostList()) {
@@ -442,6 +463,54 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
 
 
 
+    /**
+     * Gets the least utilized host, under a threshold, from an index of the hosts by CPU
+     * utilization. The excluded hosts met are removed from the index, since the excluded hosts
+     * only grow while looking for under-utilized hosts.
+     *
+     * @param index             the index of the hosts
+     * @param excludedHosts     the excluded hosts
+     * @param threshold         the utilization the host must be under
+     * @param switchedOffHost   whether a host with no utilization may be returned
+     * @return the least utilized host, the same as a scan of all the hosts finds
+     */
+    protected PowerContainerHost getUnderUtilizedHost(HostUtilizationIndex index,
+            Set<? extends ContainerHost> excludedHosts, double threshold, boolean switchedOffHost) {
+        List<PowerContainerHost> hostList = this.<PowerContainerHost>getContainerHostList();
+        int position = index.first();
+        while (position != -1) {
+            double utilization = index.getUtilization(position);
+            if (!(utilization < threshold)) {
+                // the hosts are ordered by utilization, with NaN last
+                break;
+            }
+            PowerContainerHost host = hostList.get(position);
+            int next = index.next(position);
+            if (excludedHosts.contains(host)) {
+                index.remove(position);
+            } else if ((switchedOffHost || utilization > 0) && !areAllVmsMigratingOutOrAnyVmMigratingIn(host)
+                    && !areAllContainersMigratingOutOrAnyContainersMigratingIn(host)) {
+                return host;
+            }
+            position = next;
+        }
+        return null;
+    }
+
+    /**
+     * Creates an index of the hosts by their current CPU utilization.
+     *
+     * @return the index of the hosts
+     */
+    protected HostUtilizationIndex createHostUtilizationIndex() {
+        List<PowerContainerHost> hostList = this.<PowerContainerHost>getContainerHostList();
+        HostUtilizationIndex index = new HostUtilizationIndex(hostList.size());
+        for (int position = 0; position < hostList.size(); position++) {
+            index.update(position, hostList.get(position).getUtilizationOfCpu());
+        }
+        return index;
+    }
+
     /**
      * Checks whether all vms are in migration.
      *
@@ -523,40 +592,104 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
     }
 
     /**
-     * Save allocation.
+     * Starts saving the allocation of the hosts changed from now on, through
+     * {@link #containerVmCreateTentatively(ContainerHost, ContainerVm)} and
+     * {@link #containerVmDestroyTentatively(ContainerHost, ContainerVm)}.
      */
     protected void saveAllocation() {
         getSavedAllocation().clear();
+        allocationSaved = true;
+        // restoring a host moves its migrating in VMs first in its VM list, so the hosts with
+        // migrating in VMs, and the hosts these VMs come from, are always restored
         for (ContainerHost host : getContainerHostList()) {
-            for (ContainerVm vm : host.getVmList()) {
-                if (host.getVmsMigratingIn().contains(vm)) {
-                    continue;
+            for (ContainerVm vm : host.getVmsMigratingIn()) {
+                saveHostAllocation(host);
+                if (vm.getHost() != null) {
+                    saveHostAllocation(vm.getHost());
                 }
-                Map<String, Object> map = new HashMap<String, Object>();
-                map.put("host", host);
-                map.put("vm", vm);
-                getSavedAllocation().add(map);
             }
         }
     }
 
     /**
-     * Restore allocation.
+     * Saves the allocation of a host before its first change, if the changes are being saved.
+     *
+     * @param host the host
+     */
+    protected void saveHostAllocation(ContainerHost host) {
+        if (!allocationSaved || getSavedAllocation().containsKey(host)) {
+            return;
+        }
+        List<ContainerVm> vms = new ArrayList<ContainerVm>(host.getVmList().size());
+        for (ContainerVm vm : host.getVmList()) {
+            if (!host.getVmsMigratingIn().contains(vm)) {
+                vms.add(vm);
+            }
+        }
+        getSavedAllocation().put(host, vms);
+    }
+
+    /**
+     * Saves the allocation of a host before a VM is created on it or destroyed from it, along
+     * with the allocation of the host the VM is on.
+     *
+     * @param host the host
+     * @param vm   the vm
+     */
+    protected void saveVmAllocation(ContainerHost host, ContainerVm vm) {
+        saveHostAllocation(host);
+        if (vm.getHost() != null) {
+            saveHostAllocation(vm.getHost());
+        }
+    }
+
+    /**
+     * Creates a VM on a host, saving the host allocation first so that the VM is removed on
+     * restore.
+     *
+     * @param host the host
+     * @param vm   the vm
+     * @return true, if the vm was created on the host
+     */
+    protected boolean containerVmCreateTentatively(ContainerHost host, ContainerVm vm) {
+        saveVmAllocation(host, vm);
+        return host.containerVmCreate(vm);
+    }
+
+    /**
+     * Destroys a VM on a host, saving the host allocation first so that the VM is created again
+     * on restore.
+     *
+     * @param host the host
+     * @param vm   the vm
+     */
+    protected void containerVmDestroyTentatively(ContainerHost host, ContainerVm vm) {
+        saveVmAllocation(host, vm);
+        host.containerVmDestroy(vm);
+    }
+
+    /**
+     * Restores the allocation of the hosts changed since the allocation was saved. The hosts that
+     * weren't changed keep the MIPS and PEs allocated to their VMs as they are, instead of being
+     * rebuilt.
      */
     protected void restoreAllocation() {
-        for (ContainerHost host : getContainerHostList()) {
+        for (ContainerHost host : getSavedAllocation().keySet()) {
             host.containerVmDestroyAll();
             host.reallocateMigratingInContainerVms();
         }
-        for (Map<String, Object> map : getSavedAllocation()) {
-            ContainerVm vm = (ContainerVm) map.get("vm");
-            PowerContainerHost host = (PowerContainerHost) map.get("host");
-            if (!host.containerVmCreate(vm)) {
-                Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
-                System.exit(0);
+        for (Map.Entry<ContainerHost, List<ContainerVm>> entry : getSavedAllocation().entrySet()) {
+            ContainerHost host = entry.getKey();
+            for (ContainerVm vm : entry.getValue()) {
+                if (!host.containerVmCreate(vm)) {
+                    Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
+                    System.exit(0);
+                }
+                getVmTable().put(vm.getUid(), host);
             }
-            getVmTable().put(vm.getUid(), host);
         }
+        getSavedAllocation().clear();
+        allocationSaved = false;
     }
 
     /**
@@ -616,10 +749,28 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstract extends
      *
      * @return the saved allocation
      */
-    protected List<Map<String, Object>> getSavedAllocation() {
+    protected Map<ContainerHost, List<ContainerVm>> getSavedAllocation() {
         return savedAllocation;
     }
 
+    /**
+     * Gets the index of the hosts used to find under-utilized hosts.
+     *
+     * @return the index, or null when not looking for under-utilized hosts
+     */
+    protected HostUtilizationIndex getUnderUtilizedHostIndex() {
+        return underUtilizedHostIndex;
+    }
+
+    /**
+     * Sets the index of the hosts used to find under-utilized hosts.
+     *
+     * @param underUtilizedHostIndex the index, or null
+     */
+    protected void setUnderUtilizedHostIndex(HostUtilizationIndex underUtilizedHostIndex) {
+        this.underUtilizedHostIndex = underUtilizedHostIndex;
+    }
+
     /**
      * Sets the vm selection policy.
      *
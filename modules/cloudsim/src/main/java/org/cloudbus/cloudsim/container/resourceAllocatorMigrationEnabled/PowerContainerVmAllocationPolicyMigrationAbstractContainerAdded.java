@@ -31,6 +31,11 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
      * The container selection policy.
      */
     private PowerContainerSelectionPolicy containerSelectionPolicy;
+    /**
+     * The saved allocation of every container, with its VM and host. The containers moved while
+     * planning are not tracked host by host, so the whole allocation is saved and restored.
+     */
+    private final List<Map<String, Object>> savedContainerAllocation = new ArrayList<Map<String, Object>>();
     protected int numberOfVmTypes;
     protected int[] vmPes;
     protected float[] vmRam;
@@ -680,7 +685,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
      */
     @Override
     protected void saveAllocation() {
-        getSavedAllocation().clear();
+        getSavedContainerAllocation().clear();
         for (ContainerHost host : getContainerHostList()) {
             for (ContainerVm vm : host.getVmList()) {
                 if (host.getVmsMigratingIn().contains(vm)) {
@@ -694,11 +699,11 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
                     map.put("host", host);
                     map.put("vm", vm);
                     map.put("container", container);
-                    getSavedAllocation().add(map);
+                    getSavedContainerAllocation().add(map);
                 }
             }
         }
-        Log.printLine(String.format("The length of the saved map is ....%d", getSavedAllocation().size()));
+        Log.printLine(String.format("The length of the saved map is ....%d", getSavedContainerAllocation().size()));
 
     }
 
@@ -716,7 +721,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
             host.containerVmDestroyAll();
             host.reallocateMigratingInContainerVms();
         }
-        for (Map<String, Object> map : getSavedAllocation()) {
+        for (Map<String, Object> map : getSavedContainerAllocation()) {
             PowerContainerVm vm = (PowerContainerVm) map.get("vm");
 
             PowerContainerHost host = (PowerContainerHost) map.get("host");
@@ -732,7 +737,7 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
 //            vm.reallocateMigratingInContainers();
         }
 //        List<ContainerVm > restoredVms = new ArrayList<>();
-        for (Map<String, Object> map : getSavedAllocation()) {
+        for (Map<String, Object> map : getSavedContainerAllocation()) {
             PowerContainerVm vm = (PowerContainerVm) map.get("vm");
             if (map.get("container") != null && map.containsKey("container")) {
                 Container container = (Container) map.get("container");
@@ -762,6 +767,15 @@ public abstract class PowerContainerVmAllocationPolicyMigrationAbstractContainer
 
     }
 
+    /**
+     * Gets the saved allocation of every container.
+     *
+     * @return the saved container allocation
+     */
+    protected List<Map<String, Object>> getSavedContainerAllocation() {
+        return savedContainerAllocation;
+    }
+
     protected List<ContainerVm> createVms(ContainerHost host, boolean vmStatus) {
         List<ContainerVm> vmList = new ArrayList<>();
         while (true) {
@@ -130,6 +130,10 @@ public class PowerContainerVmAllocationPolicyMigrationAbstractHostSelection exte
      * @return the under utilized host
      */
     protected PowerContainerHost getUnderUtilizedHost(Set<? extends ContainerHost> excludedHosts) {
+        if (getUnderUtilizedHostIndex() != null) {
+            // the host list below ends up sorted by increasing utilization, stably
+            return getUnderUtilizedHost(getUnderUtilizedHostIndex(), excludedHosts, getUnderUtilizationThreshold(), true);
+        }
 
         List<ContainerHost> underUtilizedHostList = getUnderUtilizedHostList(excludedHosts);
         if (underUtilizedHostList.size() == 0) {
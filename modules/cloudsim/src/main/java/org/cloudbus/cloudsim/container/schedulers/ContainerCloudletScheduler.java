@@ -2,8 +2,10 @@ package org.cloudbus.cloudsim.container.schedulers;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.container.core.Container;
+import org.cloudbus.cloudsim.lists.ResCloudletIndexedList;
+import org.cloudbus.cloudsim.util.CloudletCompletionQueue;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -31,6 +33,19 @@ public abstract class ContainerCloudletScheduler {
         /** The cloudlet failed list. */
         protected List<? extends ResCloudlet> cloudletFailedList;
 
+        /** The queue the container using the scheduler is added to when a cloudlet finishes, if any. */
+        private CloudletCompletionQueue<Container> completionQueue;
+
+        /** The container using the scheduler, as added to the {@link #completionQueue}. */
+        private Container completionContainer;
+
+        /** The finished list created by the scheduler, which calls {@link #notifyCloudletFinished()}
+         * whenever a cloudlet is added to it. */
+        private final List<? extends ResCloudlet> notifyingFinishedList;
+
+        /** Whether {@link #notifyCloudletFinished()} has been called. */
+        private boolean cloudletFinishedNotified;
+
         /**
          * Creates a new CloudletScheduler object. This method must be invoked before starting the
          * actual simulation.
@@ -40,11 +55,19 @@ public abstract class ContainerCloudletScheduler {
          */
         public ContainerCloudletScheduler() {
             setPreviousTime(0.0);
-            cloudletWaitingList = new ArrayList<ResCloudlet>();
-            cloudletExecList = new ArrayList<ResCloudlet>();
-            cloudletPausedList = new ArrayList<ResCloudlet>();
-            cloudletFinishedList = new ArrayList<ResCloudlet>();
-            cloudletFailedList = new ArrayList<ResCloudlet>();
+            cloudletWaitingList = new ResCloudletIndexedList<ResCloudlet>();
+            cloudletExecList = new ResCloudletIndexedList<ResCloudlet>();
+            cloudletPausedList = new ResCloudletIndexedList<ResCloudlet>();
+            cloudletFinishedList = new ResCloudletIndexedList<ResCloudlet>() {
+
+                @Override
+                protected void added(ResCloudlet rcl) {
+                    notifyCloudletFinished();
+                }
+
+            };
+            notifyingFinishedList = cloudletFinishedList;
+            cloudletFailedList = new ResCloudletIndexedList<ResCloudlet>();
         }
 
         /**
@@ -119,6 +142,56 @@ public abstract class ContainerCloudletScheduler {
          */
         public abstract void cloudletFinish(ResCloudlet rcl);
 
+        /**
+         * Adds the container using the scheduler to the completion queue, if any. It is called
+         * whenever a cloudlet is added to the finished list created by the scheduler, so it only
+         * has to be called by the subclasses that {@link #setCloudletFinishedList(List) set
+         * another finished list}, whenever they add a cloudlet to it.
+         */
+        protected void notifyCloudletFinished() {
+            cloudletFinishedNotified = true;
+            if (completionQueue != null) {
+                completionQueue.add(completionContainer);
+            }
+        }
+
+        /**
+         * Checks if the scheduler is known to add its container to the completion queue whenever
+         * a cloudlet finishes. It is the case if the scheduler keeps the finished list it creates,
+         * or if it has ever called {@link #notifyCloudletFinished()}. The datacenter checks the
+         * containers of the rest of the schedulers for finished cloudlets as they may never be
+         * queued.
+         *
+         * @return true if the container is queued whenever a cloudlet finishes
+         */
+        public boolean isNotifyingCloudletFinished() {
+            return cloudletFinishedList == notifyingFinishedList || cloudletFinishedNotified;
+        }
+
+        /**
+         * Gets the queue the container using the scheduler is added to when a cloudlet finishes.
+         *
+         * @return the completion queue, or null if there is none
+         */
+        public CloudletCompletionQueue<Container> getCompletionQueue() {
+            return completionQueue;
+        }
+
+        /**
+         * Sets the queue the container using the scheduler is added to when a cloudlet finishes.
+         * The container is added right away if some cloudlet has already finished.
+         *
+         * @param completionQueue the completion queue, or null to stop notifying it
+         * @param container the container using the scheduler
+         */
+        public void setCompletionQueue(CloudletCompletionQueue<Container> completionQueue, Container container) {
+            this.completionQueue = completionQueue;
+            completionContainer = container;
+            if (completionQueue != null && isFinishedCloudlets()) {
+                completionQueue.add(completionContainer);
+            }
+        }
+
         /**
          * Gets the status of a cloudlet.
          *
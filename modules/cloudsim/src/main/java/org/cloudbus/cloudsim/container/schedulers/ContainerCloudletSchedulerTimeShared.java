@@ -4,6 +4,7 @@ import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.ResCloudlet;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.ResCloudletList;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -124,35 +125,17 @@ public class ContainerCloudletSchedulerTimeShared extends ContainerCloudletSched
      */
     @Override
     public Cloudlet cloudletCancel(int cloudletId) {
-        boolean found = false;
-        int position = 0;
-
         // First, looks in the finished queue
-        found = false;
-        for (ResCloudlet rcl : getCloudletFinishedList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                found = true;
-                break;
-            }
-            position++;
-        }
-
-        if (found) {
-            return getCloudletFinishedList().remove(position).getCloudlet();
+        ResCloudlet rcl = ResCloudletList.getById(getCloudletFinishedList(), cloudletId);
+        if (rcl != null) {
+            getCloudletFinishedList().remove(rcl);
+            return rcl.getCloudlet();
         }
 
         // Then searches in the exec list
-        position = 0;
-        for (ResCloudlet rcl : getCloudletExecList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                found = true;
-                break;
-            }
-            position++;
-        }
-
-        if (found) {
-            ResCloudlet rcl = getCloudletExecList().remove(position);
+        rcl = ResCloudletList.getById(getCloudletExecList(), cloudletId);
+        if (rcl != null) {
+            getCloudletExecList().remove(rcl);
             if (rcl.getRemainingCloudletLength() == 0) {
                 cloudletFinish(rcl);
             } else {
@@ -162,19 +145,11 @@ public class ContainerCloudletSchedulerTimeShared extends ContainerCloudletSched
         }
 
         // Now, looks in the paused queue
-        found = false;
-        position = 0;
-        for (ResCloudlet rcl : getCloudletPausedList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                found = true;
-                rcl.setCloudletStatus(Cloudlet.CANCELED);
-                break;
-            }
-            position++;
-        }
-
-        if (found) {
-            return getCloudletPausedList().remove(position).getCloudlet();
+        rcl = ResCloudletList.getById(getCloudletPausedList(), cloudletId);
+        if (rcl != null) {
+            rcl.setCloudletStatus(Cloudlet.CANCELED);
+            getCloudletPausedList().remove(rcl);
+            return rcl.getCloudlet();
         }
 
         return null;
@@ -190,20 +165,10 @@ public class ContainerCloudletSchedulerTimeShared extends ContainerCloudletSched
      */
     @Override
     public boolean cloudletPause(int cloudletId) {
-        boolean found = false;
-        int position = 0;
-
-        for (ResCloudlet rcl : getCloudletExecList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                found = true;
-                break;
-            }
-            position++;
-        }
-
-        if (found) {
+        ResCloudlet rcl = ResCloudletList.getById(getCloudletExecList(), cloudletId);
+        if (rcl != null) {
             // remove cloudlet from the exec list and put it in the paused list
-            ResCloudlet rcl = getCloudletExecList().remove(position);
+            getCloudletExecList().remove(rcl);
             if (rcl.getRemainingCloudletLength() == 0) {
                 cloudletFinish(rcl);
             } else {
@@ -239,20 +204,10 @@ public class ContainerCloudletSchedulerTimeShared extends ContainerCloudletSched
      */
     @Override
     public double cloudletResume(int cloudletId) {
-        boolean found = false;
-        int position = 0;
-
         // look for the cloudlet in the paused list
-        for (ResCloudlet rcl : getCloudletPausedList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                found = true;
-                break;
-            }
-            position++;
-        }
-
-        if (found) {
-            ResCloudlet rgl = getCloudletPausedList().remove(position);
+        ResCloudlet rgl = ResCloudletList.getById(getCloudletPausedList(), cloudletId);
+        if (rgl != null) {
+            getCloudletPausedList().remove(rgl);
             rgl.setCloudletStatus(Cloudlet.INEXEC);
             getCloudletExecList().add(rgl);
 
@@ -317,17 +272,11 @@ public class ContainerCloudletSchedulerTimeShared extends ContainerCloudletSched
      */
     @Override
     public int getCloudletStatus(int cloudletId) {
-        for (ResCloudlet rcl : getCloudletExecList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                return rcl.getCloudletStatus();
-            }
-        }
-        for (ResCloudlet rcl : getCloudletPausedList()) {
-            if (rcl.getCloudletId() == cloudletId) {
-                return rcl.getCloudletStatus();
-            }
+        ResCloudlet rcl = ResCloudletList.getById(getCloudletExecList(), cloudletId);
+        if (rcl == null) {
+            rcl = ResCloudletList.getById(getCloudletPausedList(), cloudletId);
         }
-        return -1;
+        return rcl == null ? -1 : rcl.getCloudletStatus();
     }
 
     /**
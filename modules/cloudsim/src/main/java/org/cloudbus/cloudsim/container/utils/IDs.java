@@ -7,6 +7,7 @@ package org.cloudbus.cloudsim.container.utils;
 import org.cloudbus.cloudsim.container.containerProvisioners.ContainerPe;
 import org.cloudbus.cloudsim.container.containerVmProvisioners.ContainerVmPe;
 import org.cloudbus.cloudsim.container.core.*;
+import org.cloudbus.cloudsim.core.SimulationLocal;
 
 import java.util.LinkedHashMap;
 import java.util.HashSet;
@@ -17,7 +18,7 @@ import java.util.Map;
  * A factory for CloudSim entities' ids. CloudSim requires a lot of ids, that
  * are provided by the end user. This class is a utility for automatically
  * generating valid ids.
- * Modifies for containers
+ * Modifies for containers. Each simulation has its own counters.
  *
  * @author nikolay.grozev
  */
@@ -25,19 +26,13 @@ import java.util.Map;
 public final class IDs {
 
 
-    private static final Map<Class<?>, Integer> COUNTERS = new LinkedHashMap<>();
-    private static final Set<Class<?>> NO_COUNTERS = new HashSet<>();
-    private static int globalCounter = 1;
-
-    static {
-        COUNTERS.put(ContainerCloudlet.class, 1);
-        COUNTERS.put(ContainerVm.class, 1);
-        COUNTERS.put(Container.class, 1);
-        COUNTERS.put(ContainerHost.class, 1);
-        COUNTERS.put(ContainerDatacenterBroker.class, 1);
-        COUNTERS.put(ContainerPe.class, 1);
-        COUNTERS.put(ContainerVmPe.class, 1);
-    }
+    /** The id counters of each simulation. */
+    private static final SimulationLocal<Counters> counters = new SimulationLocal<Counters>() {
+        @Override
+        protected Counters initialValue() {
+            return new Counters();
+        }
+    };
 
     private IDs() {
     }
@@ -48,40 +43,56 @@ public final class IDs {
      * @param clazz - the class of the object to get an id for. Must not be null.
      * @return a valid id for the specified class.
      */
-    public static synchronized int pollId(final Class<?> clazz) {
-        Class<?> matchClass = null;
-        if (COUNTERS.containsKey(clazz)) {
-            matchClass = clazz;
-        } else if (!NO_COUNTERS.contains(clazz)) {
-            for (Class<?> key : COUNTERS.keySet()) {
-                if (key.isAssignableFrom(clazz)) {
-                    matchClass = key;
-                    break;
+    public static int pollId(final Class<?> clazz) {
+        final Counters current = counters.get();
+        synchronized (current) {
+            Class<?> matchClass = null;
+            if (current.counters.containsKey(clazz)) {
+                matchClass = clazz;
+            } else if (!current.noCounters.contains(clazz)) {
+                for (Class<?> key : current.counters.keySet()) {
+                    if (key.isAssignableFrom(clazz)) {
+                        matchClass = key;
+                        break;
+                    }
                 }
             }
-        }
 
-        int result = -1;
-        if (matchClass == null) {
-            NO_COUNTERS.add(clazz);
-            result = pollGlobalId();
-        } else {
-            result = COUNTERS.get(matchClass);
-            COUNTERS.put(matchClass, result + 1);
-        }
+            int result = -1;
+            if (matchClass == null) {
+                current.noCounters.add(clazz);
+                result = current.globalCounter++;
+            } else {
+                result = current.counters.get(matchClass);
+                current.counters.put(matchClass, result + 1);
+            }
 
-        if (result < 0) {
-            throw new IllegalStateException("The generated id for class:" + clazz.getName()
-                    + " is negative. Possible integer overflow.");
-        }
+            if (result < 0) {
+                throw new IllegalStateException("The generated id for class:" + clazz.getName()
+                        + " is negative. Possible integer overflow.");
+            }
 
-        return result;
+            return result;
+        }
     }
 
-    private static synchronized int pollGlobalId() {
-        return globalCounter++;
+    /**
+     * The id counters of a simulation.
+     */
+    private static class Counters {
+        private final Map<Class<?>, Integer> counters = new LinkedHashMap<>();
+        private final Set<Class<?>> noCounters = new HashSet<>();
+        private int globalCounter = 1;
+
+        Counters() {
+            counters.put(ContainerCloudlet.class, 1);
+            counters.put(ContainerVm.class, 1);
+            counters.put(Container.class, 1);
+            counters.put(ContainerHost.class, 1);
+            counters.put(ContainerDatacenterBroker.class, 1);
+            counters.put(ContainerPe.class, 1);
+            counters.put(ContainerVmPe.class, 1);
+        }
     }
 
 }
-
-
@@ -3,6 +3,7 @@ package org.cloudbus.cloudsim.container.vmSelectionPolicies;
 import org.cloudbus.cloudsim.container.core.*;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.UtilizationHistory;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -67,10 +68,8 @@ public class PowerContainerVmSelectionPolicyMaximumCorrelation extends PowerCont
             int m = getMinUtilizationHistorySize(vmList);
             double[][] utilization = new double[n][m];
             for (int i = 0; i < n; i++) {
-                List<Double> vmUtilization = vmList.get(i).getUtilizationHistory();
-                for (int j = 0; j < vmUtilization.size(); j++) {
-                    utilization[i][j] = vmUtilization.get(j);
-                }
+                UtilizationHistory vmUtilization = vmList.get(i).getUtilizationHistoryBuffer();
+                System.arraycopy(vmUtilization.getValues(), vmUtilization.getOffset(), utilization[i], 0, m);
             }
             return utilization;
         }
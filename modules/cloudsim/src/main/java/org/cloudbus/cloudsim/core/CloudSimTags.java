@@ -272,6 +272,34 @@ public class CloudSimTags {
 
 	public static final int NextCycle = BASE + 48;
 
+	/**
+	 * Denotes a request from a broker to a {@link Datacenter} to create a list of VMs at once.
+	 * The datacenter answers with a single event with this tag, carrying a list with the
+	 * acknowledgement of each VM, as an array with the same content of a {@link #VM_CREATE_ACK}
+	 * acknowledgement.
+	 */
+	public static final int VM_CREATE_BATCH = BASE + 49;
+
+	/**
+	 * Denotes a request from a broker to a {@link Datacenter} to run a list of cloudlets at once.
+	 * The datacenter updates the processing of its hosts once for the whole list, and returns
+	 * the finished cloudlets of the broker in {@link #CLOUDLET_RETURN_BATCH} events.
+	 */
+	public static final int CLOUDLET_SUBMIT_BATCH = BASE + 50;
+
+	/**
+	 * Denotes the return of a list of finished cloudlets from a {@link Datacenter} to a broker
+	 * that submitted cloudlets with {@link #CLOUDLET_SUBMIT_BATCH}.
+	 */
+	public static final int CLOUDLET_RETURN_BATCH = BASE + 51;
+
+	/**
+	 * Denotes an internal event of a broker for the arrival of the next cloudlets, either
+	 * cloudlets submitted with a {@link org.cloudbus.cloudsim.Cloudlet#getSubmissionDelay() delay}
+	 * or cloudlets of its {@link org.cloudbus.cloudsim.util.CloudletSource}.
+	 */
+	public static final int CLOUDLET_ARRIVAL = BASE + 52;
+
 	/** Private Constructor. */
 	private CloudSimTags() {
 		throw new UnsupportedOperationException("CloudSimTags cannot be instantiated");
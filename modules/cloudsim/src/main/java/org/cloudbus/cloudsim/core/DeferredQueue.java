@@ -8,15 +8,19 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 
 /**
- * This class implements the deferred event queue used by {@link CloudSim}. 
- * The event queue uses a linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link CloudSim}.
+ * The events are indexed by their destination entity: each entity has its own queue, a ring buffer
+ * sorted by event time, so looking for the events of an entity doesn't require going through the
+ * events waiting for other entities.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see CloudSim
@@ -24,65 +28,286 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list of events. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The queues of events, indexed by the id of the destination entity. */
+	private EntityQueue[] queues = new EntityQueue[16];
 
-	/** The max time that an added event is scheduled. */
-	private double maxTime = -1;
+	/** The total number of events. */
+	private int size;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int destination = newEvent.getDestination();
+		if (destination >= queues.length) {
+			queues = Arrays.copyOf(queues, Math.max(queues.length * 2, destination + 1));
 		}
-
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
-			}
+		if (queues[destination] == null) {
+			queues[destination] = new EntityQueue();
 		}
-
-		list.add(newEvent);
+		queues[destination].add(newEvent);
+		size++;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Returns an iterator to the events in the queue, in temporal order. The iterator works over a
+	 * copy of the queue, so it is intended only for inspecting the queue; the methods that take a
+	 * destination entity should be used to look for events.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		final SimEvent[] snapshot = new SimEvent[size];
+		int count = 0;
+		for (EntityQueue queue : queues) {
+			if (queue != null) {
+				for (int i = 0; i < queue.size; i++) {
+					snapshot[count++] = queue.get(i);
+				}
+			}
+		}
+		// The events were added in the order they left the future queue
+		Arrays.sort(snapshot, new Comparator<SimEvent>() {
+
+			@Override
+			public int compare(SimEvent e1, SimEvent e2) {
+				return FutureQueue.compare(e1, e2);
+			}
+
+		});
+
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				return next < snapshot.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = snapshot[next++];
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				EntityQueue queue = queues[last.getDestination()];
+				queue.removeAt(queue.indexOf(last));
+				size--;
+				last = null;
+			}
+
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
+	}
+
+	/**
+	 * Returns the number of events waiting for a given entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the number of events waiting for the entity
+	 */
+	public int size(int destination) {
+		EntityQueue queue = getQueue(destination);
+		return queue == null ? 0 : queue.size;
+	}
+
+	/**
+	 * Counts the events waiting for a given entity that match a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int destination, Predicate p) {
+		EntityQueue queue = getQueue(destination);
+		if (queue == null) {
+			return 0;
+		}
+		if (p == CloudSim.SIM_ANY) {
+			return queue.size;
+		}
+
+		int count = 0;
+		for (int i = 0; i < queue.size; i++) {
+			if (p.match(queue.get(i))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the first event waiting for a given entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the first matching event or null if there is none
+	 */
+	public SimEvent findFirst(int destination, Predicate p) {
+		EntityQueue queue = getQueue(destination);
+		if (queue == null) {
+			return null;
+		}
+		int index = queue.indexOf(p);
+		return index < 0 ? null : queue.get(index);
+	}
+
+	/**
+	 * Removes the first event waiting for a given entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the removed event or null if there is none
+	 */
+	public SimEvent removeFirst(int destination, Predicate p) {
+		EntityQueue queue = getQueue(destination);
+		if (queue == null) {
+			return null;
+		}
+		int index = queue.indexOf(p);
+		if (index < 0) {
+			return null;
+		}
+		size--;
+		return queue.removeAt(index);
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		Arrays.fill(queues, null);
+		size = 0;
+	}
+
+	/**
+	 * Gets the queue of a given entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @return the queue or null if no event was ever sent to the entity
+	 */
+	private EntityQueue getQueue(int destination) {
+		return destination >= 0 && destination < queues.length ? queues[destination] : null;
+	}
+
+	/**
+	 * The events waiting for a single entity, kept in a ring buffer sorted by event time. Events
+	 * with the same time are kept in the order they were added.
+	 */
+	private static class EntityQueue {
+
+		/** The ring buffer, whose length is always a power of 2. */
+		private SimEvent[] events = new SimEvent[8];
+
+		/** The position of the first event in the buffer. */
+		private int head;
+
+		/** The number of events. */
+		private int size;
+
+		SimEvent get(int index) {
+			return events[(head + index) & (events.length - 1)];
+		}
+
+		void add(SimEvent event) {
+			if (size == events.length) {
+				grow();
+			}
+
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			double eventTime = event.eventTime();
+			int index = size;
+			while (index > 0 && get(index - 1).eventTime() > eventTime) {
+				index--;
+			}
+
+			int mask = events.length - 1;
+			for (int i = size; i > index; i--) {
+				events[(head + i) & mask] = events[(head + i - 1) & mask];
+			}
+			events[(head + index) & mask] = event;
+			size++;
+		}
+
+		int indexOf(Predicate p) {
+			if (p == CloudSim.SIM_ANY) {
+				return size > 0 ? 0 : -1;
+			}
+			for (int i = 0; i < size; i++) {
+				if (p.match(get(i))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		int indexOf(SimEvent event) {
+			for (int i = 0; i < size; i++) {
+				if (get(i) == event) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Removes the event at a given position, shifting the events before it when it is in the
+		 * first half of the buffer and the events after it otherwise.
+		 *
+		 * @param index the position of the event
+		 * @return the removed event
+		 */
+		SimEvent removeAt(int index) {
+			int mask = events.length - 1;
+			SimEvent removed = get(index);
+			if (index < size / 2) {
+				for (int i = index; i > 0; i--) {
+					events[(head + i) & mask] = events[(head + i - 1) & mask];
+				}
+				events[head] = null;
+				head = (head + 1) & mask;
+			} else {
+				for (int i = index; i < size - 1; i++) {
+					events[(head + i) & mask] = events[(head + i + 1) & mask];
+				}
+				events[(head + size - 1) & mask] = null;
+			}
+			size--;
+			return removed;
+		}
+
+		private void grow() {
+			SimEvent[] newEvents = new SimEvent[events.length * 2];
+			for (int i = 0; i < size; i++) {
+				newEvents[i] = get(i);
+			}
+			events = newEvents;
+			head = 0;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An array of events used as a building block by the {@link FutureQueue} implementations. The events
+ * are stored from a head position on, so removing the first event only advances the head. The buffer
+ * may be kept sorted, using {@link FutureQueue#compare(SimEvent, SimEvent)}, or used as an unsorted
+ * bag of events.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+final class EventBuffer {
+
+	/** The comparator that sorts events in the order of the future queue. */
+	private static final Comparator<SimEvent> ORDER = new Comparator<SimEvent>() {
+
+		@Override
+		public int compare(SimEvent e1, SimEvent e2) {
+			return FutureQueue.compare(e1, e2);
+		}
+
+	};
+
+	/** The events, from the position {@link #head} on. */
+	private SimEvent[] events = new SimEvent[4];
+
+	/** The position of the first event. */
+	private int head;
+
+	/** The number of events. */
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	SimEvent get(int index) {
+		return events[head + index];
+	}
+
+	SimEvent first() {
+		return events[head];
+	}
+
+	SimEvent removeFirst() {
+		SimEvent first = events[head];
+		events[head++] = null;
+		if (--size == 0) {
+			head = 0;
+		}
+		return first;
+	}
+
+	/**
+	 * Appends an event, without keeping the buffer sorted.
+	 *
+	 * @param event the event
+	 */
+	void add(SimEvent event) {
+		ensureRoomAtEnd();
+		events[head + size++] = event;
+	}
+
+	/**
+	 * Inserts an event keeping the buffer sorted. Events are usually added in increasing order, so
+	 * the search for the insertion position starts from the end.
+	 *
+	 * @param event the event
+	 */
+	void addSorted(SimEvent event) {
+		ensureRoomAtEnd();
+		int end = head + size;
+		int position = end;
+		while (position > head && FutureQueue.compare(events[position - 1], event) > 0) {
+			position--;
+		}
+		System.arraycopy(events, position, events, position + 1, end - position);
+		events[position] = event;
+		size++;
+	}
+
+	/**
+	 * Removes a given event, shifting the events after it.
+	 *
+	 * @param event the event
+	 * @return true if the event was in the buffer
+	 */
+	boolean remove(SimEvent event) {
+		int end = head + size;
+		for (int i = head; i < end; i++) {
+			if (events[i] == event) {
+				System.arraycopy(events, i + 1, events, i, end - i - 1);
+				events[end - 1] = null;
+				if (--size == 0) {
+					head = 0;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sorts the events of the buffer.
+	 */
+	void sort() {
+		Arrays.sort(events, head, head + size, ORDER);
+	}
+
+	/**
+	 * Copies the events to an array.
+	 *
+	 * @param target the target array
+	 * @param offset the position of the target array to start copying to
+	 */
+	void copyTo(SimEvent[] target, int offset) {
+		System.arraycopy(events, head, target, offset, size);
+	}
+
+	void clear() {
+		Arrays.fill(events, head, head + size, null);
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * Makes room for a new event at the end of the buffer, compacting or growing the array.
+	 */
+	private void ensureRoomAtEnd() {
+		int end = head + size;
+		if (end < events.length) {
+			return;
+		}
+		if (head > events.length / 2) {
+			System.arraycopy(events, head, events, 0, size);
+			Arrays.fill(events, size, end, null);
+			head = 0;
+		} else {
+			events = Arrays.copyOf(events, events.length * 2);
+		}
+	}
+
+}
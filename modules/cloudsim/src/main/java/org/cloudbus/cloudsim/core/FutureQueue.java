@@ -8,96 +8,600 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the future event queue used by {@link CloudSim}. 
- * The event queue uses a {@link TreeSet} in order to store the events.
- * 
+ * FutureQueue is an abstract class that represents the future event queue used by {@link CloudSim}.
+ * Events are ordered by their time and, for events with the same time, by their serial number
+ * (events added with {@link #addEventFirst(SimEvent)} get serial 0). Events having the same time
+ * and serial are kept in the order they were added. Each implementation stores the events in a
+ * different data structure, which can be chosen by
+ * {@link CloudSim#init(int, java.util.Calendar, boolean, FutureQueue)}.
+ * <p>
+ * Besides the structure that sorts the events, the queue keeps the events indexed by source entity
+ * and tag, so that the events sent by an entity can be cancelled by
+ * {@link #removeFirst(int, Predicate)} and {@link #removeAll(int, Predicate)} without going through
+ * the whole queue. Implementations only have to manage their own structure, through the
+ * {@link #insert(SimEvent)} and {@code extract} methods, while this class keeps the index updated.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
- * @see java.util.TreeSet
- * 
+ * @see FutureQueueTreeSet
+ * @see FutureQueueHeap
+ * @see FutureQueueCalendar
+ * @see FutureQueueLadder
+ *
  * @todo It would be used a common interface for queues
  * such as this one and {@link DeferredQueue}
  */
-public class FutureQueue {
-
-	/** The sorted set of events. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+public abstract class FutureQueue {
 
 	/** A incremental number used for {@link SimEvent#serial} event attribute.
          */
 	private long serial = 0;
 
+	/** A incremental number used to keep the insertion order of events with the same time and serial. */
+	private long sequence = 0;
+
+	/**
+	 * The events in the queue indexed by source entity, at the position {@code source + 1} (so that
+	 * events with no source, whose source is -1, are indexed as well).
+	 */
+	private SourceIndex[] sources = new SourceIndex[16];
+
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order of
 	 * the events in the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
-		sortedSet.add(newEvent);
+		newEvent.setSequence(sequence++);
+		index(newEvent);
+		insert(newEvent);
 	}
 
 	/**
 	 * Adds a new event to the head of the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
-		sortedSet.add(newEvent);
+		newEvent.setSequence(sequence++);
+		index(newEvent);
+		insert(newEvent);
 	}
 
 	/**
-	 * Returns an iterator to the queue.
-	 * 
+	 * Inserts an event, whose serial has already been set, into the underlying data structure.
+	 *
+	 * @param event the event to insert
+	 */
+	protected abstract void insert(SimEvent event);
+
+	/**
+	 * Returns an iterator to the queue. Implementations that are not backed by a sorted
+	 * structure don't return the events in temporal order.
+	 *
 	 * @return the iterator
 	 */
-	public Iterator<SimEvent> iterator() {
-		return sortedSet.iterator();
-	}
+	public abstract Iterator<SimEvent> iterator();
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the size
 	 */
-	public int size() {
-		return sortedSet.size();
+	public abstract int size();
+
+	/**
+	 * Gets the event at the head of the queue, without removing it.
+	 *
+	 * @return the first event or null if the queue is empty
+	 */
+	public abstract SimEvent first();
+
+	/**
+	 * Removes and returns the event at the head of the queue.
+	 *
+	 * @return the first event or null if the queue is empty
+	 */
+	public SimEvent pollFirst() {
+		SimEvent first = extractFirst();
+		if (first != null) {
+			unindex(first);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all the events having the same time as the event at the head of the queue, that is,
+	 * the whole time bucket that must be processed next. The events are appended to the given list
+	 * in the order of the queue.
+	 *
+	 * @param bucket the list where the removed events are appended
+	 * @return the number of removed events
+	 */
+	public int pollFirstTimeBucket(List<SimEvent> bucket) {
+		int count = extractFirstTimeBucket(bucket);
+		for (int i = bucket.size() - count; i < bucket.size(); i++) {
+			unindex(bucket.get(i));
+		}
+		return count;
 	}
 
 	/**
 	 * Removes the event from the queue.
-	 * 
+	 *
 	 * @param event the event
 	 * @return true, if successful
 	 */
 	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
+		if (!extract(event)) {
+			return false;
+		}
+		unindex(event);
+		return true;
 	}
 
 	/**
 	 * Removes all the events from the queue.
-	 * 
+	 *
 	 * @param events the events
 	 * @return true, if successful
 	 */
 	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
+		boolean removed = false;
+		for (SimEvent event : events) {
+			removed |= remove(event);
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes the first event, in the order of the queue, sent by a given entity that matches a
+	 * predicate. Only the events sent by the entity are checked and, if the predicate is a
+	 * {@link PredicateType}, only the ones having its tags.
+	 *
+	 * @param source the id of the source entity
+	 * @param p the predicate
+	 * @return the removed event or null if no event matches
+	 */
+	public SimEvent removeFirst(int source, Predicate p) {
+		SourceIndex index = getSourceIndex(source, false);
+		if (index == null) {
+			return null;
+		}
+
+		SimEvent first = null;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				TagList list = index.get(tag, false);
+				if (list != null) {
+					first = findFirst(list, source, CloudSim.SIM_ANY, first);
+				}
+			}
+		} else {
+			for (int i = 0; i < index.size; i++) {
+				first = findFirst(index.lists[i], source, p, first);
+			}
+		}
+
+		if (first != null) {
+			remove(first);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all the events sent by a given entity that match a predicate. Only the events sent by
+	 * the entity are checked and, if the predicate is a {@link PredicateType}, only the ones having
+	 * its tags. A {@link PredicateFrom} either matches all the events of the entity or none, so it
+	 * is checked just once.
+	 *
+	 * @param source the id of the source entity
+	 * @param p the predicate
+	 * @return the number of removed events
+	 */
+	public int removeAll(int source, Predicate p) {
+		SourceIndex index = getSourceIndex(source, false);
+		if (index == null) {
+			return 0;
+		}
+
+		int count = 0;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				TagList list = index.get(tag, false);
+				if (list != null) {
+					count += removeAll(list, source, CloudSim.SIM_ANY);
+				}
+			}
+		} else {
+			if (p instanceof PredicateFrom) {
+				p = contains(((PredicateFrom) p).getIds(), source) ? CloudSim.SIM_ANY : CloudSim.SIM_NONE;
+			}
+			if (p != CloudSim.SIM_NONE) {
+				for (int i = 0; i < index.size; i++) {
+					count += removeAll(index.lists[i], source, p);
+				}
+			}
+		}
+		return count;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		sortedSet.clear();
+		extractAll();
+		for (SourceIndex index : sources) {
+			if (index != null) {
+				for (int i = 0; i < index.size; i++) {
+					index.lists[i].clear();
+				}
+			}
+		}
+		Arrays.fill(sources, null);
+	}
+
+	/**
+	 * Removes and returns the event at the head of the underlying data structure.
+	 *
+	 * @return the first event or null if the queue is empty
+	 */
+	protected abstract SimEvent extractFirst();
+
+	/**
+	 * Removes the events having the same time as the event at the head of the underlying data
+	 * structure, appending them to a list in the order of the queue. Implementations that can find
+	 * the events of a time bucket faster than by repeatedly calling {@link #extractFirst()} should
+	 * override this method.
+	 *
+	 * @param bucket the list where the removed events are appended
+	 * @return the number of removed events
+	 * @see #pollFirstTimeBucket(List)
+	 */
+	protected int extractFirstTimeBucket(List<SimEvent> bucket) {
+		SimEvent first = extractFirst();
+		if (first == null) {
+			return 0;
+		}
+
+		bucket.add(first);
+		int count = 1;
+		SimEvent next = first();
+		while (next != null && next.eventTime() == first.eventTime()) {
+			bucket.add(extractFirst());
+			count++;
+			next = first();
+		}
+		return count;
+	}
+
+	/**
+	 * Removes an event from the underlying data structure.
+	 *
+	 * @param event the event
+	 * @return true if the event was in the queue
+	 */
+	protected abstract boolean extract(SimEvent event);
+
+	/**
+	 * Removes all the events from the underlying data structure.
+	 */
+	protected abstract void extractAll();
+
+	/**
+	 * Creates an iterator over a snapshot of the events in the queue, for implementations whose
+	 * internal layout changes when an event is removed. Removals through the iterator are
+	 * delegated to {@link #remove(SimEvent)}.
+	 *
+	 * @param snapshot the events in the queue
+	 * @return the iterator
+	 */
+	protected Iterator<SimEvent> snapshotIterator(final SimEvent[] snapshot) {
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				return next < snapshot.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = snapshot[next++];
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				FutureQueue.this.remove(last);
+				last = null;
+			}
+
+		};
+	}
+
+	/**
+	 * Wraps an iterator of the underlying data structure, for implementations that can remove the
+	 * current event while iterating over it. Removals through the iterator are done by the given
+	 * iterator and also remove the event from the index of its source entity and tag.
+	 *
+	 * @param iterator the iterator of the underlying data structure
+	 * @return the iterator
+	 */
+	protected Iterator<SimEvent> indexedIterator(final Iterator<SimEvent> iterator) {
+		return new Iterator<SimEvent>() {
+
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				last = iterator.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				iterator.remove();
+				unindex(last);
+				last = null;
+			}
+
+		};
+	}
+
+	/**
+	 * Adds an event to the index of its source entity and tag.
+	 *
+	 * @param event the event
+	 */
+	private void index(SimEvent event) {
+		getSourceIndex(event.getSource(), true).get(event.getTag(), true).add(event);
+	}
+
+	/**
+	 * Removes an event from the index of its source entity and tag.
+	 *
+	 * @param event the event
+	 */
+	private void unindex(SimEvent event) {
+		getSourceIndex(event.getSource(), false).get(event.getTag(), false).remove(event);
+	}
+
+	/**
+	 * Gets the index of the events sent by a given entity.
+	 *
+	 * @param source the id of the source entity
+	 * @param create whether the index has to be created if it doesn't exist yet
+	 * @return the index or null if it doesn't exist and has not been created
+	 */
+	private SourceIndex getSourceIndex(int source, boolean create) {
+		// All the invalid ids share the position of -1; the source is checked when matching
+		int position = Math.max(source + 1, 0);
+		if (position >= sources.length) {
+			if (!create) {
+				return null;
+			}
+			sources = Arrays.copyOf(sources, Math.max(sources.length * 2, position + 1));
+		}
+		if (sources[position] == null && create) {
+			sources[position] = new SourceIndex();
+		}
+		return sources[position];
+	}
+
+	/**
+	 * Checks whether an array contains a given value.
+	 *
+	 * @param values the array
+	 * @param value the value
+	 * @return true if the value is in the array
+	 */
+	private static boolean contains(int[] values, int value) {
+		for (int v : values) {
+			if (v == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the first event of a list, in the order of the queue, that matches a predicate.
+	 *
+	 * @param list the list of events
+	 * @param source the id of the source entity
+	 * @param p the predicate
+	 * @param first the first matching event found so far, or null
+	 * @return the first matching event among the list and the given one, or null
+	 */
+	private static SimEvent findFirst(TagList list, int source, Predicate p, SimEvent first) {
+		for (SimEvent event = list.head; event != null; event = event.getNextIndexed()) {
+			if (event.getSource() == source && p.match(event)
+					&& (first == null || compare(event, first) < 0)) {
+				first = event;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Removes all the events of a list that match a predicate.
+	 *
+	 * @param list the list of events
+	 * @param source the id of the source entity
+	 * @param p the predicate
+	 * @return the number of removed events
+	 */
+	private int removeAll(TagList list, int source, Predicate p) {
+		int count = 0;
+		SimEvent event = list.head;
+		while (event != null) {
+			SimEvent next = event.getNextIndexed();
+			if (event.getSource() == source && p.match(event) && remove(event)) {
+				count++;
+			}
+			event = next;
+		}
+		return count;
+	}
+
+	/**
+	 * Compares two events using the order of the queue: time, then serial, then insertion order.
+	 *
+	 * @param e1 the first event
+	 * @param e2 the second event
+	 * @return a negative number if e1 comes before e2, a positive number if it comes after, or 0 if
+	 *         they are the same event
+	 */
+	static int compare(SimEvent e1, SimEvent e2) {
+		return compare(e1.eventTime(), e1.getSerial(), e1.getSequence(),
+				e2.eventTime(), e2.getSerial(), e2.getSequence());
+	}
+
+	/**
+	 * Compares two events given their time, serial and insertion order.
+	 *
+	 * @param time1 the time of the first event
+	 * @param serial1 the serial of the first event
+	 * @param sequence1 the insertion order of the first event
+	 * @param time2 the time of the second event
+	 * @param serial2 the serial of the second event
+	 * @param sequence2 the insertion order of the second event
+	 * @return a negative number if the first event comes before the second one, a positive number
+	 *         if it comes after, or 0 if they are the same event
+	 */
+	static int compare(double time1, long serial1, long sequence1,
+			double time2, long serial2, long sequence2) {
+		if (time1 < time2) {
+			return -1;
+		} else if (time1 > time2) {
+			return 1;
+		} else if (serial1 < serial2) {
+			return -1;
+		} else if (serial1 > serial2) {
+			return 1;
+		} else if (sequence1 < sequence2) {
+			return -1;
+		} else if (sequence1 > sequence2) {
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * The events sent by a single entity, split by tag. Entities use just a few tags, so the lists
+	 * are found by a linear search.
+	 */
+	private static final class SourceIndex {
+
+		/** The lists of events, one for each tag. */
+		private TagList[] lists = new TagList[4];
+
+		/** The number of lists. */
+		private int size;
+
+		TagList get(int tag, boolean create) {
+			for (int i = 0; i < size; i++) {
+				if (lists[i].tag == tag) {
+					return lists[i];
+				}
+			}
+			if (!create) {
+				return null;
+			}
+			if (size == lists.length) {
+				lists = Arrays.copyOf(lists, size * 2);
+			}
+			lists[size] = new TagList(tag);
+			return lists[size++];
+		}
+
+	}
+
+	/**
+	 * A doubly linked list of the events with the same source and tag, in insertion order. The links
+	 * are kept in the events themselves, so adding and removing an event costs O(1).
+	 */
+	private static final class TagList {
+
+		/** The tag of the events. */
+		private final int tag;
+
+		/** The first and last events of the list. */
+		private SimEvent head, tail;
+
+		TagList(int tag) {
+			this.tag = tag;
+		}
+
+		void add(SimEvent event) {
+			event.setPreviousIndexed(tail);
+			event.setNextIndexed(null);
+			if (tail == null) {
+				head = event;
+			} else {
+				tail.setNextIndexed(event);
+			}
+			tail = event;
+		}
+
+		void remove(SimEvent event) {
+			SimEvent previous = event.getPreviousIndexed();
+			SimEvent next = event.getNextIndexed();
+			if (previous == null) {
+				head = next;
+			} else {
+				previous.setNextIndexed(next);
+			}
+			if (next == null) {
+				tail = previous;
+			} else {
+				next.setPreviousIndexed(previous);
+			}
+			event.setPreviousIndexed(null);
+			event.setNextIndexed(null);
+		}
+
+		void clear() {
+			SimEvent event = head;
+			while (event != null) {
+				SimEvent next = event.getNextIndexed();
+				event.setPreviousIndexed(null);
+				event.setNextIndexed(null);
+				event = next;
+			}
+			head = tail = null;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * FutureQueueCalendar is a {@link FutureQueue} that implements the calendar queue proposed by
+ * R. Brown. Events are hashed by their time into an array of buckets (the "days" of a "year"), each
+ * one kept sorted. When the event time distribution is stable, insertions and removals cost O(1) on
+ * average. The number of buckets doubles or halves as the queue grows or shrinks, and then the bucket
+ * width is recomputed from the average separation between the queued events.
+ * <p>
+ * The {@link #iterator()} doesn't return the events in temporal order.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see "R. Brown, Calendar queues: a fast O(1) priority queue implementation for the simulation
+ *      event set problem. Communications of the ACM, 31(10):1220-1227, 1988."
+ */
+public class FutureQueueCalendar extends FutureQueue {
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The buckets, whose number is always a power of 2. */
+	private EventBuffer[] buckets;
+
+	/** The width of each bucket, in simulation time. */
+	private double width;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/**
+	 * The absolute index ({@code floor(time / width)}) of the bucket where the search for the first
+	 * event starts. No event in the queue has a lower absolute index.
+	 */
+	private long current;
+
+	/**
+	 * Creates a calendar queue with a bucket width of 1 time unit.
+	 */
+	public FutureQueueCalendar() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a calendar queue.
+	 *
+	 * @param width the initial width of each bucket, in simulation time
+	 */
+	public FutureQueueCalendar(double width) {
+		if (width <= 0) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is: " + width);
+		}
+		this.width = width;
+		buckets = newBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	protected void insert(SimEvent event) {
+		long index = absoluteIndex(event.eventTime());
+		if (size == 0 || index < current) {
+			current = index;
+		}
+		bucket(index).addSorted(event);
+		size++;
+		if (size > 2 * buckets.length) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return snapshotIterator(toArray());
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public SimEvent first() {
+		EventBuffer bucket = firstBucket();
+		return bucket == null ? null : bucket.first();
+	}
+
+	@Override
+	protected SimEvent extractFirst() {
+		EventBuffer bucket = firstBucket();
+		if (bucket == null) {
+			return null;
+		}
+		SimEvent first = bucket.removeFirst();
+		size--;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return first;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All the events with the same time are in the same bucket, so they are taken from its head
+	 * in O(1) each.
+	 */
+	@Override
+	protected int extractFirstTimeBucket(List<SimEvent> bucket) {
+		EventBuffer first = firstBucket();
+		if (first == null) {
+			return 0;
+		}
+
+		double time = first.first().eventTime();
+		int count = 0;
+		do {
+			bucket.add(first.removeFirst());
+			count++;
+		} while (first.size() > 0 && first.first().eventTime() == time);
+
+		size -= count;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return count;
+	}
+
+	@Override
+	protected boolean extract(SimEvent event) {
+		if (size == 0 || !bucket(absoluteIndex(event.eventTime())).remove(event)) {
+			return false;
+		}
+		size--;
+		return true;
+	}
+
+	@Override
+	protected void extractAll() {
+		buckets = newBuckets(MIN_BUCKETS);
+		size = 0;
+		current = 0;
+	}
+
+	/**
+	 * Finds the bucket holding the first event of the queue, updating {@link #current}. A year of
+	 * buckets is scanned looking for an event that falls into the scanned day; if there is none,
+	 * the first event is found by a direct search over the head of every bucket.
+	 *
+	 * @return the bucket with the first event or null if the queue is empty
+	 */
+	private EventBuffer firstBucket() {
+		if (size == 0) {
+			return null;
+		}
+
+		for (int i = 0; i < buckets.length; i++) {
+			long index = current + i;
+			EventBuffer bucket = bucket(index);
+			if (bucket.size() > 0 && absoluteIndex(bucket.first().eventTime()) == index) {
+				current = index;
+				return bucket;
+			}
+		}
+
+		EventBuffer firstBucket = null;
+		for (EventBuffer bucket : buckets) {
+			if (bucket.size() > 0 && (firstBucket == null || compare(bucket.first(), firstBucket.first()) < 0)) {
+				firstBucket = bucket;
+			}
+		}
+		current = absoluteIndex(firstBucket.first().eventTime());
+		return firstBucket;
+	}
+
+	/**
+	 * Changes the number of buckets, recomputing the bucket width and redistributing the events.
+	 *
+	 * @param numberOfBuckets the new number of buckets
+	 */
+	private void resize(int numberOfBuckets) {
+		SimEvent[] all = toArray();
+		width = estimateWidth(all);
+		buckets = newBuckets(numberOfBuckets);
+		current = Long.MAX_VALUE;
+		for (SimEvent event : all) {
+			long index = absoluteIndex(event.eventTime());
+			current = Math.min(current, index);
+			bucket(index).addSorted(event);
+		}
+		if (all.length == 0) {
+			current = 0;
+		}
+	}
+
+	/**
+	 * Estimates a bucket width as three times the average separation between the queued events,
+	 * what is expected to keep a few events per bucket.
+	 *
+	 * @param events the queued events
+	 * @return the new bucket width
+	 */
+	private double estimateWidth(SimEvent[] events) {
+		if (events.length < 2) {
+			return width;
+		}
+		double min = Double.MAX_VALUE;
+		double max = -Double.MAX_VALUE;
+		for (SimEvent event : events) {
+			min = Math.min(min, event.eventTime());
+			max = Math.max(max, event.eventTime());
+		}
+		double estimated = 3.0 * (max - min) / events.length;
+		return estimated > 0 && !Double.isInfinite(estimated) ? estimated : width;
+	}
+
+	/**
+	 * Gets the absolute bucket index (the "day" since time 0) of a given time.
+	 *
+	 * @param time the time
+	 * @return the absolute bucket index
+	 */
+	private long absoluteIndex(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Gets the bucket of a given absolute bucket index.
+	 *
+	 * @param index the absolute bucket index
+	 * @return the bucket
+	 */
+	private EventBuffer bucket(long index) {
+		return buckets[(int) (index & (buckets.length - 1))];
+	}
+
+	/**
+	 * Copies all the events in the queue into an array.
+	 *
+	 * @return the array of events
+	 */
+	private SimEvent[] toArray() {
+		SimEvent[] all = new SimEvent[size];
+		int i = 0;
+		for (EventBuffer bucket : buckets) {
+			bucket.copyTo(all, i);
+			i += bucket.size();
+		}
+		return all;
+	}
+
+	/**
+	 * Creates an array of empty buckets.
+	 *
+	 * @param numberOfBuckets the number of buckets
+	 * @return the array of buckets
+	 */
+	private static EventBuffer[] newBuckets(int numberOfBuckets) {
+		EventBuffer[] newBuckets = new EventBuffer[numberOfBuckets];
+		for (int i = 0; i < numberOfBuckets; i++) {
+			newBuckets[i] = new EventBuffer();
+		}
+		return newBuckets;
+	}
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * FutureQueueHeap is a {@link FutureQueue} that stores the events in a d-ary heap. The ordering keys
+ * of the events (time, serial and insertion order) are kept in primitive arrays parallel to the array
+ * of events, so comparisons don't need to dereference the events. Insertions and removals cost
+ * O(d log<sub>d</sub> n) and no object is allocated per event, apart from the arrays growth.
+ * <p>
+ * Each event knows its position in the heap, what makes the removal of an arbitrary event (such as
+ * a cancelled one) cost O(log n) instead of requiring a search. The {@link #iterator()} doesn't
+ * return the events in temporal order.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class FutureQueueHeap extends FutureQueue {
+
+	/** The default number of children of each heap node. */
+	public static final int DEFAULT_ARITY = 4;
+
+	/** The initial capacity of the heap arrays. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The number of children of each heap node. */
+	private final int arity;
+
+	/** The events in the heap. */
+	private SimEvent[] events;
+
+	/** The time of the event at the same position of {@link #events}. */
+	private double[] times;
+
+	/** The serial of the event at the same position of {@link #events}. */
+	private long[] serials;
+
+	/** The insertion order of the event at the same position of {@link #events}. */
+	private long[] sequences;
+
+	/** The number of events in the heap. */
+	private int size;
+
+	/**
+	 * Creates a 4-ary heap event queue.
+	 */
+	public FutureQueueHeap() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a d-ary heap event queue.
+	 *
+	 * @param arity the number of children of each heap node (2 for a binary heap)
+	 */
+	public FutureQueueHeap(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The heap arity must be at least 2, but is: " + arity);
+		}
+		this.arity = arity;
+		events = new SimEvent[INITIAL_CAPACITY];
+		times = new double[INITIAL_CAPACITY];
+		serials = new long[INITIAL_CAPACITY];
+		sequences = new long[INITIAL_CAPACITY];
+	}
+
+	@Override
+	protected void insert(SimEvent event) {
+		if (size == events.length) {
+			grow();
+		}
+		set(size, event);
+		siftUp(size++);
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return snapshotIterator(Arrays.copyOf(events, size));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public SimEvent first() {
+		return size == 0 ? null : events[0];
+	}
+
+	@Override
+	protected SimEvent extractFirst() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = events[0];
+		removeAt(0);
+		return first;
+	}
+
+	@Override
+	protected boolean extract(SimEvent event) {
+		int index = event.getQueueIndex();
+		if (index < 0 || index >= size || events[index] != event) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	protected void extractAll() {
+		for (int i = 0; i < size; i++) {
+			events[i].setQueueIndex(-1);
+			events[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Removes the event at a given position of the heap.
+	 *
+	 * @param index the position of the event to remove
+	 */
+	private void removeAt(int index) {
+		events[index].setQueueIndex(-1);
+		int last = --size;
+		if (index != last) {
+			set(index, events[last]);
+			events[last] = null;
+			if (index > 0 && less(index, parent(index))) {
+				siftUp(index);
+			} else {
+				siftDown(index);
+			}
+		} else {
+			events[last] = null;
+		}
+	}
+
+	/**
+	 * Moves the event at a given position towards the root until the heap order is restored.
+	 *
+	 * @param index the position of the event
+	 */
+	private void siftUp(int index) {
+		SimEvent event = events[index];
+		double time = times[index];
+		long serial = serials[index];
+		long sequence = sequences[index];
+		while (index > 0) {
+			int parent = parent(index);
+			if (compare(time, serial, sequence, times[parent], serials[parent], sequences[parent]) >= 0) {
+				break;
+			}
+			move(parent, index);
+			index = parent;
+		}
+		place(index, event, time, serial, sequence);
+	}
+
+	/**
+	 * Moves the event at a given position towards the leaves until the heap order is restored.
+	 *
+	 * @param index the position of the event
+	 */
+	private void siftDown(int index) {
+		SimEvent event = events[index];
+		double time = times[index];
+		long serial = serials[index];
+		long sequence = sequences[index];
+		while (true) {
+			int firstChild = index * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int smallest = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (less(child, smallest)) {
+					smallest = child;
+				}
+			}
+			if (compare(times[smallest], serials[smallest], sequences[smallest], time, serial, sequence) >= 0) {
+				break;
+			}
+			move(smallest, index);
+			index = smallest;
+		}
+		place(index, event, time, serial, sequence);
+	}
+
+	/**
+	 * Gets the position of the parent of a heap node.
+	 *
+	 * @param index the position of the node
+	 * @return the position of its parent
+	 */
+	private int parent(int index) {
+		return (index - 1) / arity;
+	}
+
+	/**
+	 * Checks if the event at a position comes before the event at another position.
+	 *
+	 * @param i the position of the first event
+	 * @param j the position of the second event
+	 * @return true if the first event comes before the second one
+	 */
+	private boolean less(int i, int j) {
+		return compare(times[i], serials[i], sequences[i], times[j], serials[j], sequences[j]) < 0;
+	}
+
+	/**
+	 * Stores an event and its ordering keys at a given position.
+	 *
+	 * @param index the position
+	 * @param event the event
+	 */
+	private void set(int index, SimEvent event) {
+		place(index, event, event.eventTime(), event.getSerial(), event.getSequence());
+	}
+
+	/**
+	 * Stores an event and its ordering keys at a given position.
+	 *
+	 * @param index the position
+	 * @param event the event
+	 * @param time the time of the event
+	 * @param serial the serial of the event
+	 * @param sequence the insertion order of the event
+	 */
+	private void place(int index, SimEvent event, double time, long serial, long sequence) {
+		events[index] = event;
+		times[index] = time;
+		serials[index] = serial;
+		sequences[index] = sequence;
+		event.setQueueIndex(index);
+	}
+
+	/**
+	 * Copies the event at a position to another position.
+	 *
+	 * @param from the source position
+	 * @param to the target position
+	 */
+	private void move(int from, int to) {
+		place(to, events[from], times[from], serials[from], sequences[from]);
+	}
+
+	/**
+	 * Doubles the capacity of the heap arrays.
+	 */
+	private void grow() {
+		int capacity = events.length << 1;
+		events = Arrays.copyOf(events, capacity);
+		times = Arrays.copyOf(times, capacity);
+		serials = Arrays.copyOf(serials, capacity);
+		sequences = Arrays.copyOf(sequences, capacity);
+	}
+
+}
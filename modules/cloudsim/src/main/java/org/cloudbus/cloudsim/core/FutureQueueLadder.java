@@ -0,0 +1,383 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * FutureQueueLadder is a {@link FutureQueue} that implements the ladder queue proposed by W. T. Tang
+ * et al. The queue has three tiers:
+ * <ul>
+ * <li>the <i>top</i>, an unsorted bag holding the events farther in the future;
+ * <li>the <i>rungs</i>, arrays of unsorted buckets that partition a range of time, where each rung
+ * splits a single bucket of the rung above it;
+ * <li>the <i>bottom</i>, a sorted list with the events that are about to be dequeued.
+ * </ul>
+ * Events are sorted only when a small bucket is moved to the bottom, so insertions and removals cost
+ * O(1) amortised, regardless of the event time distribution.
+ * <p>
+ * Removed (cancelled) events are discarded lazily: they are just marked as not pending and are
+ * dropped when their bucket is moved to the bottom or when they reach the head of the queue. The
+ * {@link #iterator()} doesn't return the events in temporal order.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see "W. T. Tang, R. S. M. Goh, I. L.-J. Thng, Ladder queue: an O(1) priority queue structure for
+ *      large-scale discrete event simulation. ACM Transactions on Modeling and Computer Simulation,
+ *      15(3):175-204, 2005."
+ */
+public class FutureQueueLadder extends FutureQueue {
+
+	/** The number of events in a bucket above which a new rung is spawned, instead of sorting it. */
+	private static final int THRESHOLD = 50;
+
+	/** The maximum number of rungs. */
+	private static final int MAX_RUNGS = 8;
+
+	/** The events far in the future. */
+	private final EventBuffer top = new EventBuffer();
+
+	/** The minimum and maximum time of the events in the top. */
+	private double topMin, topMax;
+
+	/** Events with a time equal or greater than this one are added to the top. */
+	private double topStart = -Double.MAX_VALUE;
+
+	/** The rungs, from the coarsest to the finest one. */
+	private final Rung[] rungs = new Rung[MAX_RUNGS];
+
+	/** The number of rungs in use. */
+	private int numberOfRungs;
+
+	/** The sorted events about to be dequeued. */
+	private final EventBuffer bottom = new EventBuffer();
+
+	/** The number of pending events in the queue. */
+	private int size;
+
+	@Override
+	protected void insert(SimEvent event) {
+		event.setPending(true);
+		size++;
+		double time = event.eventTime();
+		if (time >= topStart) {
+			if (top.size() == 0) {
+				topMin = topMax = time;
+			} else {
+				topMin = Math.min(topMin, time);
+				topMax = Math.max(topMax, time);
+			}
+			top.add(event);
+			return;
+		}
+
+		for (int i = 0; i < numberOfRungs; i++) {
+			Rung rung = rungs[i];
+			int bucket = rung.bucketOf(time);
+			if (bucket >= rung.current) {
+				rung.add(bucket, event);
+				return;
+			}
+		}
+
+		bottom.addSorted(event);
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		SimEvent[] snapshot = new SimEvent[size];
+		int count = copyPending(top, snapshot, 0);
+		for (int i = 0; i < numberOfRungs; i++) {
+			Rung rung = rungs[i];
+			for (int b = rung.current; b < rung.buckets.length; b++) {
+				count = copyPending(rung.buckets[b], snapshot, count);
+			}
+		}
+		copyPending(bottom, snapshot, count);
+		return snapshotIterator(snapshot);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public SimEvent first() {
+		return size == 0 ? null : prepareBottom();
+	}
+
+	@Override
+	protected SimEvent extractFirst() {
+		if (size == 0) {
+			return null;
+		}
+		prepareBottom();
+		SimEvent first = bottom.removeFirst();
+		first.setPending(false);
+		size--;
+		return first;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All the pending events with the same time as the first one are in the bottom, so they are
+	 * taken from its head in O(1) each.
+	 */
+	@Override
+	protected int extractFirstTimeBucket(List<SimEvent> bucket) {
+		if (size == 0) {
+			return 0;
+		}
+
+		double time = prepareBottom().eventTime();
+		int count = 0;
+		while (bottom.size() > 0) {
+			SimEvent event = bottom.first();
+			if (event.isPending()) {
+				if (event.eventTime() != time) {
+					break;
+				}
+				event.setPending(false);
+				bucket.add(event);
+				count++;
+			}
+			bottom.removeFirst();
+		}
+
+		size -= count;
+		return count;
+	}
+
+	@Override
+	protected boolean extract(SimEvent event) {
+		if (!event.isPending()) {
+			return false;
+		}
+		event.setPending(false);
+		size--;
+		return true;
+	}
+
+	@Override
+	protected void extractAll() {
+		clearPending(top);
+		for (int i = 0; i < numberOfRungs; i++) {
+			Rung rung = rungs[i];
+			for (int b = rung.current; b < rung.buckets.length; b++) {
+				clearPending(rung.buckets[b]);
+			}
+			rungs[i] = null;
+		}
+		clearPending(bottom);
+		numberOfRungs = 0;
+		topStart = -Double.MAX_VALUE;
+		size = 0;
+	}
+
+	/**
+	 * Makes sure the first pending event of the queue is at the head of the bottom, moving events
+	 * down from the rungs and the top when required. Must be called only when the queue is not
+	 * empty.
+	 *
+	 * @return the first event of the queue
+	 */
+	private SimEvent prepareBottom() {
+		while (true) {
+			while (bottom.size() > 0) {
+				if (bottom.first().isPending()) {
+					return bottom.first();
+				}
+				bottom.removeFirst();
+			}
+			refillBottom();
+		}
+	}
+
+	/**
+	 * Moves the events of the next non-empty bucket to the bottom, spawning finer rungs for
+	 * buckets that are too large. If all the rungs are exhausted, the events in the top are
+	 * distributed into a new rung.
+	 */
+	private void refillBottom() {
+		while (true) {
+			if (numberOfRungs == 0) {
+				if (top.size() == 0) {
+					throw new IllegalStateException("The future event queue has no pending events to dequeue.");
+				}
+				transferTop();
+				if (bottom.size() > 0) {
+					return;
+				}
+				continue;
+			}
+
+			Rung rung = rungs[numberOfRungs - 1];
+			while (rung.current < rung.buckets.length
+					&& (rung.buckets[rung.current] == null || rung.buckets[rung.current].size() == 0)) {
+				rung.current++;
+			}
+			if (rung.current == rung.buckets.length) {
+				rungs[--numberOfRungs] = null;
+				continue;
+			}
+
+			int index = rung.current++;
+			EventBuffer bucket = rung.buckets[index];
+			if (bucket.size() > THRESHOLD && numberOfRungs < MAX_RUNGS) {
+				double start = rung.start + index * rung.width;
+				double width = rung.width / bucket.size();
+				if (start + width > start) {
+					Rung child = new Rung(start, width, bucket.size() + 1);
+					for (int i = 0; i < bucket.size(); i++) {
+						SimEvent event = bucket.get(i);
+						if (event.isPending()) {
+							child.add(child.bucketOf(event.eventTime()), event);
+						}
+					}
+					rung.buckets[index] = null;
+					rungs[numberOfRungs++] = child;
+					continue;
+				}
+			}
+
+			moveToBottom(bucket);
+			rung.buckets[index] = null;
+			return;
+		}
+	}
+
+	/**
+	 * Moves the events in the top to a new rung or, if all of them have the same time, straight to
+	 * the bottom.
+	 */
+	private void transferTop() {
+		double width = (topMax - topMin) / top.size();
+		if (!(width > 0)) {
+			moveToBottom(top);
+			topStart = Math.nextUp(topMax);
+			top.clear();
+			return;
+		}
+
+		int numberOfBuckets = top.size() + 1;
+		Rung rung = new Rung(topMin, width, numberOfBuckets);
+		for (int i = 0; i < top.size(); i++) {
+			SimEvent event = top.get(i);
+			if (event.isPending()) {
+				rung.add(rung.bucketOf(event.eventTime()), event);
+			}
+		}
+		topStart = Math.max(rung.start + numberOfBuckets * width, Math.nextUp(topMax));
+		top.clear();
+		rungs[numberOfRungs++] = rung;
+	}
+
+	/**
+	 * Sorts the pending events of a bucket into the bottom, which must be empty.
+	 *
+	 * @param bucket the bucket
+	 */
+	private void moveToBottom(EventBuffer bucket) {
+		for (int i = 0; i < bucket.size(); i++) {
+			SimEvent event = bucket.get(i);
+			if (event.isPending()) {
+				bottom.add(event);
+			}
+		}
+		bottom.sort();
+	}
+
+	/**
+	 * Copies the pending events of a buffer into an array.
+	 *
+	 * @param buffer the buffer
+	 * @param target the target array
+	 * @param offset the position of the target array to start copying to
+	 * @return the position after the last copied event
+	 */
+	private static int copyPending(EventBuffer buffer, SimEvent[] target, int offset) {
+		if (buffer == null) {
+			return offset;
+		}
+		for (int i = 0; i < buffer.size(); i++) {
+			SimEvent event = buffer.get(i);
+			if (event.isPending()) {
+				target[offset++] = event;
+			}
+		}
+		return offset;
+	}
+
+	/**
+	 * Marks the events of a buffer as not pending and empties it.
+	 *
+	 * @param buffer the buffer
+	 */
+	private static void clearPending(EventBuffer buffer) {
+		if (buffer == null) {
+			return;
+		}
+		for (int i = 0; i < buffer.size(); i++) {
+			buffer.get(i).setPending(false);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * A rung of the ladder: an array of unsorted buckets of the same width, starting at a given time.
+	 * Buckets before {@link #current} have already been consumed.
+	 */
+	private static class Rung {
+
+		/** The start time of the first bucket. */
+		private final double start;
+
+		/** The width of each bucket. */
+		private final double width;
+
+		/** The buckets, created on demand. */
+		private final EventBuffer[] buckets;
+
+		/** The index of the first bucket that has not been consumed. */
+		private int current;
+
+		Rung(double start, double width, int numberOfBuckets) {
+			this.start = start;
+			this.width = width;
+			buckets = new EventBuffer[numberOfBuckets];
+		}
+
+		/**
+		 * Gets the bucket a given time falls into. Times out of the range of the rung are clamped
+		 * to the first or last bucket, so that events with the same time always go to the same
+		 * bucket.
+		 *
+		 * @param time the time
+		 * @return the bucket index
+		 */
+		int bucketOf(double time) {
+			double index = Math.floor((time - start) / width);
+			if (index < 0) {
+				return 0;
+			}
+			return index >= buckets.length ? buckets.length - 1 : (int) index;
+		}
+
+		void add(int index, SimEvent event) {
+			if (buckets[index] == null) {
+				buckets[index] = new EventBuffer();
+			}
+			buckets[index].add(event);
+		}
+
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+/**
+ * FutureQueueTreeSet is the default {@link FutureQueue}. The event queue uses a {@link TreeSet}
+ * in order to store the events, so insertions and removals cost O(log n). The set is sorted using
+ * {@link FutureQueue#compare(SimEvent, SimEvent)}, which orders events just like
+ * {@link SimEvent#compareTo(SimEvent)} but is also consistent with equals, allowing any event to be
+ * found by {@link #remove(SimEvent)}.
+ *
+ * @author Marcos Dias de Assuncao
+ * @since CloudSim Toolkit 1.0
+ * @see java.util.TreeSet
+ */
+public class FutureQueueTreeSet extends FutureQueue {
+
+	/** The sorted set of events. */
+	private final TreeSet<SimEvent> sortedSet = new TreeSet<SimEvent>(new Comparator<SimEvent>() {
+
+		@Override
+		public int compare(SimEvent e1, SimEvent e2) {
+			return FutureQueue.compare(e1, e2);
+		}
+
+	});
+
+	@Override
+	protected void insert(SimEvent event) {
+		sortedSet.add(event);
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return indexedIterator(sortedSet.iterator());
+	}
+
+	@Override
+	public int size() {
+		return sortedSet.size();
+	}
+
+	@Override
+	public SimEvent first() {
+		return sortedSet.isEmpty() ? null : sortedSet.first();
+	}
+
+	@Override
+	protected SimEvent extractFirst() {
+		return sortedSet.pollFirst();
+	}
+
+	@Override
+	protected boolean extract(SimEvent event) {
+		return sortedSet.remove(event);
+	}
+
+	@Override
+	protected void extractAll() {
+		sortedSet.clear();
+	}
+
+}
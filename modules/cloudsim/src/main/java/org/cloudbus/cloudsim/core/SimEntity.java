@@ -356,10 +356,7 @@ public abstract class SimEntity implements Cloneable {
 		if (!CloudSim.running()) {
 			return null;
 		}
-		if (numEventsWaiting(p) > 0) {
-			return selectEvent(p);
-		}
-		return null;
+		return CloudSim.select(id, p);
 	}
 
 	/**
@@ -420,10 +417,12 @@ public abstract class SimEntity implements Cloneable {
          * @see #processEvent(org.cloudbus.cloudsim.core.SimEvent) 
          */
 	public void run() {
+		Simulation simulation = Simulation.current();
 		SimEvent ev = evbuf != null ? evbuf : getNextEvent();
 
 		while (ev != null) {
 			processEvent(ev);
+			simulation.recycle(ev);
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -18,10 +18,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** Internal event type. **/
-	private final int etype;
+	private int etype;
 
 	/** The time that this event was scheduled, at which it should occur. **/
-	private final double time;
+	private double time;
 
 	/** Time that the event was removed from the queue to start service. **/
 	private double endWaitingTime;
@@ -33,7 +33,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** The user defined type of the event. **/
-	private final int tag;
+	private int tag;
 
 	/** 
          * Any data the event is carrying. 
@@ -41,7 +41,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          * But this modification would incur several changes in the simulator core
          * that has to be assessed first.
          **/
-	private final Object data;
+	private Object data;
 
         /**
          * An attribute to help CloudSim to identify the order of received events
@@ -53,6 +53,31 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          */
 	private long serial = -1;
 
+	/**
+	 * The order in which the event was added to a {@link FutureQueue}. It is used
+	 * to break ties between events with the same {@link #time} and {@link #serial},
+	 * keeping the same order as a {@link java.util.TreeSet} of events would.
+	 */
+	private long sequence = -1;
+
+	/**
+	 * The position of the event inside an array-based {@link FutureQueue},
+	 * or -1 if the queue does not track positions.
+	 */
+	private int queueIndex = -1;
+
+	/**
+	 * Indicates if the event is pending in a {@link FutureQueue} that discards
+	 * removed events lazily, when they are found inside the queue.
+	 */
+	private boolean pending;
+
+	/**
+	 * The previous and next events with the same source and tag inside a {@link FutureQueue},
+	 * which keeps them in a linked list to find the events to cancel.
+	 */
+	private SimEvent previousIndexed, nextIndexed;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -95,10 +120,86 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reuses the event as a new one, after {@link #clear() clearing} it.
+	 */
+	void reset(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+	}
+
+	/**
+	 * Clears the event once it has been processed, so it can be reused. Besides the data, it
+	 * drops the state left by the queues it went through, including the links to other events.
+	 */
+	void clear() {
+		etype = ENULL;
+		time = -1L;
+		endWaitingTime = -1.0;
+		entSrc = -1;
+		entDst = -1;
+		tag = -1;
+		data = null;
+		serial = -1;
+		sequence = -1;
+		queueIndex = -1;
+		pending = false;
+		previousIndexed = null;
+		nextIndexed = null;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	long getSerial() {
+		return serial;
+	}
+
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	long getSequence() {
+		return sequence;
+	}
+
+	void setQueueIndex(int queueIndex) {
+		this.queueIndex = queueIndex;
+	}
+
+	int getQueueIndex() {
+		return queueIndex;
+	}
+
+	void setPending(boolean pending) {
+		this.pending = pending;
+	}
+
+	boolean isPending() {
+		return pending;
+	}
+
+	void setPreviousIndexed(SimEvent previousIndexed) {
+		this.previousIndexed = previousIndexed;
+	}
+
+	SimEvent getPreviousIndexed() {
+		return previousIndexed;
+	}
+
+	void setNextIndexed(SimEvent nextIndexed) {
+		this.nextIndexed = nextIndexed;
+	}
+
+	SimEvent getNextIndexed() {
+		return nextIndexed;
+	}
+
 	/**
 	 * Sets the time that the event was removed from the queue to start service. 
 	 * 
@@ -0,0 +1,1351 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * Simulation holds the state of a simulation: the clock, the entities and the event queues. The
+ * static methods of {@link CloudSim} work over the simulation of the calling thread, returned by
+ * {@link #current()}, so several simulations can run at the same time in a single JVM, one per
+ * thread.
+ * <p>
+ * Threads that are not running a simulation with {@link #execute(Runnable)} or
+ * {@link #call(Callable)} share a default simulation, so stand alone simulations, which just call
+ * the methods of {@link CloudSim}, work as before. To run independent simulations in parallel,
+ * each one has to be created, set up and started inside the task given to one of these methods:
+ *
+ * <pre>
+ * new Simulation().execute(new Runnable() {
+ * 	public void run() {
+ * 		CloudSim.init(1, null, false);
+ * 		// create the datacenters, brokers, VMs and cloudlets
+ * 		CloudSim.startSimulation();
+ * 	}
+ * });
+ * </pre>
+ *
+ * The objects of a simulation, such as its entities, must not be shared with other simulations.
+ * Classes that keep global state through static members use {@link SimulationLocal} variables to
+ * have a copy of such state for each simulation.
+ * <p>
+ * A single simulation can also use several threads: see {@link CloudSim#setParallelism(int)}.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see CloudSim
+ * @see SimulationLocal
+ */
+public class Simulation {
+
+	/** The simulation used by the threads that are not running any other simulation. */
+	private static final Simulation defaultSimulation = new Simulation();
+
+	/** The simulation run by each thread, if it is not the default one. */
+	private static final ThreadLocal<Simulation> currentSimulation = new ThreadLocal<Simulation>();
+
+	/**
+	 * Indicates if any thread has ever run a simulation other than the default one. While it is
+	 * false, the default simulation is returned without looking up the thread local.
+	 */
+	private static volatile boolean contextsUsed = false;
+
+	/** The Constant CLOUDSIM_VERSION_STRING. */
+	private static final String CLOUDSIM_VERSION_STRING = "3.0";
+
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
+
+	/** Stands for the null value of a {@link SimulationLocal} variable that has been set. */
+	private static final Object NULL = new Object();
+
+	/** The maximum number of processed events kept to be reused. */
+	private static final int EVENT_POOL_CAPACITY = 1024;
+
+	/** The id of CIS entity. */
+	private int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	@SuppressWarnings("unused")
+	private int shutdownId = -1;
+
+	/** The CIS object. */
+	private CloudInformationService cis = null;
+
+	/** The trace flag. */
+	@SuppressWarnings("unused")
+	private boolean traceFlag = false;
+
+	/** The calendar. */
+	private Calendar calendar = null;
+
+	/** The termination time. */
+	private double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	private double minTimeBetweenEvents = 0.01;
+
+	/** The entities. */
+	private List<SimEntity> entities;
+
+	/** The future event queue. */
+	private FutureQueue future;
+
+	/** The deferred event queue. */
+	private DeferredQueue deferred;
+
+	/**
+	 * The events taken from the future queue to be processed in the current clock tick. The list is
+	 * reused by every tick.
+	 */
+	private final List<SimEvent> timeBucket = new ArrayList<SimEvent>();
+
+	/** The current simulation clock. */
+	private double clock;
+
+	/** Flag for checking if the simulation is running. */
+	private volatile boolean running;
+
+	/** The entities by name. */
+	private Map<String, SimEntity> entitiesByName;
+
+	/**
+	 * The predicates used in entity wait methods, by entity id. The entities waiting for any
+	 * event, or not waiting at all, have no predicate.
+	 */
+	private Predicate[] waitPredicates;
+
+	/** The paused. */
+	private volatile boolean paused = false;
+
+	/** The pause at. */
+	private long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	private boolean abruptTerminate = false;
+
+	/**
+	 * The values of the {@link SimulationLocal} variables, indexed by
+	 * {@link SimulationLocal#getIndex()}, or null for the variables that have not been set. The
+	 * array is copied on every change, so it can be read without locking.
+	 */
+	private volatile Object[] locals = new Object[0];
+
+	/** The number of threads used to run the simulation. */
+	private int parallelism = 1;
+
+	/**
+	 * The minimum delay of the events sent between partitions declared by the user, or a negative
+	 * number if it has to be derived from the network topology.
+	 */
+	private double lookahead = -1;
+
+	/** The partitions assigned by the user to the entities, by entity id. */
+	private Map<Integer, Integer> assignedPartitions = new HashMap<Integer, Integer>();
+
+	/** The partitions of the simulation while it runs in parallel, or null. */
+	private List<SimulationPartition> partitions;
+
+	/** The index in {@link #partitions} of the partition of each entity, by entity id. */
+	private int[] partitionOf;
+
+	/** Indicates if the events are reused once they have been processed. */
+	private boolean eventRecycling;
+
+	/** The processed events to reuse, while recycling events, or null. */
+	private SimEvent[] eventPool;
+
+	/** The number of events in {@link #eventPool}. */
+	private int pooledEvents;
+
+	/**
+	 * Instantiates a new simulation.
+	 */
+	public Simulation() {
+	}
+
+	/**
+	 * Instantiates a partition of a simulation that is going to run in parallel. The partition
+	 * shares the entities of the simulation, but has its own clock and event queues.
+	 *
+	 * @param simulation the simulation being partitioned
+	 */
+	Simulation(Simulation simulation) {
+		cisId = simulation.cisId;
+		shutdownId = simulation.shutdownId;
+		cis = simulation.cis;
+		calendar = simulation.calendar;
+		terminateAt = simulation.terminateAt;
+		minTimeBetweenEvents = simulation.minTimeBetweenEvents;
+		entities = simulation.entities;
+		entitiesByName = simulation.entitiesByName;
+		future = newFutureQueue(simulation.future);
+		deferred = new DeferredQueue();
+		setEventRecycling(simulation.eventRecycling);
+		waitPredicates = new Predicate[entities.size()];
+		clock = simulation.clock;
+		running = true;
+	}
+
+	/**
+	 * Gets the simulation of the calling thread.
+	 *
+	 * @return the simulation being run by the thread through {@link #execute(Runnable)} or
+	 *         {@link #call(Callable)}, or the default simulation if there is none
+	 */
+	public static Simulation current() {
+		if (contextsUsed) {
+			Simulation simulation = currentSimulation.get();
+			if (simulation != null) {
+				return simulation;
+			}
+		}
+		return defaultSimulation;
+	}
+
+	/**
+	 * Runs a task in the context of this simulation: while the task runs, the methods of
+	 * {@link CloudSim} called by the current thread work over this simulation. When the task
+	 * finishes, the thread goes back to the simulation it was running before.
+	 *
+	 * @param task the task that sets up and runs the simulation
+	 */
+	public void execute(Runnable task) {
+		Simulation previous = enter();
+		try {
+			task.run();
+		} finally {
+			exit(previous);
+		}
+	}
+
+	/**
+	 * Runs a task in the context of this simulation, returning its result.
+	 *
+	 * @param task the task that sets up and runs the simulation
+	 * @param <T> the type of the result
+	 * @return the result of the task
+	 * @throws Exception if the task throws an exception
+	 * @see #execute(Runnable)
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		Simulation previous = enter();
+		try {
+			return task.call();
+		} finally {
+			exit(previous);
+		}
+	}
+
+	/**
+	 * Makes this simulation the one of the current thread.
+	 *
+	 * @return the simulation that the thread was running before
+	 */
+	private Simulation enter() {
+		contextsUsed = true;
+		Simulation previous = currentSimulation.get();
+		currentSimulation.set(this);
+		return previous;
+	}
+
+	/**
+	 * Restores the simulation that the current thread was running before {@link #enter()}.
+	 *
+	 * @param previous the previous simulation, or null if it was the default one
+	 */
+	private void exit(Simulation previous) {
+		if (previous == null) {
+			currentSimulation.remove();
+		} else {
+			currentSimulation.set(previous);
+		}
+	}
+
+	/**
+	 * Gets the value of a simulation local variable in this simulation, setting it to its initial
+	 * value if it has never been set.
+	 *
+	 * @param local the variable
+	 * @param <T> the type of the value
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T getLocal(SimulationLocal<T> local) {
+		Object[] values = locals;
+		int index = local.getIndex();
+		Object value = index < values.length ? values[index] : null;
+		if (value == null) {
+			value = initLocal(local);
+		}
+		return value == NULL ? null : (T) value;
+	}
+
+	/**
+	 * Sets a simulation local variable to its initial value, unless another thread has already set
+	 * it.
+	 *
+	 * @param local the variable
+	 * @return the value of the variable
+	 */
+	private synchronized Object initLocal(SimulationLocal<?> local) {
+		int index = local.getIndex();
+		if (index >= locals.length || locals[index] == null) {
+			store(index, local.initialValue());
+		}
+		return locals[index];
+	}
+
+	/**
+	 * Sets the value of a simulation local variable in this simulation.
+	 *
+	 * @param local the variable
+	 * @param value the new value
+	 * @param <T> the type of the value
+	 */
+	<T> void setLocal(SimulationLocal<T> local, T value) {
+		store(local.getIndex(), value);
+	}
+
+	/**
+	 * Stores the value of a simulation local variable.
+	 *
+	 * @param index the index of the variable
+	 * @param value the new value
+	 */
+	private synchronized void store(int index, Object value) {
+		Object[] values = Arrays.copyOf(locals, Math.max(locals.length, index + 1));
+		values[index] = value == null ? NULL : value;
+		locals = values;
+	}
+
+	// ======== INITIALISATION AND CONTROL ===============//
+
+	/**
+	 * Initialises all the common attributes.
+	 *
+	 * @see CloudSim#init(int, Calendar, boolean)
+	 */
+	void init(int numUser, Calendar cal, boolean traceFlag) {
+		try {
+			initialize();
+			// NOTE: the order for the below 3 lines are important
+			this.traceFlag = traceFlag;
+
+			// Set the current Wall clock time as the starting time of
+			// simulation
+			if (cal == null) {
+				calendar = Calendar.getInstance();
+			} else {
+				calendar = cal;
+			}
+
+			// creates a CloudSimShutdown object
+			CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
+			shutdownId = shutdown.getId();
+
+			// create a GIS object
+			cis = new CloudInformationService("CloudInformationService");
+
+			// set all the above entity IDs
+			cisId = cis.getId();
+		} catch (IllegalArgumentException s) {
+			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.printLine(s.getMessage());
+		} catch (Exception e) {
+			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+			Log.printLine(e.getMessage());
+		}
+	}
+
+	/**
+	 * @see CloudSim#init(int, Calendar, boolean, double)
+	 */
+	void setMinTimeBetweenEvents(double minTimeBetweenEvents) {
+		this.minTimeBetweenEvents = minTimeBetweenEvents;
+	}
+
+	/**
+	 * @see CloudSim#init(int, Calendar, boolean, FutureQueue)
+	 */
+	void setFutureQueue(FutureQueue futureQueue) {
+		futureQueue.clear();
+		future = futureQueue;
+	}
+
+	/**
+	 * @see CloudSim#startSimulation()
+	 */
+	double startSimulation() throws NullPointerException {
+		Log.printConcatLine("Starting CloudSim version ", CLOUDSIM_VERSION_STRING);
+		try {
+			double clock = run();
+
+			// reset all the variables
+			cisId = -1;
+			shutdownId = -1;
+			cis = null;
+			calendar = null;
+			traceFlag = false;
+
+			return clock;
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			throw new NullPointerException("CloudSim.startCloudSimulation() :"
+					+ " Error - you haven't initialized CloudSim.");
+		}
+	}
+
+	/**
+	 * @see CloudSim#terminateSimulation()
+	 */
+	boolean terminateSimulation() {
+		running = false;
+		printMessage("Simulation: Reached termination time.");
+		return true;
+	}
+
+	/**
+	 * @see CloudSim#terminateSimulation(double)
+	 */
+	boolean terminateSimulation(double time) {
+		if (time <= clock) {
+			return false;
+		} else {
+			terminateAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * @see CloudSim#getMinTimeBetweenEvents()
+	 */
+	double getMinTimeBetweenEvents() {
+		return minTimeBetweenEvents;
+	}
+
+	/**
+	 * @see CloudSim#getSimulationCalendar()
+	 */
+	Calendar getSimulationCalendar() {
+		// make a new copy
+		Calendar clone = calendar;
+		if (calendar != null) {
+			clone = (Calendar) calendar.clone();
+		}
+
+		return clone;
+	}
+
+	/**
+	 * @see CloudSim#getCloudInfoServiceEntityId()
+	 */
+	int getCloudInfoServiceEntityId() {
+		return cisId;
+	}
+
+	/**
+	 * @see CloudSim#getCloudResourceList()
+	 */
+	List<Integer> getCloudResourceList() {
+		if (cis == null) {
+			return null;
+		}
+
+		return cis.getList();
+	}
+
+	// ======== SIMULATION METHODS ===============//
+
+	/**
+	 * @see CloudSim#initialize()
+	 */
+	void initialize() {
+		Log.printLine("Initialising...");
+		entities = new ArrayList<SimEntity>();
+		entitiesByName = new LinkedHashMap<String, SimEntity>();
+		future = new FutureQueueTreeSet();
+		deferred = new DeferredQueue();
+		waitPredicates = new Predicate[0];
+		clock = 0;
+		running = false;
+		parallelism = 1;
+		lookahead = -1;
+		assignedPartitions = new HashMap<Integer, Integer>();
+		setEventRecycling(false);
+	}
+
+	/**
+	 * Gets the current simulation time. Unlike the other methods, it can be called from any
+	 * thread, for instance to monitor the progress of the simulation, although the value may be
+	 * slightly out of date.
+	 *
+	 * @return the simulation time
+	 * @see CloudSim#clock()
+	 */
+	public double clock() {
+		return clock;
+	}
+
+	/**
+	 * @see CloudSim#getNumEntities()
+	 */
+	int getNumEntities() {
+		return entities.size();
+	}
+
+	/**
+	 * @see CloudSim#getEntity(int)
+	 */
+	SimEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * @see CloudSim#getEntity(String)
+	 */
+	SimEntity getEntity(String name) {
+		return entitiesByName.get(name);
+	}
+
+	/**
+	 * @see CloudSim#getEntityId(String)
+	 */
+	int getEntityId(String name) {
+		SimEntity obj = entitiesByName.get(name);
+		if (obj == null) {
+			return NOT_FOUND;
+		} else {
+			return obj.getId();
+		}
+	}
+
+	/**
+	 * @see CloudSim#getEntityList()
+	 */
+	List<SimEntity> getEntityList() {
+		// create a new list to prevent the user from changing
+		// the list of entities used by Simulation
+		List<SimEntity> list = new LinkedList<SimEntity>();
+		list.addAll(entities);
+		return list;
+	}
+
+	/**
+	 * @see CloudSim#addEntity(SimEntity)
+	 */
+	void addEntity(SimEntity e) {
+		SimEvent evt;
+		if (running) {
+			// Post an event to make this entity
+			evt = newEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
+			future.addEvent(evt);
+		}
+		if (e.getId() == -1) { // Only add once!
+			int id = entities.size();
+			e.setId(id);
+			entities.add(e);
+			entitiesByName.put(e.getName(), e);
+		}
+	}
+
+	/**
+	 * @see CloudSim#addEntityDynamically(SimEntity)
+	 */
+	void addEntityDynamically(SimEntity e) {
+		if (e == null) {
+			throw new IllegalArgumentException("Adding null entity.");
+		} else {
+			printMessage("Adding: " + e.getName());
+		}
+		e.startEntity();
+	}
+
+	/**
+	 * @see CloudSim#runClockTick()
+	 */
+	boolean runClockTick() {
+		boolean queue_empty;
+
+		runEntities();
+
+		// If there are more future events then deal with them
+		if (future.size() > 0) {
+			queue_empty = false;
+			runTimeBucket();
+		} else {
+			queue_empty = true;
+			running = false;
+			printMessage(clock + ": Simulation: No more future events");
+		}
+
+		return queue_empty;
+	}
+
+	/**
+	 * Runs the entities that are runnable, so they process their events.
+	 */
+	void runEntities() {
+		SimEntity ent;
+		int entities_size = entities.size();
+
+		for (int i = 0; i < entities_size; i++) {
+			ent = entities.get(i);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				ent.run();
+			}
+		}
+	}
+
+	/**
+	 * Takes all the events happening at the first time of the future queue at once and processes
+	 * them, moving the clock to that time.
+	 */
+	void runTimeBucket() {
+		timeBucket.clear();
+		future.pollFirstTimeBucket(timeBucket);
+		for (int i = 0; i < timeBucket.size(); i++) {
+			SimEvent e = timeBucket.get(i);
+			processEvent(e);
+			// the events sent to entities are recycled once the entities process them
+			if (e.getType() != SimEvent.SEND) {
+				recycle(e);
+			}
+		}
+	}
+
+	/**
+	 * Runs clock ticks while the first future event is inside a window of time. The entities are
+	 * run before each tick and once more after the last one.
+	 *
+	 * @param end the end of the window
+	 * @param inclusive true if the events happening at the end of the window belong to it
+	 */
+	void runWindow(double end, boolean inclusive) {
+		while (true) {
+			runEntities();
+			double time = nextEventTime();
+			if (time > end || time == end && !inclusive) {
+				return;
+			}
+			runTimeBucket();
+		}
+	}
+
+	/**
+	 * Gets the time of the first future event.
+	 *
+	 * @return the time, or positive infinity if there are no future events
+	 */
+	double nextEventTime() {
+		return future.size() > 0 ? future.first().eventTime() : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Moves the clock, when running as a partition of a parallel simulation, to the time where
+	 * the whole simulation is.
+	 *
+	 * @param time the time
+	 */
+	void setClock(double time) {
+		clock = time;
+	}
+
+	/**
+	 * @see CloudSim#runStop()
+	 */
+	void runStop() {
+		printMessage("Simulation completed.");
+	}
+
+	/**
+	 * @see CloudSim#hold(int, long)
+	 */
+	void hold(int src, long delay) {
+		SimEvent e = newEvent(SimEvent.HOLD_DONE, clock + delay, src, -1, -1, null);
+		future.addEvent(e);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	/**
+	 * @see CloudSim#pause(int, double)
+	 */
+	void pause(int src, double delay) {
+		SimEvent e = newEvent(SimEvent.HOLD_DONE, clock + delay, src, -1, -1, null);
+		future.addEvent(e);
+		entities.get(src).setState(SimEntity.HOLDING);
+	}
+
+	/**
+	 * @see CloudSim#send(int, int, double, int, Object)
+	 */
+	void send(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if(delay >= Double.MAX_VALUE) {
+			throw new RuntimeException("Send delay can't be infinite.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
+		enqueue(e, false);
+	}
+
+	/**
+	 * @see CloudSim#sendFirst(int, int, double, int, Object)
+	 */
+	void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
+		enqueue(e, true);
+	}
+
+	/**
+	 * Creates an event, reusing a processed one if there is any.
+	 *
+	 * @return the event
+	 */
+	private SimEvent newEvent(int evtype, double time, int src, int dest, int tag, Object data) {
+		if (pooledEvents == 0) {
+			return new SimEvent(evtype, time, src, dest, tag, data);
+		}
+		SimEvent e = eventPool[--pooledEvents];
+		eventPool[pooledEvents] = null;
+		e.reset(evtype, time, src, dest, tag, data);
+		return e;
+	}
+
+	/**
+	 * Takes back an event that has been processed, to reuse it if recycling events. Neither the
+	 * kernel nor the entities may keep any reference to the event.
+	 *
+	 * @param e the event
+	 * @see CloudSim#setEventRecycling(boolean)
+	 */
+	void recycle(SimEvent e) {
+		if (eventRecycling && pooledEvents < EVENT_POOL_CAPACITY) {
+			e.clear();
+			eventPool[pooledEvents++] = e;
+		}
+	}
+
+	/**
+	 * @see CloudSim#setEventRecycling(boolean)
+	 */
+	void setEventRecycling(boolean eventRecycling) {
+		this.eventRecycling = eventRecycling;
+		eventPool = eventRecycling ? new SimEvent[EVENT_POOL_CAPACITY] : null;
+		pooledEvents = 0;
+	}
+
+	/**
+	 * Adds an event sent from an entity to another one to the future queue.
+	 *
+	 * @param e the event
+	 * @param first true if the event has been sent with priority, through
+	 *            {@link #sendFirst(int, int, double, int, Object)}
+	 */
+	void enqueue(SimEvent e, boolean first) {
+		if (first) {
+			future.addEventFirst(e);
+		} else {
+			future.addEvent(e);
+		}
+	}
+
+	/**
+	 * @see CloudSim#wait(int, Predicate)
+	 */
+	void wait(int src, Predicate p) {
+		entities.get(src).setState(SimEntity.WAITING);
+		if (p != CloudSim.SIM_ANY) {
+			// If a predicate has been used store it in order to check it
+			if (src >= waitPredicates.length) {
+				waitPredicates = Arrays.copyOf(waitPredicates, Math.max(src + 1, entities.size()));
+			}
+			waitPredicates[src] = p;
+		}
+	}
+
+	/**
+	 * @see CloudSim#waiting(int, Predicate)
+	 */
+	int waiting(int d, Predicate p) {
+		return deferred.count(d, p);
+	}
+
+	/**
+	 * @see CloudSim#select(int, Predicate)
+	 */
+	SimEvent select(int src, Predicate p) {
+		return deferred.removeFirst(src, p);
+	}
+
+	/**
+	 * @see CloudSim#findFirstDeferred(int, Predicate)
+	 */
+	SimEvent findFirstDeferred(int src, Predicate p) {
+		return deferred.findFirst(src, p);
+	}
+
+	/**
+	 * @see CloudSim#cancel(int, Predicate)
+	 */
+	SimEvent cancel(int src, Predicate p) {
+		return future.removeFirst(src, p);
+	}
+
+	/**
+	 * @see CloudSim#cancelAll(int, Predicate)
+	 */
+	boolean cancelAll(int src, Predicate p) {
+		return future.removeAll(src, p) > 0;
+	}
+
+	/**
+	 * Processes an event.
+	 *
+	 * @param e the e
+	 */
+	private void processEvent(SimEvent e) {
+		int dest, src;
+		SimEntity dest_ent;
+		// Update the system's clock
+		if (e.eventTime() < clock) {
+			throw new IllegalArgumentException("Past event detected.");
+		}
+		clock = e.eventTime();
+
+		// Ok now process it
+		switch (e.getType()) {
+			case SimEvent.ENULL:
+				throw new IllegalArgumentException("Event has a null type.");
+
+			case SimEvent.CREATE:
+				SimEntity newe = (SimEntity) e.getData();
+				addEntityDynamically(newe);
+				break;
+
+			case SimEvent.SEND:
+				// Check for matching wait
+				dest = e.getDestination();
+				if (dest < 0) {
+					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
+				} else {
+					int tag = e.getTag();
+					dest_ent = entities.get(dest);
+					if (dest_ent.getState() == SimEntity.WAITING) {
+						Predicate p = dest < waitPredicates.length ? waitPredicates[dest] : null;
+						if ((p == null) || (tag == 9999) || (p.match(e))) {
+							// the event has left the future queue, so it is handed over as is
+							dest_ent.setEventBuffer(e);
+							dest_ent.setState(SimEntity.RUNNABLE);
+							if (p != null) {
+								waitPredicates[dest] = null;
+							}
+						} else {
+							deferred.addEvent(e);
+						}
+					} else {
+						deferred.addEvent(e);
+					}
+				}
+				break;
+
+			case SimEvent.HOLD_DONE:
+				src = e.getSource();
+				if (src < 0) {
+					throw new IllegalArgumentException("Null entity holding.");
+				} else {
+					entities.get(src).setState(SimEntity.RUNNABLE);
+				}
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * @see CloudSim#runStart()
+	 */
+	void runStart() {
+		running = true;
+		// Start all the entities
+		for (SimEntity ent : entities) {
+			ent.startEntity();
+		}
+
+		printMessage("Entities started.");
+	}
+
+	/**
+	 * Checks if the simulation is still running.
+	 *
+	 * @return if the simulation is still running, otherwise
+	 * @see CloudSim#running()
+	 */
+	public boolean running() {
+		return running;
+	}
+
+	/**
+	 * Pauses the simulation. It can be called from any thread.
+	 *
+	 * @return true, if successful otherwise.
+	 * @see CloudSim#pauseSimulation()
+	 */
+	public boolean pauseSimulation() {
+		paused = true;
+		return paused;
+	}
+
+	/**
+	 * @see CloudSim#pauseSimulation(long)
+	 */
+	boolean pauseSimulation(long time) {
+		if (time <= clock) {
+			return false;
+		} else {
+			pauseAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * Resumes the simulation that has previously been paused. It can be called from any thread.
+	 *
+	 * @return if the simulation has been restarted or or otherwise.
+	 * @see CloudSim#resumeSimulation()
+	 */
+	public boolean resumeSimulation() {
+		paused = false;
+
+		if (pauseAt <= clock) {
+			pauseAt = -1;
+		}
+
+		return !paused;
+	}
+
+	/**
+	 * @see CloudSim#run()
+	 */
+	double run() {
+		if (!running) {
+			runStart();
+		}
+		if (parallelism > 1) {
+			partitions = createPartitions();
+			if (partitions.size() == 1) {
+				partitions = null;
+			}
+		}
+		if (partitions != null) {
+			runParallel();
+		} else {
+			runSequential();
+		}
+
+		double clock = clock();
+
+		finishSimulation();
+		runStop();
+
+		return clock;
+	}
+
+	/**
+	 * Runs the simulation in the current thread, one clock tick after the other.
+	 */
+	private void runSequential() {
+		while (true) {
+			if (runClockTick() || abruptTerminate) {
+				break;
+			}
+
+			// this block allows termination of simulation at a specific time
+			if (terminateAt > 0.0 && clock >= terminateAt) {
+				terminateSimulation();
+				clock = terminateAt;
+				break;
+			}
+
+			if (pauseAt != -1
+					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.first().eventTime())
+							|| future.size() == 0 && pauseAt <= clock)) {
+				pauseSimulation();
+				clock = pauseAt;
+			}
+
+			waitWhilePaused();
+		}
+	}
+
+	/**
+	 * Waits, checking every 100 ms, until the simulation is resumed if it is paused.
+	 */
+	private void waitWhilePaused() {
+		while (paused) {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * @see CloudSim#finishSimulation()
+	 */
+	void finishSimulation() {
+		if (partitions != null) {
+			for (SimulationPartition partition : partitions) {
+				partition.setClock(clock);
+			}
+		}
+
+		// Allow all entities to exit their body method
+		if (!abruptTerminate) {
+			for (SimEntity ent : entities) {
+				if (ent.getState() != SimEntity.FINISHED) {
+					finishEntity(ent, false);
+				}
+			}
+		}
+
+		for (SimEntity ent : entities) {
+			finishEntity(ent, true);
+		}
+
+		// reset all the variables
+		// Private data members
+		entities = null;
+		entitiesByName = null;
+		future = null;
+		deferred = null;
+		clock = 0L;
+		running = false;
+
+		waitPredicates = null;
+		paused = false;
+		pauseAt = -1;
+		abruptTerminate = false;
+		partitions = null;
+		partitionOf = null;
+	}
+
+	/**
+	 * Lets an entity process its remaining events or shuts it down, in the context of its
+	 * partition if the simulation has run in parallel.
+	 *
+	 * @param ent the entity
+	 * @param shutdown true to shut down the entity, false to run it
+	 */
+	private void finishEntity(final SimEntity ent, final boolean shutdown) {
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				if (shutdown) {
+					ent.shutdownEntity();
+				} else {
+					ent.run();
+				}
+			}
+
+		};
+		if (partitions == null || ent.getId() >= partitionOf.length) {
+			task.run();
+		} else {
+			partitions.get(partitionOf[ent.getId()]).execute(task);
+		}
+	}
+
+	// ======== PARALLEL EXECUTION ===============//
+
+	/**
+	 * @see CloudSim#setParallelism(int)
+	 */
+	void setParallelism(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive.");
+		}
+		parallelism = threads;
+	}
+
+	/**
+	 * @see CloudSim#setPartition(int, int)
+	 */
+	void setPartition(int entityId, int partition) {
+		assignedPartitions.put(entityId, partition);
+	}
+
+	/**
+	 * @see CloudSim#setLookahead(double)
+	 */
+	void setLookahead(double lookahead) {
+		this.lookahead = lookahead;
+	}
+
+	/**
+	 * Splits the entities into partitions. The entities go to the partitions assigned through
+	 * {@link #setPartition(int, int)}, or to the first partition if they have none assigned. If
+	 * no partition has been assigned at all, each {@link Datacenter} goes to a partition of its
+	 * own. The partitions are numbered in the order of their first entity.
+	 *
+	 * @return the partitions
+	 */
+	private List<SimulationPartition> createPartitions() {
+		partitionOf = new int[entities.size()];
+		Map<Integer, Integer> indexes = new HashMap<Integer, Integer>();
+		int datacenters = 0;
+		for (SimEntity ent : entities) {
+			Integer label = assignedPartitions.get(ent.getId());
+			if (label == null) {
+				label = 0;
+				if (assignedPartitions.isEmpty() && ent instanceof Datacenter) {
+					label = ++datacenters;
+				}
+			}
+			Integer index = indexes.get(label);
+			if (index == null) {
+				index = indexes.size();
+				indexes.put(label, index);
+			}
+			partitionOf[ent.getId()] = index;
+		}
+
+		double partitionLookahead = lookahead >= 0 ? lookahead : getTopologyLookahead();
+		List<SimulationPartition> result = new ArrayList<SimulationPartition>(indexes.size());
+		for (int i = 0; i < indexes.size(); i++) {
+			result.add(new SimulationPartition(this, i, partitionOf, partitionLookahead));
+		}
+		for (SimEntity ent : entities) {
+			result.get(partitionOf[ent.getId()]).addMember(ent);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the lookahead given by the network topology: the minimum delay between two entities
+	 * in different partitions.
+	 *
+	 * @return the lookahead, 0 if the network is not enabled
+	 */
+	private double getTopologyLookahead() {
+		if (!NetworkTopology.isNetworkEnabled()) {
+			return 0;
+		}
+		double min = Double.POSITIVE_INFINITY;
+		for (int src = 0; src < partitionOf.length && min > 0; src++) {
+			for (int dest = 0; dest < partitionOf.length; dest++) {
+				if (partitionOf[src] != partitionOf[dest]) {
+					min = Math.min(min, NetworkTopology.getDelay(src, dest));
+				}
+			}
+		}
+		return min == Double.POSITIVE_INFINITY ? 0 : min;
+	}
+
+	/**
+	 * Runs the simulation in parallel, following a conservative synchronisation protocol. The
+	 * simulation advances in windows of time that start at the time of the first future event of
+	 * all partitions and last as long as the lookahead, or just that time if the lookahead is 0.
+	 * Since the events sent between partitions can't happen before the end of the window, the
+	 * partitions run the events of the window at the same time, each one in a thread of its own.
+	 * At the end of the window, the events sent between partitions are delivered, in the order of
+	 * the partitions, so the simulation is deterministic. The simulation pauses between windows,
+	 * which end before the time given to {@link #pauseSimulation(long)}.
+	 */
+	private void runParallel() {
+		// The events sent while starting the entities
+		while (future.size() > 0) {
+			SimEvent e = future.pollFirst();
+			int owner = e.getType() == SimEvent.CREATE ? ((SimEntity) e.getData()).getId()
+					: e.getType() == SimEvent.HOLD_DONE ? e.getSource() : e.getDestination();
+			partitions.get(partitionOf[owner]).deliver(e, false);
+		}
+
+		double windowLength = partitions.get(0).getLookahead();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, partitions.size()));
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		try {
+			while (true) {
+				double next = Double.POSITIVE_INFINITY;
+				for (SimulationPartition partition : partitions) {
+					next = Math.min(next, partition.nextEventTime());
+				}
+				if (next == Double.POSITIVE_INFINITY) {
+					running = false;
+					printMessage(clock + ": Simulation: No more future events");
+					break;
+				}
+
+				// As in a sequential run, the simulation pauses before the first events after the
+				// pause time, with the clock at that time
+				if (pauseAt != -1 && clock <= pauseAt && pauseAt <= next) {
+					pauseSimulation();
+					clock = pauseAt;
+					pauseAt = -1;
+					waitWhilePaused();
+				}
+
+				// The first events at or after the termination time are processed, but the
+				// entities don't run anymore
+				final boolean last = terminateAt > 0.0 && next >= terminateAt;
+				final double end;
+				final boolean inclusive;
+				if (last || windowLength == 0) {
+					end = next;
+					inclusive = true;
+				} else {
+					double windowEnd = next + windowLength;
+					if (terminateAt > 0.0) {
+						windowEnd = Math.min(windowEnd, terminateAt);
+					}
+					if (pauseAt != -1 && pauseAt > next) {
+						// the window stops before the pause time, where the simulation pauses
+						windowEnd = Math.min(windowEnd, pauseAt);
+					}
+					end = windowEnd;
+					inclusive = false;
+				}
+
+				tasks.clear();
+				for (final SimulationPartition partition : partitions) {
+					double time = partition.nextEventTime();
+					if (time < end || time == end && inclusive) {
+						tasks.add(new Callable<Void>() {
+
+							@Override
+							public Void call() {
+								partition.runWindow(end, inclusive, last);
+								return null;
+							}
+
+						});
+					}
+				}
+				invokeAll(executor, tasks);
+
+				for (SimulationPartition partition : partitions) {
+					partition.deliverOutbox(partitions);
+					clock = Math.max(clock, partition.clock());
+				}
+
+				if (last) {
+					terminateSimulation();
+					clock = terminateAt;
+					break;
+				}
+				if (abruptTerminate) {
+					break;
+				}
+				waitWhilePaused();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs the tasks of a window, in the current thread if there is only one.
+	 *
+	 * @param executor the executor
+	 * @param tasks the tasks
+	 */
+	private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) {
+		try {
+			if (tasks.size() == 1) {
+				tasks.get(0).call();
+				return;
+			}
+			for (Future<Void> result : executor.invokeAll(tasks)) {
+				result.get();
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while running the simulation in parallel.", e);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates an empty future queue of the same class as a given one.
+	 *
+	 * @param queue the queue
+	 * @return the new queue, or a {@link FutureQueueTreeSet} if the class of the queue can't be
+	 *         instantiated
+	 */
+	private static FutureQueue newFutureQueue(FutureQueue queue) {
+		try {
+			return queue.getClass().getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			return new FutureQueueTreeSet();
+		}
+	}
+
+	/**
+	 * @see CloudSim#abruptallyTerminate()
+	 */
+	void abruptallyTerminate() {
+		abruptTerminate = true;
+	}
+
+	/**
+	 * Prints a message about the progress of the simulation.
+	 *
+	 * @param message the message
+	 */
+	private void printMessage(String message) {
+		Log.printLine(message);
+	}
+
+	/**
+	 * Checks if the simulation is paused.
+	 *
+	 * @return true, if is paused
+	 * @see CloudSim#isPaused()
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+}
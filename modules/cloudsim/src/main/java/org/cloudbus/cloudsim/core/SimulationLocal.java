@@ -0,0 +1,69 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A variable that has an independent value for each {@link Simulation}, just like a
+ * {@link ThreadLocal} has one for each thread. It is used by the classes that keep global state
+ * through static members, such as {@link org.cloudbus.cloudsim.Log}, so that simulations running
+ * at the same time in different threads don't share that state. The value seen by a thread is the
+ * one of the simulation returned by {@link Simulation#current()}.
+ *
+ * @param <T> the type of the value
+ * @since CloudSim Toolkit 4.0
+ * @see Simulation
+ */
+public class SimulationLocal<T> {
+
+	/** The number of simulation local variables created so far. */
+	private static final AtomicInteger count = new AtomicInteger();
+
+	/** The position of the value of this variable inside each simulation. */
+	private final int index = count.getAndIncrement();
+
+	/**
+	 * Gets the initial value of the variable in a simulation, called the first time the value is
+	 * read. The default implementation returns null.
+	 *
+	 * @return the initial value
+	 */
+	protected T initialValue() {
+		return null;
+	}
+
+	/**
+	 * Gets the value of the variable in the current simulation.
+	 *
+	 * @return the value
+	 */
+	public T get() {
+		return Simulation.current().getLocal(this);
+	}
+
+	/**
+	 * Sets the value of the variable in the current simulation.
+	 *
+	 * @param value the new value
+	 */
+	public void set(T value) {
+		Simulation.current().setLocal(this, value);
+	}
+
+	/**
+	 * Gets the position of the value of this variable inside each simulation.
+	 *
+	 * @return the index
+	 */
+	int getIndex() {
+		return index;
+	}
+
+}
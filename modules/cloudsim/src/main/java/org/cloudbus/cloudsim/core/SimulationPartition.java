@@ -0,0 +1,282 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * A partition of a simulation that runs in parallel: a group of entities that process their
+ * events in a thread of their own, with their own clock and event queues. The methods of
+ * {@link CloudSim} called by those entities work over the partition, which is the
+ * {@link Simulation#current() current simulation} of the thread running it. The rest of the
+ * state, such as the {@link SimulationLocal} variables or the termination flags, is the one of
+ * the partitioned simulation.
+ * <p>
+ * The events sent to entities of other partitions are kept in an outbox until the end of the
+ * window being run, when the partitioned simulation delivers them. Such events must not happen
+ * before the end of the window, that is, they must be sent with a delay of at least the
+ * lookahead.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see CloudSim#setParallelism(int)
+ */
+class SimulationPartition extends Simulation {
+
+	/** The partitioned simulation. */
+	private final Simulation simulation;
+
+	/** The index of the partition. */
+	private final int index;
+
+	/** The index of the partition of each entity, by entity id. */
+	private final int[] partitionOf;
+
+	/** The minimum delay of the events sent to other partitions. */
+	private final double lookahead;
+
+	/** The entities of the partition, sorted by id. */
+	private final List<SimEntity> members = new ArrayList<SimEntity>();
+
+	/** The events sent to other partitions during the current window. */
+	private final List<SimEvent> outbox = new ArrayList<SimEvent>();
+
+	/** The events sent with priority to other partitions during the current window. */
+	private final List<SimEvent> outboxFirst = new ArrayList<SimEvent>();
+
+	/**
+	 * The end of the window being run, before which the events sent to other partitions must not
+	 * happen, or negative infinity when no window is being run.
+	 */
+	private double windowEnd = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Instantiates a new partition.
+	 *
+	 * @param simulation the partitioned simulation
+	 * @param index the index of the partition
+	 * @param partitionOf the index of the partition of each entity, by entity id
+	 * @param lookahead the minimum delay of the events sent to other partitions
+	 */
+	SimulationPartition(Simulation simulation, int index, int[] partitionOf, double lookahead) {
+		super(simulation);
+		this.simulation = simulation;
+		this.index = index;
+		this.partitionOf = partitionOf;
+		this.lookahead = lookahead;
+	}
+
+	/**
+	 * Adds an entity to the partition. The entities must be added in the order of their ids.
+	 *
+	 * @param ent the entity
+	 */
+	void addMember(SimEntity ent) {
+		members.add(ent);
+	}
+
+	/**
+	 * Gets the minimum delay of the events sent to other partitions.
+	 *
+	 * @return the lookahead
+	 */
+	double getLookahead() {
+		return lookahead;
+	}
+
+	/**
+	 * Runs the events of a window of time in the context of this partition.
+	 *
+	 * @param end the end of the window
+	 * @param inclusive true if the events happening at the end of the window belong to it
+	 * @param last true if it is the last window of the simulation, when only the first time
+	 *            bucket is processed and the entities are not run
+	 */
+	void runWindow(final double end, final boolean inclusive, final boolean last) {
+		windowEnd = inclusive ? Double.NEGATIVE_INFINITY : end;
+		execute(new Runnable() {
+
+			@Override
+			public void run() {
+				if (last) {
+					runTimeBucket();
+				} else {
+					runWindow(end, inclusive);
+				}
+			}
+
+		});
+		windowEnd = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Adds an event coming from another partition to the future queue.
+	 *
+	 * @param e the event
+	 * @param first true if the event has been sent with priority
+	 */
+	void deliver(SimEvent e, boolean first) {
+		super.enqueue(e, first);
+	}
+
+	/**
+	 * Delivers the events sent to other partitions during the last window and empties the
+	 * outbox.
+	 *
+	 * @param partitions all the partitions, by index
+	 */
+	void deliverOutbox(List<SimulationPartition> partitions) {
+		for (SimEvent e : outboxFirst) {
+			partitions.get(partitionOf[e.getDestination()]).deliver(e, true);
+		}
+		for (SimEvent e : outbox) {
+			partitions.get(partitionOf[e.getDestination()]).deliver(e, false);
+		}
+		outboxFirst.clear();
+		outbox.clear();
+	}
+
+	@Override
+	void runEntities() {
+		for (int i = 0; i < members.size(); i++) {
+			SimEntity ent = members.get(i);
+			if (ent.getState() == SimEntity.RUNNABLE) {
+				ent.run();
+			}
+		}
+	}
+
+	@Override
+	void enqueue(SimEvent e, boolean first) {
+		int dest = e.getDestination();
+		if (dest < 0 || dest >= partitionOf.length || partitionOf[dest] == index) {
+			super.enqueue(e, first);
+			return;
+		}
+		if (e.eventTime() < windowEnd) {
+			throw new IllegalStateException("The event sent from " + CloudSim.getEntityName(e.getSource())
+					+ " to " + CloudSim.getEntityName(dest) + " at " + clock() + " happens at "
+					+ e.eventTime() + ", before the lookahead of the parallel simulation (" + lookahead
+					+ ") has passed.");
+		}
+		if (first) {
+			outboxFirst.add(e);
+		} else {
+			outbox.add(e);
+		}
+	}
+
+	/**
+	 * Cancels the first event sent by an entity that matches a predicate. The events in the
+	 * future queue of the partition are looked up first, followed by the events sent to other
+	 * partitions that have not been delivered yet.
+	 */
+	@Override
+	SimEvent cancel(int src, Predicate p) {
+		SimEvent e = super.cancel(src, p);
+		if (e == null) {
+			e = removeFromOutbox(outboxFirst, src, p, false);
+		}
+		if (e == null) {
+			e = removeFromOutbox(outbox, src, p, false);
+		}
+		return e;
+	}
+
+	@Override
+	boolean cancelAll(int src, Predicate p) {
+		boolean cancelled = super.cancelAll(src, p);
+		cancelled |= removeFromOutbox(outboxFirst, src, p, true) != null;
+		cancelled |= removeFromOutbox(outbox, src, p, true) != null;
+		return cancelled;
+	}
+
+	/**
+	 * Removes the events of an outbox sent by an entity that match a predicate.
+	 *
+	 * @param events the outbox
+	 * @param src the id of the entity
+	 * @param p the predicate
+	 * @param all true to remove all the matching events, false to remove only the first one
+	 * @return the last event removed, or null if there was none
+	 */
+	private static SimEvent removeFromOutbox(List<SimEvent> events, int src, Predicate p, boolean all) {
+		SimEvent removed = null;
+		for (Iterator<SimEvent> it = events.iterator(); it.hasNext();) {
+			SimEvent e = it.next();
+			if (e.getSource() == src && p.match(e)) {
+				it.remove();
+				removed = e;
+				if (!all) {
+					break;
+				}
+			}
+		}
+		return removed;
+	}
+
+	@Override
+	void addEntity(SimEntity e) {
+		throw new IllegalStateException("Entities can't be added while the simulation runs in parallel.");
+	}
+
+	@Override
+	<T> T getLocal(SimulationLocal<T> local) {
+		return simulation.getLocal(local);
+	}
+
+	@Override
+	<T> void setLocal(SimulationLocal<T> local, T value) {
+		simulation.setLocal(local, value);
+	}
+
+	@Override
+	public boolean running() {
+		return simulation.running();
+	}
+
+	@Override
+	boolean terminateSimulation() {
+		return simulation.terminateSimulation();
+	}
+
+	@Override
+	boolean terminateSimulation(double time) {
+		return simulation.terminateSimulation(time);
+	}
+
+	@Override
+	void abruptallyTerminate() {
+		simulation.abruptallyTerminate();
+	}
+
+	@Override
+	public boolean pauseSimulation() {
+		return simulation.pauseSimulation();
+	}
+
+	@Override
+	boolean pauseSimulation(long time) {
+		return simulation.pauseSimulation(time);
+	}
+
+	@Override
+	public boolean resumeSimulation() {
+		return simulation.resumeSimulation();
+	}
+
+	@Override
+	public boolean isPaused() {
+		return simulation.isPaused();
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * HashedList is an array list that also counts its elements in a hash map, so checking if the
+ * list contains an element takes constant time. It is used by the VM schedulers to keep the uids
+ * of the VMs migrating in and out of a host, which are checked for every VM the scheduler
+ * allocates.
+ *
+ * @param <E> the type of the elements
+ * @since CloudSim Toolkit 4.0
+ */
+public class HashedList<E> extends AbstractList<E> implements RandomAccess {
+
+	/** The elements, in order. */
+	private final List<E> list = new ArrayList<E>();
+
+	/** The number of occurrences of each element. */
+	private final Map<Object, Integer> counts = new HashMap<Object, Integer>();
+
+	@Override
+	public E get(int index) {
+		return list.get(index);
+	}
+
+	@Override
+	public int size() {
+		return list.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return counts.containsKey(o);
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return contains(o) ? list.indexOf(o) : -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return contains(o) ? list.lastIndexOf(o) : -1;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		E previous = list.set(index, element);
+		uncount(previous);
+		count(element);
+		return previous;
+	}
+
+	@Override
+	public void add(int index, E element) {
+		list.add(index, element);
+		count(element);
+		modCount++;
+	}
+
+	@Override
+	public E remove(int index) {
+		E element = list.remove(index);
+		uncount(element);
+		modCount++;
+		return element;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		list.clear();
+		counts.clear();
+		modCount++;
+	}
+
+	/**
+	 * Counts an element just added to the list.
+	 *
+	 * @param element the element
+	 */
+	private void count(E element) {
+		Integer count = counts.get(element);
+		counts.put(element, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Uncounts an element just removed from the list.
+	 *
+	 * @param element the element
+	 */
+	private void uncount(E element) {
+		int count = counts.get(element);
+		if (count == 1) {
+			counts.remove(element);
+		} else {
+			counts.put(element, count - 1);
+		}
+	}
+
+}
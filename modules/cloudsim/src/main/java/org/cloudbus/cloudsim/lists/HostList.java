@@ -9,6 +9,7 @@
 package org.cloudbus.cloudsim.lists;
 
 import java.util.List;
+import java.util.RandomAccess;
 
 import org.cloudbus.cloudsim.Host;
 
@@ -32,6 +33,11 @@ public class HostList {
 	 * @post $none
 	 */
 	public static <T extends Host> T getById(List<T> hostList, int id) {
+		// hosts are usually numbered by their position, so it is checked first
+		if (hostList instanceof RandomAccess && id >= 0 && id < hostList.size()
+				&& hostList.get(id).getId() == id) {
+			return hostList.get(id);
+		}
 		for (T host : hostList) {
 			if (host.getId() == id) {
 				return host;
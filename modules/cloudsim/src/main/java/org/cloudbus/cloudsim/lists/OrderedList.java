@@ -0,0 +1,207 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * OrderedList is an array list that knows the relative order of its elements in constant time,
+ * used by hosts and VMs to keep the VMs and containers that a datacenter visits in order. The
+ * {@link #getOrder(Object) order} of an element is a number that, unlike its index, doesn't
+ * change when other elements are removed, so sorting elements by order sorts them as in the list
+ * without searching it.
+ * <p>
+ * Elements are compared by identity. Inserting an element other than at the end, replacing
+ * several elements or adding an element twice makes the next lookup renumber the elements, in
+ * linear time, or search the list while the element is in it twice.
+ *
+ * @param <T> the type of the elements
+ * @since CloudSim Toolkit 4.0
+ */
+public class OrderedList<T> extends AbstractList<T> implements RandomAccess {
+
+	/** The elements, in order. */
+	private final List<T> list = new ArrayList<T>();
+
+	/** The order of each element. */
+	private final Map<T, Integer> orders = new IdentityHashMap<T, Integer>();
+
+	/** The order of the next element added at the end. */
+	private int nextOrder;
+
+	/** Tells whether {@link #orders} has to be rebuilt from the list. */
+	private boolean ordersStale;
+
+	/**
+	 * Gets the order of an element, that is, a number that is smaller than the orders of the
+	 * elements after it in the list and greater than the ones before it.
+	 *
+	 * @param o the element
+	 * @return the order of the element, or -1 if it is not in the list
+	 */
+	public int getOrder(Object o) {
+		if (ordersStale && !reorder()) {
+			// the element may be in the list twice, as indexOf finds the first one
+			return list.indexOf(o);
+		}
+		Integer order = orders.get(o);
+		return order == null ? -1 : order;
+	}
+
+	@Override
+	public T get(int index) {
+		return list.get(index);
+	}
+
+	@Override
+	public int size() {
+		return list.size();
+	}
+
+	@Override
+	public T set(int index, T element) {
+		T previous = list.set(index, element);
+		if (!ordersStale && previous != element) {
+			if (orders.containsKey(element)) {
+				ordersStale = true;
+			} else {
+				orders.put(element, orders.remove(previous));
+			}
+		}
+		removed(previous);
+		added(element);
+		return previous;
+	}
+
+	@Override
+	public void add(int index, T element) {
+		list.add(index, element);
+		if (!ordersStale) {
+			if (index == list.size() - 1 && nextOrder < Integer.MAX_VALUE && !orders.containsKey(element)) {
+				orders.put(element, nextOrder++);
+			} else {
+				ordersStale = true;
+			}
+		}
+		modCount++;
+		added(element);
+	}
+
+	@Override
+	public T remove(int index) {
+		T element = list.remove(index);
+		if (!ordersStale) {
+			orders.remove(element);
+		}
+		modCount++;
+		removed(element);
+		return element;
+	}
+
+	@Override
+	public void clear() {
+		list.clear();
+		orders.clear();
+		nextOrder = 0;
+		ordersStale = false;
+		modCount++;
+		removedSeveral();
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		list.subList(fromIndex, toIndex).clear();
+		ordersStale = true;
+		modCount++;
+		removedSeveral();
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super T> filter) {
+		if (!list.removeIf(filter)) {
+			return false;
+		}
+		ordersStale = true;
+		modCount++;
+		removedSeveral();
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		return removeIf(new Predicate<T>() {
+
+			@Override
+			public boolean test(T element) {
+				return c.contains(element);
+			}
+
+		});
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		return removeIf(new Predicate<T>() {
+
+			@Override
+			public boolean test(T element) {
+				return !c.contains(element);
+			}
+
+		});
+	}
+
+	/**
+	 * Called after an element is inserted in the list. It does nothing by default.
+	 *
+	 * @param element the element
+	 */
+	protected void added(T element) {
+	}
+
+	/**
+	 * Called after an element is removed from the list, or replaced. It does nothing by default.
+	 *
+	 * @param element the element
+	 */
+	protected void removed(T element) {
+	}
+
+	/**
+	 * Called after several elements are removed from the list at once. It does nothing by
+	 * default.
+	 */
+	protected void removedSeveral() {
+	}
+
+	/**
+	 * Numbers the elements as they are in the list.
+	 *
+	 * @return true if the orders are up to date, false if some element is in the list twice
+	 */
+	private boolean reorder() {
+		orders.clear();
+		for (int i = 0; i < list.size(); i++) {
+			if (orders.put(list.get(i), i) != null) {
+				return false;
+			}
+		}
+		nextOrder = list.size();
+		ordersStale = false;
+		return true;
+	}
+
+}
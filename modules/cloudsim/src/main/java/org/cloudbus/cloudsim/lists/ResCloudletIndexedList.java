@@ -0,0 +1,373 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.AbstractSequentialList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.ResCloudlet;
+
+/**
+ * ResCloudletIndexedList is a linked list of {@link ResCloudlet ResCloudlets} indexed by cloudlet
+ * id, used by the cloudlet schedulers to keep the state lists of their cloudlets. Besides the
+ * operations of a linked list, finding a cloudlet by id, checking if the list contains a
+ * cloudlet and removing it take constant time, so moving a cloudlet from a list to another
+ * doesn't depend on the number of cloudlets of the scheduler.
+ * <p>
+ * The cloudlets of a scheduler usually have different ids, as they belong to the user of the
+ * VM. Cloudlets of different users may share an id, though, in which case only one of them is
+ * indexed and finding the others scans the list.
+ *
+ * @param <T> the type of the cloudlets
+ * @since CloudSim Toolkit 4.0
+ * @see ResCloudletList
+ */
+public class ResCloudletIndexedList<T extends ResCloudlet> extends AbstractSequentialList<T> {
+
+	/** The sentinel node, preceding the first node and following the last one. */
+	private final Node<T> header = new Node<T>(null);
+
+	/** The number of cloudlets. */
+	private int size;
+
+	/** The node of each cloudlet, by cloudlet id. */
+	private final Map<Integer, Node<T>> index = new HashMap<Integer, Node<T>>();
+
+	/** The number of cloudlets that are not indexed, as their ids are already in the index. */
+	private int duplicates;
+
+	/**
+	 * Creates an empty list.
+	 */
+	public ResCloudletIndexedList() {
+		header.next = header;
+		header.previous = header;
+	}
+
+	/**
+	 * Gets a cloudlet with a given id.
+	 *
+	 * @param cloudletId the cloudlet id
+	 * @return the cloudlet, or null if not found
+	 */
+	public T getById(int cloudletId) {
+		Node<T> node = index.get(cloudletId);
+		return node == null ? null : node.item;
+	}
+
+	/**
+	 * Gets a cloudlet with a given id and owned by a given user.
+	 *
+	 * @param cloudletId the cloudlet id
+	 * @param userId the user id
+	 * @return the cloudlet, or null if not found
+	 */
+	public T getByIdAndUserId(int cloudletId, int userId) {
+		Node<T> node = index.get(cloudletId);
+		if (node == null) {
+			return null;
+		}
+		if (node.item.getUserId() == userId) {
+			return node.item;
+		}
+		if (duplicates > 0) {
+			for (node = header.next; node != header; node = node.next) {
+				if (node.item.getCloudletId() == cloudletId && node.item.getUserId() == userId) {
+					return node.item;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return find(o) != null;
+	}
+
+	@Override
+	public boolean add(T rcl) {
+		link(rcl, header);
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Node<T> node = find(o);
+		if (node == null) {
+			return false;
+		}
+		unlink(node);
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean modified = false;
+		for (Object o : c) {
+			while (remove(o)) {
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	@Override
+	public void clear() {
+		header.next = header;
+		header.previous = header;
+		size = 0;
+		index.clear();
+		duplicates = 0;
+		modCount++;
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int position) {
+		if (position < 0 || position > size) {
+			throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+		}
+		return new Itr(position);
+	}
+
+	/**
+	 * Finds the node of a cloudlet.
+	 *
+	 * @param o the cloudlet
+	 * @return the node, or null if the cloudlet is not in the list
+	 */
+	private Node<T> find(Object o) {
+		if (!(o instanceof ResCloudlet)) {
+			return null;
+		}
+		Node<T> node = index.get(((ResCloudlet) o).getCloudletId());
+		if (node == null || node.item == o) {
+			return node;
+		}
+		if (duplicates > 0) {
+			for (node = header.next; node != header; node = node.next) {
+				if (node.item == o) {
+					return node;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Inserts a cloudlet before a node.
+	 *
+	 * @param rcl the cloudlet
+	 * @param successor the node
+	 */
+	private void link(T rcl, Node<T> successor) {
+		if (rcl == null) {
+			throw new NullPointerException();
+		}
+		Node<T> node = new Node<T>(rcl);
+		node.next = successor;
+		node.previous = successor.previous;
+		successor.previous.next = node;
+		successor.previous = node;
+		size++;
+		modCount++;
+
+		if (index.containsKey(rcl.getCloudletId())) {
+			duplicates++;
+		} else {
+			index.put(rcl.getCloudletId(), node);
+		}
+		added(rcl);
+	}
+
+	/**
+	 * Called after a cloudlet is inserted in the list, in any way. It does nothing by default.
+	 *
+	 * @param rcl the cloudlet
+	 */
+	protected void added(T rcl) {
+	}
+
+	/**
+	 * Removes a node.
+	 *
+	 * @param node the node
+	 */
+	private void unlink(Node<T> node) {
+		node.previous.next = node.next;
+		node.next.previous = node.previous;
+		size--;
+		modCount++;
+
+		int cloudletId = node.item.getCloudletId();
+		if (index.get(cloudletId) != node) {
+			duplicates--;
+		} else {
+			index.remove(cloudletId);
+			if (duplicates > 0) {
+				// indexes another cloudlet with the same id, if any
+				for (Node<T> other = header.next; other != header; other = other.next) {
+					if (other.item.getCloudletId() == cloudletId) {
+						index.put(cloudletId, other);
+						duplicates--;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A node of the list.
+	 *
+	 * @param <T> the type of the cloudlet
+	 */
+	private static class Node<T> {
+
+		private final T item;
+
+		private Node<T> previous;
+
+		private Node<T> next;
+
+		Node(T item) {
+			this.item = item;
+		}
+
+	}
+
+	/**
+	 * An iterator over the list, supporting the modification of the list.
+	 */
+	private class Itr implements ListIterator<T> {
+
+		/** The node returned by the next call to {@link #next()}. */
+		private Node<T> next;
+
+		/** The index of {@link #next}. */
+		private int nextIndex;
+
+		/** The node returned by the last call to {@link #next()} or {@link #previous()}. */
+		private Node<T> lastReturned;
+
+		/** The modification count of the list this iterator is aware of. */
+		private int expectedModCount = modCount;
+
+		Itr(int position) {
+			next = header.next;
+			for (nextIndex = 0; nextIndex < position; nextIndex++) {
+				next = next.next;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < size;
+		}
+
+		@Override
+		public T next() {
+			checkForComodification();
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = next;
+			next = next.next;
+			nextIndex++;
+			return lastReturned.item;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		}
+
+		@Override
+		public T previous() {
+			checkForComodification();
+			if (!hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			next = next.previous;
+			lastReturned = next;
+			nextIndex--;
+			return lastReturned.item;
+		}
+
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			return nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			if (next == lastReturned) {
+				next = lastReturned.next;
+			} else {
+				nextIndex--;
+			}
+			unlink(lastReturned);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void set(T rcl) {
+			checkForComodification();
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			Node<T> successor = lastReturned.next;
+			boolean wasNext = next == lastReturned;
+			unlink(lastReturned);
+			link(rcl, successor);
+			lastReturned = successor.previous;
+			if (wasNext) {
+				next = lastReturned;
+			}
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void add(T rcl) {
+			checkForComodification();
+			link(rcl, next);
+			nextIndex++;
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+	}
+
+}
@@ -39,6 +39,9 @@ public class ResCloudletList {
 			List<T> list,
 			int cloudletId,
 			int userId) {
+		if (list instanceof ResCloudletIndexedList) {
+			return ((ResCloudletIndexedList<T>) list).getByIdAndUserId(cloudletId, userId);
+		}
 		for (T rcl : list) {
 			if (rcl.getCloudletId() == cloudletId && rcl.getUserId() == userId) {
 				return rcl;
@@ -62,6 +65,10 @@ public class ResCloudletList {
 	 * @post $none
 	 */
 	public static <T extends ResCloudlet> int indexOf(List<T> list, int cloudletId, int userId) {
+		if (list instanceof ResCloudletIndexedList
+				&& ((ResCloudletIndexedList<T>) list).getByIdAndUserId(cloudletId, userId) == null) {
+			return -1;
+		}
 		int i = 0;
 		for (T rcl : list) {
 			if (rcl.getCloudletId() == cloudletId && rcl.getUserId() == userId) {
@@ -72,6 +79,27 @@ public class ResCloudletList {
 		return -1;
 	}
 
+	/**
+	 * Gets a {@link ResCloudlet} with a given id. Unlike
+	 * {@link #getByIdAndUserId(List, int, int)}, the owner of the cloudlet is not checked, as
+	 * the cloudlets of a scheduler belong to the user of its VM.
+	 * 
+	 * @param list the list of ResCloudlet
+	 * @param cloudletId a Cloudlet Id
+	 * @return a Cloudlet or null if not found
+	 */
+	public static <T extends ResCloudlet> T getById(List<T> list, int cloudletId) {
+		if (list instanceof ResCloudletIndexedList) {
+			return ((ResCloudletIndexedList<T>) list).getById(cloudletId);
+		}
+		for (T rcl : list) {
+			if (rcl.getCloudletId() == cloudletId) {
+				return rcl;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Moves a ResCloudlet object from a list to another.
 	 * 
@@ -99,6 +127,10 @@ public class ResCloudletList {
 	 * @return the position of the cloudlet with that id, or -1 if not found.
 	 */
 	public static <T extends ResCloudlet> int getPositionById(List<T> cloudletList, int id) {
+		if (cloudletList instanceof ResCloudletIndexedList
+				&& ((ResCloudletIndexedList<T>) cloudletList).getById(id) == null) {
+			return -1;
+		}
 		int i = 0 ;
 	        for (T cloudlet : cloudletList) {
 			if (cloudlet.getCloudletId() == id) {
@@ -0,0 +1,178 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.LongHashMap;
+
+/**
+ * VmIndexedList is an array list of {@link Vm VMs} indexed by VM id and by
+ * {@link Vm#getKey() key}, used by hosts and brokers to keep their VMs. Besides the operations of
+ * an {@link OrderedList}, finding a VM by id or by id and user and checking if the list contains a
+ * VM take constant time, so routing a cloudlet to its VM doesn't depend on the number of VMs.
+ * <p>
+ * The lookups return the first matching VM of the list, as {@link VmList} does. If VMs share an
+ * id, such as the VMs of different users in a host, the lookups by id scan the list, and so do
+ * the lookups by id and user if VMs share both. The id and the user of a VM must not change while
+ * it is in the list.
+ *
+ * @param <T> the type of the VMs
+ * @since CloudSim Toolkit 4.0
+ * @see VmList
+ */
+public class VmIndexedList<T extends Vm> extends OrderedList<T> {
+
+	/** A VM of each key. */
+	private final LongHashMap<T> byKey = new LongHashMap<T>();
+
+	/** The number of VMs that are not in {@link #byKey}, as their keys already are. */
+	private int keyDuplicates;
+
+	/** A VM of each id. */
+	private final LongHashMap<T> byId = new LongHashMap<T>();
+
+	/** The number of VMs that are not in {@link #byId}, as their ids already are. */
+	private int idDuplicates;
+
+	/**
+	 * Gets the first VM with a given id.
+	 *
+	 * @param id the vm id
+	 * @return the VM, or null if not found
+	 */
+	public T getById(int id) {
+		if (idDuplicates > 0) {
+			for (T vm : this) {
+				if (vm.getId() == id) {
+					return vm;
+				}
+			}
+			return null;
+		}
+		return byId.get(id);
+	}
+
+	/**
+	 * Gets the first VM with a given id and owned by a given user.
+	 *
+	 * @param id the vm id
+	 * @param userId the user id
+	 * @return the VM, or null if not found
+	 */
+	public T getByIdAndUserId(int id, int userId) {
+		if (keyDuplicates > 0) {
+			for (T vm : this) {
+				if (vm.getId() == id && vm.getUserId() == userId) {
+					return vm;
+				}
+			}
+			return null;
+		}
+		return byKey.get(Vm.getKey(userId, id));
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (keyDuplicates > 0 || !(o instanceof Vm)) {
+			return super.contains(o);
+		}
+		return byKey.get(((Vm) o).getKey()) == o;
+	}
+
+	@Override
+	protected void added(T vm) {
+		index(vm);
+	}
+
+	@Override
+	protected void removed(T vm) {
+		unindex(vm);
+	}
+
+	@Override
+	protected void removedSeveral() {
+		reindex();
+	}
+
+	/**
+	 * Adds a VM just added to the list to the indexes.
+	 *
+	 * @param vm the VM
+	 */
+	private void index(T vm) {
+		if (byKey.containsKey(vm.getKey())) {
+			keyDuplicates++;
+		} else {
+			byKey.put(vm.getKey(), vm);
+		}
+		if (byId.containsKey(vm.getId())) {
+			idDuplicates++;
+		} else {
+			byId.put(vm.getId(), vm);
+		}
+	}
+
+	/**
+	 * Removes a VM just removed from the list from the indexes, indexing another VM with the same
+	 * key or id, if any.
+	 *
+	 * @param vm the VM
+	 */
+	private void unindex(T vm) {
+		if (byKey.get(vm.getKey()) != vm) {
+			keyDuplicates--;
+		} else {
+			byKey.remove(vm.getKey());
+			if (keyDuplicates > 0) {
+				for (T other : this) {
+					if (other.getKey() == vm.getKey()) {
+						byKey.put(other.getKey(), other);
+						keyDuplicates--;
+						break;
+					}
+				}
+			}
+		}
+		if (byId.get(vm.getId()) != vm) {
+			idDuplicates--;
+		} else {
+			byId.remove(vm.getId());
+			if (idDuplicates > 0) {
+				for (T other : this) {
+					if (other.getId() == vm.getId()) {
+						byId.put(other.getId(), other);
+						idDuplicates--;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the indexes after removing several VMs.
+	 */
+	private void reindex() {
+		clearIndex();
+		for (T vm : this) {
+			index(vm);
+		}
+	}
+
+	/**
+	 * Empties the indexes.
+	 */
+	private void clearIndex() {
+		byKey.clear();
+		keyDuplicates = 0;
+		byId.clear();
+		idDuplicates = 0;
+	}
+
+}
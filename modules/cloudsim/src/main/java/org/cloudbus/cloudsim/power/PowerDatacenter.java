@@ -175,19 +175,24 @@ public class PowerDatacenter extends Datacenter {
 		Log.printLine("\n\n--------------------------------------------------------------\n\n");
 		Log.formatLine("New resource usage for the time frame starting at %.2f:", currentTime);
 
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			Log.printLine();
+		if (Log.isDisabled()) {
+			// nothing to log between the hosts, so they can be updated in parallel
+			minTime = updateHostsProcessing(this.<PowerHost> getHostList(), currentTime);
+		} else {
+			for (PowerHost host : this.<PowerHost> getHostList()) {
+				Log.printLine();
 
-			double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
-			if (time < minTime) {
-				minTime = time;
-			}
+				double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
+				if (time < minTime) {
+					minTime = time;
+				}
 
-			Log.formatLine(
-					"%.2f: [Host #%d] utilization is %.2f%%",
-					currentTime,
-					host.getId(),
-					host.getUtilizationOfCpu() * 100);
+				Log.formatLine(
+						"%.2f: [Host #%d] utilization is %.2f%%",
+						currentTime,
+						host.getId(),
+						host.getUtilizationOfCpu() * 100);
+			}
 		}
 
 		if (timeDiff > 0) {
@@ -261,6 +266,12 @@ public class PowerDatacenter extends Datacenter {
 		setCloudletSubmitted(CloudSim.clock());
 	}
 
+	@Override
+	protected void processCloudletSubmitBatch(SimEvent ev) {
+		super.processCloudletSubmitBatch(ev);
+		setCloudletSubmitted(CloudSim.clock());
+	}
+
 	/**
 	 * Gets the power.
 	 * 
@@ -313,6 +324,22 @@ public class PowerDatacenter extends Datacenter {
 		this.disableMigrations = disableMigrations;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * A power datacenter can't process its hosts incrementally, as it accounts the energy
+	 * consumed by every host at each scheduling interval.
+	 * 
+	 * @throws UnsupportedOperationException if enabled
+	 */
+	@Override
+	public void setIncrementalProcessing(boolean incrementalProcessing) {
+		if (incrementalProcessing) {
+			throw new UnsupportedOperationException(getName() + " can't process its hosts incrementally");
+		}
+		super.setIncrementalProcessing(incrementalProcessing);
+	}
+
 	/**
 	 * Checks if is cloudlet submited.
 	 * 
@@ -11,7 +11,6 @@ package org.cloudbus.cloudsim.power;
 import org.cloudbus.cloudsim.DatacenterBroker;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
-import org.cloudbus.cloudsim.core.SimEvent;
 
 /**
  * A power-aware {@link DatacenterBroker}.
@@ -42,8 +41,7 @@ public class PowerDatacenterBroker extends DatacenterBroker {
 	}
 
 	@Override
-	protected void processVmCreate(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
+	protected void processVmCreate(int[] data) {
 		int result = data[2];
 
 		if (result != CloudSimTags.TRUE) {
@@ -53,7 +51,7 @@ public class PowerDatacenterBroker extends DatacenterBroker {
 					+ " failed in Datacenter #" + datacenterId);
 			System.exit(0);
 		}
-		super.processVmCreate(ev);
+		super.processVmCreate(data);
 	}
 
 }
@@ -103,13 +103,18 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 
 			Log.printLine("\n\n--------------------------------------------------------------\n\n");
 
-			for (PowerHost host : this.<PowerHost> getHostList()) {
-				Log.formatLine("\n%.2f: Host #%d", CloudSim.clock(), host.getId());
-
-				double time = host.updateVmsProcessing(currentTime); // inform VMs to update
-																		// processing
-				if (time < minTime) {
-					minTime = time;
+			if (Log.isDisabled()) {
+				// nothing to log between the hosts, so they can be updated in parallel
+				minTime = updateHostsProcessing(this.<PowerHost> getHostList(), currentTime);
+			} else {
+				for (PowerHost host : this.<PowerHost> getHostList()) {
+					Log.formatLine("\n%.2f: Host #%d", CloudSim.clock(), host.getId());
+
+					double time = host.updateVmsProcessing(currentTime); // inform VMs to update
+																			// processing
+					if (time < minTime) {
+						minTime = time;
+					}
 				}
 			}
 
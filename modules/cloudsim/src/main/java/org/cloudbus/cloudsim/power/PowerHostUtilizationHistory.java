@@ -15,7 +15,7 @@ import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.UtilizationHistorySum;
 
 /**
  * A host that stores its CPU utilization percentage history. The history is used by VM allocation
@@ -36,6 +36,13 @@ import org.cloudbus.cloudsim.util.MathUtil;
  */
 public class PowerHostUtilizationHistory extends PowerHost {
 
+	/**
+	 * The host CPU utilization history, summed from the VMs' histories and updated with their new
+	 * values on each read.
+	 */
+	private final UtilizationHistorySum utilizationHistory =
+			new UtilizationHistorySum(PowerVm.HISTORY_LENGTH);
+
 	/**
 	 * Instantiates a new PowerHostUtilizationHistory.
 	 * 
@@ -64,14 +71,11 @@ public class PowerHostUtilizationHistory extends PowerHost {
 	 * @return the host CPU utilization percentage history
 	 */
 	protected double[] getUtilizationHistory() {
-		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
-		double hostMips = getTotalMips();
+		utilizationHistory.startUpdate(getTotalMips());
 		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
-			}
+			utilizationHistory.addPart(vm.getUtilizationHistoryBuffer(), vm.getMips());
 		}
-		return MathUtil.trimZeroTail(utilizationHistory);
+		return utilizationHistory.finishUpdate();
 	}
 
 }
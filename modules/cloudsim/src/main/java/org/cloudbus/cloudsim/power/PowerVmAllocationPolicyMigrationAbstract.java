@@ -11,16 +11,22 @@ package org.cloudbus.cloudsim.power;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.HostDynamicWorkload;
+import org.cloudbus.cloudsim.HostUtilizationIndex;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.Simulation;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
 
@@ -43,15 +49,32 @@ import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
  */
 public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAllocationPolicyAbstract {
 
+	/** The minimum number of hosts scored by each parallel task. */
+	private static final int MIN_SCORING_CHUNK_SIZE = 64;
+
 	/** The vm selection policy. */
 	private PowerVmSelectionPolicy vmSelectionPolicy;
 
-	/** A list of maps between a VM and the host where it is place.
-         * @todo This list of map is implemented in the worst way.
-         * It should be used just a Map<Vm, Host> to find out 
-         * what PM is hosting a given VM.
-         */
-	private final List<Map<String, Object>> savedAllocation = new ArrayList<Map<String, Object>>();
+	/**
+	 * The hosts whose allocation was changed while planning the migrations, each one mapped to
+	 * the VMs it had before the first change, in order. Only these hosts are restored after the
+	 * planning, instead of all the hosts.
+	 * @see #saveAllocation()
+	 * @see #restoreAllocation()
+	 */
+	private final Map<Host, List<Vm>> savedAllocation = new LinkedHashMap<Host, List<Vm>>();
+
+	/** Whether the changes of the allocation are being saved, from {@link #saveAllocation()}
+	 * to {@link #restoreAllocation()}. */
+	private boolean allocationSaved;
+
+	/** The hosts not yet excluded in the search of under-utilized hosts, by CPU utilization, while
+	 * {@link #getMigrationMapFromUnderUtilizedHosts(List)} runs; null otherwise. */
+	private HostUtilizationIndex underUtilizedHostIndex;
+
+	/** Whether {@link #findHostForVm(Vm, Set)} scores the hosts in parallel, after checking if
+	 * they would be over-utilized. */
+	private boolean parallelHostScoring;
 
 	/** A map of CPU utilization history (in percentage) for each host,
          where each key is a host id and each value is the CPU utilization percentage history.*/
@@ -172,6 +195,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		int numberOfHosts = getHostList().size();
 
+		// the utilization of the hosts only changes when their VMs are processed, so the hosts
+		// are indexed once and removed from the index as they are excluded
+		setUnderUtilizedHostIndex(createHostUtilizationIndex());
 		while (true) {
 			if (numberOfHosts == excludedHostsForFindingUnderUtilizedHost.size()) {
 				break;
@@ -209,6 +235,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			migrationMap.addAll(newVmPlacement);
 			Log.printLine();
 		}
+		setUnderUtilizedHostIndex(null);
 
 		return migrationMap;
 	}
@@ -239,6 +266,10 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the host found to host the VM
 	 */
 	public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
+		if (isParallelHostScoring()) {
+			return findHostForVmByScore(vm, excludedHosts);
+		}
+
 		double minPower = Double.MAX_VALUE;
 		PowerHost allocatedHost = null;
 
@@ -267,6 +298,66 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return allocatedHost;
 	}
 
+	/**
+	 * Finds the same host as {@link #findHostForVm(Vm, Set)}, scoring the hosts in parallel when
+	 * there are many of them. The suitable hosts are first checked for over-utilization after
+	 * placing the VM, in the order of the host list, exactly as {@link #findHostForVm(Vm, Set)}
+	 * does, so the VM is tentatively created in the same hosts and the same history is recorded.
+	 * The score of each host that wouldn't be over-utilized, that is, the increase of its power
+	 * after placing the VM, is then computed in parallel, as it only reads the allocation of the
+	 * host, and the first host with the least score is returned.
+	 * <p>
+	 * The scores are computed with {@link #getPowerAfterAllocation(PowerHost, Vm)} and
+	 * {@link PowerHost#getPower()}, which must be safe to call from several threads at once. The
+	 * hosts whose score fails to be computed are scored again on the calling thread.
+	 * 
+	 * @param vm the VM
+	 * @param excludedHosts the excluded hosts
+	 * @return the host found to host the VM
+	 */
+	protected PowerHost findHostForVmByScore(Vm vm, Set<? extends Host> excludedHosts) {
+		List<PowerHost> candidateHosts = new ArrayList<PowerHost>();
+		for (PowerHost host : this.<PowerHost> getHostList()) {
+			if (excludedHosts.contains(host)) {
+				continue;
+			}
+			if (host.isSuitableForVm(vm)) {
+				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+					continue;
+				}
+				candidateHosts.add(host);
+			}
+		}
+
+		// the VM caches its requested MIPS, so they are computed before the hosts are scored
+		vm.getCurrentRequestedTotalMips();
+		HostScores scores = new HostScores(candidateHosts.size());
+		ScoringTask task = new ScoringTask(Simulation.current(), candidateHosts, vm, scores, 0,
+				candidateHosts.size());
+		if (candidateHosts.size() > MIN_SCORING_CHUNK_SIZE) {
+			ForkJoinPool.commonPool().invoke(task);
+		} else {
+			task.scoreSequentially();
+		}
+
+		double minPower = Double.MAX_VALUE;
+		PowerHost allocatedHost = null;
+		for (int i = 0; i < candidateHosts.size(); i++) {
+			if (scores.failed[i]) {
+				scores.failed[i] = false;
+				task.score(i);
+				if (scores.failed[i]) {
+					continue;
+				}
+			}
+			if (scores.powerAfterAllocation[i] != -1 && scores.powerDiff[i] < minPower) {
+				minPower = scores.powerDiff[i];
+				allocatedHost = candidateHosts.get(i);
+			}
+		}
+		return allocatedHost;
+	}
+
 	/**
 	 * Checks if a host will be over utilized after placing of a candidate VM.
 	 * 
@@ -276,9 +367,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 */
 	protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
 		boolean isHostOverUtilizedAfterAllocation = true;
-		if (host.vmCreate(vm)) {
+		if (vmCreateTentatively(host, vm)) {
 			isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
-			host.vmDestroy(vm);
+			vmDestroyTentatively(host, vm);
 		}
 		return isHostOverUtilizedAfterAllocation;
 	}
@@ -321,7 +412,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		for (Vm vm : vmsToMigrate) {
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
-				allocatedHost.vmCreate(vm);
+				vmCreateTentatively(allocatedHost, vm);
 				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
 				Map<String, Object> migrate = new HashMap<String, Object>();
@@ -348,7 +439,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		for (Vm vm : vmsToMigrate) {
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
-				allocatedHost.vmCreate(vm);
+				vmCreateTentatively(allocatedHost, vm);
 				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
 				Map<String, Object> migrate = new HashMap<String, Object>();
@@ -358,7 +449,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			} else {
 				Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
 				for (Map<String, Object> map : migrationMap) {
-					((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+					vmDestroyTentatively((Host) map.get("host"), (Vm) map.get("vm"));
 				}
 				migrationMap.clear();
 				break;
@@ -383,7 +474,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 					break;
 				}
 				vmsToMigrate.add(vm);
-				host.vmDestroy(vm);
+				vmDestroyTentatively(host, vm);
 				if (!isHostOverUtilized(host)) {
 					break;
 				}
@@ -414,7 +505,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the over utilized hosts
 	 */
 	protected List<PowerHostUtilizationHistory> getOverUtilizedHosts() {
-		List<PowerHostUtilizationHistory> overUtilizedHosts = new LinkedList<PowerHostUtilizationHistory>();
+		List<PowerHostUtilizationHistory> overUtilizedHosts = new ArrayList<PowerHostUtilizationHistory>();
 		for (PowerHostUtilizationHistory host : this.<PowerHostUtilizationHistory> getHostList()) {
 			if (isHostOverUtilized(host)) {
 				overUtilizedHosts.add(host);
@@ -429,7 +520,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the switched off hosts
 	 */
 	protected List<PowerHost> getSwitchedOffHosts() {
-		List<PowerHost> switchedOffHosts = new LinkedList<PowerHost>();
+		List<PowerHost> switchedOffHosts = new ArrayList<PowerHost>();
 		for (PowerHost host : this.<PowerHost> getHostList()) {
 			if (host.getUtilizationOfCpu() == 0) {
 				switchedOffHosts.add(host);
@@ -445,6 +536,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the most under utilized host
 	 */
 	protected PowerHost getUnderUtilizedHost(Set<? extends Host> excludedHosts) {
+		if (getUnderUtilizedHostIndex() != null) {
+			return getUnderUtilizedHost(getUnderUtilizedHostIndex(), excludedHosts);
+		}
 		double minUtilization = 1;
 		PowerHost underUtilizedHost = null;
 		for (PowerHost host : this.<PowerHost> getHostList()) {
@@ -461,6 +555,49 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return underUtilizedHost;
 	}
 
+	/**
+	 * Gets the most under utilized host from an index of the hosts by CPU utilization. The
+	 * excluded hosts met are removed from the index, since the excluded hosts only grow while
+	 * looking for under-utilized hosts.
+	 * 
+	 * @param index the index of the hosts
+	 * @param excludedHosts the excluded hosts
+	 * @return the most under utilized host, the same as a scan of all the hosts finds
+	 */
+	protected PowerHost getUnderUtilizedHost(HostUtilizationIndex index, Set<? extends Host> excludedHosts) {
+		List<PowerHost> hostList = this.<PowerHost> getHostList();
+		int position = index.first();
+		while (position != -1) {
+			double utilization = index.getUtilization(position);
+			if (utilization >= 1) {
+				break;
+			}
+			PowerHost host = hostList.get(position);
+			int next = index.next(position);
+			if (excludedHosts.contains(host)) {
+				index.remove(position);
+			} else if (utilization > 0 && !areAllVmsMigratingOutOrAnyVmMigratingIn(host)) {
+				return host;
+			}
+			position = next;
+		}
+		return null;
+	}
+
+	/**
+	 * Creates an index of the hosts by their current CPU utilization.
+	 * 
+	 * @return the index of the hosts
+	 */
+	protected HostUtilizationIndex createHostUtilizationIndex() {
+		List<PowerHost> hostList = this.<PowerHost> getHostList();
+		HostUtilizationIndex index = new HostUtilizationIndex(hostList.size());
+		for (int position = 0; position < hostList.size(); position++) {
+			index.update(position, hostList.get(position).getUtilizationOfCpu());
+		}
+		return index;
+	}
+
 	/**
 	 * Checks whether all VMs of a given host are in migration.
 	 * 
@@ -512,42 +649,110 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	}
 
 	/**
-	 * Updates the list of maps between a VM and the host where it is place.
+	 * Starts saving the allocation of the hosts changed from now on, through
+	 * {@link #vmCreateTentatively(Host, Vm)} and {@link #vmDestroyTentatively(Host, Vm)}, so that
+	 * {@link #restoreAllocation()} restores them.
          * @see #savedAllocation
 	 */
 	protected void saveAllocation() {
 		getSavedAllocation().clear();
+		allocationSaved = true;
+		// restoring a host moves its migrating in VMs first in its VM list, so the hosts with
+		// migrating in VMs, and the hosts these VMs come from, are always restored
 		for (Host host : getHostList()) {
-			for (Vm vm : host.getVmList()) {
-				if (host.getVmsMigratingIn().contains(vm)) {
-					continue;
+			for (Vm vm : host.getVmsMigratingIn()) {
+				saveHostAllocation(host);
+				if (vm.getHost() != null) {
+					saveHostAllocation(vm.getHost());
 				}
-				Map<String, Object> map = new HashMap<String, Object>();
-				map.put("host", host);
-				map.put("vm", vm);
-				getSavedAllocation().add(map);
 			}
 		}
 	}
 
 	/**
-	 * Restore VM allocation from the allocation history.
+	 * Saves the allocation of a host before its first change, if the changes are being saved.
+	 * 
+	 * @param host the host
+         * @see #savedAllocation
+	 */
+	protected void saveHostAllocation(Host host) {
+		if (!allocationSaved || getSavedAllocation().containsKey(host)) {
+			return;
+		}
+		List<Vm> vms = new ArrayList<Vm>(host.getVmList().size());
+		for (Vm vm : host.getVmList()) {
+			if (!host.getVmsMigratingIn().contains(vm)) {
+				vms.add(vm);
+			}
+		}
+		getSavedAllocation().put(host, vms);
+	}
+
+	/**
+	 * Saves the allocation of a host before a VM is created on it or destroyed from it, along
+	 * with the allocation of the host the VM is on, since the VM is moved away from that one.
+	 * 
+	 * @param host the host
+	 * @param vm the VM
+	 */
+	protected void saveVmAllocation(Host host, Vm vm) {
+		saveHostAllocation(host);
+		if (vm.getHost() != null) {
+			saveHostAllocation(vm.getHost());
+		}
+	}
+
+	/**
+	 * Creates a VM on a host, saving the host allocation first so that the VM is removed by
+	 * {@link #restoreAllocation()}.
+	 * 
+	 * @param host the host
+	 * @param vm the VM
+	 * @return true if the VM was created on the host
+	 */
+	protected boolean vmCreateTentatively(Host host, Vm vm) {
+		saveVmAllocation(host, vm);
+		return host.vmCreate(vm);
+	}
+
+	/**
+	 * Destroys a VM on a host, saving the host allocation first so that the VM is created again
+	 * by {@link #restoreAllocation()}.
+	 * 
+	 * @param host the host
+	 * @param vm the VM
+	 */
+	protected void vmDestroyTentatively(Host host, Vm vm) {
+		saveVmAllocation(host, vm);
+		host.vmDestroy(vm);
+	}
+
+	/**
+	 * Restores the allocation of the hosts changed since {@link #saveAllocation()}, and stops
+	 * saving the changes. Unlike rebuilding every host, the hosts that weren't changed keep the
+	 * MIPS and PEs allocated to their VMs as they are. These are the same as rebuilding them would
+	 * give, as the VM scheduler allocates the PEs of all the VMs of a host again on every change,
+	 * unless the VMs requested different MIPS since they were last allocated; in that case, they
+	 * are allocated again by the next update of the host.
          * @see #savedAllocation
 	 */
 	protected void restoreAllocation() {
-		for (Host host : getHostList()) {
+		for (Host host : getSavedAllocation().keySet()) {
 			host.vmDestroyAll();
 			host.reallocateMigratingInVms();
 		}
-		for (Map<String, Object> map : getSavedAllocation()) {
-			Vm vm = (Vm) map.get("vm");
-			PowerHost host = (PowerHost) map.get("host");
-			if (!host.vmCreate(vm)) {
-				Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
-				System.exit(0);
+		for (Entry<Host, List<Vm>> entry : getSavedAllocation().entrySet()) {
+			Host host = entry.getKey();
+			for (Vm vm : entry.getValue()) {
+				if (!host.vmCreate(vm)) {
+					Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
+					System.exit(0);
+				}
+				getVmTable().put(vm.getUid(), host);
 			}
-			getVmTable().put(vm.getUid(), host);
 		}
+		getSavedAllocation().clear();
+		allocationSaved = false;
 	}
 
 	/**
@@ -613,10 +818,52 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * 
 	 * @return the saved allocation
 	 */
-	protected List<Map<String, Object>> getSavedAllocation() {
+	protected Map<Host, List<Vm>> getSavedAllocation() {
 		return savedAllocation;
 	}
 
+	/**
+	 * Gets the index of the hosts used to find under-utilized hosts.
+	 * 
+	 * @return the index, or null when not looking for under-utilized hosts
+	 */
+	protected HostUtilizationIndex getUnderUtilizedHostIndex() {
+		return underUtilizedHostIndex;
+	}
+
+	/**
+	 * Sets the index of the hosts used to find under-utilized hosts.
+	 * 
+	 * @param underUtilizedHostIndex the index, or null
+	 */
+	protected void setUnderUtilizedHostIndex(HostUtilizationIndex underUtilizedHostIndex) {
+		this.underUtilizedHostIndex = underUtilizedHostIndex;
+	}
+
+	/**
+	 * Checks if the hosts are scored, in parallel when there are many of them, to find a host for
+	 * a VM.
+	 * 
+	 * @return true if the hosts are scored
+	 * @see #findHostForVmByScore(Vm, Set)
+	 */
+	public boolean isParallelHostScoring() {
+		return parallelHostScoring;
+	}
+
+	/**
+	 * Sets if the hosts are scored, in parallel when there are many of them, using the common
+	 * {@link ForkJoinPool}, to find a host for a VM. The hosts found, the hosts where the VM is
+	 * tentatively created and the history recorded are the same as when scoring them one after
+	 * the other.
+	 * 
+	 * @param parallelHostScoring true to score the hosts
+	 * @see #findHostForVmByScore(Vm, Set)
+	 */
+	public void setParallelHostScoring(boolean parallelHostScoring) {
+		this.parallelHostScoring = parallelHostScoring;
+	}
+
 	/**
 	 * Sets the vm selection policy.
 	 * 
@@ -698,4 +945,100 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return executionTimeHistoryTotal;
 	}
 
+	/**
+	 * The scores of the hosts that could host a VM, by position in the list of these hosts.
+	 */
+	private static class HostScores {
+
+		/** The power of each host after placing the VM. */
+		final double[] powerAfterAllocation;
+
+		/** The difference between the power of each host after and before placing the VM. */
+		final double[] powerDiff;
+
+		/** Whether computing the score of each host failed. */
+		final boolean[] failed;
+
+		HostScores(int size) {
+			powerAfterAllocation = new double[size];
+			powerDiff = new double[size];
+			failed = new boolean[size];
+		}
+
+	}
+
+	/**
+	 * A task that scores a range of hosts, splitting it in halves until it has no more
+	 * hosts than {@link #MIN_SCORING_CHUNK_SIZE}.
+	 */
+	private class ScoringTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Simulation simulation;
+
+		private final List<PowerHost> hosts;
+
+		private final Vm vm;
+
+		private final HostScores scores;
+
+		private final int from;
+
+		private final int to;
+
+		ScoringTask(Simulation simulation, List<PowerHost> hosts, Vm vm, HostScores scores, int from, int to) {
+			this.simulation = simulation;
+			this.hosts = hosts;
+			this.vm = vm;
+			this.scores = scores;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= MIN_SCORING_CHUNK_SIZE) {
+				simulation.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						scoreSequentially();
+					}
+
+				});
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new ScoringTask(simulation, hosts, vm, scores, from, middle),
+					new ScoringTask(simulation, hosts, vm, scores, middle, to));
+		}
+
+		/**
+		 * Scores the range of hosts, one after the other.
+		 */
+		void scoreSequentially() {
+			for (int i = from; i < to; i++) {
+				score(i);
+			}
+		}
+
+		/**
+		 * Scores a host as {@link #findHostForVm(Vm, Set)} does.
+		 * 
+		 * @param i the position of the host
+		 */
+		void score(int i) {
+			PowerHost host = hosts.get(i);
+			try {
+				scores.powerAfterAllocation[i] = getPowerAfterAllocation(host, vm);
+				scores.powerDiff[i] = scores.powerAfterAllocation[i] - host.getPower();
+			} catch (Exception e) {
+				scores.failed[i] = true;
+			}
+		}
+
+	}
+
 }
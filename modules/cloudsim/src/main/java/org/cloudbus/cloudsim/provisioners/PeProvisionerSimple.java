@@ -8,10 +8,13 @@
 
 package org.cloudbus.cloudsim.provisioners;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 
 import org.cloudbus.cloudsim.Vm;
 
@@ -67,18 +70,19 @@ public class PeProvisionerSimple extends PeProvisioner {
 			return false;
 		}
 
-		List<Double> allocatedMips;
+		List<Double> allocatedMips = getPeTable().get(vmUid);
+		if (allocatedMips == null) {
+			allocatedMips = new MipsList();
+			getPeTable().put(vmUid, allocatedMips);
+		}
 
-		if (getPeTable().containsKey(vmUid)) {
-			allocatedMips = getPeTable().get(vmUid);
+		if (allocatedMips instanceof MipsList) {
+			((MipsList) allocatedMips).addMips(mips);
 		} else {
-			allocatedMips = new ArrayList<Double>();
+			allocatedMips.add(mips);
 		}
 
-		allocatedMips.add(mips);
-
 		setAvailableMips(getAvailableMips() - mips);
-		getPeTable().put(vmUid, allocatedMips);
 
 		return true;
 	}
@@ -128,10 +132,11 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 	@Override
 	public double getTotalAllocatedMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
+		List<Double> allocatedMips = getPeTable().get(vm.getUid());
+		if (allocatedMips != null) {
 			double totalAllocatedMips = 0.0;
-			for (double mips : getPeTable().get(vm.getUid())) {
-				totalAllocatedMips += mips;
+			for (int i = 0; i < allocatedMips.size(); i++) {
+				totalAllocatedMips += getMips(allocatedMips, i);
 			}
 			return totalAllocatedMips;
 		}
@@ -140,14 +145,28 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 	@Override
 	public void deallocateMipsForVm(Vm vm) {
-		if (getPeTable().containsKey(vm.getUid())) {
-			for (double mips : getPeTable().get(vm.getUid())) {
-				setAvailableMips(getAvailableMips() + mips);
+		List<Double> allocatedMips = getPeTable().remove(vm.getUid());
+		if (allocatedMips != null) {
+			for (int i = 0; i < allocatedMips.size(); i++) {
+				setAvailableMips(getAvailableMips() + getMips(allocatedMips, i));
 			}
-			getPeTable().remove(vm.getUid());
 		}
 	}
 
+	/**
+	 * Gets an amount of MIPS of a list without boxing it, if the list is a {@link MipsList}.
+	 * 
+	 * @param allocatedMips the list
+	 * @param index the index of the amount
+	 * @return the amount of MIPS
+	 */
+	private static double getMips(List<Double> allocatedMips, int index) {
+		if (allocatedMips instanceof MipsList) {
+			return ((MipsList) allocatedMips).getMips(index);
+		}
+		return allocatedMips.get(index);
+	}
+
 	/**
 	 * Gets the pe map.
 	 * 
@@ -167,4 +186,67 @@ public class PeProvisionerSimple extends PeProvisioner {
 		this.peTable = (Map<String, List<Double>>) peTable;
 	}
 
+	/**
+	 * A list of the amounts of MIPS allocated to a VM, kept in a primitive array, so that
+	 * allocating MIPS to the VM at each update of the PE provisioning doesn't box them.
+	 */
+	private static class MipsList extends AbstractList<Double> implements RandomAccess {
+
+		private double[] mips = new double[2];
+
+		private int size;
+
+		void addMips(double amount) {
+			if (size == mips.length) {
+				mips = Arrays.copyOf(mips, size * 2);
+			}
+			mips[size++] = amount;
+			modCount++;
+		}
+
+		double getMips(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			return mips[index];
+		}
+
+		@Override
+		public Double get(int index) {
+			return getMips(index);
+		}
+
+		@Override
+		public Double set(int index, Double amount) {
+			double previous = getMips(index);
+			mips[index] = amount;
+			return previous;
+		}
+
+		@Override
+		public void add(int index, Double amount) {
+			if (index < 0 || index > size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+			addMips(0);
+			System.arraycopy(mips, index, mips, index + 1, size - 1 - index);
+			mips[index] = amount;
+		}
+
+		@Override
+		public Double remove(int index) {
+			double previous = getMips(index);
+			System.arraycopy(mips, index + 1, mips, index, size - 1 - index);
+			size--;
+			modCount++;
+			return previous;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	}
+
 }
@@ -0,0 +1,74 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CloudletCompletionQueue collects the owners of the cloudlet schedulers, such as VMs or
+ * containers, where some cloudlet has finished, so that a datacenter only has to look for
+ * finished cloudlets in them, instead of in every VM of every host. The cloudlet schedulers add
+ * their owners to the queue of their datacenter when a cloudlet finishes, and the datacenter
+ * polls the queue to return the finished cloudlets.
+ * <p>
+ * Each owner is queued only once until the queue is polled. The queue is thread-safe, as the
+ * hosts may be updated in parallel.
+ *
+ * @param <T> the type of the owners of the cloudlet schedulers
+ * @since CloudSim Toolkit 4.0
+ */
+public class CloudletCompletionQueue<T> {
+
+	/** The queued owners, in order of arrival. */
+	private List<T> owners = new ArrayList<T>();
+
+	/** The queued owners, to add each one only once. */
+	private final Map<T, Boolean> queued = new IdentityHashMap<T, Boolean>();
+
+	/**
+	 * Adds the owner of a cloudlet scheduler where some cloudlet has finished, if it isn't
+	 * queued yet.
+	 *
+	 * @param owner the owner
+	 */
+	public synchronized void add(T owner) {
+		if (queued.put(owner, Boolean.TRUE) == null) {
+			owners.add(owner);
+		}
+	}
+
+	/**
+	 * Checks if there is no owner queued.
+	 *
+	 * @return true if the queue is empty
+	 */
+	public synchronized boolean isEmpty() {
+		return owners.isEmpty();
+	}
+
+	/**
+	 * Removes all the queued owners.
+	 *
+	 * @return the owners, in order of arrival
+	 */
+	public synchronized List<T> poll() {
+		if (owners.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<T> polled = owners;
+		owners = new ArrayList<T>();
+		queued.clear();
+		return polled;
+	}
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterBroker;
+
+/**
+ * Defines where a {@link DatacenterBroker} hands the finished cloudlets over, instead of keeping
+ * them in its list of received cloudlets. A sink may, for instance, aggregate statistics of the
+ * cloudlets or write them to a file, so that they can be garbage collected.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see DatacenterBroker#setCloudletSink(CloudletSink)
+ * @see CloudletStatistics
+ */
+public interface CloudletSink {
+
+	/**
+	 * Receives a cloudlet returned to the broker.
+	 *
+	 * @param cloudlet the returned cloudlet
+	 */
+	void cloudletReturned(Cloudlet cloudlet);
+
+}
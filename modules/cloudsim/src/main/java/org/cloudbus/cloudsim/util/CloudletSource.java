@@ -0,0 +1,51 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.DatacenterBroker;
+
+/**
+ * Defines a source of jobs ({@link Cloudlet Cloudlets}) that are created one at a time, when
+ * they arrive, instead of all at once as in a {@link WorkloadModel}. A
+ * {@link DatacenterBroker} pulls the cloudlets of its source as the simulation clock reaches
+ * their arrival times, so only the cloudlets that have arrived and not finished yet have to be
+ * kept in memory.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see DatacenterBroker#setCloudletSource(CloudletSource)
+ * @see WorkloadFileReader#streamWorkload()
+ */
+public interface CloudletSource {
+
+	/**
+	 * Checks if there are more cloudlets to arrive.
+	 *
+	 * @return true if there are more cloudlets
+	 */
+	boolean hasNext();
+
+	/**
+	 * Gets the arrival time of the next cloudlet. The arrival times of the cloudlets must not
+	 * decrease.
+	 *
+	 * @return the arrival time of the next cloudlet
+	 * @pre hasNext()
+	 */
+	double getNextArrivalTime();
+
+	/**
+	 * Creates the next cloudlet.
+	 *
+	 * @return the next cloudlet
+	 * @pre hasNext()
+	 */
+	Cloudlet next();
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * CloudletStatistics is a {@link CloudletSink} that keeps aggregate statistics of the returned
+ * cloudlets, instead of the cloudlets themselves.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class CloudletStatistics implements CloudletSink {
+
+	/** The number of returned cloudlets. */
+	private long count;
+
+	/** The number of returned cloudlets that finished successfully. */
+	private long successCount;
+
+	/** The sum of the actual CPU times of the returned cloudlets. */
+	private double totalCpuTime;
+
+	/** The maximum actual CPU time of the returned cloudlets. */
+	private double maxCpuTime;
+
+	/** The sum of the waiting times of the returned cloudlets. */
+	private double totalWaitingTime;
+
+	/** The earliest start time of the returned cloudlets. */
+	private double firstStartTime = Double.MAX_VALUE;
+
+	/** The latest finish time of the returned cloudlets. */
+	private double lastFinishTime;
+
+	@Override
+	public void cloudletReturned(Cloudlet cloudlet) {
+		count++;
+		if (cloudlet.getStatus() == Cloudlet.SUCCESS) {
+			successCount++;
+		}
+
+		double cpuTime = cloudlet.getActualCPUTime();
+		totalCpuTime += cpuTime;
+		maxCpuTime = Math.max(maxCpuTime, cpuTime);
+		totalWaitingTime += cloudlet.getWaitingTime();
+		firstStartTime = Math.min(firstStartTime, cloudlet.getExecStartTime());
+		lastFinishTime = Math.max(lastFinishTime, cloudlet.getFinishTime());
+	}
+
+	/**
+	 * Gets the number of returned cloudlets.
+	 *
+	 * @return the number of cloudlets
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the number of returned cloudlets that finished successfully.
+	 *
+	 * @return the number of successful cloudlets
+	 */
+	public long getSuccessCount() {
+		return successCount;
+	}
+
+	/**
+	 * Gets the sum of the actual CPU times of the returned cloudlets.
+	 *
+	 * @return the total CPU time
+	 */
+	public double getTotalCpuTime() {
+		return totalCpuTime;
+	}
+
+	/**
+	 * Gets the mean actual CPU time of the returned cloudlets.
+	 *
+	 * @return the mean CPU time, or 0 if no cloudlet was returned
+	 */
+	public double getMeanCpuTime() {
+		return count == 0 ? 0 : totalCpuTime / count;
+	}
+
+	/**
+	 * Gets the maximum actual CPU time of the returned cloudlets.
+	 *
+	 * @return the maximum CPU time
+	 */
+	public double getMaxCpuTime() {
+		return maxCpuTime;
+	}
+
+	/**
+	 * Gets the mean waiting time of the returned cloudlets.
+	 *
+	 * @return the mean waiting time, or 0 if no cloudlet was returned
+	 */
+	public double getMeanWaitingTime() {
+		return count == 0 ? 0 : totalWaitingTime / count;
+	}
+
+	/**
+	 * Gets the time from the start of the first returned cloudlet to the finish of the last one.
+	 *
+	 * @return the makespan, or 0 if no cloudlet was returned
+	 */
+	public double getMakespan() {
+		return count == 0 ? 0 : lastFinishTime - firstStartTime;
+	}
+
+}
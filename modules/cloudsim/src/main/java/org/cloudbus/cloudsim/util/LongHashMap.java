@@ -0,0 +1,205 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive long keys to non-null values, used to index the entities of a
+ * simulation, such as VMs, by numeric keys without boxing the keys or building strings for them.
+ * It uses open addressing with linear probing, so lookups don't allocate any object.
+ *
+ * @param <V> the type of the values
+ * @since CloudSim Toolkit 4.0
+ */
+public class LongHashMap<V> {
+
+	/** The initial capacity of the tables, which must be a power of two. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The keys, by slot. */
+	private long[] keys;
+
+	/** The values, by slot, or null for the empty slots. */
+	private Object[] values;
+
+	/** The number of mappings. */
+	private int size;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public LongHashMap() {
+		keys = new long[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Gets the number of mappings.
+	 *
+	 * @return the number of mappings
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return true if there is no mapping
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the value mapped to a key.
+	 *
+	 * @param key the key
+	 * @return the value, or null if the key is not mapped
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key) {
+		int mask = keys.length - 1;
+		for (int slot = hash(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return (V) values[slot];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if a key is mapped.
+	 *
+	 * @param key the key
+	 * @return true if the key is mapped
+	 */
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps a key to a value.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the value previously mapped to the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new NullPointerException("The values of a LongHashMap can't be null");
+		}
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		for (; values[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				V previous = (V) values[slot];
+				values[slot] = value;
+				return previous;
+			}
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		// keeps the load factor under 1/2
+		if (++size * 2 > keys.length) {
+			resize(keys.length * 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the mapping of a key.
+	 *
+	 * @param key the key
+	 * @return the value mapped to the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		for (; values[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				V previous = (V) values[slot];
+				delete(slot);
+				size--;
+				return previous;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes all the mappings.
+	 */
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Empties a slot, moving back the following entries of its probe sequence so that they can
+	 * still be found.
+	 *
+	 * @param slot the slot
+	 */
+	private void delete(int slot) {
+		int mask = keys.length - 1;
+		int empty = slot;
+		values[empty] = null;
+		for (slot = (slot + 1) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+			int home = hash(keys[slot]) & mask;
+			// moves the entry if its home slot is not between the empty slot and its slot
+			if (empty <= slot ? (home <= empty || home > slot) : (home <= empty && home > slot)) {
+				keys[empty] = keys[slot];
+				values[empty] = values[slot];
+				values[slot] = null;
+				empty = slot;
+			}
+		}
+	}
+
+	/**
+	 * Rehashes the mappings into tables of a new capacity.
+	 *
+	 * @param capacity the capacity, a power of two
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != null) {
+				int slot = hash(oldKeys[i]) & mask;
+				while (values[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Spreads the bits of a key, as consecutive ids would otherwise fill consecutive slots.
+	 *
+	 * @param key the key
+	 * @return the hash of the key
+	 */
+	private static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+}
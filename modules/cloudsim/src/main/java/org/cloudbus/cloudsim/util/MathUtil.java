@@ -75,6 +75,19 @@ public class MathUtil {
 		return getStatistics(list).getPercentile(50);
 	}
 
+	/**
+	 * Gets the median from a range of an array of numbers.
+	 * 
+	 * @param list the array of numbers
+	 * @param offset the position of the first number of the range
+	 * @param length the number of numbers in the range
+	 * 
+	 * @return the median
+	 */
+	public static double median(final double[] list, final int offset, final int length) {
+		return getStatistics(list, offset, length).getPercentile(50);
+	}
+
 	/**
 	 * Returns an object to compute descriptive statistics for an list of numbers.
 	 * 
@@ -109,6 +122,25 @@ public class MathUtil {
 		return stats;
 	}
 
+	/**
+	 * Returns an object to compute descriptive statistics for a range of an array of numbers.
+	 * 
+	 * @param list the array of numbers. Must not be null.
+	 * @param offset the position of the first number of the range
+	 * @param length the number of numbers in the range
+	 * @return descriptive statistics for the range of numbers.
+	 */
+	public static DescriptiveStatistics getStatistics(final double[] list, final int offset, final int length) {
+		// Get a DescriptiveStatistics instance
+		DescriptiveStatistics stats = new DescriptiveStatistics();
+
+		// Add the data from the range of the array
+		for (int i = offset; i < offset + length; i++) {
+			stats.addValue(list[i]);
+		}
+		return stats;
+	}
+
 	/**
 	 * Gets the average from a list of numbers.
 	 * 
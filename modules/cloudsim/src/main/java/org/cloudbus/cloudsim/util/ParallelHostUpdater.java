@@ -0,0 +1,184 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.Simulation;
+
+/**
+ * Updates the processing of the VMs of a list of hosts, returning the earliest time at which a
+ * cloudlet is expected to finish. The hosts can be updated in parallel, splitting the list in
+ * chunks of consecutive hosts that run in the common {@link ForkJoinPool}, in the context of the
+ * {@link Simulation#current() current simulation}.
+ * <p>
+ * A VM migrating between two hosts is in the VM list of both of them, so the hosts sharing VMs
+ * are updated afterwards, one after the other in the order of the list. The rest of the hosts
+ * must not share any mutable state, such as cloudlets, utilization models or schedulers. As the
+ * hosts may log what they do, the update is only run in parallel while the {@link Log} is
+ * disabled. This way, the results are the same as the ones of updating the hosts sequentially.
+ *
+ * @param <H> the type of the hosts
+ * @since CloudSim Toolkit 4.0
+ */
+public abstract class ParallelHostUpdater<H> {
+
+	/** The minimum number of hosts updated by each parallel task. */
+	public static final int MIN_CHUNK_SIZE = 64;
+
+	/** The number of chunks per thread of the pool, to balance uneven hosts. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Updates the processing of the VMs of a host.
+	 *
+	 * @param host the host
+	 * @param currentTime the current time
+	 * @return the expected completion time of the next cloudlet in the host, or
+	 *         {@link Double#MAX_VALUE} if there is none
+	 */
+	protected abstract double updateVmsProcessing(H host, double currentTime);
+
+	/**
+	 * Adds to a set the hosts that share a VM with a host because it is being migrated into the
+	 * host, along with the host itself. Nothing is added if there is no such VM.
+	 *
+	 * @param host the host
+	 * @param migrating the set of hosts sharing VMs
+	 */
+	protected abstract void addMigratingHosts(H host, Set<H> migrating);
+
+	/**
+	 * Updates the processing of the VMs of a list of hosts.
+	 *
+	 * @param hosts the hosts
+	 * @param currentTime the current time
+	 * @param parallel true to update the hosts in parallel if the log is disabled
+	 * @return the minimum of the times returned by the hosts, or {@link Double#MAX_VALUE} if there
+	 *         are no hosts
+	 */
+	public double update(List<? extends H> hosts, double currentTime, boolean parallel) {
+		if (!parallel || hosts.size() <= MIN_CHUNK_SIZE || !Log.isDisabled()) {
+			return updateSequentially(hosts, 0, hosts.size(), currentTime, Collections.<H> emptySet());
+		}
+
+		Set<H> migrating = Collections.newSetFromMap(new IdentityHashMap<H, Boolean>());
+		for (int i = 0; i < hosts.size(); i++) {
+			addMigratingHosts(hosts.get(i), migrating);
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, hosts.size() / (CHUNKS_PER_THREAD * pool.getParallelism()));
+		double minTime = pool.invoke(
+				new UpdateTask(Simulation.current(), hosts, 0, hosts.size(), chunkSize, currentTime, migrating));
+
+		if (!migrating.isEmpty()) {
+			List<H> migratingHosts = new ArrayList<H>();
+			for (int i = 0; i < hosts.size(); i++) {
+				if (migrating.contains(hosts.get(i))) {
+					migratingHosts.add(hosts.get(i));
+				}
+			}
+			minTime = Math.min(minTime, updateSequentially(
+					migratingHosts, 0, migratingHosts.size(), currentTime, Collections.<H> emptySet()));
+		}
+		return minTime;
+	}
+
+	/**
+	 * Updates the processing of the VMs of a range of hosts, one after the other.
+	 *
+	 * @param hosts the hosts
+	 * @param from the index of the first host of the range
+	 * @param to the index following the last host of the range
+	 * @param currentTime the current time
+	 * @param skipped the hosts of the range that are not updated
+	 * @return the minimum of the times returned by the hosts
+	 */
+	private double updateSequentially(List<? extends H> hosts, int from, int to, double currentTime,
+			Set<H> skipped) {
+		double minTime = Double.MAX_VALUE;
+		for (int i = from; i < to; i++) {
+			H host = hosts.get(i);
+			if (skipped.contains(host)) {
+				continue;
+			}
+			double time = updateVmsProcessing(host, currentTime);
+			if (time < minTime) {
+				minTime = time;
+			}
+		}
+		return minTime;
+	}
+
+	/**
+	 * A task that updates a range of hosts, splitting it in halves until it has no more hosts than
+	 * the chunk size.
+	 */
+	private class UpdateTask extends RecursiveTask<Double> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Simulation simulation;
+
+		private final List<? extends H> hosts;
+
+		private final int from;
+
+		private final int to;
+
+		private final int chunkSize;
+
+		private final double currentTime;
+
+		private final Set<H> skipped;
+
+		UpdateTask(Simulation simulation, List<? extends H> hosts, int from, int to, int chunkSize,
+				double currentTime, Set<H> skipped) {
+			this.simulation = simulation;
+			this.hosts = hosts;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.currentTime = currentTime;
+			this.skipped = skipped;
+		}
+
+		@Override
+		protected Double compute() {
+			if (to - from <= chunkSize) {
+				final double[] minTime = new double[1];
+				simulation.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						minTime[0] = updateSequentially(hosts, from, to, currentTime, skipped);
+					}
+
+				});
+				return minTime[0];
+			}
+
+			int middle = (from + to) >>> 1;
+			UpdateTask left = new UpdateTask(simulation, hosts, from, middle, chunkSize, currentTime, skipped);
+			UpdateTask right = new UpdateTask(simulation, hosts, middle, to, chunkSize, currentTime, skipped);
+			left.fork();
+			return Math.min(right.compute(), left.join());
+		}
+
+	}
+
+}
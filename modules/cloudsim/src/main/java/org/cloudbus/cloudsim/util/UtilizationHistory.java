@@ -0,0 +1,291 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * UtilizationHistory keeps the last utilization values of a VM, a container or a host, up to a
+ * fixed capacity, in a ring buffer of primitive doubles. The values are indexed from the most
+ * recent one, at index 0, to the oldest one. Adding a value, when the history is full, drops the
+ * oldest one in constant time, and the sum of the values is maintained along, so the mean is
+ * also computed in constant time.
+ * <p>
+ * The values are kept twice in the buffer, so that they are always in a contiguous range of it,
+ * from the most recent to the oldest. The range is given by {@link #getValues()} and
+ * {@link #getOffset()}, to read the values without copying them.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class UtilizationHistory {
+
+	/** The max number of values kept. */
+	private final int capacity;
+
+	/**
+	 * The buffer of values, where the value of each position p of the ring is at both p and
+	 * p + {@link #capacity}.
+	 */
+	private final double[] values;
+
+	/** The position of the most recent value in the ring. */
+	private int offset;
+
+	/** The number of values. */
+	private int size;
+
+	/** The sum of the values. */
+	private double sum;
+
+	/** The number of values added since the history was created. */
+	private long addCount;
+
+	/** A read-only view of the values, from the most recent to the oldest. */
+	private final List<Double> list = new AbstractList<Double>() {
+
+		@Override
+		public Double get(int index) {
+			return UtilizationHistory.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	};
+
+	/**
+	 * Creates a new UtilizationHistory object.
+	 *
+	 * @param capacity the max number of values kept
+	 * @throws IllegalArgumentException if the capacity isn't positive
+	 */
+	public UtilizationHistory(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("History capacity must be > 0.");
+		}
+		this.capacity = capacity;
+		values = new double[2 * capacity];
+	}
+
+	/**
+	 * Adds a value as the most recent one, dropping the oldest value if the history is full.
+	 *
+	 * @param value the value
+	 */
+	public void add(double value) {
+		offset = offset == 0 ? capacity - 1 : offset - 1;
+		if (size == capacity) {
+			sum -= values[offset];
+		} else {
+			size++;
+		}
+		values[offset] = value;
+		values[offset + capacity] = value;
+
+		if (offset == 0 && size == capacity) {
+			// sum the values again once per turn of the ring, so that rounding errors don't add up
+			sum = 0;
+			for (int i = 0; i < size; i++) {
+				sum += values[i];
+			}
+		} else {
+			sum += value;
+		}
+		addCount++;
+	}
+
+	/**
+	 * Replaces a value.
+	 *
+	 * @param index the index of the value, from 0 for the most recent one
+	 * @param value the new value
+	 * @throws IndexOutOfBoundsException if the index isn't less than the size
+	 */
+	public void set(int index, double value) {
+		double old = get(index);
+		int position = (offset + index) % capacity;
+		values[position] = value;
+		values[position + capacity] = value;
+		sum += value - old;
+	}
+
+	/**
+	 * Removes all the values.
+	 */
+	public void clear() {
+		offset = 0;
+		size = 0;
+		sum = 0;
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param index the index of the value, from 0 for the most recent one
+	 * @return the value
+	 * @throws IndexOutOfBoundsException if the index isn't less than the size
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[offset + index];
+	}
+
+	/**
+	 * Gets the number of values.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if there are no values.
+	 *
+	 * @return true if there are no values
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the number of values added since the history was created, including the ones already
+	 * dropped. It tells how many values were added between two reads.
+	 *
+	 * @return the number of added values
+	 */
+	public long getAddCount() {
+		return addCount;
+	}
+
+	/**
+	 * Gets the max number of values kept.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the buffer of values, without copying it. The values are at the positions from
+	 * {@link #getOffset()} to {@link #getOffset()} + {@link #size()} - 1, from the most recent
+	 * to the oldest. The buffer must not be changed, and its content changes as values are
+	 * added.
+	 *
+	 * @return the buffer of values
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * Gets the position of the most recent value in the {@link #getValues() buffer}.
+	 *
+	 * @return the position of the most recent value
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Gets a read-only view of the values as a list, from the most recent to the oldest. The view
+	 * changes as values are added.
+	 *
+	 * @return the values
+	 */
+	public List<Double> asList() {
+		return list;
+	}
+
+	/**
+	 * Copies the values to a new array, from the most recent to the oldest.
+	 *
+	 * @return the values
+	 */
+	public double[] toArray() {
+		double[] array = new double[size];
+		System.arraycopy(values, offset, array, 0, size);
+		return array;
+	}
+
+	/**
+	 * Gets the sum of the values.
+	 *
+	 * @return the sum
+	 */
+	public double getSum() {
+		return sum;
+	}
+
+	/**
+	 * Gets the mean of the values.
+	 *
+	 * @return the mean, or 0 if there are no values
+	 */
+	public double getMean() {
+		return size == 0 ? 0 : sum / size;
+	}
+
+	/**
+	 * Gets the population variance of the values. It is computed in two passes over the values,
+	 * first for their mean and then for their deviations from it, which keeps the precision of
+	 * nearly constant histories.
+	 *
+	 * @return the variance, or 0 if there are no values
+	 */
+	public double getVariance() {
+		if (size == 0) {
+			return 0;
+		}
+		double mean = 0;
+		for (int i = 0; i < size; i++) {
+			mean += values[offset + i];
+		}
+		mean /= size;
+		double variance = 0;
+		for (int i = 0; i < size; i++) {
+			double deviation = values[offset + i] - mean;
+			variance += deviation * deviation;
+		}
+		return variance / size;
+	}
+
+	/**
+	 * Gets the median of the values.
+	 *
+	 * @return the median, or NaN if there are no values
+	 */
+	public double getMedian() {
+		return MathUtil.median(values, offset, size);
+	}
+
+	/**
+	 * Gets the median absolute deviation (MAD) of the values.
+	 *
+	 * @return the MAD, or 0 if there are no values
+	 */
+	public double getMad() {
+		if (size == 0) {
+			return 0;
+		}
+		double median = getMedian();
+		double[] deviations = new double[size];
+		for (int i = 0; i < size; i++) {
+			deviations[i] = Math.abs(median - values[offset + i]);
+		}
+		return MathUtil.median(deviations);
+	}
+
+}
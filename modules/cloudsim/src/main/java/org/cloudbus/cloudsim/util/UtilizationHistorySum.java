@@ -0,0 +1,236 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+/**
+ * UtilizationHistorySum keeps the utilization history of a host as the weighted sum of the
+ * {@link UtilizationHistory utilization histories} of its parts, such as its VMs. The value at
+ * index i is the sum, in the order of the parts, of the value at index i of each part multiplied
+ * by its MIPS and divided by the MIPS of the host.
+ * <p>
+ * The sum is updated, each time it is read, with the parts given in the same order as they are
+ * in the host: {@link #startUpdate(double)}, then {@link #addPart(UtilizationHistory, double)} for
+ * each part, then {@link #finishUpdate()}. Values added to the parts since the last update are
+ * summed into the most recent positions of the ring, and parts added at the end are summed into
+ * the positions they span, so that the sums are the same, bit for bit, as summing all the parts
+ * again. The sum is computed again from the parts when some part was removed or replaced, or when
+ * the parts didn't all get the same number of new values, since subtracting a part would round
+ * the sums differently.
+ * <p>
+ * The parts are expected to have the same capacity as the sum, and to change only by
+ * {@link UtilizationHistory#add(double)}.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class UtilizationHistorySum {
+
+	/** The summed history. */
+	private final UtilizationHistory history;
+
+	/** The MIPS the weighted values are divided by. */
+	private double totalMips;
+
+	/** The parts summed into the history, in order. */
+	private UtilizationHistory[] parts = new UtilizationHistory[0];
+
+	/** The MIPS of each part summed into the history. */
+	private double[] partMips = new double[0];
+
+	/** The add count of each part when it was last summed into the history. */
+	private long[] partAddCounts = new long[0];
+
+	/** The number of parts summed into the history. */
+	private int partCount;
+
+	/** The MIPS the weighted values are divided by, given in the current update. */
+	private double newTotalMips;
+
+	/** The parts given in the current update, in order. */
+	private UtilizationHistory[] newParts = new UtilizationHistory[0];
+
+	/** The MIPS of each part given in the current update. */
+	private double[] newPartMips = new double[0];
+
+	/** The number of parts given in the current update. */
+	private int newPartCount;
+
+	/**
+	 * Creates a new UtilizationHistorySum object.
+	 *
+	 * @param capacity the max number of values kept
+	 */
+	public UtilizationHistorySum(int capacity) {
+		history = new UtilizationHistory(capacity);
+	}
+
+	/**
+	 * Starts an update of the sum.
+	 *
+	 * @param totalMips the MIPS of the host, which the weighted values are divided by
+	 */
+	public void startUpdate(double totalMips) {
+		newTotalMips = totalMips;
+		newPartCount = 0;
+	}
+
+	/**
+	 * Gives the next part of the host in the current update.
+	 *
+	 * @param part the utilization history of the part
+	 * @param mips the MIPS of the part, which its values are multiplied by
+	 */
+	public void addPart(UtilizationHistory part, double mips) {
+		if (newPartCount == newParts.length) {
+			int length = Math.max(8, 2 * newPartCount);
+			UtilizationHistory[] grownParts = new UtilizationHistory[length];
+			System.arraycopy(newParts, 0, grownParts, 0, newPartCount);
+			newParts = grownParts;
+			double[] grownMips = new double[length];
+			System.arraycopy(newPartMips, 0, grownMips, 0, newPartCount);
+			newPartMips = grownMips;
+		}
+		newParts[newPartCount] = part;
+		newPartMips[newPartCount] = mips;
+		newPartCount++;
+	}
+
+	/**
+	 * Finishes the current update of the sum.
+	 *
+	 * @return a copy of the summed values, from the most recent one, without the trailing zeros
+	 *         but one zero if all of them are zero
+	 */
+	public double[] finishUpdate() {
+		if (!sumIncrementally()) {
+			sumAgain();
+		}
+
+		// the given parts become the summed ones
+		UtilizationHistory[] swappedParts = parts;
+		parts = newParts;
+		newParts = swappedParts;
+		double[] swappedMips = partMips;
+		partMips = newPartMips;
+		newPartMips = swappedMips;
+		partCount = newPartCount;
+		totalMips = newTotalMips;
+		if (partAddCounts.length < parts.length) {
+			partAddCounts = new long[parts.length];
+		}
+		for (int k = 0; k < partCount; k++) {
+			partAddCounts[k] = parts[k].getAddCount();
+		}
+
+		int size = history.size();
+		while (size > 0 && history.get(size - 1) == 0) {
+			size--;
+		}
+		// as MathUtil.trimZeroTail, keeps a single zero when all the values are zero
+		double[] values = new double[Math.max(size, 1)];
+		System.arraycopy(history.getValues(), history.getOffset(), values, 0, size);
+		return values;
+	}
+
+	/**
+	 * Sums the new values of the summed parts and the new parts into the history, if they can be
+	 * summed in the same order as summing all the parts again.
+	 *
+	 * @return true if the history was updated, false if it must be summed again
+	 */
+	protected boolean sumIncrementally() {
+		if (newTotalMips != totalMips || newPartCount < partCount) {
+			return false;
+		}
+		long newValues = -1;
+		for (int k = 0; k < partCount; k++) {
+			UtilizationHistory part = newParts[k];
+			if (part != parts[k] || newPartMips[k] != partMips[k]
+					|| part.getCapacity() != history.getCapacity()) {
+				return false;
+			}
+			long partNewValues = part.getAddCount() - partAddCounts[k];
+			if (newValues == -1) {
+				newValues = partNewValues;
+			} else if (partNewValues != newValues) {
+				return false;
+			}
+		}
+		if (newValues > history.getCapacity()) {
+			return false;
+		}
+		for (int k = partCount; k < newPartCount; k++) {
+			if (newParts[k].getCapacity() != history.getCapacity()
+					|| newParts[k].size() > history.size() + Math.max(0, newValues)) {
+				return false;
+			}
+		}
+
+		for (int j = 0; j < newValues; j++) {
+			history.add(0);
+		}
+		for (int j = (int) newValues - 1; j >= 0; j--) {
+			double value = 0;
+			for (int k = 0; k < partCount; k++) {
+				value = addWeighted(value, newParts[k], newPartMips[k], j);
+			}
+			history.set(j, value);
+		}
+		for (int k = partCount; k < newPartCount; k++) {
+			sumPart(newParts[k], newPartMips[k]);
+		}
+		return true;
+	}
+
+	/**
+	 * Sums all the given parts into the history again.
+	 */
+	protected void sumAgain() {
+		int size = 0;
+		for (int k = 0; k < newPartCount; k++) {
+			size = Math.max(size, newParts[k].size());
+		}
+		history.clear();
+		for (int i = 0; i < Math.min(size, history.getCapacity()); i++) {
+			history.add(0);
+		}
+		for (int k = 0; k < newPartCount; k++) {
+			sumPart(newParts[k], newPartMips[k]);
+		}
+	}
+
+	/**
+	 * Adds the weighted values of a part to the history.
+	 *
+	 * @param part the utilization history of the part
+	 * @param mips the MIPS of the part
+	 */
+	private void sumPart(UtilizationHistory part, double mips) {
+		int size = Math.min(part.size(), history.size());
+		for (int i = 0; i < size; i++) {
+			history.set(i, addWeighted(history.get(i), part, mips, i));
+		}
+	}
+
+	/**
+	 * Adds the weighted value of a part at an index to a sum.
+	 *
+	 * @param sum the sum
+	 * @param part the utilization history of the part
+	 * @param mips the MIPS of the part
+	 * @param index the index of the value
+	 * @return the new sum
+	 */
+	private double addWeighted(double sum, UtilizationHistory part, double mips, int index) {
+		if (index >= part.size()) {
+			return sum;
+		}
+		return sum + part.get(index) * mips / newTotalMips;
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * A map keyed by VM {@link Vm#getUid() uid}, used by the VM allocation policies for their VM
+ * tables. Besides the operations of a map, it finds the value of a VM by its user id and its id,
+ * through the {@link Vm#getKey(int, int) key} of the VM, without building the uid of the VM.
+ *
+ * @param <V> the type of the values
+ * @since CloudSim Toolkit 4.0
+ */
+public class VmUidMap<V> extends AbstractMap<String, V> {
+
+	/** The mappings, by uid. */
+	private final Map<String, V> map = new HashMap<String, V>();
+
+	/** The non-null values of the mappings whose uids are VM uids, by VM key. */
+	private final LongHashMap<V> index = new LongHashMap<V>();
+
+	/** The view of the mappings. */
+	private final Set<Entry<String, V>> entrySet = new EntrySet();
+
+	/**
+	 * Gets the value of a VM.
+	 *
+	 * @param userId the user id of the VM
+	 * @param vmId the vm id
+	 * @return the value mapped to the uid of the VM, or null if there is none
+	 */
+	public V get(int userId, int vmId) {
+		return index.get(Vm.getKey(userId, vmId));
+	}
+
+	/**
+	 * Gets the value of a VM from a map keyed by VM uid, using the index of the map if it is a
+	 * VmUidMap.
+	 *
+	 * @param <V> the type of the values
+	 * @param map the map
+	 * @param userId the user id of the VM
+	 * @param vmId the vm id
+	 * @return the value mapped to the uid of the VM, or null if there is none
+	 */
+	public static <V> V get(Map<String, V> map, int userId, int vmId) {
+		if (map instanceof VmUidMap) {
+			return ((VmUidMap<V>) map).get(userId, vmId);
+		}
+		return map.get(Vm.getUid(userId, vmId));
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return map.containsKey(key);
+	}
+
+	@Override
+	public V get(Object key) {
+		return map.get(key);
+	}
+
+	@Override
+	public V put(String uid, V value) {
+		V previous = map.put(uid, value);
+		index(uid, value);
+		return previous;
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (!map.containsKey(key)) {
+			return null;
+		}
+		V previous = map.remove(key);
+		index((String) key, null);
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+		index.clear();
+	}
+
+	@Override
+	public Set<Entry<String, V>> entrySet() {
+		return entrySet;
+	}
+
+	/**
+	 * Updates the index after mapping a uid to a value.
+	 *
+	 * @param uid the uid
+	 * @param value the value, or null if the uid is no longer mapped
+	 */
+	private void index(String uid, V value) {
+		Long key = getKey(uid);
+		if (key == null) {
+			return;
+		}
+		if (value == null) {
+			index.remove(key);
+		} else {
+			index.put(key, value);
+		}
+	}
+
+	/**
+	 * Gets the VM key matching a uid.
+	 *
+	 * @param uid the uid
+	 * @return the key of the VM with the uid, or null if the uid is not generated by
+	 *         {@link Vm#getUid(int, int)}
+	 */
+	private static Long getKey(String uid) {
+		if (uid == null) {
+			return null;
+		}
+		// the user id may be negative, so its minus sign is skipped
+		int separator = uid.indexOf('-', 1);
+		if (separator < 0) {
+			return null;
+		}
+		try {
+			int userId = Integer.parseInt(uid.substring(0, separator));
+			int vmId = Integer.parseInt(uid.substring(separator + 1));
+			return uid.equals(Vm.getUid(userId, vmId)) ? Long.valueOf(Vm.getKey(userId, vmId)) : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The view of the mappings, which keeps the index up to date when the mappings are modified
+	 * through it.
+	 */
+	private class EntrySet extends AbstractSet<Entry<String, V>> {
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public void clear() {
+			VmUidMap.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<String, V>> iterator() {
+			final Iterator<Entry<String, V>> iterator = map.entrySet().iterator();
+			return new Iterator<Entry<String, V>>() {
+
+				private Entry<String, V> last;
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public Entry<String, V> next() {
+					final Entry<String, V> entry = iterator.next();
+					last = entry;
+					return new SimpleEntry<String, V>(entry) {
+
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						public V setValue(V value) {
+							super.setValue(value);
+							index(entry.getKey(), value);
+							return entry.setValue(value);
+						}
+
+					};
+				}
+
+				@Override
+				public void remove() {
+					iterator.remove();
+					index(last.getKey(), null);
+				}
+
+			};
+		}
+
+	}
+
+}
@@ -13,12 +13,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.NoSuchElementException;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
@@ -144,11 +144,6 @@ public class WorkloadFileReader implements WorkloadModel {
      */
     private static final int IRRELEVANT = -1; 
 
-    /**
-     * A temp array storing all the fields read from a line of the trace file.
-     */
-    private String[] fieldArray = null; 
-
     /**
      * Create a new WorkloadFileReader object.
      * 
@@ -183,38 +178,42 @@ public class WorkloadFileReader implements WorkloadModel {
 
     /**
      * Reads job information from a trace file and generates the respective cloudlets.
+     * The submit time of each job is the {@link Cloudlet#getSubmissionDelay() submission delay}
+     * of its cloudlet, so that a broker submits the cloudlet at that time.
      * 
      * @return the list of cloudlets read from the file; <code>null</code> in case of failure.
      * @see #file
+     * @see #streamWorkload()
      */
     @Override
     public ArrayList<Cloudlet> generateWorkload() {
             if (jobs == null) {
                     jobs = new ArrayList<Cloudlet>();
 
-                    // create a temp array
-                    fieldArray = new String[MAX_FIELD];
-
-                    try {
-                            /*@todo It would be implemented
-                            using specific classes to avoid using ifs.
-                            If a new format is included, the code has to be
-                            changed to include another if*/
-                            if (file.getName().endsWith(".gz")) {
-                                    readGZIPFile(file);
-                            } else if (file.getName().endsWith(".zip")) {
-                                    readZipFile(file);
-                            } else {
-                                    readFile(file);
-                            }
-                    } catch (final FileNotFoundException e) {
-                    } catch (final IOException e) {
+                    final CloudletSource stream = streamWorkload();
+                    while (stream.hasNext()) {
+                            jobs.add(stream.next());
                     }
             }
 
             return jobs;
     }
 
+    /**
+     * Reads job information from a trace file lazily, one line at a time, as the respective
+     * cloudlets are taken from the returned source. Unlike {@link #generateWorkload()}, the
+     * cloudlets are not kept by this class, so the trace file may be larger than the heap.
+     * The arrival time of each cloudlet is the submit time of its job, which is also its
+     * {@link Cloudlet#getSubmissionDelay() submission delay}. The file is closed when its last
+     * job is read.
+     * 
+     * @return a source of the cloudlets read from the file
+     * @see #file
+     */
+    public CloudletSource streamWorkload() {
+            return new WorkloadStream();
+    }
+
     /**
      * Sets the string that identifies the start of a comment line.
      * 
@@ -307,10 +306,11 @@ public class WorkloadFileReader implements WorkloadModel {
     // ------------------- PRIVATE METHODS -------------------
 
     /**
-     * Creates a Cloudlet with the given information and adds to the list of {@link #jobs}.
+     * Creates a Cloudlet with the given information.
      * 
      * @param id a Cloudlet ID
-     * @param submitTime Cloudlet's submit time
+     * @param submitTime Cloudlet's submit time, used as its
+     * {@link Cloudlet#getSubmissionDelay() submission delay}
      * @param runTime The number of seconds the Cloudlet has to run. Considering that 
      * and the {@link #rating}, the {@link Cloudlet#cloudletLength} is computed.
      * @param numProc number of Cloudlet's PEs
@@ -318,6 +318,7 @@ public class WorkloadFileReader implements WorkloadModel {
      * (@todo the parameter is not being used and it is not clear what it is)
      * @param userID user id
      * @param groupID user's group id
+     * @return the created Cloudlet
      * @pre id >= 0
      * @pre submitTime >= 0
      * @pre runTime >= 0
@@ -325,7 +326,7 @@ public class WorkloadFileReader implements WorkloadModel {
      * @post $none
      * @see #rating
      */
-    private void createJob(
+    private Cloudlet createJob(
                     final int id,
                     final long submitTime,
                     final int runTime,
@@ -345,219 +346,259 @@ public class WorkloadFileReader implements WorkloadModel {
                             utilizationModel,
                             utilizationModel,
                             utilizationModel);
-            jobs.add(wgl);
+            wgl.setSubmissionDelay(submitTime);
+            return wgl;
     }
 
     /**
-     * Extracts relevant information from a given array of fields,
-     * representing a line from the trace file, and create a cloudlet 
-     * using this information.
-     * 
-     * @param array the array of fields generated from a line of the trace file.
-     * @param line the line number
-     * @pre array != null
-     * @pre line > 0
-     * @todo The name of the method doesn't describe what it in fact does.
+     * A {@link CloudletSource} that reads the jobs from the trace {@link #file}, one line at a
+     * time. The next job is always read in advance, to know its arrival time.
      */
-    private void extractField(final String[] array, final int line) {
-            try {
-                    Integer obj = null;
-
-                    // get the job number
-                    int id = 0;
-                    if (JOB_NUM == IRRELEVANT) {
-                            id = jobs.size() + 1;
-                    } else {
-                            obj = new Integer(array[JOB_NUM].trim());
-                            id = obj.intValue();
-                    }
-
-                    // get the submit time
-                    final Long l = new Long(array[SUBMIT_TIME].trim());
-                    final long submitTime = l.intValue();
+    private class WorkloadStream implements CloudletSource {
+
+            /**
+             * The reader of the trace file, or null if the file was closed.
+             */
+            private BufferedReader reader;
+
+            /**
+             * The input stream of a zip trace file, to read its next entry when the current
+             * one ends, or null if the file isn't a zip file.
+             */
+            private ZipInputStream zipStream;
+
+            /**
+             * A temp array storing all the fields read from a line of the trace file.
+             */
+            private final String[] fieldArray = new String[MAX_FIELD];
+
+            /**
+             * The number of the last line read from the current file or zip entry.
+             */
+            private int lineNum;
+
+            /**
+             * The number of jobs read.
+             */
+            private int jobCount;
+
+            /**
+             * The next job, or null if there are no more jobs.
+             */
+            private Cloudlet nextJob;
+
+            /**
+             * Opens the trace file and reads its first job.
+             */
+            WorkloadStream() {
+                    InputStream input = null;
+                    try {
+                            input = new FileInputStream(file);
 
-                    // get the user estimated run time
-                    obj = new Integer(array[REQ_RUN_TIME].trim());
-                    final int reqRunTime = obj.intValue();
+                            /*@todo It would be implemented
+                            using specific classes to avoid using ifs.
+                            If a new format is included, the code has to be
+                            changed to include another if*/
+                            if (file.getName().endsWith(".gz")) {
+                                    input = new GZIPInputStream(input);
+                            } else if (file.getName().endsWith(".zip")) {
+                                    zipStream = new ZipInputStream(input);
+                                    input = zipStream;
+                            }
+                            reader = new BufferedReader(new InputStreamReader(input));
+                            readNextJob();
+                    } catch (final IOException e) {
+                            if (reader == null && input != null) {
+                                    try {
+                                            input.close();
+                                    } catch (final IOException closeException) {
+                                    }
+                            }
+                            close();
+                    }
+            }
 
-                    // if the required run time field is ignored, then use
-                    // the actual run time
-                    obj = new Integer(array[RUN_TIME].trim());
-                    int runTime = obj.intValue();
+            @Override
+            public boolean hasNext() {
+                    return nextJob != null;
+            }
 
-                    final int userID = new Integer(array[USER_ID].trim()).intValue();
-                    final int groupID = new Integer(array[GROUP_ID].trim()).intValue();
+            @Override
+            public double getNextArrivalTime() {
+                    if (nextJob == null) {
+                            throw new NoSuchElementException();
+                    }
+                    return nextJob.getSubmissionDelay();
+            }
 
-                    // according to the SWF manual, runtime of 0 is possible due
-                    // to rounding down. E.g. runtime is 0.4 seconds -> runtime = 0
-                    if (runTime <= 0) {
-                            runTime = 1; // change to 1 second
+            @Override
+            public Cloudlet next() {
+                    if (nextJob == null) {
+                            throw new NoSuchElementException();
                     }
 
-                    // get the number of allocated processors
-                    obj = new Integer(array[REQ_NUM_PROC].trim());
-                    int numProc = obj.intValue();
+                    final Cloudlet job = nextJob;
+                    try {
+                            readNextJob();
+                    } catch (final IOException e) {
+                            close();
+                    }
+                    return job;
+            }
 
-                    // if the required num of allocated processors field is ignored
-                    // or zero, then use the actual field
-                    if (numProc == IRRELEVANT || numProc == 0) {
-                            obj = new Integer(array[NUM_PROC].trim());
-                            numProc = obj.intValue();
+            /**
+             * Reads the lines of the trace file up to the next job, closing the file if there
+             * are no more jobs.
+             * 
+             * @throws IOException if the there was any error reading the file
+             */
+            private void readNextJob() throws IOException {
+                    nextJob = null;
+                    String line = null;
+                    while (nextJob == null && (line = readLine()) != null) {
+                            lineNum++;
+                            parseValue(line, lineNum);
                     }
 
-                    // finally, check if the num of PEs required is valid or not
-                    if (numProc <= 0) {
-                            numProc = 1;
+                    if (nextJob == null) {
+                            close();
                     }
-                    createJob(id, submitTime, runTime, numProc, reqRunTime, userID, groupID);
-            } catch (final Exception e) {
+            }
 
+            /**
+             * Reads a line from the trace file, going through the entries of a zip file.
+             * 
+             * @return the line, or null at the end of the file
+             * @throws IOException if the there was any error reading the file
+             */
+            private String readLine() throws IOException {
+                    String line = reader.readLine();
+                    while (line == null && zipStream != null && zipStream.getNextEntry() != null) {
+                            reader = new BufferedReader(new InputStreamReader(zipStream));
+                            lineNum = 0;
+                            line = reader.readLine();
+                    }
+                    return line;
             }
-    }
 
-    /**
-     * Breaks a line from the trace file into many fields into the
-     * {@link #fieldArray}.
-     * 
-     * @param line a line from the trace file
-     * @param lineNum the line number
-     * @pre line != null
-     * @pre lineNum > 0
-     * @post $none
-     */
-    private void parseValue(final String line, final int lineNum) {
-            // skip a comment line
-            if (line.startsWith(COMMENT)) {
-                    return;
+            /**
+             * Closes the trace file.
+             */
+            private void close() {
+                    nextJob = null;
+                    if (reader != null) {
+                            try {
+                                    reader.close();
+                            } catch (final IOException e) {
+                            }
+                            reader = null;
+                    }
             }
 
-            final String[] sp = line.split("\\s+"); // split the fields based on a
-            // space
-            int len = 0; // length of a string
-            int index = 0; // the index of an array
+            /**
+             * Extracts relevant information from a given array of fields,
+             * representing a line from the trace file, and create a cloudlet 
+             * using this information, as the {@link #nextJob}.
+             * 
+             * @param array the array of fields generated from a line of the trace file.
+             * @param line the line number
+             * @pre array != null
+             * @pre line > 0
+             * @todo The name of the method doesn't describe what it in fact does.
+             */
+            private void extractField(final String[] array, final int line) {
+                    try {
+                            Integer obj = null;
 
-            // check for each field in the array
-            for (final String elem : sp) {
-                    len = elem.length(); // get the length of a string
+                            // get the job number
+                            int id = 0;
+                            if (JOB_NUM == IRRELEVANT) {
+                                    id = jobCount + 1;
+                            } else {
+                                    obj = new Integer(array[JOB_NUM].trim());
+                                    id = obj.intValue();
+                            }
 
-                    // if it is empty then ignore
-                    if (len == 0) {
-                            continue;
-                    }
-                    fieldArray[index] = elem;
-                    index++;
-            }
+                            // get the submit time
+                            final Long l = new Long(array[SUBMIT_TIME].trim());
+                            final long submitTime = l.intValue();
 
-            if (index == MAX_FIELD) {
-                    extractField(fieldArray, lineNum);
-            }
-    }
+                            // get the user estimated run time
+                            obj = new Integer(array[REQ_RUN_TIME].trim());
+                            final int reqRunTime = obj.intValue();
 
-    /**
-     * Reads traces from a text file, one line at a time.
-     * 
-     * @param fl a file name
-     * @return <code>true</code> if successful, <code>false</code> otherwise.
-     * @throws IOException if the there was any error reading the file
-     * @throws FileNotFoundException if the file was not found
-     */
-    private boolean readFile(final File fl) throws IOException, FileNotFoundException {
-            boolean success = false;
-            BufferedReader reader = null;
-            try {
-                    reader = new BufferedReader(new InputStreamReader(new FileInputStream(fl)));
-
-                    // read one line at the time
-                    int line = 1;
-                    String readLine = null;
-                    while (reader.ready() && (readLine = reader.readLine()) != null) {
-                            parseValue(readLine, line);
-                            line++;
-                    }
+                            // if the required run time field is ignored, then use
+                            // the actual run time
+                            obj = new Integer(array[RUN_TIME].trim());
+                            int runTime = obj.intValue();
 
-                    reader.close();
-                    success = true;
-            } finally {
-                    if (reader != null) {
-                            reader.close();
-                    }
-            }
+                            final int userID = new Integer(array[USER_ID].trim()).intValue();
+                            final int groupID = new Integer(array[GROUP_ID].trim()).intValue();
 
-            return success;
-    }
+                            // according to the SWF manual, runtime of 0 is possible due
+                            // to rounding down. E.g. runtime is 0.4 seconds -> runtime = 0
+                            if (runTime <= 0) {
+                                    runTime = 1; // change to 1 second
+                            }
 
-    /**
-     * Reads traces from a gzip file, one line at a time.
-     * 
-     * @param fl a gzip file name
-     * @return <code>true</code> if successful; <code>false</code> otherwise.
-     * @throws IOException if the there was any error reading the file
-     * @throws FileNotFoundException if the file was not found
-     */
-    private boolean readGZIPFile(final File fl) throws IOException, FileNotFoundException {
-            boolean success = false;
-            BufferedReader reader = null;
-            try {
-                    reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(fl))));
-
-                    // read one line at the time
-                    int line = 1;                       
-                    String readLine = null;
-                    while (reader.ready() && (readLine = reader.readLine()) != null) {
-                            parseValue(readLine, line);
-                            line++;
-                    }
+                            // get the number of allocated processors
+                            obj = new Integer(array[REQ_NUM_PROC].trim());
+                            int numProc = obj.intValue();
+
+                            // if the required num of allocated processors field is ignored
+                            // or zero, then use the actual field
+                            if (numProc == IRRELEVANT || numProc == 0) {
+                                    obj = new Integer(array[NUM_PROC].trim());
+                                    numProc = obj.intValue();
+                            }
+
+                            // finally, check if the num of PEs required is valid or not
+                            if (numProc <= 0) {
+                                    numProc = 1;
+                            }
+                            nextJob = createJob(id, submitTime, runTime, numProc, reqRunTime, userID, groupID);
+                            jobCount++;
+                    } catch (final Exception e) {
 
-                    reader.close();
-                    success = true;
-            } finally {
-                    if (reader != null) {
-                            reader.close();
                     }
             }
 
-            return success;
-    }
+            /**
+             * Breaks a line from the trace file into many fields into the
+             * {@link #fieldArray}.
+             * 
+             * @param line a line from the trace file
+             * @param lineNum the line number
+             * @pre line != null
+             * @pre lineNum > 0
+             * @post $none
+             */
+            private void parseValue(final String line, final int lineNum) {
+                    // skip a comment line
+                    if (line.startsWith(COMMENT)) {
+                            return;
+                    }
 
-    /**
-     * Reads traces from a Zip file, one line at a time.
-     * 
-     * @param fl a zip file name
-     * @return <code>true</code> if reading a file is successful; <code>false</code> otherwise.
-     * @throws IOException if the there was any error reading the file
-     */
-    private boolean readZipFile(final File fl) throws IOException {
-            boolean success = false;
-            ZipFile zipFile = null;
-            try {
-                    BufferedReader reader = null;
-
-                    // ZipFile offers an Enumeration of all the files in the file
-                    zipFile = new ZipFile(fl);
-                    final Enumeration<? extends ZipEntry> e = zipFile.entries();
-                    while (e.hasMoreElements()) {
-                            success = false; // reset the value again
-                            final ZipEntry zipEntry = e.nextElement();
-
-                            reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(zipEntry)));
-
-                            // read one line at the time
-                            int line = 1;                       
-                            String readLine = null;
-                            while (reader.ready() && (readLine = reader.readLine()) != null)  {
-                                    parseValue(readLine, line);
-                                    line++;
-                            }
+                    final String[] sp = line.split("\\s+"); // split the fields based on a
+                    // space
+                    int len = 0; // length of a string
+                    int index = 0; // the index of an array
 
-                            reader.close();
-                            success = true;
+                    // check for each field in the array
+                    for (final String elem : sp) {
+                            len = elem.length(); // get the length of a string
+
+                            // if it is empty then ignore
+                            if (len == 0) {
+                                    continue;
+                            }
+                            fieldArray[index] = elem;
+                            index++;
                     }
-            } finally {
-                    if (zipFile != null) {
-                            zipFile.close();
+
+                    if (index == MAX_FIELD) {
+                            extractField(fieldArray, lineNum);
                     }
             }
-
-            return success;
     }
 }
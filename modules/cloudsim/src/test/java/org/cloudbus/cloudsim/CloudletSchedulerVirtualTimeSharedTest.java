@@ -0,0 +1,150 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class CloudletSchedulerVirtualTimeSharedTest {
+
+	private static final double MIPS = 1000;
+
+	private CloudletSchedulerTimeShared expected;
+
+	private CloudletSchedulerVirtualTimeShared scheduler;
+
+	@Before
+	public void setUp() throws Exception {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		expected = new CloudletSchedulerTimeShared();
+		scheduler = new CloudletSchedulerVirtualTimeShared();
+	}
+
+	@Test
+	public void testUpdateVmProcessing() {
+		List<Double> mipsShare = Arrays.asList(MIPS, MIPS);
+		update(0, mipsShare);
+
+		assertEquals(submit(0, 10000, 1), 10.0, 0);
+		submit(1, 5000, 1);
+		submit(2, 2000, 2);
+		assertEquals(3, scheduler.runningCloudlets());
+
+		// 4 PEs in use over 2 PEs, so each PE gets 500 MIPS
+		assertEquals(4.0, scheduler.updateVmProcessing(1.0, mipsShare), 0);
+		assertFalse(scheduler.isFinishedCloudlets());
+		// then 2 PEs in use, so each PE gets 1000 MIPS
+		assertEquals(4.0 + 3000 / MIPS, scheduler.updateVmProcessing(4.0, mipsShare), 0);
+		assertTrue(scheduler.isFinishedCloudlets());
+		assertEquals(2, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertFalse(scheduler.isFinishedCloudlets());
+		assertEquals(2, scheduler.runningCloudlets());
+		assertEquals(2, scheduler.getCloudletExecList().size());
+		assertEquals(8000, scheduler.getCloudletExecList().get(0).getRemainingCloudletLength());
+		assertEquals(3000, scheduler.getCloudletExecList().get(1).getRemainingCloudletLength());
+	}
+
+	@Test
+	public void testSameAsTimeShared() {
+		Random random = new Random(7);
+		List<List<Double>> mipsShares = new ArrayList<List<Double>>();
+		mipsShares.add(Arrays.asList(MIPS, MIPS));
+		mipsShares.add(Arrays.asList(MIPS, 0.0));
+		mipsShares.add(Arrays.asList(333.3, 666.7));
+
+		double time = 0;
+		int nextId = 0;
+		update(time, mipsShares.get(0));
+		for (int step = 0; step < 2000; step++) {
+			int operation = random.nextInt(10);
+			if (operation < 4) {
+				submit(nextId++, 100 + random.nextInt(5000), 1 + random.nextInt(3));
+			} else if (operation == 4 && nextId > 0) {
+				int id = random.nextInt(nextId);
+				assertEquals(expected.cloudletPause(id), scheduler.cloudletPause(id));
+			} else if (operation == 5 && nextId > 0) {
+				int id = random.nextInt(nextId);
+				assertEquals(expected.cloudletResume(id), scheduler.cloudletResume(id), 0);
+			} else if (operation == 6 && nextId > 0) {
+				int id = random.nextInt(nextId);
+				Cloudlet canceled = expected.cloudletCancel(id);
+				assertEquals(canceled == null ? null : canceled.getCloudletId(),
+						id(scheduler.cloudletCancel(id)));
+			} else {
+				time += random.nextInt(3) == 0 ? 0.01 : random.nextDouble() * 5;
+				update(time, mipsShares.get(random.nextInt(mipsShares.size())));
+			}
+			assertEquals(expected.runningCloudlets(), scheduler.runningCloudlets());
+		}
+
+		assertEquals(expected.getCloudletExecList().size(), scheduler.getCloudletExecList().size());
+		for (int i = 0; i < expected.getCloudletExecList().size(); i++) {
+			ResCloudlet rcl = expected.getCloudletExecList().get(i);
+			ResCloudlet other = scheduler.getCloudletExecList().get(i);
+			assertEquals(rcl.getCloudletId(), other.getCloudletId());
+			assertEquals(rcl.getRemainingCloudletLength(), other.getRemainingCloudletLength());
+		}
+	}
+
+	/**
+	 * Updates both schedulers, checking that they return the same next event and finish the same
+	 * cloudlets in the same order.
+	 */
+	private double update(double time, List<Double> mipsShare) {
+		double nextEvent = expected.updateVmProcessing(time, mipsShare);
+		assertEquals(nextEvent, scheduler.updateVmProcessing(time, mipsShare), 0);
+		while (expected.isFinishedCloudlets()) {
+			assertTrue(scheduler.isFinishedCloudlets());
+			Cloudlet cloudlet = expected.getNextFinishedCloudlet();
+			Cloudlet other = scheduler.getNextFinishedCloudlet();
+			assertEquals(cloudlet.getCloudletId(), other.getCloudletId());
+			assertEquals(cloudlet.getCloudletStatus(), other.getCloudletStatus());
+			assertEquals(cloudlet.getCloudletFinishedSoFar(), other.getCloudletFinishedSoFar());
+		}
+		assertFalse(scheduler.isFinishedCloudlets());
+		return nextEvent;
+	}
+
+	/**
+	 * Submits the same cloudlet to both schedulers, checking that they return the same estimated
+	 * finish time.
+	 */
+	private double submit(int id, long length, int pes) {
+		double finishTime = expected.cloudletSubmit(createCloudlet(id, length, pes));
+		assertEquals(finishTime, scheduler.cloudletSubmit(createCloudlet(id, length, pes)), 0);
+		return finishTime;
+	}
+
+	private static Cloudlet createCloudlet(int id, long length, int pes) {
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		Cloudlet cloudlet = new Cloudlet(id, length, pes, 300, 300, utilizationModel, utilizationModel,
+				utilizationModel);
+		cloudlet.setResourceParameter(0, 0, 0);
+		return cloudlet;
+	}
+
+	private static Integer id(Cloudlet cloudlet) {
+		return cloudlet == null ? null : cloudlet.getCloudletId();
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.util.CloudletSource;
+import org.cloudbus.cloudsim.util.CloudletStatistics;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class DatacenterBrokerTest {
+
+	private static final int HOSTS = 2;
+
+	private static final int CLOUDLETS = 40;
+
+	/** The time between the arrivals of each pair of cloudlets. */
+	private static final double INTERVAL = 10;
+
+	private static final int MIPS = 1000;
+
+	@Test
+	public void testCloudletSource() throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		createDatacenter();
+
+		final DatacenterBroker broker = new DatacenterBroker("Broker");
+		broker.submitVmList(createVms(broker));
+
+		final int[] created = new int[1];
+		final int[] maxRunning = new int[1];
+		final CloudletStatistics statistics = new CloudletStatistics() {
+
+			@Override
+			public void cloudletReturned(Cloudlet cloudlet) {
+				super.cloudletReturned(cloudlet);
+				// the cloudlet arrived at its time and ran right away on an idle VM
+				double arrivalTime = INTERVAL * (cloudlet.getCloudletId() / HOSTS);
+				assertTrue(cloudlet.getSubmissionTime() >= arrivalTime);
+				assertTrue(cloudlet.getSubmissionTime() < arrivalTime + 1);
+				assertEquals(1, cloudlet.getActualCPUTime(), 0.01);
+			}
+
+		};
+		broker.setCloudletSink(statistics);
+		broker.setCloudletSource(new CloudletSource() {
+
+			@Override
+			public boolean hasNext() {
+				return created[0] < CLOUDLETS;
+			}
+
+			@Override
+			public double getNextArrivalTime() {
+				return INTERVAL * (created[0] / HOSTS);
+			}
+
+			@Override
+			public Cloudlet next() {
+				UtilizationModel utilizationModel = new UtilizationModelFull();
+				Cloudlet cloudlet = new Cloudlet(created[0]++, MIPS, 1, 300, 300, utilizationModel,
+						utilizationModel, utilizationModel);
+				cloudlet.setUserId(broker.getId());
+				maxRunning[0] = Math.max(maxRunning[0], created[0] - (int) statistics.getCount());
+				return cloudlet;
+			}
+
+		});
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		assertEquals(CLOUDLETS, statistics.getCount());
+		assertEquals(CLOUDLETS, statistics.getSuccessCount());
+		assertEquals(1, statistics.getMaxCpuTime(), 0.01);
+		assertEquals(INTERVAL * (CLOUDLETS / HOSTS - 1) + 1, statistics.getMakespan(), 0.5);
+		assertTrue(broker.getCloudletReceivedList().isEmpty());
+		assertTrue(broker.getCloudletSubmittedList().isEmpty());
+		assertEquals(HOSTS, maxRunning[0]);
+	}
+
+	@Test
+	public void testSubmissionDelay() throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		createDatacenter();
+
+		final int[] arrivals = new int[1];
+		DatacenterBroker broker = new DatacenterBroker("Broker") {
+
+			@Override
+			protected void processCloudletArrival(SimEvent ev) {
+				arrivals[0]++;
+				super.processCloudletArrival(ev);
+			}
+
+		};
+		broker.submitVmList(createVms(broker));
+
+		// pairs of cloudlets arrive together, out of order in the list
+		List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, MIPS, 1, 300, 300, utilizationModel, utilizationModel,
+					utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setSubmissionDelay(INTERVAL * ((CLOUDLETS - 1 - i) / HOSTS));
+			cloudlets.add(cloudlet);
+		}
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		// one event for each distinct delay but the first one, sent once the VMs are created
+		assertEquals(CLOUDLETS / HOSTS - 1, arrivals[0]);
+		assertEquals(CLOUDLETS, broker.getCloudletReceivedList().size());
+		assertEquals(CLOUDLETS, broker.getCloudletSubmittedList().size());
+		for (Cloudlet cloudlet : cloudlets) {
+			assertTrue(cloudlet.getSubmissionTime() >= cloudlet.getSubmissionDelay());
+			assertTrue(cloudlet.getSubmissionTime() < cloudlet.getSubmissionDelay() + 1);
+			assertEquals(1, cloudlet.getActualCPUTime(), 0.01);
+		}
+	}
+
+	private static void createDatacenter() throws Exception {
+		List<Host> hosts = new ArrayList<Host>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+			hosts.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), Consts.MILLION,
+					peList, new VmSchedulerTimeShared(peList)));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts,
+				10.0, 3.0, 0.05, 0.001, 0.0);
+		new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts),
+				new LinkedList<Storage>(), 0);
+	}
+
+	private static List<Vm> createVms(DatacenterBroker broker) {
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < HOSTS; i++) {
+			vms.add(new Vm(i, broker.getId(), MIPS, 1, 512, 1000, 10000, "Xen",
+					new CloudletSchedulerTimeShared()));
+		}
+		return vms;
+	}
+
+}
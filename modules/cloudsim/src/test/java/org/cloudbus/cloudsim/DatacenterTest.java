@@ -0,0 +1,342 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class DatacenterTest {
+
+	private static final int HOSTS = 50;
+
+	private static final int VMS_PER_HOST = 2;
+
+	private static final int CLOUDLETS_PER_VM = 3;
+
+	private static final int MIPS = 1000;
+
+	@Test
+	public void testIncrementalProcessing() throws Exception {
+		Result sweep = runStaggered(false);
+		Result incremental = runStaggered(true);
+
+		assertTrue(sweep.finishTimes.length > 0);
+		for (int i = 0; i < sweep.finishTimes.length; i++) {
+			assertTrue(sweep.finishTimes[i] > 0);
+			assertEquals(sweep.finishTimes[i], incremental.finishTimes[i], 1e-9);
+		}
+		assertArrayEquals(sweep.returnOrder, incremental.returnOrder);
+	}
+
+	@Test
+	public void testIncrementalProcessingUpdates() throws Exception {
+		Result sweep = run(false, false);
+		Result incremental = run(true, false);
+
+		assertEquals(HOSTS * VMS_PER_HOST * CLOUDLETS_PER_VM, incremental.finishTimes.length);
+		for (int i = 0; i < incremental.finishTimes.length; i++) {
+			assertTrue(incremental.finishTimes[i] > 0);
+		}
+		// each cloudlet finishing only updates its own host
+		assertTrue(incremental.updates * 5 < sweep.updates);
+	}
+
+	@Test
+	public void testBatchSubmission() throws Exception {
+		Result single = run(false, false);
+		Result batch = run(false, true);
+
+		assertEquals(single.finishTimes.length, batch.finishTimes.length);
+		for (int i = 0; i < single.finishTimes.length; i++) {
+			assertTrue(single.finishTimes[i] > 0);
+			assertEquals(single.finishTimes[i], batch.finishTimes[i], 0);
+		}
+		assertArrayEquals(single.hostIds, batch.hostIds);
+		// the hosts are updated once for all the cloudlets submitted, instead of once per cloudlet
+		assertTrue(batch.updates + HOSTS * (single.finishTimes.length - 1) <= single.updates);
+	}
+
+	@Test
+	public void testSchedulerNotNotifyingFinishedCloudlets() throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+		List<Host> hosts = new ArrayList<Host>();
+		hosts.add(new Host(0, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), Consts.MILLION, peList,
+				new VmSchedulerTimeShared(peList)));
+		createDatacenter(hosts);
+
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		// keeps the finished cloudlets in a list of its own, without notifying the datacenter
+		CloudletScheduler scheduler = new CloudletSchedulerTimeShared() {
+
+			{
+				setCloudletFinishedList(new ArrayList<ResCloudlet>());
+			}
+
+		};
+		List<Vm> vms = new ArrayList<Vm>();
+		vms.add(new Vm(0, broker.getId(), MIPS, 1, 512, 1000, 10000, "Xen", scheduler));
+		List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		for (int i = 0; i < 3; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000 * (i + 1), 1, 300, 300, utilizationModel, utilizationModel,
+					utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlets.add(cloudlet);
+		}
+		broker.submitVmList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		assertEquals(cloudlets.size(), broker.getCloudletReceivedList().size());
+	}
+
+	@Test
+	public void testSchedulerNotNotifyingWithCloudletAlreadyFinished() throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+		List<Host> hosts = new ArrayList<Host>();
+		hosts.add(new Host(0, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), Consts.MILLION, peList,
+				new VmSchedulerTimeShared(peList)));
+		Datacenter datacenter = createDatacenter(hosts);
+
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		final Cloudlet finished = new Cloudlet(0, 1000, 1, 300, 300, utilizationModel, utilizationModel,
+				utilizationModel);
+		// the cloudlet finished before it is watched doesn't count as submitted by the broker
+		DatacenterBroker broker = new DatacenterBroker("Broker") {
+
+			@Override
+			protected void processCloudletReturn(Cloudlet cloudlet) {
+				if (cloudlet == finished) {
+					getCloudletReceivedList().add(cloudlet);
+				} else {
+					super.processCloudletReturn(cloudlet);
+				}
+			}
+
+		};
+		CloudletScheduler scheduler = new CloudletSchedulerTimeShared() {
+
+			{
+				setCloudletFinishedList(new ArrayList<ResCloudlet>());
+			}
+
+		};
+		finished.setUserId(broker.getId());
+		finished.setResourceParameter(datacenter.getId(), 0, 0);
+		scheduler.cloudletFinish(new ResCloudlet(finished));
+
+		List<Vm> vms = new ArrayList<Vm>();
+		vms.add(new Vm(0, broker.getId(), MIPS, 1, 512, 1000, 10000, "Xen", scheduler));
+		List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+		for (int i = 1; i < 3; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000 * i, 1, 300, 300, utilizationModel, utilizationModel,
+					utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlets.add(cloudlet);
+		}
+		broker.submitVmList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		assertFalse(scheduler.isNotifyingCloudletFinished());
+		assertEquals(cloudlets.size() + 1, broker.getCloudletReceivedList().size());
+		assertTrue(broker.getCloudletReceivedList().contains(finished));
+	}
+
+	@Test
+	public void testIncrementalProcessingFlag() throws Exception {
+		CloudSim.init(1, Calendar.getInstance(), false);
+		Datacenter datacenter = createDatacenter(new ArrayList<Host>());
+		assertFalse(datacenter.isIncrementalProcessing());
+		datacenter.setIncrementalProcessing(true);
+		assertTrue(datacenter.isIncrementalProcessing());
+	}
+
+	/**
+	 * Runs cloudlets of different lengths in VMs spread over many hosts.
+	 *
+	 * @param incremental true to process the hosts incrementally
+	 * @param batch true to submit the VMs and cloudlets in batches
+	 * @return the finish time of each cloudlet and the host of each VM, by id, and the number of
+	 *         host updates
+	 */
+	private static Result run(boolean incremental, boolean batch) throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		final Result result = new Result();
+		List<Host> hosts = new ArrayList<Host>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+			hosts.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), Consts.MILLION,
+					peList, new VmSchedulerTimeShared(peList)) {
+
+				@Override
+				public double updateVmsProcessing(double currentTime) {
+					result.updates++;
+					return super.updateVmsProcessing(currentTime);
+				}
+
+			});
+		}
+		Datacenter datacenter = createDatacenter(hosts);
+		datacenter.setIncrementalProcessing(incremental);
+
+		result.hostIds = new int[HOSTS * VMS_PER_HOST];
+		DatacenterBroker broker = new DatacenterBroker("Broker") {
+
+			@Override
+			protected void processVmCreate(int[] data) {
+				super.processVmCreate(data);
+				Vm vm = VmList.getById(getVmsCreatedList(), data[1]);
+				result.hostIds[data[1]] = vm == null ? -1 : vm.getHost().getId();
+			}
+
+		};
+		broker.setBatchSubmission(batch);
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < HOSTS * VMS_PER_HOST; i++) {
+			vms.add(new Vm(i, broker.getId(), MIPS / VMS_PER_HOST, 1, 512, 1000, 10000, "Xen",
+					new CloudletSchedulerTimeShared()));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		for (int i = 0; i < vms.size() * CLOUDLETS_PER_VM; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 10000 + 7919L * (i % 37), 1, 300, 300, utilizationModel,
+					utilizationModel, utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setVmId(i % vms.size());
+			cloudlets.add(cloudlet);
+		}
+		broker.submitVmList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		result.finishTimes = new double[cloudlets.size()];
+		for (Cloudlet cloudlet : broker.getCloudletReceivedList()) {
+			result.finishTimes[cloudlet.getCloudletId()] = cloudlet.getFinishTime();
+		}
+		return result;
+	}
+
+	/**
+	 * Runs cloudlets in VMs of hosts with 4 and 2 PEs, as in CloudSimExample6, with a different
+	 * number of cloudlets in some VMs, so that the hosts finish their cloudlets at different
+	 * times.
+	 *
+	 * @param incremental true to process the hosts incrementally
+	 * @return the finish time of each cloudlet, by id, and the ids of the cloudlets in the order
+	 *         they were returned
+	 */
+	private static Result runStaggered(boolean incremental) throws Exception {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		List<Host> hosts = new ArrayList<Host>();
+		int pes = 0;
+		for (int i = 0; i < 10; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			for (int j = 0; j < (i % 2 == 0 ? 4 : 2); j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(MIPS)));
+			}
+			pes += peList.size();
+			hosts.add(new Host(i, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), Consts.MILLION,
+					peList, new VmSchedulerTimeShared(peList)));
+		}
+		Datacenter datacenter = createDatacenter(hosts);
+		datacenter.setIncrementalProcessing(incremental);
+
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < pes; i++) {
+			vms.add(new Vm(i, broker.getId(), MIPS, 1, 128, 1000, 10000, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<Cloudlet>();
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		// as many cloudlets as to give four cloudlets to a third of the VMs and three to the rest,
+		// assigned to the VMs by the broker
+		for (int i = 0; i < 3 * vms.size() + vms.size() / 3; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000, 1, 300, 300, utilizationModel, utilizationModel,
+					utilizationModel);
+			cloudlet.setUserId(broker.getId());
+			cloudlets.add(cloudlet);
+		}
+		broker.submitVmList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		Result result = new Result();
+		result.finishTimes = new double[cloudlets.size()];
+		result.returnOrder = new int[cloudlets.size()];
+		int returned = 0;
+		for (Cloudlet cloudlet : broker.getCloudletReceivedList()) {
+			result.finishTimes[cloudlet.getCloudletId()] = cloudlet.getFinishTime();
+			result.returnOrder[returned++] = cloudlet.getCloudletId();
+		}
+		return result;
+	}
+
+	private static Datacenter createDatacenter(List<Host> hosts) throws Exception {
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts,
+				10.0, 3.0, 0.05, 0.001, 0.0);
+		return new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts),
+				new LinkedList<Storage>(), 0);
+	}
+
+	private static class Result {
+
+		private double[] finishTimes;
+
+		private int[] returnOrder;
+
+		private int[] hostIds;
+
+		private int updates;
+
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.HostPlacementIndex.Fit;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class HostPlacementIndexTest {
+
+	private static final int HOSTS = 37;
+
+	private final int[] pes = new int[HOSTS];
+
+	private final int[] ram = new int[HOSTS];
+
+	private final long[] bw = new long[HOSTS];
+
+	@Test
+	public void testSameAsScan() {
+		Random random = new Random(17);
+		HostPlacementIndex index = new HostPlacementIndex(HOSTS);
+
+		for (int step = 0; step < 2000; step++) {
+			int position = random.nextInt(HOSTS);
+			pes[position] = random.nextInt(8) - 2;
+			ram[position] = random.nextInt(4) * 1024;
+			bw[position] = random.nextInt(4) * 1000L;
+			index.update(position, pes[position], ram[position], bw[position]);
+
+			int requiredPes = random.nextInt(8) - 2;
+			int requiredRam = random.nextInt(4) * 1024;
+			long requiredBw = random.nextInt(4) * 1000L;
+			for (Fit fit : Fit.values()) {
+				assertEquals(scan(fit, requiredPes, requiredRam, requiredBw),
+						list(index.iterator(fit, requiredPes, requiredRam, requiredBw)));
+			}
+			assertEquals(scan(Fit.WORST_FIT, Integer.MIN_VALUE, 0, 0),
+					list(index.iterator(Fit.WORST_FIT, Integer.MIN_VALUE, 0, 0)));
+		}
+	}
+
+	/**
+	 * Enumerates the suitable hosts by sorting all of them.
+	 */
+	private List<Integer> scan(final Fit fit, int requiredPes, int requiredRam, long requiredBw) {
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int i = 0; i < HOSTS; i++) {
+			if (pes[i] >= requiredPes && ram[i] >= requiredRam && bw[i] >= requiredBw) {
+				positions.add(i);
+			}
+		}
+		Collections.sort(positions, new Comparator<Integer>() {
+
+			@Override
+			public int compare(Integer a, Integer b) {
+				if (fit == Fit.BEST_FIT && pes[a] != pes[b]) {
+					return pes[a] < pes[b] ? -1 : 1;
+				}
+				if (fit == Fit.WORST_FIT && pes[a] != pes[b]) {
+					return pes[a] > pes[b] ? -1 : 1;
+				}
+				return a.compareTo(b);
+			}
+
+		});
+		return positions;
+	}
+
+	private static List<Integer> list(Iterator<Integer> iterator) {
+		List<Integer> positions = new ArrayList<Integer>();
+		while (iterator.hasNext()) {
+			positions.add(iterator.next());
+		}
+		return positions;
+	}
+
+}
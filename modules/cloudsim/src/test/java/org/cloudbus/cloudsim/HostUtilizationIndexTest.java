@@ -0,0 +1,95 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class HostUtilizationIndexTest {
+
+	private static final int HOSTS = 37;
+
+	@Test
+	public void testSameAsScan() {
+		Random random = new Random(23);
+		HostUtilizationIndex index = new HostUtilizationIndex(HOSTS);
+		double[] utilization = new double[HOSTS];
+		boolean[] removed = new boolean[HOSTS];
+		for (int position = 0; position < HOSTS; position++) {
+			utilization[position] = nextUtilization(random);
+			index.update(position, utilization[position]);
+		}
+
+		for (int step = 0; step < 2000; step++) {
+			int position = random.nextInt(HOSTS);
+			if (random.nextBoolean()) {
+				utilization[position] = nextUtilization(random);
+				removed[position] = false;
+				index.update(position, utilization[position]);
+			} else {
+				removed[position] = true;
+				index.remove(position);
+				assertFalse(index.contains(position));
+			}
+			assertEquals(scan(utilization, removed), list(index));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		HostUtilizationIndex index = new HostUtilizationIndex(HOSTS);
+		assertEquals(HOSTS, index.size());
+		assertEquals(-1, index.first());
+	}
+
+	private static double nextUtilization(Random random) {
+		// few distinct values, so that hosts often have the same utilization
+		return random.nextInt(5) / 4.0;
+	}
+
+	/**
+	 * Lists the hosts not removed, by increasing utilization, then position.
+	 */
+	private static List<Integer> scan(double[] utilization, boolean[] removed) {
+		List<Integer> positions = new ArrayList<Integer>();
+		boolean[] listed = new boolean[HOSTS];
+		while (true) {
+			int min = -1;
+			for (int position = 0; position < HOSTS; position++) {
+				if (!removed[position] && !listed[position]
+						&& (min == -1 || utilization[position] < utilization[min])) {
+					min = position;
+				}
+			}
+			if (min == -1) {
+				return positions;
+			}
+			listed[min] = true;
+			positions.add(min);
+		}
+	}
+
+	private static List<Integer> list(HostUtilizationIndex index) {
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int position = index.first(); position != -1; position = index.next(position)) {
+			positions.add(position);
+		}
+		return positions;
+	}
+
+}
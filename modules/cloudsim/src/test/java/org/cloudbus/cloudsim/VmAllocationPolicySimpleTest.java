@@ -0,0 +1,84 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.HostPlacementIndex.Fit;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class VmAllocationPolicySimpleTest {
+
+	private List<Host> hostList;
+
+	private VmAllocationPolicySimple policy;
+
+	@Before
+	public void setUp() {
+		// the best fit tries the host with 2 PEs first
+		hostList = new ArrayList<Host>();
+		hostList.add(createHost(0, 4, 1024));
+		hostList.add(createHost(1, 2, 4096));
+		hostList.add(createHost(2, 4, 1024));
+		policy = new VmAllocationPolicySimple(hostList, Fit.BEST_FIT);
+	}
+
+	@Test
+	public void testHostFilledOutsidePolicy() {
+		assertTrue(hostList.get(1).vmCreate(createVm(0, 3072)));
+
+		Vm vm = createVm(1, 2048);
+		assertFalse(hostList.get(1).isSuitableForVm(vm));
+		assertFalse(policy.allocateHostForVm(vm));
+
+		Vm smallVm = createVm(2, 512);
+		assertTrue(policy.allocateHostForVm(smallVm));
+		assertSame(hostList.get(1), policy.getHost(smallVm));
+	}
+
+	@Test
+	public void testHostFreedOutsidePolicy() {
+		Vm vm = createVm(0, 3072);
+		assertTrue(policy.allocateHostForVm(vm));
+		assertSame(hostList.get(1), policy.getHost(vm));
+
+		// migrated away without the policy knowing, so the RAM of the host is free again
+		hostList.get(1).vmDestroy(vm);
+
+		Vm otherVm = createVm(1, 2048);
+		assertTrue(policy.allocateHostForVm(otherVm));
+		assertSame(hostList.get(1), policy.getHost(otherVm));
+	}
+
+	private static Host createHost(int id, int pes, int ram) {
+		List<Pe> peList = new ArrayList<Pe>();
+		for (int i = 0; i < pes; i++) {
+			peList.add(new Pe(i, new PeProvisionerSimple(1000)));
+		}
+		return new Host(id, new RamProvisionerSimple(ram), new BwProvisionerSimple(10000), 1000000, peList,
+				new VmSchedulerTimeShared(peList));
+	}
+
+	private static Vm createVm(int id, int ram) {
+		return new Vm(id, 0, 500, 1, ram, 1000, 10000, "Xen", new CloudletSchedulerTimeShared());
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Iterator;
+
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the per-destination lookups of the {@link DeferredQueue}.
+ */
+public class DeferredQueueTest {
+
+	private DeferredQueue queue;
+
+	private SimEvent e1, e2, e3, e4, e5;
+
+	@Before
+	public void setUp() {
+		FutureQueue future = new FutureQueueTreeSet();
+		queue = new DeferredQueue();
+		e1 = event(1.0, 1, 10);
+		e2 = event(1.0, 2, 10);
+		e3 = event(2.0, 1, 20);
+		e4 = event(3.0, 1, 10);
+		e5 = event(3.0, 40, 30);
+		for (SimEvent e : new SimEvent[] { e1, e2, e3, e4, e5 }) {
+			future.addEvent(e);
+			queue.addEvent(e);
+		}
+	}
+
+	@Test
+	public void testCount() {
+		assertEquals(5, queue.size());
+		assertEquals(3, queue.size(1));
+		assertEquals(0, queue.size(3));
+		assertEquals(3, queue.count(1, CloudSim.SIM_ANY));
+		assertEquals(2, queue.count(1, new PredicateType(10)));
+		assertEquals(1, queue.count(40, new PredicateType(30)));
+		assertEquals(0, queue.count(1000, CloudSim.SIM_ANY));
+	}
+
+	@Test
+	public void testFindAndRemove() {
+		assertSame(e3, queue.findFirst(1, new PredicateType(20)));
+		assertNull(queue.findFirst(2, new PredicateType(20)));
+		assertEquals(5, queue.size());
+
+		assertSame(e3, queue.removeFirst(1, new PredicateType(20)));
+		assertSame(e1, queue.removeFirst(1, CloudSim.SIM_ANY));
+		assertSame(e4, queue.removeFirst(1, CloudSim.SIM_ANY));
+		assertNull(queue.removeFirst(1, CloudSim.SIM_ANY));
+		assertEquals(2, queue.size());
+	}
+
+	@Test
+	public void testOutOfOrderInsertion() {
+		SimEvent late = event(2.0, 1, 50);
+		queue.addEvent(late);
+		assertSame(e1, queue.removeFirst(1, CloudSim.SIM_ANY));
+		assertSame(e3, queue.removeFirst(1, CloudSim.SIM_ANY));
+		assertSame(late, queue.removeFirst(1, CloudSim.SIM_ANY));
+		assertSame(e4, queue.removeFirst(1, CloudSim.SIM_ANY));
+	}
+
+	@Test
+	public void testGrowth() {
+		for (int i = 0; i < 100; i++) {
+			queue.addEvent(event(5.0 + i, 3, i));
+		}
+		assertEquals(100, queue.size(3));
+		assertSame(e2, queue.removeFirst(2, CloudSim.SIM_ANY));
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, queue.removeFirst(3, CloudSim.SIM_ANY).getTag());
+		}
+	}
+
+	@Test
+	public void testIterator() {
+		SimEvent[] expected = { e1, e2, e3, e4, e5 };
+		Iterator<SimEvent> iterator = queue.iterator();
+		for (SimEvent e : expected) {
+			assertSame(e, iterator.next());
+		}
+
+		iterator = queue.iterator();
+		iterator.next();
+		iterator.remove();
+		assertEquals(4, queue.size());
+		assertEquals(2, queue.size(1));
+	}
+
+	private static SimEvent event(double time, int destination, int tag) {
+		return new SimEvent(SimEvent.SEND, time, 0, destination, tag, null);
+	}
+
+}
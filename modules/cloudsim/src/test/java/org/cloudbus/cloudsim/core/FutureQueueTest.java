@@ -0,0 +1,288 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Test;
+
+/**
+ * Checks that every {@link FutureQueue} implementation dequeues events in the same order as the
+ * {@link FutureQueueTreeSet}.
+ */
+public class FutureQueueTest {
+
+	private static final int OPERATIONS = 20000;
+
+	@Test
+	public void testHeapOrder() {
+		checkSameOrder(new FutureQueueHeap());
+		checkSameOrder(new FutureQueueHeap(2));
+	}
+
+	@Test
+	public void testCalendarOrder() {
+		checkSameOrder(new FutureQueueCalendar());
+		checkSameOrder(new FutureQueueCalendar(0.001));
+	}
+
+	@Test
+	public void testLadderOrder() {
+		checkSameOrder(new FutureQueueLadder());
+	}
+
+	@Test
+	public void testAddEventFirst() {
+		FutureQueue[] queues = { new FutureQueueTreeSet(), new FutureQueueHeap(),
+				new FutureQueueCalendar(), new FutureQueueLadder() };
+		for (FutureQueue queue : queues) {
+			queue.addEvent(event(9.0, 0));
+			queue.addEvent(event(5.0, 1));
+			queue.addEvent(event(5.0, 2));
+			queue.addEventFirst(event(5.0, 3));
+			queue.addEventFirst(event(5.0, 4));
+			queue.addEvent(event(1.0, 5));
+
+			assertEquals(6, queue.size());
+			assertEquals(5, queue.pollFirst().getTag());
+			assertEquals(3, queue.pollFirst().getTag());
+			assertEquals(4, queue.pollFirst().getTag());
+			assertEquals(1, queue.pollFirst().getTag());
+			assertEquals(2, queue.pollFirst().getTag());
+			assertEquals(0, queue.pollFirst().getTag());
+			assertNull(queue.pollFirst());
+		}
+	}
+
+	@Test
+	public void testRemove() {
+		FutureQueue[] queues = { new FutureQueueTreeSet(), new FutureQueueHeap(),
+				new FutureQueueCalendar(), new FutureQueueLadder() };
+		for (FutureQueue queue : queues) {
+			SimEvent removed = event(2.0, 2);
+			queue.addEvent(event(1.0, 1));
+			queue.addEvent(removed);
+			queue.addEvent(event(3.0, 3));
+
+			assertTrue(queue.remove(removed));
+			assertFalse(queue.remove(removed));
+			assertEquals(2, queue.size());
+
+			Iterator<SimEvent> iterator = queue.iterator();
+			int count = 0;
+			while (iterator.hasNext()) {
+				assertFalse(iterator.next() == removed);
+				count++;
+			}
+			assertEquals(2, count);
+
+			assertEquals(1, queue.pollFirst().getTag());
+			assertEquals(3, queue.pollFirst().getTag());
+			assertEquals(0, queue.size());
+		}
+	}
+
+	@Test
+	public void testCancel() {
+		FutureQueue[] queues = { new FutureQueueTreeSet(), new FutureQueueHeap(),
+				new FutureQueueCalendar(), new FutureQueueLadder() };
+		Predicate evenData = new Predicate() {
+
+			@Override
+			public boolean match(SimEvent ev) {
+				return (Integer) ev.getData() % 2 == 0;
+			}
+
+		};
+
+		for (FutureQueue queue : queues) {
+			List<SimEvent> pending = new ArrayList<SimEvent>();
+			Random random = new Random(3);
+			for (int i = 0; i < 400; i++) {
+				SimEvent event = new SimEvent(SimEvent.SEND, random.nextInt(50), random.nextInt(3), 9,
+						random.nextInt(4), i);
+				queue.addEvent(event);
+				pending.add(event);
+			}
+
+			checkRemoveFirst(queue, pending, 0, new PredicateType(new int[] { 1, 3 }));
+			checkRemoveFirst(queue, pending, 1, evenData);
+			checkRemoveFirst(queue, pending, 2, CloudSim.SIM_ANY);
+			assertNull(queue.removeFirst(5, CloudSim.SIM_ANY));
+
+			checkRemoveAll(queue, pending, 1, new PredicateType(2));
+			checkRemoveAll(queue, pending, 0, evenData);
+			assertEquals(0, queue.removeAll(2, new PredicateFrom(0)));
+			checkRemoveAll(queue, pending, 2, new PredicateFrom(new int[] { 1, 2 }));
+			assertEquals(0, queue.removeAll(1, new PredicateType(2)));
+
+			// The remaining events are still dequeued in order
+			double time = 0;
+			while (queue.size() > 0) {
+				SimEvent event = queue.pollFirst();
+				assertTrue(pending.remove(event));
+				assertTrue(event.eventTime() >= time);
+				time = event.eventTime();
+			}
+			assertTrue(pending.isEmpty());
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		FutureQueue[] queues = { new FutureQueueTreeSet(), new FutureQueueHeap(),
+				new FutureQueueCalendar(), new FutureQueueLadder() };
+		for (FutureQueue queue : queues) {
+			List<SimEvent> pending = new ArrayList<SimEvent>();
+			Random random = new Random(5);
+			for (int i = 0; i < 400; i++) {
+				SimEvent event = new SimEvent(SimEvent.SEND, random.nextInt(50), random.nextInt(3), 9,
+						random.nextInt(4), i);
+				queue.addEvent(event);
+				pending.add(event);
+			}
+
+			Iterator<SimEvent> iterator = queue.iterator();
+			while (iterator.hasNext()) {
+				SimEvent event = iterator.next();
+				if (random.nextInt(3) == 0) {
+					iterator.remove();
+					assertTrue(pending.remove(event));
+				}
+			}
+			assertEquals(pending.size(), queue.size());
+
+			// The events removed through the iterator are no longer found by their source and tag
+			for (int source = 0; source < 3; source++) {
+				SimEvent event = queue.removeFirst(source, CloudSim.SIM_ANY);
+				while (event != null) {
+					assertTrue(pending.remove(event));
+					assertEquals(pending.size(), queue.size());
+					event = queue.removeFirst(source, CloudSim.SIM_ANY);
+				}
+			}
+			assertTrue(pending.isEmpty());
+		}
+	}
+
+	private static void checkRemoveFirst(FutureQueue queue, List<SimEvent> pending, int source, Predicate p) {
+		SimEvent expected = null;
+		for (SimEvent event : pending) {
+			if (event.getSource() == source && p.match(event)
+					&& (expected == null || FutureQueue.compare(event, expected) < 0)) {
+				expected = event;
+			}
+		}
+		assertTrue(expected != null);
+		assertTrue(queue.removeFirst(source, p) == expected);
+		pending.remove(expected);
+		assertEquals(pending.size(), queue.size());
+	}
+
+	private static void checkRemoveAll(FutureQueue queue, List<SimEvent> pending, int source, Predicate p) {
+		List<SimEvent> expected = new ArrayList<SimEvent>();
+		for (SimEvent event : pending) {
+			if (event.getSource() == source && p.match(event)) {
+				expected.add(event);
+			}
+		}
+		assertTrue(!expected.isEmpty());
+		assertEquals(expected.size(), queue.removeAll(source, p));
+		pending.removeAll(expected);
+		assertEquals(pending.size(), queue.size());
+	}
+
+	/**
+	 * Applies the same random sequence of additions, removals, polls and time bucket polls to a given queue and to a
+	 * {@link FutureQueueTreeSet}, checking that both return the same events.
+	 * 
+	 * @param queue the queue to check
+	 */
+	private void checkSameOrder(FutureQueue queue) {
+		FutureQueue expected = new FutureQueueTreeSet();
+		List<SimEvent> expectedPending = new ArrayList<SimEvent>();
+		List<SimEvent> pending = new ArrayList<SimEvent>();
+		Random random = new Random(7);
+		double clock = 0;
+		int tag = 0;
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				// Few distinct delays, so many events share the same time
+				double time = clock + random.nextInt(20) * (random.nextBoolean() ? 1.0 : 300.0);
+				SimEvent e1 = event(time, tag);
+				SimEvent e2 = event(time, tag++);
+				if (random.nextInt(20) == 0) {
+					expected.addEventFirst(e1);
+					queue.addEventFirst(e2);
+				} else {
+					expected.addEvent(e1);
+					queue.addEvent(e2);
+				}
+				expectedPending.add(e1);
+				pending.add(e2);
+			} else if (operation == 6) {
+				List<SimEvent> expectedBucket = new ArrayList<SimEvent>();
+				List<SimEvent> bucket = new ArrayList<SimEvent>();
+				assertEquals(expected.pollFirstTimeBucket(expectedBucket), queue.pollFirstTimeBucket(bucket));
+				assertEquals(expectedBucket.size(), bucket.size());
+				for (int j = 0; j < bucket.size(); j++) {
+					assertEquals(expectedBucket.get(j).getTag(), bucket.get(j).getTag());
+					assertEquals(expectedBucket.get(0).eventTime(), bucket.get(j).eventTime(), 0);
+				}
+				expectedPending.removeAll(expectedBucket);
+				pending.removeAll(bucket);
+				if (!bucket.isEmpty()) {
+					clock = bucket.get(0).eventTime();
+				}
+			} else if (operation < 6 && !pending.isEmpty()) {
+				int index = random.nextInt(pending.size());
+				assertTrue(expected.remove(expectedPending.remove(index)));
+				assertTrue(queue.remove(pending.remove(index)));
+			} else {
+				SimEvent e1 = expected.pollFirst();
+				SimEvent e2 = queue.pollFirst();
+				if (e1 == null) {
+					assertNull(e2);
+					continue;
+				}
+				assertEquals(e1.getTag(), e2.getTag());
+				assertEquals(e1.eventTime(), e2.eventTime(), 0);
+				expectedPending.remove(e1);
+				pending.remove(e2);
+				clock = e1.eventTime();
+			}
+			assertEquals(expected.size(), queue.size());
+		}
+
+		while (expected.size() > 0) {
+			assertEquals(expected.first().getTag(), queue.first().getTag());
+			assertEquals(expected.pollFirst().getTag(), queue.pollFirst().getTag());
+		}
+		assertEquals(0, queue.size());
+		assertNull(queue.first());
+	}
+
+	private static SimEvent event(double time, int tag) {
+		return new SimEvent(SimEvent.SEND, time, 0, 1, tag, null);
+	}
+
+}
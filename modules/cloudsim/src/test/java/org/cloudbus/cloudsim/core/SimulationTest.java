@@ -0,0 +1,515 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Test;
+
+/**
+ * Checks that simulations run through {@link Simulation} are independent of each other.
+ */
+public class SimulationTest {
+
+	private static final int SIMULATIONS = 4;
+
+	@Test
+	public void testCurrent() throws Exception {
+		final Simulation defaultSimulation = Simulation.current();
+		final Simulation simulation = new Simulation();
+		final Simulation nested = new Simulation();
+
+		simulation.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				assertSame(simulation, Simulation.current());
+				nested.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						assertSame(nested, Simulation.current());
+					}
+
+				});
+				assertSame(simulation, Simulation.current());
+			}
+
+		});
+
+		assertSame(defaultSimulation, Simulation.current());
+	}
+
+	@Test
+	public void testSimulationLocal() throws Exception {
+		final SimulationLocal<Integer> local = new SimulationLocal<Integer>() {
+
+			@Override
+			protected Integer initialValue() {
+				return 1;
+			}
+
+		};
+
+		local.set(2);
+		int value = new Simulation().call(new Callable<Integer>() {
+
+			@Override
+			public Integer call() {
+				int initial = local.get();
+				local.set(3);
+				return initial;
+			}
+
+		});
+
+		assertEquals(1, value);
+		assertEquals(2, (int) local.get());
+		local.set(null);
+		assertEquals(null, local.get());
+	}
+
+	@Test
+	public void testParallelSimulations() throws Exception {
+		boolean logDisabled = Log.isDisabled();
+		final Callable<List<Double>> scenario = new Callable<List<Double>>() {
+
+			@Override
+			public List<Double> call() {
+				Log.disable();
+				CloudSim.init(1, null, false);
+				return runScenario();
+			}
+
+		};
+		List<Double> expected = new Simulation().call(scenario);
+
+		ExecutorService executor = Executors.newFixedThreadPool(SIMULATIONS);
+		try {
+			List<Future<List<Double>>> results = new ArrayList<Future<List<Double>>>();
+			for (int i = 0; i < SIMULATIONS; i++) {
+				results.add(executor.submit(new Callable<List<Double>>() {
+
+					@Override
+					public List<Double> call() throws Exception {
+						return new Simulation().call(scenario);
+					}
+
+				}));
+			}
+
+			for (Future<List<Double>> result : results) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(logDisabled, Log.isDisabled());
+	}
+
+	@Test
+	public void testEventRecycling() throws Exception {
+		List<Double> expected = runScenario(null, false);
+		assertEquals(expected, runScenario(null, true));
+		assertEquals(expected, runScenario(new FutureQueueLadder(), true));
+		assertEquals(6, countEvents(false));
+		// the event being processed and the one it sends take turns
+		assertEquals(2, countEvents(true));
+	}
+
+	@Test
+	public void testWaitForEvent() throws Exception {
+		assertEquals(Arrays.asList(2, 1), receiveTags(new PredicateType(2)));
+		assertEquals(Arrays.asList(1, 2), receiveTags(CloudSim.SIM_ANY));
+	}
+
+	@Test
+	public void testParallelExecution() throws Exception {
+		List<Double> expected = runFederatedScenario(1, -1, 0);
+		assertEquals(expected, runFederatedScenario(2, -1, 0));
+		assertEquals(expected, runFederatedScenario(2, 0, 0));
+	}
+
+	@Test
+	public void testParallelExecutionWithLookahead() throws Exception {
+		List<Double> expected = runFederatedScenario(1, -1, 0.5);
+		assertEquals(expected, runFederatedScenario(2, 0.5, 0.5));
+		assertEquals(expected, runFederatedScenario(3, -1, 0.5));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testParallelExecutionLookaheadViolation() throws Exception {
+		runFederatedScenario(2, 1, 0.5);
+	}
+
+	@Test(timeout = 60000)
+	public void testParallelExecutionPauseAt() throws Exception {
+		List<Double> expected = runFederatedScenario(1, -1, 0.5);
+		int finishedBeforePause = 0;
+		for (double finishTime : expected) {
+			if (finishTime < 700) {
+				finishedBeforePause++;
+			}
+		}
+		assertTrue(finishedBeforePause > 0);
+
+		for (int threads = 1; threads <= 2; threads++) {
+			for (double lookahead : new double[] { 0, 0.5 }) {
+				List<Double> pause = new ArrayList<Double>();
+				assertEquals(expected, runFederatedScenario(threads, lookahead, 0.5, 700, pause));
+				assertEquals(700.0, pause.get(0), 0);
+				// a sequential run pauses before the entities process the last events delivered
+				assertTrue(pause.get(1) <= finishedBeforePause);
+				if (threads > 1) {
+					assertEquals(finishedBeforePause, pause.get(1), 0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs, in a new simulation, a broker using two datacenters with a host each, running a VM
+	 * with a few cloudlets.
+	 *
+	 * @param threads the number of threads used to run the simulation
+	 * @param lookahead the lookahead of the parallel execution
+	 * @param latency the latency of the links between the broker and the datacenters, or 0 to
+	 *            disable the network
+	 * @return the finish time of each cloudlet, in the order they are received by the broker
+	 */
+	private static List<Double> runFederatedScenario(int threads, double lookahead, double latency)
+			throws Exception {
+		return runFederatedScenario(threads, lookahead, latency, -1, null);
+	}
+
+	/**
+	 * Runs, in a new simulation, a broker using two datacenters with a host each, running a VM
+	 * with a few cloudlets, pausing the simulation at a given time.
+	 *
+	 * @param threads the number of threads used to run the simulation
+	 * @param lookahead the lookahead of the parallel execution
+	 * @param latency the latency of the links between the broker and the datacenters, or 0 to
+	 *            disable the network
+	 * @param pauseAt the time at which the simulation is paused, or -1 not to pause it
+	 * @param pause the list where the clock and the number of cloudlets received by the broker
+	 *            are added when the simulation pauses
+	 * @return the finish time of each cloudlet, in the order they are received by the broker
+	 */
+	private static List<Double> runFederatedScenario(final int threads, final double lookahead,
+			final double latency, final long pauseAt, final List<Double> pause) throws Exception {
+		return new Simulation().call(new Callable<List<Double>>() {
+
+			@Override
+			public List<Double> call() throws Exception {
+				Log.disable();
+				CloudSim.init(1, null, false);
+
+				Datacenter[] datacenters = new Datacenter[2];
+				for (int i = 0; i < datacenters.length; i++) {
+					List<Pe> peList = new ArrayList<Pe>();
+					peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+					List<Host> hostList = new ArrayList<Host>();
+					hostList.add(new Host(0, new RamProvisionerSimple(512), new BwProvisionerSimple(10000),
+							1000000, peList, new VmSchedulerTimeShared(peList)));
+					DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux",
+							"Xen", hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+					datacenters[i] = new Datacenter("Datacenter_" + i, characteristics,
+							new VmAllocationPolicySimple(hostList), new LinkedList<Storage>(), 0);
+				}
+				DatacenterBroker broker = new DatacenterBroker("Broker");
+
+				if (latency > 0) {
+					for (Datacenter datacenter : datacenters) {
+						NetworkTopology.addLink(broker.getId(), datacenter.getId(), 1000, latency);
+					}
+				}
+
+				List<Vm> vmList = new ArrayList<Vm>();
+				List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
+				for (int i = 0; i < 2; i++) {
+					vmList.add(new Vm(i, broker.getId(), 1000, 1, 512, 1000, 10000, "Xen",
+							new CloudletSchedulerTimeShared()));
+				}
+				for (int i = 0; i < 6; i++) {
+					Cloudlet cloudlet = new Cloudlet(i, 100000 * (i + 1), 1, 300, 300, new UtilizationModelFull(),
+							new UtilizationModelFull(), new UtilizationModelFull());
+					cloudlet.setUserId(broker.getId());
+					cloudlet.setVmId(i % 2);
+					cloudletList.add(cloudlet);
+				}
+				broker.submitVmList(vmList);
+				broker.submitCloudletList(cloudletList);
+
+				CloudSim.setParallelism(threads);
+				CloudSim.setLookahead(lookahead);
+				Thread resumer = null;
+				if (pauseAt != -1) {
+					assertTrue(CloudSim.pauseSimulation(pauseAt));
+					resumer = resumeWhenPaused(Simulation.current(), broker, pause);
+				}
+				CloudSim.startSimulation();
+				if (resumer != null) {
+					resumer.join();
+				}
+
+				List<Double> finishTimes = new ArrayList<Double>();
+				for (Cloudlet cloudlet : broker.getCloudletReceivedList()) {
+					assertEquals(Cloudlet.SUCCESS, cloudlet.getCloudletStatus());
+					assertEquals(datacenters[cloudlet.getVmId()].getId(), cloudlet.getResourceId());
+					finishTimes.add(cloudlet.getFinishTime());
+				}
+				assertEquals(6, finishTimes.size());
+				return finishTimes;
+			}
+
+		});
+	}
+
+	/**
+	 * Starts a thread that waits for a simulation to pause, records its clock and the number of
+	 * cloudlets received by a broker, and resumes it.
+	 *
+	 * @param simulation the simulation
+	 * @param broker the broker
+	 * @param pause the list where the clock and the number of cloudlets are added
+	 * @return the thread
+	 */
+	private static Thread resumeWhenPaused(final Simulation simulation, final DatacenterBroker broker,
+			final List<Double> pause) {
+		Thread thread = new Thread() {
+
+			@Override
+			public void run() {
+				while (!simulation.isPaused()) {
+					Thread.yield();
+				}
+				pause.add(simulation.clock());
+				pause.add((double) broker.getCloudletReceivedList().size());
+				simulation.resumeSimulation();
+			}
+
+		};
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * Runs, in a new simulation, an entity that waits for an event while another one sends it
+	 * two messages, with tags 1 and 2.
+	 *
+	 * @param predicate the predicate of the event the first entity waits for
+	 * @return the tags of the messages, in the order they are processed
+	 */
+	private static List<Integer> receiveTags(final Predicate predicate) throws Exception {
+		return new Simulation().call(new Callable<List<Integer>>() {
+
+			@Override
+			public List<Integer> call() {
+				Log.disable();
+				CloudSim.init(1, null, false);
+				final List<Integer> tags = new ArrayList<Integer>();
+				final SimEntity waiter = new SimEntity("Waiter") {
+
+					@Override
+					public void startEntity() {
+						waitForEvent(predicate);
+					}
+
+					@Override
+					public void processEvent(SimEvent ev) {
+						tags.add(ev.getTag());
+					}
+
+					@Override
+					public void shutdownEntity() {
+					}
+
+				};
+				new SimEntity("Sender") {
+
+					@Override
+					public void startEntity() {
+						schedule(waiter.getId(), 1, 1);
+						schedule(waiter.getId(), 2, 2);
+					}
+
+					@Override
+					public void processEvent(SimEvent ev) {
+					}
+
+					@Override
+					public void shutdownEntity() {
+					}
+
+				};
+				CloudSim.startSimulation();
+				return tags;
+			}
+
+		});
+	}
+
+	/**
+	 * Runs, in a new simulation, an entity that sends a message to itself a few times.
+	 *
+	 * @param eventRecycling true to recycle the events
+	 * @return the number of distinct events received by the entity
+	 */
+	private static int countEvents(final boolean eventRecycling) throws Exception {
+		return new Simulation().call(new Callable<Integer>() {
+
+			@Override
+			public Integer call() {
+				Log.disable();
+				CloudSim.init(1, null, false);
+				final Set<SimEvent> events = Collections.newSetFromMap(new IdentityHashMap<SimEvent, Boolean>());
+				new SimEntity("Pinger") {
+
+					@Override
+					public void startEntity() {
+						schedule(getId(), 1, 0);
+					}
+
+					@Override
+					public void processEvent(SimEvent ev) {
+						events.add(ev);
+						if (ev.getTag() < 5) {
+							schedule(getId(), 1, ev.getTag() + 1);
+						}
+					}
+
+					@Override
+					public void shutdownEntity() {
+					}
+
+				};
+				CloudSim.setEventRecycling(eventRecycling);
+				CloudSim.startSimulation();
+				return events.size();
+			}
+
+		});
+	}
+
+	/**
+	 * Runs, in a new simulation, a datacenter with a host running two VMs with a few cloudlets
+	 * each.
+	 *
+	 * @param futureQueue the future event queue, or null to use the default one
+	 * @param eventRecycling true to recycle the events
+	 * @return the finish time of each cloudlet, in the order they are received by the broker
+	 */
+	private static List<Double> runScenario(final FutureQueue futureQueue, final boolean eventRecycling)
+			throws Exception {
+		return new Simulation().call(new Callable<List<Double>>() {
+
+			@Override
+			public List<Double> call() {
+				Log.disable();
+				if (futureQueue == null) {
+					CloudSim.init(1, null, false);
+				} else {
+					CloudSim.init(1, null, false, futureQueue);
+				}
+				CloudSim.setEventRecycling(eventRecycling);
+				return runScenario();
+			}
+
+		});
+	}
+
+	/**
+	 * Runs a simulation of a datacenter with a host running two VMs with a few cloudlets each.
+	 * The simulation has to be initialized.
+	 *
+	 * @return the finish time of each cloudlet, in the order they are received by the broker
+	 */
+	private static List<Double> runScenario() {
+
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+		peList.add(new Pe(1, new PeProvisionerSimple(1000)));
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(new Host(0, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), 1000000,
+				peList, new VmSchedulerTimeShared(peList)));
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen",
+				hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		Datacenter datacenter;
+		DatacenterBroker broker;
+		try {
+			datacenter = new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hostList),
+					new LinkedList<Storage>(), 0);
+			broker = new DatacenterBroker("Broker");
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		assertTrue(datacenter.getId() >= 0);
+
+		List<Vm> vmList = new ArrayList<Vm>();
+		List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
+		for (int i = 0; i < 2; i++) {
+			vmList.add(new Vm(i, broker.getId(), 1000, 1, 512, 1000, 10000, "Xen",
+					new CloudletSchedulerTimeShared()));
+		}
+		for (int i = 0; i < 6; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 100000 * (i + 1), 1, 300, 300, new UtilizationModelFull(),
+					new UtilizationModelFull(), new UtilizationModelFull());
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setVmId(i % 2);
+			cloudletList.add(cloudlet);
+		}
+		broker.submitVmList(vmList);
+		broker.submitCloudletList(cloudletList);
+
+		CloudSim.startSimulation();
+
+		List<Double> finishTimes = new ArrayList<Double>();
+		for (Cloudlet cloudlet : broker.getCloudletReceivedList()) {
+			assertEquals(Cloudlet.SUCCESS, cloudlet.getCloudletStatus());
+			finishTimes.add(cloudlet.getFinishTime());
+		}
+		assertEquals(6, finishTimes.size());
+		return finishTimes;
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class HashedListTest {
+
+	@Test
+	public void testSameAsArrayList() {
+		Random random = new Random(13);
+		List<String> expected = new ArrayList<String>();
+		HashedList<String> list = new HashedList<String>();
+
+		for (int step = 0; step < 5000; step++) {
+			String uid = Integer.toString(random.nextInt(10));
+			switch (random.nextInt(5)) {
+				case 0:
+				case 1:
+					expected.add(uid);
+					list.add(uid);
+					break;
+				case 2:
+					assertEquals(expected.remove(uid), list.remove(uid));
+					break;
+				case 3:
+					if (!expected.isEmpty()) {
+						int index = random.nextInt(expected.size());
+						assertEquals(expected.set(index, uid), list.set(index, uid));
+					}
+					break;
+				default:
+					if (random.nextInt(20) == 0) {
+						expected.clear();
+						list.clear();
+					}
+					break;
+			}
+
+			assertEquals(expected, list);
+			for (int i = 0; i < 10; i++) {
+				String other = Integer.toString(i);
+				assertEquals(expected.contains(other), list.contains(other));
+				assertEquals(expected.indexOf(other), list.indexOf(other));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class OrderedListTest {
+
+	@Test
+	public void testOrdersSameAsIndexes() {
+		Random random = new Random(5);
+		List<Object> expected = new ArrayList<Object>();
+		OrderedList<Object> list = new OrderedList<Object>();
+		List<Object> elements = new ArrayList<Object>();
+		for (int i = 0; i < 40; i++) {
+			elements.add(new Object());
+		}
+
+		for (int step = 0; step < 5000; step++) {
+			Object element = elements.get(random.nextInt(elements.size()));
+			switch (random.nextInt(10)) {
+				case 0:
+				case 1:
+				case 2:
+					// mostly appended once, as VMs and containers are
+					if (!expected.contains(element) || random.nextInt(20) == 0) {
+						expected.add(element);
+						list.add(element);
+					}
+					break;
+				case 3:
+					if (random.nextInt(5) == 0) {
+						int index = random.nextInt(expected.size() + 1);
+						expected.add(index, element);
+						list.add(index, element);
+					}
+					break;
+				case 4:
+				case 5:
+					assertEquals(expected.remove(element), list.remove(element));
+					break;
+				case 6:
+					if (!expected.isEmpty()) {
+						int index = random.nextInt(expected.size());
+						assertSame(expected.set(index, element), list.set(index, element));
+					}
+					break;
+				case 7:
+					List<Object> removed = Arrays.asList(element, elements.get(random.nextInt(elements.size())));
+					assertEquals(expected.removeAll(removed), list.removeAll(removed));
+					break;
+				case 8:
+					Iterator<Object> iterator = list.iterator();
+					Iterator<Object> expectedIterator = expected.iterator();
+					while (iterator.hasNext()) {
+						iterator.next();
+						expectedIterator.next();
+						if (random.nextInt(10) == 0) {
+							iterator.remove();
+							expectedIterator.remove();
+						}
+					}
+					break;
+				default:
+					if (random.nextInt(20) == 0) {
+						expected.clear();
+						list.clear();
+					} else if (expected.size() > 2) {
+						expected.subList(1, 3).clear();
+						list.subList(1, 3).clear();
+					}
+					break;
+			}
+
+			assertEquals(expected, list);
+			for (Object element1 : elements) {
+				int index1 = expected.indexOf(element1);
+				int order1 = list.getOrder(element1);
+				assertEquals(index1 < 0, order1 < 0);
+				for (Object element2 : elements) {
+					int index2 = expected.indexOf(element2);
+					if (index1 >= 0 && index2 >= 0) {
+						assertEquals(Integer.signum(index1 - index2),
+								Integer.signum(order1 - list.getOrder(element2)));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOrdersKeptOnRemoval() {
+		OrderedList<String> list = new OrderedList<String>();
+		list.addAll(Arrays.asList("a", "b", "c", "d"));
+		int order = list.getOrder("d");
+		list.remove("b");
+		assertEquals(order, list.getOrder("d"));
+		assertEquals(-1, list.getOrder("b"));
+		assertTrue(list.getOrder("a") < list.getOrder("c"));
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class ResCloudletIndexedListTest {
+
+	@Test
+	public void testGetById() {
+		ResCloudletIndexedList<ResCloudlet> list = new ResCloudletIndexedList<ResCloudlet>();
+		ResCloudlet rcl0 = createResCloudlet(0, 1);
+		ResCloudlet rcl1 = createResCloudlet(1, 1);
+		ResCloudlet other = createResCloudlet(1, 2);
+		list.add(rcl0);
+		list.add(rcl1);
+		list.add(other);
+
+		assertSame(rcl1, list.getById(1));
+		assertSame(rcl1, list.getByIdAndUserId(1, 1));
+		assertSame(other, list.getByIdAndUserId(1, 2));
+		assertSame(other, ResCloudletList.getByIdAndUserId(list, 1, 2));
+		assertEquals(2, ResCloudletList.indexOf(list, 1, 2));
+		assertNull(list.getByIdAndUserId(0, 2));
+		assertNull(list.getById(5));
+		assertEquals(-1, ResCloudletList.getPositionById(list, 5));
+
+		assertTrue(list.remove(rcl1));
+		assertFalse(list.contains(rcl1));
+		assertSame(other, list.getById(1));
+		assertTrue(list.removeAll(Arrays.asList(other, rcl0)));
+		assertTrue(list.isEmpty());
+		assertNull(list.getById(0));
+		assertNull(list.getById(1));
+	}
+
+	@Test
+	public void testSameAsLinkedList() {
+		Random random = new Random(11);
+		List<ResCloudlet> expected = new LinkedList<ResCloudlet>();
+		ResCloudletIndexedList<ResCloudlet> list = new ResCloudletIndexedList<ResCloudlet>();
+		List<ResCloudlet> cloudlets = new ArrayList<ResCloudlet>();
+		for (int i = 0; i < 50; i++) {
+			// some cloudlets of different users share ids
+			cloudlets.add(createResCloudlet(i % 40, i / 40));
+		}
+
+		for (int step = 0; step < 5000; step++) {
+			ResCloudlet rcl = cloudlets.get(random.nextInt(cloudlets.size()));
+			switch (random.nextInt(6)) {
+				case 0:
+				case 1:
+					if (!expected.contains(rcl)) {
+						expected.add(rcl);
+						list.add(rcl);
+					}
+					break;
+				case 2:
+					assertEquals(expected.remove(rcl), list.remove(rcl));
+					break;
+				case 3:
+					if (!expected.isEmpty()) {
+						int index = random.nextInt(expected.size());
+						assertSame(expected.remove(index), list.remove(index));
+					}
+					break;
+				case 4:
+					if (!expected.contains(rcl)) {
+						int index = random.nextInt(expected.size() + 1);
+						expected.add(index, rcl);
+						list.add(index, rcl);
+					}
+					break;
+				default:
+					Iterator<ResCloudlet> iterator = list.iterator();
+					while (iterator.hasNext()) {
+						if (iterator.next().getCloudletId() % 7 == step % 7) {
+							iterator.remove();
+						}
+					}
+					iterator = expected.iterator();
+					while (iterator.hasNext()) {
+						if (iterator.next().getCloudletId() % 7 == step % 7) {
+							iterator.remove();
+						}
+					}
+					break;
+			}
+
+			assertEquals(expected, list);
+			for (ResCloudlet c : cloudlets) {
+				assertEquals(expected.contains(c), list.contains(c));
+				assertSame(ResCloudletList.getByIdAndUserId(new ArrayList<ResCloudlet>(expected),
+						c.getCloudletId(), c.getUserId()), list.getByIdAndUserId(c.getCloudletId(), c.getUserId()));
+				assertEquals(ResCloudletList.getById(new ArrayList<ResCloudlet>(expected), c.getCloudletId()) == null,
+						list.getById(c.getCloudletId()) == null);
+			}
+		}
+	}
+
+	@Test
+	public void testListIterator() {
+		ResCloudletIndexedList<ResCloudlet> list = new ResCloudletIndexedList<ResCloudlet>();
+		ResCloudlet rcl0 = createResCloudlet(0, 1);
+		ResCloudlet rcl1 = createResCloudlet(1, 1);
+		ResCloudlet rcl2 = createResCloudlet(2, 1);
+		list.add(rcl0);
+		list.add(rcl2);
+
+		ListIterator<ResCloudlet> iterator = list.listIterator(1);
+		iterator.add(rcl1);
+		assertSame(rcl2, iterator.next());
+		assertSame(rcl2, iterator.previous());
+		assertSame(rcl1, iterator.previous());
+		iterator.set(createResCloudlet(3, 1));
+		assertNull(list.getById(1));
+		assertEquals(3, list.get(1).getCloudletId());
+		assertSame(rcl2, list.get(2));
+	}
+
+	private static ResCloudlet createResCloudlet(int cloudletId, int userId) {
+		Cloudlet cloudlet = new Cloudlet(cloudletId, 1000, 1, 300, 300, new UtilizationModelFull(),
+				new UtilizationModelFull(), new UtilizationModelFull());
+		cloudlet.setUserId(userId);
+		return new ResCloudlet(cloudlet);
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class VmIndexedListTest {
+
+	@Test
+	public void testSameAsArrayList() {
+		Random random = new Random(5);
+		List<Vm> expected = new ArrayList<Vm>();
+		VmIndexedList<Vm> list = new VmIndexedList<Vm>();
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < 60; i++) {
+			// the VMs of different users share ids, and some VMs share both id and user
+			vms.add(new Vm(i % 20, i % 50 / 20, 0, 1, 0, 0, 0, "", null));
+		}
+
+		for (int step = 0; step < 5000; step++) {
+			Vm vm = vms.get(random.nextInt(vms.size()));
+			switch (random.nextInt(8)) {
+				case 0:
+				case 1:
+					expected.add(vm);
+					list.add(vm);
+					break;
+				case 2:
+					assertEquals(expected.remove(vm), list.remove(vm));
+					break;
+				case 3:
+					if (!expected.isEmpty()) {
+						int index = random.nextInt(expected.size());
+						assertSame(expected.remove(index), list.remove(index));
+					}
+					break;
+				case 4:
+					if (!expected.isEmpty()) {
+						int index = random.nextInt(expected.size());
+						assertSame(expected.set(index, vm), list.set(index, vm));
+					}
+					break;
+				case 5:
+					List<Vm> removed = Arrays.asList(vm, vms.get(random.nextInt(vms.size())));
+					assertEquals(expected.removeAll(removed), list.removeAll(removed));
+					break;
+				case 6:
+					Iterator<Vm> iterator = list.iterator();
+					while (iterator.hasNext()) {
+						if (iterator.next().getId() % 5 == step % 5) {
+							iterator.remove();
+						}
+					}
+					iterator = expected.iterator();
+					while (iterator.hasNext()) {
+						if (iterator.next().getId() % 5 == step % 5) {
+							iterator.remove();
+						}
+					}
+					break;
+				default:
+					if (expected.size() > 2) {
+						expected.subList(1, 3).clear();
+						list.subList(1, 3).clear();
+					}
+					break;
+			}
+
+			assertEquals(expected, list);
+			for (Vm other : vms) {
+				assertEquals(expected.contains(other), list.contains(other));
+				assertSame(VmList.getById(expected, other.getId()), VmList.getById(list, other.getId()));
+				assertSame(VmList.getByIdAndUserId(expected, other.getId(), other.getUserId()),
+						VmList.getByIdAndUserId(list, other.getId(), other.getUserId()));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G4Xeon3040;
+import org.cloudbus.cloudsim.power.models.PowerModelSpecPowerHpProLiantMl110G5Xeon3075;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class PowerVmAllocationPolicyMigrationAbstractTest {
+
+	/** More hosts than a single scoring task scores, so that they are scored in parallel. */
+	private static final int HOSTS = 150;
+
+	private static final double[] VM_MIPS = { 250, 500, 750, 1000 };
+
+	@Test
+	public void testFindHostForVmByScoreSameAsSerial() {
+		List<PowerHost> serialHosts = createHosts(new Random(5));
+		List<PowerHost> scoredHosts = createHosts(new Random(5));
+		CountingPolicy serialPolicy = new CountingPolicy(serialHosts);
+		CountingPolicy scoredPolicy = new CountingPolicy(scoredHosts);
+		scoredPolicy.setParallelHostScoring(true);
+
+		Random random = new Random(5);
+		for (int step = 0; step < 400; step++) {
+			double mips = VM_MIPS[random.nextInt(VM_MIPS.length)];
+			Vm serialVm = createVm(step, mips);
+			Vm scoredVm = createVm(step, mips);
+			Set<Host> serialExcludedHosts = new HashSet<Host>();
+			Set<Host> scoredExcludedHosts = new HashSet<Host>();
+			for (int i = 0; i < 10; i++) {
+				int excluded = random.nextInt(HOSTS);
+				serialExcludedHosts.add(serialHosts.get(excluded));
+				scoredExcludedHosts.add(scoredHosts.get(excluded));
+			}
+
+			PowerHost serialHost = serialPolicy.findHostForVm(serialVm, serialExcludedHosts);
+			PowerHost scoredHost = scoredPolicy.findHostForVm(scoredVm, scoredExcludedHosts);
+			if (serialHost == null) {
+				assertNull(scoredHost);
+			} else {
+				assertEquals(serialHost.getId(), scoredHost.getId());
+				serialHost.vmCreate(serialVm);
+				scoredHost.vmCreate(scoredVm);
+			}
+		}
+
+		// some hosts would have been over-utilized, and the same ones were checked
+		assertTrue(serialPolicy.overUtilizedHosts > 0);
+		assertEquals(serialPolicy.overUtilizedHosts, scoredPolicy.overUtilizedHosts);
+		assertEquals(serialPolicy.checkedHostIds, scoredPolicy.checkedHostIds);
+		assertEquals(serialPolicy.getTimeHistory(), scoredPolicy.getTimeHistory());
+		assertEquals(serialPolicy.getUtilizationHistory(), scoredPolicy.getUtilizationHistory());
+		assertEquals(serialPolicy.getMetricHistory(), scoredPolicy.getMetricHistory());
+		for (int id = 0; id < HOSTS; id++) {
+			PowerHost serialHost = serialHosts.get(id);
+			PowerHost scoredHost = scoredHosts.get(id);
+			assertEquals(serialHost.getVmList().size(), scoredHost.getVmList().size());
+			for (int i = 0; i < serialHost.getVmList().size(); i++) {
+				assertEquals(serialHost.getVmScheduler().getAllocatedMipsForVm(serialHost.getVmList().get(i)),
+						scoredHost.getVmScheduler().getAllocatedMipsForVm(scoredHost.getVmList().get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testFindHostForVmByScoreEmptyHost() {
+		Random random = new Random(7);
+		PowerVmAllocationPolicyMigrationStaticThreshold policy = new PowerVmAllocationPolicyMigrationStaticThreshold(
+				createHosts(random), new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+		policy.setParallelHostScoring(true);
+
+		PowerHost host = policy.findHostForVm(createVm(0, VM_MIPS[0]), new HashSet<Host>());
+		assertNotNull(host);
+	}
+
+	@Test
+	public void testRestoreAllocationSameAsFullRestore() {
+		List<PowerHost> hosts = createHosts(new Random(9));
+		List<PowerHost> fullHosts = createHosts(new Random(9));
+		PowerVmAllocationPolicyMigrationStaticThreshold policy = new PowerVmAllocationPolicyMigrationStaticThreshold(
+				hosts, new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+		PowerVmAllocationPolicyMigrationStaticThreshold fullPolicy = new PowerVmAllocationPolicyMigrationStaticThreshold(
+				fullHosts, new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+
+		// places VMs and destroys some of them, so that the hosts have different histories
+		Random random = new Random(9);
+		List<Vm> vms = new ArrayList<Vm>();
+		List<Vm> fullVms = new ArrayList<Vm>();
+		for (int id = 0; id < 3 * HOSTS; id++) {
+			double mips = VM_MIPS[random.nextInt(VM_MIPS.length)];
+			Vm vm = createVm(id, mips);
+			Vm fullVm = createVm(id, mips);
+			PowerHost host = policy.findHostForVm(vm, new HashSet<Host>());
+			if (host != null) {
+				fullHosts.get(host.getId()).vmCreate(fullVm);
+				host.vmCreate(vm);
+				vms.add(vm);
+				fullVms.add(fullVm);
+			}
+			if (random.nextInt(4) == 0) {
+				int i = random.nextInt(vms.size());
+				vms.get(i).getHost().vmDestroy(vms.remove(i));
+				fullVms.get(i).getHost().vmDestroy(fullVms.remove(i));
+			}
+		}
+
+		// the allocation of every host, restored in full as before
+		List<List<Vm>> fullAllocation = new ArrayList<List<Vm>>();
+		for (PowerHost host : fullHosts) {
+			fullAllocation.add(new ArrayList<Vm>(host.getVmList()));
+		}
+
+		// plans moves of some VMs, changing only their hosts and the hosts found for them
+		policy.saveAllocation();
+		for (int step = 0; step < 30; step++) {
+			int i = random.nextInt(vms.size());
+			moveTentatively(policy, vms.get(i));
+			moveTentatively(fullPolicy, fullVms.get(i));
+		}
+		policy.restoreAllocation();
+		for (PowerHost host : fullHosts) {
+			host.vmDestroyAll();
+			host.reallocateMigratingInVms();
+		}
+		for (int id = 0; id < HOSTS; id++) {
+			for (Vm vm : fullAllocation.get(id)) {
+				assertTrue(fullHosts.get(id).vmCreate(vm));
+			}
+		}
+
+		assertTrue(policy.getSavedAllocation().size() < HOSTS);
+		for (int id = 0; id < HOSTS; id++) {
+			PowerHost host = hosts.get(id);
+			PowerHost fullHost = fullHosts.get(id);
+			assertEquals(fullHost.getVmList().size(), host.getVmList().size());
+			for (int i = 0; i < host.getVmList().size(); i++) {
+				Vm vm = host.getVmList().get(i);
+				Vm fullVm = fullHost.getVmList().get(i);
+				assertEquals(fullVm.getId(), vm.getId());
+				assertEquals(fullHost.getVmScheduler().getAllocatedMipsForVm(fullVm),
+						host.getVmScheduler().getAllocatedMipsForVm(vm));
+				for (int pe = 0; pe < host.getNumberOfPes(); pe++) {
+					assertEquals(fullHost.getPeList().get(pe).getPeProvisioner().getAllocatedMipsForVm(fullVm),
+							host.getPeList().get(pe).getPeProvisioner().getAllocatedMipsForVm(vm));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves a VM tentatively to the host a policy finds for it, as planning the migrations does.
+	 */
+	private static void moveTentatively(PowerVmAllocationPolicyMigrationAbstract policy, Vm vm) {
+		Host source = vm.getHost();
+		if (source == null) {
+			return;
+		}
+		Set<Host> excludedHosts = new HashSet<Host>();
+		excludedHosts.add(source);
+		PowerHost host = policy.findHostForVm(vm, excludedHosts);
+		if (host != null) {
+			policy.vmDestroyTentatively(source, vm);
+			policy.vmCreateTentatively(host, vm);
+		}
+	}
+
+	private static List<PowerHost> createHosts(Random random) {
+		List<PowerHost> hostList = new ArrayList<PowerHost>();
+		for (int id = 0; id < HOSTS; id++) {
+			hostList.add(createHost(id, random));
+		}
+		return hostList;
+	}
+
+	private static PowerHost createHost(int id, Random random) {
+		PowerModel powerModel;
+		int pes;
+		switch (random.nextInt(3)) {
+			case 0:
+				powerModel = new PowerModelSpecPowerHpProLiantMl110G4Xeon3040();
+				pes = 2;
+				break;
+			case 1:
+				powerModel = new PowerModelSpecPowerHpProLiantMl110G5Xeon3075();
+				pes = 2;
+				break;
+			default:
+				powerModel = new PowerModelLinear(250, 0.7);
+				pes = 4;
+		}
+		List<Pe> peList = new ArrayList<Pe>();
+		for (int i = 0; i < pes; i++) {
+			peList.add(new Pe(i, new PeProvisionerSimple(1000)));
+		}
+		return new PowerHost(id, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000,
+				peList, new VmSchedulerTimeShared(peList), powerModel);
+	}
+
+	private static Vm createVm(int id, double mips) {
+		return new Vm(id, 1, mips, 1, 512, 1000, 2500, "Xen", new CloudletSchedulerDynamicWorkload(mips, 1));
+	}
+
+	/**
+	 * A static threshold policy that records the hosts checked for over-utilization.
+	 */
+	private static class CountingPolicy extends PowerVmAllocationPolicyMigrationStaticThreshold {
+
+		private final List<Integer> checkedHostIds = new ArrayList<Integer>();
+
+		private int overUtilizedHosts;
+
+		CountingPolicy(List<PowerHost> hostList) {
+			super(hostList, new PowerVmSelectionPolicyMinimumMigrationTime(), 0.8);
+		}
+
+		@Override
+		protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
+			checkedHostIds.add(host.getId());
+			boolean overUtilized = super.isHostOverUtilizedAfterAllocation(host, vm);
+			if (overUtilized) {
+				overUtilizedHosts++;
+			}
+			return overUtilized;
+		}
+
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class CloudletCompletionQueueTest {
+
+	@Test
+	public void testAddOnce() {
+		CloudletCompletionQueue<String> queue = new CloudletCompletionQueue<String>();
+		assertTrue(queue.isEmpty());
+		assertTrue(queue.poll().isEmpty());
+
+		String a = "a";
+		String b = "b";
+		queue.add(b);
+		queue.add(a);
+		queue.add(b);
+		assertFalse(queue.isEmpty());
+		assertEquals(Arrays.asList(b, a), queue.poll());
+		assertTrue(queue.isEmpty());
+
+		queue.add(b);
+		assertEquals(Arrays.asList(b), queue.poll());
+	}
+
+	@Test
+	public void testSchedulerNotifiesFinishedCloudlets() {
+		CloudletCompletionQueue<Vm> queue = new CloudletCompletionQueue<Vm>();
+		CloudletSchedulerTimeShared scheduler = new CloudletSchedulerTimeShared();
+		Vm vm = new Vm(0, 0, 1000, 1, 512, 1000, 10000, "Xen", scheduler);
+		scheduler.setCompletionQueue(queue, vm);
+
+		List<Double> mipsShare = new ArrayList<Double>();
+		mipsShare.add(1000.0);
+		scheduler.updateVmProcessing(0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet());
+
+		scheduler.updateVmProcessing(0.5, mipsShare);
+		assertTrue(queue.isEmpty());
+		scheduler.updateVmProcessing(1, mipsShare);
+		assertEquals(Arrays.asList(vm), queue.poll());
+		assertTrue(scheduler.isFinishedCloudlets());
+	}
+
+	@Test
+	public void testSchedulerQueuedWhenAlreadyFinished() {
+		CloudletCompletionQueue<Vm> queue = new CloudletCompletionQueue<Vm>();
+		CloudletSchedulerTimeShared scheduler = new CloudletSchedulerTimeShared();
+		Vm vm = new Vm(0, 0, 1000, 1, 512, 1000, 10000, "Xen", scheduler);
+
+		List<Double> mipsShare = new ArrayList<Double>();
+		mipsShare.add(1000.0);
+		scheduler.updateVmProcessing(0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet());
+		scheduler.updateVmProcessing(1, mipsShare);
+
+		scheduler.setCompletionQueue(queue, vm);
+		assertEquals(Arrays.asList(vm), queue.poll());
+	}
+
+	@Test
+	public void testSchedulerOverridingCloudletFinish() {
+		CloudletCompletionQueue<Vm> queue = new CloudletCompletionQueue<Vm>();
+		CloudletSchedulerTimeShared scheduler = new CloudletSchedulerTimeShared() {
+
+			@Override
+			public void cloudletFinish(ResCloudlet rcl) {
+				rcl.setCloudletStatus(Cloudlet.SUCCESS);
+				rcl.finalizeCloudlet();
+				getCloudletFinishedList().add(rcl);
+			}
+
+		};
+		Vm vm = new Vm(0, 0, 1000, 1, 512, 1000, 10000, "Xen", scheduler);
+		scheduler.setCompletionQueue(queue, vm);
+		assertTrue(scheduler.isNotifyingCloudletFinished());
+
+		List<Double> mipsShare = new ArrayList<Double>();
+		mipsShare.add(1000.0);
+		scheduler.updateVmProcessing(0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet());
+		scheduler.updateVmProcessing(1, mipsShare);
+		assertEquals(Arrays.asList(vm), queue.poll());
+	}
+
+	@Test
+	public void testSchedulerWithOwnFinishedList() {
+		CloudletSchedulerTimeShared scheduler = new CloudletSchedulerTimeShared() {
+
+			{
+				setCloudletFinishedList(new ArrayList<ResCloudlet>());
+			}
+
+		};
+		assertFalse(scheduler.isNotifyingCloudletFinished());
+	}
+
+	/**
+	 * Creates a cloudlet of 1000 MI, assigned to a datacenter.
+	 */
+	private static Cloudlet createCloudlet() {
+		UtilizationModelFull utilizationModel = new UtilizationModelFull();
+		Cloudlet cloudlet = new Cloudlet(0, 1000, 1, 0, 0, utilizationModel, utilizationModel,
+				utilizationModel);
+		cloudlet.setResourceParameter(0, 0, 0);
+		return cloudlet;
+	}
+
+}
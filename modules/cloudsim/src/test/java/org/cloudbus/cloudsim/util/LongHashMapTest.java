@@ -0,0 +1,68 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class LongHashMapTest {
+
+	@Test
+	public void testSameAsHashMap() {
+		Random random = new Random(3);
+		Map<Long, String> expected = new HashMap<Long, String>();
+		LongHashMap<String> map = new LongHashMap<String>();
+
+		for (int step = 0; step < 20000; step++) {
+			// few distinct keys, including negative and large ones, so that the probe sequences collide
+			long key = random.nextInt(300) - 100;
+			if (random.nextBoolean()) {
+				key <<= 32;
+			}
+			switch (random.nextInt(4)) {
+				case 0:
+				case 1:
+					String value = Integer.toString(step);
+					assertEquals(expected.put(key, value), map.put(key, value));
+					break;
+				case 2:
+					assertEquals(expected.remove(key), map.remove(key));
+					break;
+				default:
+					assertEquals(expected.get(key), map.get(key));
+					break;
+			}
+			assertEquals(expected.size(), map.size());
+			if (step % 5000 == 4999) {
+				expected.clear();
+				map.clear();
+			}
+		}
+		for (Map.Entry<Long, String> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testPutNull() {
+		LongHashMap<String> map = new LongHashMap<String>();
+		assertNull(map.get(1));
+		map.put(1, null);
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.Simulation;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class ParallelHostUpdaterTest {
+
+	private static final int HOSTS = 1000;
+
+	private static final int MIGRATION_SOURCE = 5;
+
+	private static final int MIGRATION_DESTINATION = 700;
+
+	@Test
+	public void testUpdateInParallel() throws Exception {
+		List<Integer> updated = update(true, true);
+
+		assertEquals(HOSTS, updated.size());
+		List<Integer> sorted = new ArrayList<Integer>(updated);
+		Collections.sort(sorted);
+		for (int i = 0; i < HOSTS; i++) {
+			assertEquals(i, (int) sorted.get(i));
+		}
+		// the hosts sharing a migrating VM go last, in the order of the list
+		assertEquals(MIGRATION_SOURCE, (int) updated.get(HOSTS - 2));
+		assertEquals(MIGRATION_DESTINATION, (int) updated.get(HOSTS - 1));
+	}
+
+	@Test
+	public void testUpdateSequentially() throws Exception {
+		@SuppressWarnings("unchecked")
+		List<List<Integer>> runs = Arrays.asList(update(false, true), update(true, false));
+		for (List<Integer> updated : runs) {
+			assertEquals(HOSTS, updated.size());
+			for (int i = 0; i < HOSTS; i++) {
+				assertEquals(i, (int) updated.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Updates a list of hosts in a new simulation, checking that the updates run in the context
+	 * of the simulation and the minimum time returned.
+	 *
+	 * @param parallel true to update the hosts in parallel
+	 * @param logDisabled true to disable the log
+	 * @return the indexes of the hosts, in the order they have been updated
+	 */
+	private static List<Integer> update(final boolean parallel, final boolean logDisabled) throws Exception {
+		final Simulation simulation = new Simulation();
+		return simulation.call(new Callable<List<Integer>>() {
+
+			@Override
+			public List<Integer> call() {
+				Log.setDisabled(logDisabled);
+				final List<Integer> updated = Collections.synchronizedList(new ArrayList<Integer>());
+				ParallelHostUpdater<FakeHost> updater = new ParallelHostUpdater<FakeHost>() {
+
+					@Override
+					protected double updateVmsProcessing(FakeHost host, double currentTime) {
+						assertSame(simulation, Simulation.current());
+						updated.add(host.index);
+						return currentTime + (host.index + 17) % HOSTS;
+					}
+
+					@Override
+					protected void addMigratingHosts(FakeHost host, Set<FakeHost> migrating) {
+						if (host.index == MIGRATION_DESTINATION) {
+							migrating.add(host);
+							migrating.add(host.migrationSource);
+						}
+					}
+
+				};
+
+				List<FakeHost> hosts = new ArrayList<FakeHost>();
+				for (int i = 0; i < HOSTS; i++) {
+					hosts.add(new FakeHost(i));
+				}
+				hosts.get(MIGRATION_DESTINATION).migrationSource = hosts.get(MIGRATION_SOURCE);
+
+				assertEquals(10.0, updater.update(hosts, 10.0, parallel), 0);
+				assertEquals(Double.MAX_VALUE, updater.update(new ArrayList<FakeHost>(), 10.0, parallel), 0);
+				return updated;
+			}
+
+		});
+	}
+
+	private static class FakeHost {
+
+		private final int index;
+
+		private FakeHost migrationSource;
+
+		FakeHost(int index) {
+			this.index = index;
+		}
+
+	}
+
+}
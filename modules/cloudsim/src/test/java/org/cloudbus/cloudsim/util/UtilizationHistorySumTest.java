@@ -0,0 +1,93 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class UtilizationHistorySumTest {
+
+	private static final int CAPACITY = 30;
+
+	private static final double HOST_MIPS = 3000;
+
+	@Test
+	public void testEmpty() {
+		UtilizationHistorySum sum = new UtilizationHistorySum(CAPACITY);
+		sum.startUpdate(HOST_MIPS);
+		assertArrayEquals(new double[] { 0 }, sum.finishUpdate(), 0);
+	}
+
+	@Test
+	public void testSameAsSummingAgain() {
+		Random random = new Random(11);
+		UtilizationHistorySum sum = new UtilizationHistorySum(CAPACITY);
+		List<UtilizationHistory> parts = new ArrayList<UtilizationHistory>();
+		List<Double> mips = new ArrayList<Double>();
+
+		for (int step = 0; step < 2000; step++) {
+			double action = random.nextDouble();
+			if (action < 0.1) {
+				// a part is added at the end, with some history of its own
+				UtilizationHistory part = new UtilizationHistory(CAPACITY);
+				int values = random.nextInt(CAPACITY + 5);
+				for (int i = 0; i < values; i++) {
+					part.add(nextUtilization(random));
+				}
+				parts.add(part);
+				mips.add((double) (250 * (1 + random.nextInt(4))));
+			} else if (action < 0.15 && !parts.isEmpty()) {
+				int index = random.nextInt(parts.size());
+				parts.remove(index);
+				mips.remove(index);
+			} else if (action < 0.2 && !parts.isEmpty()) {
+				// a single part gets a new value
+				parts.get(random.nextInt(parts.size())).add(nextUtilization(random));
+			} else {
+				// all the parts get the same number of new values
+				int values = random.nextInt(3);
+				for (UtilizationHistory part : parts) {
+					for (int i = 0; i < values; i++) {
+						part.add(nextUtilization(random));
+					}
+				}
+			}
+
+			sum.startUpdate(HOST_MIPS);
+			for (int k = 0; k < parts.size(); k++) {
+				sum.addPart(parts.get(k), mips.get(k));
+			}
+			assertArrayEquals(sumAgain(parts, mips), sum.finishUpdate(), 0);
+		}
+	}
+
+	private static double nextUtilization(Random random) {
+		// some values are exactly zero, as for idle VMs
+		return random.nextDouble() < 0.2 ? 0 : random.nextDouble();
+	}
+
+	private static double[] sumAgain(List<UtilizationHistory> parts, List<Double> mips) {
+		double[] utilizationHistory = new double[CAPACITY];
+		for (int k = 0; k < parts.size(); k++) {
+			for (int i = 0; i < parts.get(k).size(); i++) {
+				utilizationHistory[i] += parts.get(k).get(i) * mips.get(k) / HOST_MIPS;
+			}
+		}
+		return MathUtil.trimZeroTail(utilizationHistory);
+	}
+
+}
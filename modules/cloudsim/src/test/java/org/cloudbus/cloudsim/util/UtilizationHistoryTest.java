@@ -0,0 +1,106 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class UtilizationHistoryTest {
+
+	private static final int CAPACITY = 30;
+
+	@Test
+	public void testEmpty() {
+		UtilizationHistory history = new UtilizationHistory(CAPACITY);
+		assertTrue(history.isEmpty());
+		assertEquals(0, history.getMean(), 0);
+		assertEquals(0, history.getVariance(), 0);
+		assertEquals(0, history.getMad(), 0);
+		assertEquals(0, history.toArray().length);
+	}
+
+	@Test
+	public void testSameAsList() {
+		Random random = new Random(7);
+		UtilizationHistory history = new UtilizationHistory(CAPACITY);
+		List<Double> expected = new LinkedList<Double>();
+
+		for (int step = 0; step < 1000; step++) {
+			double value = random.nextDouble();
+			history.add(value);
+			expected.add(0, value);
+			if (expected.size() > CAPACITY) {
+				expected.remove(CAPACITY);
+			}
+
+			assertEquals(expected.size(), history.size());
+			assertEquals(expected, history.asList());
+			double[] array = MathUtil.listToArray(expected);
+			assertArrayEquals(array, history.toArray(), 0);
+			for (int i = 0; i < array.length; i++) {
+				assertEquals(array[i], history.get(i), 0);
+				assertEquals(array[i], history.getValues()[history.getOffset() + i], 0);
+			}
+
+			double mean = MathUtil.mean(expected);
+			double variance = 0;
+			for (double v : expected) {
+				variance += (v - mean) * (v - mean);
+			}
+			variance /= expected.size();
+			assertEquals(MathUtil.sum(expected), history.getSum(), 1e-9);
+			assertEquals(mean, history.getMean(), 1e-9);
+			assertEquals(variance, history.getVariance(), 1e-9);
+			assertEquals(MathUtil.median(expected), history.getMedian(), 0);
+			assertEquals(MathUtil.mad(array), history.getMad(), 0);
+		}
+	}
+
+	@Test
+	public void testVarianceOfNearlyConstantHistory() {
+		Random random = new Random(11);
+		UtilizationHistory history = new UtilizationHistory(CAPACITY);
+		List<Double> expected = new LinkedList<Double>();
+		for (int step = 0; step < 100; step++) {
+			double value = 0.7 + random.nextDouble() * 1e-9;
+			history.add(value);
+			expected.add(0, value);
+			if (expected.size() > CAPACITY) {
+				expected.remove(CAPACITY);
+			}
+		}
+
+		double mean = MathUtil.mean(expected);
+		double variance = 0;
+		for (double v : expected) {
+			variance += (v - mean) * (v - mean);
+		}
+		variance /= expected.size();
+		assertTrue(variance > 0);
+		assertEquals(variance, history.getVariance(), variance * 1e-6);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfBounds() {
+		UtilizationHistory history = new UtilizationHistory(CAPACITY);
+		history.add(0.5);
+		history.get(1);
+	}
+
+}
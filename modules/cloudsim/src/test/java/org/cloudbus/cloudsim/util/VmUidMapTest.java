@@ -0,0 +1,83 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Test;
+
+/**
+ * @since CloudSim Toolkit 4.0
+ */
+public class VmUidMapTest {
+
+	@Test
+	public void testGet() {
+		VmUidMap<String> map = new VmUidMap<String>();
+		map.put(Vm.getUid(3, 1), "a");
+		map.put(Vm.getUid(-1, -1), "b");
+		map.put(Vm.getUid(1, 3), "c");
+		map.put("03-1", "d");
+		map.put("x", "e");
+
+		assertEquals("a", map.get(3, 1));
+		assertEquals("b", map.get(-1, -1));
+		assertEquals("c", map.get(1, 3));
+		assertEquals("d", map.get("03-1"));
+		assertEquals(5, map.size());
+
+		assertEquals("d", map.remove("03-1"));
+		assertEquals("a", map.get(3, 1));
+		assertEquals("a", map.remove(Vm.getUid(3, 1)));
+		assertNull(map.get(3, 1));
+		assertNull(map.remove(Vm.getUid(3, 1)));
+
+		map.put(Vm.getUid(1, 3), null);
+		assertNull(map.get(1, 3));
+		map.put(Vm.getUid(1, 3), "f");
+		assertEquals("f", VmUidMap.get(map, 1, 3));
+		assertEquals("f", VmUidMap.get(new HashMap<String, String>(map), 1, 3));
+	}
+
+	@Test
+	public void testEntrySet() {
+		VmUidMap<String> map = new VmUidMap<String>();
+		for (int i = 0; i < 10; i++) {
+			map.put(Vm.getUid(i, i), Integer.toString(i));
+		}
+
+		Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, String> entry = iterator.next();
+			if (entry.getKey().equals(Vm.getUid(2, 2))) {
+				iterator.remove();
+			} else if (entry.getKey().equals(Vm.getUid(5, 5))) {
+				entry.setValue("five");
+			}
+		}
+		map.values().remove("7");
+		map.keySet().remove(Vm.getUid(8, 8));
+
+		assertNull(map.get(2, 2));
+		assertEquals("five", map.get(5, 5));
+		assertEquals("five", map.get(Vm.getUid(5, 5)));
+		assertNull(map.get(7, 7));
+		assertNull(map.get(8, 8));
+		assertEquals(7, map.size());
+		map.clear();
+		assertNull(map.get(0, 0));
+	}
+
+}
@@ -1,6 +1,7 @@
 package org.cloudbus.cloudsim.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -47,4 +48,30 @@ public class WorkloadFileReaderTest {
 	    assertTrue(cloudlet.getCloudletLength() > 0);
 	}
     }
+
+    @Test
+    public void stream() throws FileNotFoundException {
+
+	WorkloadFileReader r = new WorkloadFileReader("src"
+		+ File.separator
+		+ "test"
+		+ File.separator
+		+ "LCG.swf.gz", 1);
+	List<Cloudlet> cloudletlist = r.generateWorkload();
+	CloudletSource source = r.streamWorkload();
+
+	double arrivalTime = 0;
+	for (Cloudlet expected : cloudletlist) {
+	    assertTrue(source.hasNext());
+	    assertTrue(source.getNextArrivalTime() >= arrivalTime);
+	    arrivalTime = source.getNextArrivalTime();
+
+	    Cloudlet cloudlet = source.next();
+	    assertEquals(expected.getCloudletId(), cloudlet.getCloudletId());
+	    assertEquals(expected.getCloudletLength(), cloudlet.getCloudletLength());
+	    assertEquals(expected.getNumberOfPes(), cloudlet.getNumberOfPes());
+	    assertEquals(arrivalTime, cloudlet.getSubmissionDelay(), 0);
+	}
+	assertFalse(source.hasNext());
+    }
 }